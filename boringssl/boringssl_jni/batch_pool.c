@@ -0,0 +1,151 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#include "batch_pool.h"
+
+#include <pthread.h>
+#include <unistd.h>
+
+// Jobs of concurrent batches queue up; the workers take tasks from the oldest job.
+typedef struct batch_job {
+  batch_task_fn fn;
+  void *ctx;
+  int num_tasks;
+  int next_task;
+  int pending_tasks;
+  struct batch_job *next;
+} batch_job;
+
+static pthread_mutex_t batch_pool_lock = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t batch_work_available = PTHREAD_COND_INITIALIZER;
+static pthread_cond_t batch_work_done = PTHREAD_COND_INITIALIZER;
+static pthread_once_t batch_pool_once = PTHREAD_ONCE_INIT;
+static pthread_t batch_workers[BATCH_POOL_MAX_THREADS - 1];
+static int batch_num_workers = 0;
+static int batch_pool_shutdown = 0;
+// jobs with unclaimed tasks, oldest first
+static batch_job *batch_jobs = NULL;
+
+// Takes the next unclaimed task of job, or returns -1, and unlinks the job once all its tasks are
+// claimed. Called with batch_pool_lock held.
+static int batch_claim_task(batch_job *job) {
+  if (job->next_task >= job->num_tasks) {
+    return -1;
+  }
+  int task = job->next_task++;
+  if (job->next_task == job->num_tasks) {
+    batch_job **link = &batch_jobs;
+    while (*link != job) {
+      link = &(*link)->next;
+    }
+    *link = job->next;
+  }
+  return task;
+}
+
+static void batch_run_task(batch_job *job, int task) {
+  pthread_mutex_unlock(&batch_pool_lock);
+  job->fn(job->ctx, task);
+  pthread_mutex_lock(&batch_pool_lock);
+  if (--job->pending_tasks == 0) {
+    pthread_cond_broadcast(&batch_work_done);
+  }
+}
+
+static void *batch_pool_worker(void *arg) {
+  (void)arg;
+  pthread_mutex_lock(&batch_pool_lock);
+  while (!batch_pool_shutdown) {
+    batch_job *job = batch_jobs;
+    if (!job) {
+      pthread_cond_wait(&batch_work_available, &batch_pool_lock);
+      continue;
+    }
+    batch_run_task(job, batch_claim_task(job));
+  }
+  pthread_mutex_unlock(&batch_pool_lock);
+  return NULL;
+}
+
+// One worker per online cpu besides the calling thread. Workers which fail to start are done
+// without, down to running every batch on its caller.
+static void batch_pool_start(void) {
+  long cpus = sysconf(_SC_NPROCESSORS_ONLN);
+  int num_workers = cpus > 1 ? (int)cpus - 1 : 0;
+  if (num_workers > BATCH_POOL_MAX_THREADS - 1) {
+    num_workers = BATCH_POOL_MAX_THREADS - 1;
+  }
+  for (int i = 0; i < num_workers; i++) {
+    if (pthread_create(&batch_workers[batch_num_workers], NULL, batch_pool_worker, NULL) != 0) {
+      break;
+    }
+    batch_num_workers++;
+  }
+}
+
+int batch_pool_parallelism(void) {
+  pthread_once(&batch_pool_once, batch_pool_start);
+  return batch_num_workers + 1;
+}
+
+int batch_pool_tasks(int num_threads, long long max_tasks) {
+  int parallelism = batch_pool_parallelism();
+  int nb_tasks = num_threads > 0 && num_threads < parallelism ? num_threads : parallelism;
+  if (nb_tasks > max_tasks) {
+    nb_tasks = (int)max_tasks;
+  }
+  return nb_tasks < 1 ? 1 : nb_tasks;
+}
+
+void batch_pool_run(batch_task_fn fn, void *ctx, int num_tasks) {
+  pthread_once(&batch_pool_once, batch_pool_start);
+  if (batch_num_workers == 0 || num_tasks == 1) {
+    for (int task = 0; task < num_tasks; task++) {
+      fn(ctx, task);
+    }
+    return;
+  }
+
+  batch_job job = { fn, ctx, num_tasks, 0, num_tasks, NULL };
+  pthread_mutex_lock(&batch_pool_lock);
+  batch_job **tail = &batch_jobs;
+  while (*tail) {
+    tail = &(*tail)->next;
+  }
+  *tail = &job;
+  pthread_cond_broadcast(&batch_work_available);
+
+  int task;
+  while ((task = batch_claim_task(&job)) >= 0) {
+    batch_run_task(&job, task);
+  }
+  while (job.pending_tasks > 0) {
+    pthread_cond_wait(&batch_work_done, &batch_pool_lock);
+  }
+  pthread_mutex_unlock(&batch_pool_lock);
+}
+
+// Stops the workers when the library is unloaded; their per-thread state is freed as they exit
+__attribute__((destructor))
+static void batch_pool_stop(void) {
+  pthread_mutex_lock(&batch_pool_lock);
+  batch_pool_shutdown = 1;
+  pthread_cond_broadcast(&batch_work_available);
+  pthread_mutex_unlock(&batch_pool_lock);
+  for (int i = 0; i < batch_num_workers; i++) {
+    pthread_join(batch_workers[i], NULL);
+  }
+  batch_num_workers = 0;
+}
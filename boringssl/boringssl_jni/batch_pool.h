@@ -0,0 +1,49 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#ifndef BATCH_POOL_H
+#define BATCH_POOL_H
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// The most threads a batch runs on, its caller included
+#define BATCH_POOL_MAX_THREADS 64
+
+// A task of a batch job, run with the job's context and the task's index
+typedef void (*batch_task_fn)(void *ctx, int task);
+
+// Long-lived workers shared by the batch entry points of this library, one per online cpu besides
+// the calling thread. They start on the first batch and are kept until the library is unloaded, so
+// a batch starts no threads, and per-thread state kept in a pthread key survives across batches.
+
+// The number of threads a batch runs on, its caller included.
+int batch_pool_parallelism(void);
+
+// The number of tasks to split a batch into: num_threads, or the pool's parallelism when that is 0
+// or less or larger, capped at max_tasks and at least 1.
+int batch_pool_tasks(int num_threads, long long max_tasks);
+
+// Runs fn for every task in [0, num_tasks) on the workers and the calling thread, and returns once
+// all of them are done. Concurrent batches queue up; the calling thread works on its own job too,
+// so a batch makes progress even while the workers are busy.
+void batch_pool_run(batch_task_fn fn, void *ctx, int num_tasks);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif // BATCH_POOL_H
@@ -0,0 +1,157 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#include "digest.h"
+
+#include "batch_pool.h"
+
+#include <openssl/ripemd.h>
+#include <openssl/sha.h>
+#include <stdint.h>
+#include <stdlib.h>
+
+// Fewer input bytes than this per thread cost more in handing them to a worker than they save
+#define BATCH_MIN_BYTES_PER_THREAD (64 * 1024)
+
+typedef struct {
+  int algorithm;
+  union {
+    SHA256_CTX sha256;
+    RIPEMD160_CTX ripemd160;
+  } state;
+} digest_ctx;
+
+static int digest_len(int algorithm) {
+  return algorithm == DIGEST_SHA256 ? SHA256_DIGEST_LEN : RIPEMD160_DIGEST_LEN;
+}
+
+static void digest(int algorithm, const uint8_t *input, size_t length, uint8_t *output) {
+  if (algorithm == DIGEST_SHA256) {
+    SHA256(input, length, output);
+  } else {
+    RIPEMD160(input, length, output);
+  }
+}
+
+int digest_at(int algorithm, const char input[], int input_offset, int input_length,
+              char output[], int output_offset) {
+  if (algorithm != DIGEST_SHA256 && algorithm != DIGEST_RIPEMD160) {
+    return 1;
+  }
+  digest(algorithm, (const uint8_t *)input + input_offset, (size_t)input_length,
+         (uint8_t *)output + output_offset);
+  return 0;
+}
+
+typedef struct {
+  int algorithm;
+  const uint8_t *inputs;
+  const int *offsets;
+  int count;
+  uint8_t *outputs;
+} batch_task;
+
+static void batch_worker(void *ctx, int t) {
+  batch_task *task = (batch_task *)ctx + t;
+  int len = digest_len(task->algorithm);
+  for (int i = 0; i < task->count; i++) {
+    digest(task->algorithm, task->inputs + task->offsets[i],
+           (size_t)(task->offsets[i + 1] - task->offsets[i]), task->outputs + (size_t)i * len);
+  }
+}
+
+int digest_batch(int algorithm, const char inputs[], const int offsets[], int count,
+                 char outputs[], int num_threads) {
+  if (algorithm != DIGEST_SHA256 && algorithm != DIGEST_RIPEMD160) {
+    return 1;
+  }
+  if (count <= 0) {
+    return 0;
+  }
+
+  long long total = (long long)offsets[count] - offsets[0];
+  long long max_tasks = total / BATCH_MIN_BYTES_PER_THREAD;
+  int nb_tasks = batch_pool_tasks(num_threads, max_tasks < count ? max_tasks : count);
+
+  // Chunks hold about the same number of bytes, not of inputs, as inputs may differ a lot in size
+  batch_task tasks[BATCH_POOL_MAX_THREADS];
+  int len = digest_len(algorithm);
+  int start = 0;
+  for (int t = 0; t < nb_tasks; t++) {
+    int end = start;
+    if (t == nb_tasks - 1) {
+      end = count;
+    } else {
+      long long target = offsets[0] + total * (t + 1) / nb_tasks;
+      while (end < count && offsets[end] < target) {
+        end++;
+      }
+    }
+    tasks[t].algorithm = algorithm;
+    tasks[t].inputs = (const uint8_t *)inputs;
+    tasks[t].offsets = offsets + start;
+    tasks[t].count = end - start;
+    tasks[t].outputs = (uint8_t *)outputs + (size_t)start * len;
+    start = end;
+  }
+
+  batch_pool_run(batch_worker, tasks, nb_tasks);
+  return 0;
+}
+
+static void digest_ctx_init(digest_ctx *c) {
+  if (c->algorithm == DIGEST_SHA256) {
+    SHA256_Init(&c->state.sha256);
+  } else {
+    RIPEMD160_Init(&c->state.ripemd160);
+  }
+}
+
+void *digest_ctx_new(int algorithm) {
+  if (algorithm != DIGEST_SHA256 && algorithm != DIGEST_RIPEMD160) {
+    return NULL;
+  }
+  digest_ctx *c = malloc(sizeof(digest_ctx));
+  if (c) {
+    c->algorithm = algorithm;
+    digest_ctx_init(c);
+  }
+  return c;
+}
+
+void digest_ctx_update(void *ctx, const char input[], int input_offset, int input_length) {
+  digest_ctx *c = (digest_ctx *)ctx;
+  const uint8_t *in = (const uint8_t *)input + input_offset;
+  if (c->algorithm == DIGEST_SHA256) {
+    SHA256_Update(&c->state.sha256, in, (size_t)input_length);
+  } else {
+    RIPEMD160_Update(&c->state.ripemd160, in, (size_t)input_length);
+  }
+}
+
+void digest_ctx_final(void *ctx, char output[], int output_offset) {
+  digest_ctx *c = (digest_ctx *)ctx;
+  uint8_t *out = (uint8_t *)output + output_offset;
+  if (c->algorithm == DIGEST_SHA256) {
+    SHA256_Final(out, &c->state.sha256);
+  } else {
+    RIPEMD160_Final(out, &c->state.ripemd160);
+  }
+  digest_ctx_init(c);
+}
+
+void digest_ctx_free(void *ctx) {
+  free(ctx);
+}
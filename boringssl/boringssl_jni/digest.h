@@ -0,0 +1,59 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#ifndef DIGEST_H
+#define DIGEST_H
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+// Algorithms of the SHA256 (0x02) and RIPEMD160 (0x03) precompiles
+#define DIGEST_SHA256 0
+#define DIGEST_RIPEMD160 1
+
+#define SHA256_DIGEST_LEN 32
+#define RIPEMD160_DIGEST_LEN 20
+
+// Hashes length bytes read at input + input_offset and writes the digest at
+// output + output_offset, SHA256_DIGEST_LEN or RIPEMD160_DIGEST_LEN bytes. The caller guarantees
+// the bounds. Returns 0, or 1 for an unknown algorithm.
+int digest_at(int algorithm, const char input[], int input_offset, int input_length,
+              char output[], int output_offset);
+
+// Hashes count packed inputs, input i being the bytes of inputs from offsets[i] to offsets[i + 1],
+// and writes the digests back to back into outputs. Large batches are split into contiguous
+// chunks hashed by the calling thread and the library's long-lived batch workers; num_threads 0 or
+// less, or more than the number of online cpus, uses the number of online cpus. The caller
+// guarantees that offsets are non decreasing and within inputs.
+// Returns 0, or 1 for an unknown algorithm.
+int digest_batch(int algorithm, const char inputs[], const int offsets[], int count,
+                 char outputs[], int num_threads);
+
+// Streaming digests for inputs too large to hold at once. digest_ctx_final writes the digest and
+// resets the context for the next input. Returns NULL for an unknown algorithm or when out of memory.
+void *digest_ctx_new(int algorithm);
+
+void digest_ctx_update(void *ctx, const char input[], int input_offset, int input_length);
+
+void digest_ctx_final(void *ctx, char output[], int output_offset);
+
+void digest_ctx_free(void *ctx);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif // DIGEST_H
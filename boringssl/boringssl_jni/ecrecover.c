@@ -15,17 +15,26 @@
  */
 #include "ecrecover.h"
 
+#include "batch_pool.h"
+
 #include <openssl/bn.h>
 #include <openssl/ec.h>
 #include <openssl/ecdsa.h>
 #include <openssl/evp.h>
 #include <openssl/mem.h>
+#include <pthread.h>
+#include <stdlib.h>
 #include <string.h>
 #include <stdio.h>
 
 #define P256_KEY_LEN 65
 #define P256_COORD_LEN 32
 
+// Fewer records than this per thread cost more in handing them to a worker than they save
+#define BATCH_MIN_RECORDS_PER_THREAD 8
+// Records sharing one modular inversion, bounds the BIGNUMs held per thread
+#define BATCH_INVERSION_SIZE 64
+
 #define RETURN_INVALID(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); ret = 1; goto cleanup; } while (0)
 #define RETURN_ERROR(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); ret = 2; goto cleanup; } while (0)
 
@@ -150,3 +159,276 @@ cleanup:
 
     return ret;
 }
+
+// P-256 curve order, big-endian
+static const unsigned char P256_ORDER[P256_COORD_LEN] = {
+    0xFF, 0xFF, 0xFF, 0xFF, 0x00, 0x00, 0x00, 0x00, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF,
+    0xBC, 0xE6, 0xFA, 0xAD, 0xA7, 0x17, 0x9E, 0x84, 0xF3, 0xB9, 0xCA, 0xC2, 0xFC, 0x63, 0x25, 0x51
+};
+
+// Whether a 32-byte big-endian scalar is in [1, n-1]
+static int p256_scalar_in_range(const unsigned char scalar[P256_COORD_LEN]) {
+    unsigned char any = 0;
+    for (int i = 0; i < P256_COORD_LEN; i++) {
+        any |= scalar[i];
+    }
+    return any != 0 && memcmp(scalar, P256_ORDER, P256_COORD_LEN) < 0;
+}
+
+int ecrecover_r1_at(
+    const unsigned char message_hash[], int message_hash_offset,
+    const unsigned char signature[], int signature_offset,
+    int recovery_id,
+    unsigned char output_buffer[], int output_offset) {
+
+    char error_message_buf[128];
+
+    if (message_hash == NULL || signature == NULL || output_buffer == NULL
+            || message_hash_offset < 0 || signature_offset < 0 || output_offset < 0) {
+        return 2;
+    }
+
+    const unsigned char *sig = signature + signature_offset;
+    unsigned char *output = output_buffer + output_offset;
+    if (recovery_id < 0 || recovery_id > 1
+            || !p256_scalar_in_range(sig) || !p256_scalar_in_range(sig + P256_COORD_LEN)) {
+        memset(output, 0, P256_KEY_LEN);
+        return 2;
+    }
+
+    int ret = ecrecover_r1(message_hash + message_hash_offset, 32, sig, 64, recovery_id,
+                           output, P256_KEY_LEN, error_message_buf, sizeof(error_message_buf));
+    if (ret != 0) {
+        memset(output, 0, P256_KEY_LEN);
+    }
+    return ret;
+}
+
+// Recovers the public key of one batch record given r^-1 mod n, writing x || y to out.
+// r and s are already range checked. Statuses are those of ecrecover_r1.
+static int recover_with_r_inv(const EC_GROUP *group, BN_CTX *ctx, const unsigned char *record,
+                              const BIGNUM *r_inv, EC_POINT *R, EC_POINT *Q, unsigned char *out) {
+    const BIGNUM *order = EC_GROUP_get0_order(group);
+    unsigned char key[P256_KEY_LEN];
+    int ret = 2;
+
+    BN_CTX_start(ctx);
+    BIGNUM *r = BN_CTX_get(ctx);
+    BIGNUM *s = BN_CTX_get(ctx);
+    BIGNUM *e = BN_CTX_get(ctx);
+    BIGNUM *u1 = BN_CTX_get(ctx);
+    BIGNUM *u2 = BN_CTX_get(ctx);
+    if (!u2
+            || !BN_bin2bn(record + 32, P256_COORD_LEN, r)
+            || !BN_bin2bn(record + 64, P256_COORD_LEN, s)
+            || !BN_bin2bn(record, 32, e)) {
+        goto end;
+    }
+
+    if (!EC_POINT_set_compressed_coordinates_GFp(group, R, r, record[96] & 1, ctx)) {
+        ret = 1;
+        goto end;
+    }
+
+    // Q = r^-1 (s R - e G)
+    if (!BN_mod_mul(u1, e, r_inv, order, ctx)
+            || (!BN_is_zero(u1) && !BN_sub(u1, order, u1))
+            || !BN_mod_mul(u2, s, r_inv, order, ctx)) {
+        goto end;
+    }
+    if (!EC_POINT_mul(group, Q, u1, R, u2, ctx)) {
+        ret = 1;
+        goto end;
+    }
+    if (EC_POINT_point2oct(group, Q, POINT_CONVERSION_UNCOMPRESSED, key, P256_KEY_LEN, ctx) != P256_KEY_LEN) {
+        goto end;
+    }
+    memcpy(out, key + 1, P256_KEY_LEN - 1);
+    ret = 0;
+
+end:
+    BN_CTX_end(ctx);
+    return ret;
+}
+
+typedef struct {
+    const unsigned char *records;
+    unsigned char *outputs;
+    char *statuses;
+    int count;
+    int recovered;
+} recover_task;
+
+// Recovers one block of at most BATCH_INVERSION_SIZE records. The r^-1 of all records are found
+// with a single modular inversion: prefix[i] is the product of the r before record i, and walking
+// back from the inverse of the full product peels off one r^-1 per record.
+static void recover_block(const EC_GROUP *group, BN_CTX *ctx, BIGNUM **prefix, BIGNUM *inv,
+                          BIGNUM *r, BIGNUM *r_inv, EC_POINT *R, EC_POINT *Q,
+                          const unsigned char *records, int count, unsigned char *outputs,
+                          char *statuses) {
+    const BIGNUM *order = EC_GROUP_get0_order(group);
+    int ok = BN_one(prefix[0]);
+    for (int i = 0; i < count && ok; i++) {
+        const unsigned char *record = records + (size_t)i * ECRECOVER_R1_BATCH_RECORD_LEN;
+        int in_range = record[96] <= 1
+            && p256_scalar_in_range(record + 32) && p256_scalar_in_range(record + 64);
+        statuses[i] = in_range ? 0 : 2;
+        ok = in_range
+            ? BN_bin2bn(record + 32, P256_COORD_LEN, r) && BN_mod_mul(prefix[i + 1], prefix[i], r, order, ctx)
+            : BN_copy(prefix[i + 1], prefix[i]) != NULL;
+    }
+    // r is in [1, n-1] and n is prime, so the product is invertible
+    ok = ok && BN_mod_inverse(inv, prefix[count], order, ctx) != NULL;
+
+    for (int i = count - 1; i >= 0; i--) {
+        if (!ok) {
+            statuses[i] = 2;
+            continue;
+        }
+        if (statuses[i] != 0) {
+            continue;
+        }
+        const unsigned char *record = records + (size_t)i * ECRECOVER_R1_BATCH_RECORD_LEN;
+        ok = BN_bin2bn(record + 32, P256_COORD_LEN, r)
+            && BN_mod_mul(r_inv, inv, prefix[i], order, ctx)
+            && BN_mod_mul(inv, inv, r, order, ctx);
+        statuses[i] = ok ? (char)recover_with_r_inv(group, ctx, record, r_inv, R, Q,
+                                                       outputs + (size_t)i * ECRECOVER_R1_BATCH_OUTPUT_LEN)
+                          : 2;
+    }
+}
+
+// Recovery state of one thread, built on its first batch and reused by every later one, so the
+// curve, points and BIGNUMs of a batch are not set up again per call
+typedef struct {
+    EC_GROUP *group;
+    BN_CTX *ctx;
+    EC_POINT *R, *Q;
+    BIGNUM *prefix[BATCH_INVERSION_SIZE + 1];
+    BIGNUM *inv, *r, *r_inv;
+} recover_scratch;
+
+static pthread_key_t scratch_key;
+static pthread_once_t scratch_key_once = PTHREAD_ONCE_INIT;
+static int scratch_key_created = 0;
+
+static void free_scratch(void *arg) {
+    recover_scratch *sc = (recover_scratch *)arg;
+    if (!sc) return;
+    for (int i = 0; i <= BATCH_INVERSION_SIZE; i++) {
+        BN_free(sc->prefix[i]);
+    }
+    BN_free(sc->inv);
+    BN_free(sc->r);
+    BN_free(sc->r_inv);
+    EC_POINT_free(sc->R);
+    EC_POINT_free(sc->Q);
+    BN_CTX_free(sc->ctx);
+    EC_GROUP_free(sc->group);
+    free(sc);
+}
+
+// Scratch of threads which exit, batch workers included, is freed by the key destructor
+static void create_scratch_key(void) {
+    scratch_key_created = pthread_key_create(&scratch_key, free_scratch) == 0;
+}
+
+static recover_scratch *new_scratch(void) {
+    recover_scratch *sc = calloc(1, sizeof(recover_scratch));
+    if (!sc) return NULL;
+    sc->group = EC_GROUP_new_by_curve_name(NID_X9_62_prime256v1);
+    sc->ctx = BN_CTX_new();
+    sc->R = sc->group ? EC_POINT_new(sc->group) : NULL;
+    sc->Q = sc->group ? EC_POINT_new(sc->group) : NULL;
+    sc->inv = BN_new();
+    sc->r = BN_new();
+    sc->r_inv = BN_new();
+    int ok = sc->ctx && sc->R && sc->Q && sc->inv && sc->r && sc->r_inv;
+    for (int i = 0; i <= BATCH_INVERSION_SIZE && ok; i++) {
+        ok = (sc->prefix[i] = BN_new()) != NULL;
+    }
+    if (!ok) {
+        free_scratch(sc);
+        return NULL;
+    }
+    return sc;
+}
+
+static recover_scratch *thread_scratch(void) {
+    pthread_once(&scratch_key_once, create_scratch_key);
+    if (!scratch_key_created) return NULL;
+
+    recover_scratch *sc = pthread_getspecific(scratch_key);
+    if (sc) return sc;
+
+    sc = new_scratch();
+    if (sc && pthread_setspecific(scratch_key, sc) != 0) {
+        free_scratch(sc);
+        return NULL;
+    }
+    return sc;
+}
+
+void ecrecover_r1_thread_cleanup(void) {
+    pthread_once(&scratch_key_once, create_scratch_key);
+    if (!scratch_key_created) return;
+
+    recover_scratch *sc = pthread_getspecific(scratch_key);
+    if (sc) {
+        pthread_setspecific(scratch_key, NULL);
+        free_scratch(sc);
+    }
+}
+
+static void recover_worker(void *arg, int t) {
+    recover_task *task = (recover_task *)arg + t;
+    recover_scratch *sc = thread_scratch();
+
+    task->recovered = 0;
+    for (int base = 0; base < task->count; base += BATCH_INVERSION_SIZE) {
+        int block = task->count - base < BATCH_INVERSION_SIZE ? task->count - base : BATCH_INVERSION_SIZE;
+        const unsigned char *records = task->records + (size_t)base * ECRECOVER_R1_BATCH_RECORD_LEN;
+        unsigned char *outputs = task->outputs + (size_t)base * ECRECOVER_R1_BATCH_OUTPUT_LEN;
+        char *statuses = task->statuses + base;
+        if (sc) {
+            recover_block(sc->group, sc->ctx, sc->prefix, sc->inv, sc->r, sc->r_inv, sc->R, sc->Q,
+                          records, block, outputs, statuses);
+        } else {
+            memset(statuses, 2, block);
+        }
+    }
+    for (int i = 0; i < task->count; i++) {
+        unsigned char *out = task->outputs + (size_t)i * ECRECOVER_R1_BATCH_OUTPUT_LEN;
+        if (task->statuses[i] == 0) {
+            task->recovered++;
+        } else {
+            memset(out, 0, ECRECOVER_R1_BATCH_OUTPUT_LEN);
+        }
+    }
+}
+
+int ecrecover_r1_batch(const unsigned char records[], int count, unsigned char outputs[],
+                       char statuses[], int num_threads) {
+    if (!records || !outputs || !statuses || count <= 0) {
+        return 0;
+    }
+
+    int nb_tasks = batch_pool_tasks(num_threads, count / BATCH_MIN_RECORDS_PER_THREAD);
+    recover_task tasks[BATCH_POOL_MAX_THREADS];
+    int offset = 0;
+    for (int t = 0; t < nb_tasks; t++) {
+        int chunk = count / nb_tasks + (t < count % nb_tasks ? 1 : 0);
+        tasks[t].records = records + (size_t)offset * ECRECOVER_R1_BATCH_RECORD_LEN;
+        tasks[t].outputs = outputs + (size_t)offset * ECRECOVER_R1_BATCH_OUTPUT_LEN;
+        tasks[t].statuses = statuses + offset;
+        tasks[t].count = chunk;
+        offset += chunk;
+    }
+    batch_pool_run(recover_worker, tasks, nb_tasks);
+
+    int recovered = 0;
+    for (int t = 0; t < nb_tasks; t++) {
+        recovered += tasks[t].recovered;
+    }
+    return recovered;
+}
@@ -43,6 +43,44 @@ int ecrecover_r1(
     unsigned char output_buffer[], int output_buffer_len,
     char error_message_buf[], int error_message_buf_len);
 
+// ecrecover_r1 reading its inputs at offsets into caller buffers and writing the 65-byte
+// uncompressed public key at an offset into the output buffer, without error text.
+//
+// r and s are range checked against the curve order and the recovery id against {0, 1} here,
+// so callers need not parse them. The caller guarantees 32 bytes at
+// message_hash + message_hash_offset, 64 bytes at signature + signature_offset and 65 bytes at
+// output_buffer + output_offset.
+//
+// Returns the ecrecover_r1 status, or 2 if r, s or the recovery id are out of range. The output
+// is zeroed unless recovery succeeded.
+int ecrecover_r1_at(
+    const unsigned char message_hash[], int message_hash_offset,
+    const unsigned char signature[], int signature_offset,
+    int recovery_id,
+    unsigned char output_buffer[], int output_offset);
+
+// Batch record: message hash (32) || r (32) || s (32) || recovery id (1)
+#define ECRECOVER_R1_BATCH_RECORD_LEN 97
+// Batch output: the public key without its 0x04 prefix, x (32) || y (32)
+#define ECRECOVER_R1_BATCH_OUTPUT_LEN 64
+
+// Recovers the public keys of count packed ECRECOVER_R1_BATCH_RECORD_LEN byte records, e.g. the
+// senders of a block. Records are split into contiguous chunks, one per thread, recovered by the
+// calling thread and the library's long-lived batch workers; num_threads 0 or less, or more than
+// the number of online cpus, uses the number of online cpus. Within a chunk the r^-1 of up to 64
+// records share one modular inversion. Each thread keeps its curve and scratch values across
+// batches.
+//
+// Writes one key per record into outputs, zeroed unless recovered, and one ecrecover_r1_at status per
+// record into statuses. Returns the number of keys recovered.
+int ecrecover_r1_batch(const unsigned char records[], int count, unsigned char outputs[],
+                       char statuses[], int num_threads);
+
+// Frees the calling thread's recovery scratch, which ecrecover_r1_batch builds on the thread's
+// first batch and keeps for reuse. Scratch is also freed when its thread exits. Safe to call on a
+// thread without scratch.
+void ecrecover_r1_thread_cleanup(void);
+
 #ifdef __cplusplus
 }
 #endif
@@ -15,20 +15,151 @@
  */
 #include "p256_verify.h"
 
+#include "batch_pool.h"
+
 #include <openssl/bn.h>
 #include <openssl/ec.h>
 #include <openssl/ecdsa.h>
 #include <openssl/evp.h>
 #include <openssl/mem.h>
+#include <pthread.h>
+#include <stdlib.h>
 #include <string.h>
 #include <stdio.h>
 
 #define P256_KEY_LEN 65
 #define P256_COORD_LEN 32
 
-#define RETURN_INVALID(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); ret = 1; goto cleanup; } while (0)
-#define RETURN_ERROR(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); ret = 2; goto cleanup; } while (0)
+// Fewer inputs than this per thread cost more in handing them to a worker than they save
+#define BATCH_MIN_INPUTS_PER_THREAD 8
+
+#define RETURN_INVALID(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); return 1; } while (0)
+#define RETURN_ERROR(msg) do { snprintf(error_message_buf, error_message_buf_len, "%s", msg); return 2; } while (0)
+
+// Verification state of one thread, built on its first verification and reused by every later one,
+// so verifying allocates nothing. The public key is decoded straight into the key's own point and
+// r and s into the signature's own BIGNUMs.
+typedef struct {
+  EC_GROUP *group;
+  BN_CTX *bn_ctx;
+  EC_KEY *ec_key;
+  EC_POINT *public_key; // owned by ec_key
+  ECDSA_SIG *sig;
+  BIGNUM *r, *s;        // owned by sig
+} p256_verify_ctx;
+
+static pthread_key_t ctx_key;
+static pthread_once_t ctx_key_once = PTHREAD_ONCE_INIT;
+static int ctx_key_created = 0;
+
+static void free_ctx(void *arg) {
+  p256_verify_ctx *c = (p256_verify_ctx *)arg;
+  if (!c) return;
+  if (c->sig) ECDSA_SIG_free(c->sig);
+  if (c->ec_key) EC_KEY_free(c->ec_key);
+  BN_CTX_free(c->bn_ctx);
+  if (c->group) EC_GROUP_free(c->group);
+  free(c);
+}
+
+// Contexts of threads which exit are freed by the key destructor
+static void create_ctx_key(void) {
+  ctx_key_created = pthread_key_create(&ctx_key, free_ctx) == 0;
+}
+
+static p256_verify_ctx *new_ctx(void) {
+  p256_verify_ctx *c = calloc(1, sizeof(p256_verify_ctx));
+  if (!c) return NULL;
+
+  // the signature owns r and s once set, before that they are freed here
+  BIGNUM *r = BN_new();
+  BIGNUM *s = BN_new();
+  c->sig = ECDSA_SIG_new();
+  if (!c->sig || !r || !s || ECDSA_SIG_set0(c->sig, r, s) != 1) {
+    BN_free(r);
+    BN_free(s);
+    free_ctx(c);
+    return NULL;
+  }
+  c->r = r;
+  c->s = s;
+
+  c->group = EC_GROUP_new_by_curve_name(NID_X9_62_prime256v1);
+  c->bn_ctx = BN_CTX_new();
+  c->ec_key = EC_KEY_new();
+  // the key needs a public point to decode into, any point of the group will do
+  if (!c->group || !c->bn_ctx || !c->ec_key
+      || EC_KEY_set_group(c->ec_key, c->group) != 1
+      || EC_KEY_set_public_key(c->ec_key, EC_GROUP_get0_generator(c->group)) != 1) {
+    free_ctx(c);
+    return NULL;
+  }
+  c->public_key = (EC_POINT *)EC_KEY_get0_public_key(c->ec_key);
+  return c;
+}
+
+static p256_verify_ctx *thread_ctx(void) {
+  pthread_once(&ctx_key_once, create_ctx_key);
+  if (!ctx_key_created) return NULL;
+
+  p256_verify_ctx *c = pthread_getspecific(ctx_key);
+  if (c) return c;
+
+  c = new_ctx();
+  if (c && pthread_setspecific(ctx_key, c) != 0) {
+    free_ctx(c);
+    return NULL;
+  }
+  return c;
+}
+
+void p256_verify_thread_cleanup(void) {
+  pthread_once(&ctx_key_once, create_ctx_key);
+  if (!ctx_key_created) return;
+
+  p256_verify_ctx *c = pthread_getspecific(ctx_key);
+  if (c) {
+    pthread_setspecific(ctx_key, NULL);
+    free_ctx(c);
+  }
+}
 
+#define FAIL(status, msg) do { *error = msg; return status; } while (0)
+
+// Verifies with the thread's context. The inputs are 32 byte big-endian values and a 65 byte
+// uncompressed public key; on failure error is pointed at a static message.
+static int verify_uncompressed(const uint8_t data_hash[32], const uint8_t signature_r[32],
+                               const uint8_t signature_s[32], const uint8_t public_key[65],
+                               const char **error) {
+  p256_verify_ctx *c = thread_ctx();
+  if (!c) {
+    FAIL(2, "verification context allocation failed");
+  }
+
+  // a failed decode leaves the point undefined, it is overwritten by the next call before use
+  if (!EC_POINT_oct2point(c->group, c->public_key, public_key, P256_KEY_LEN, c->bn_ctx)) {
+    FAIL(1, "failed to parse public key point");
+  }
+
+  if (!EC_POINT_is_on_curve(c->group, c->public_key, c->bn_ctx)) {
+    FAIL(1, "public key not on curve");
+  }
+
+  if (!BN_bin2bn(signature_r, P256_COORD_LEN, c->r)
+      || !BN_bin2bn(signature_s, P256_COORD_LEN, c->s)) {
+    FAIL(2, "failed to parse r or s");
+  }
+
+  int verify_status = ECDSA_do_verify(data_hash, 32, c->sig, c->ec_key);
+
+  if (verify_status == 1) {
+    return 0;
+  } else if (verify_status == 0) {
+    FAIL(1, "signature verification failed");
+  } else {
+    FAIL(2, "internal error during signature verification");
+  }
+}
 
 int p256_verify(
     const char data_hash[], int data_hash_length,
@@ -37,14 +168,6 @@ int p256_verify(
     const char public_key_data[], int public_key_data_length,
     char error_message_buf[], int error_message_buf_len) {
 
-  EC_KEY *ec_key = NULL;
-  EC_POINT *point = NULL;
-  ECDSA_SIG *sig = NULL;
-  BIGNUM *r = NULL, *s = NULL;
-  const EC_GROUP *group = NULL;
-  BN_CTX *ctx = NULL;
-  int ret = 0;
-
   if (!data_hash || !signature_r || !signature_s || !public_key_data) {
     RETURN_ERROR("null input");
   }
@@ -67,74 +190,87 @@ int p256_verify(
     RETURN_INVALID("public key must start with 0x04");
   }
 
-  ctx = BN_CTX_new();
-  if (!ctx) {
-    RETURN_ERROR("BN_CTX allocation failed");
+  const char *error = NULL;
+  int status = verify_uncompressed((const uint8_t *)data_hash, (const uint8_t *)signature_r,
+                                   (const uint8_t *)signature_s, (const uint8_t *)public_key_data,
+                                   &error);
+  if (status == 0) {
+    error_message_buf[0] = '\0';  // No error message
+  } else {
+    snprintf(error_message_buf, error_message_buf_len, "%s", error);
   }
+  return status;
+}
 
-  group = EC_GROUP_new_by_curve_name(NID_X9_62_prime256v1);
-  if (!group) {
-    RETURN_ERROR("EC_GROUP allocation failed");
-  }
+// Verifies a raw precompile input, which carries the public key without its uncompressed point
+// prefix
+static int verify_packed(const uint8_t *in, const char **error) {
+  uint8_t public_key[P256_KEY_LEN];
+  public_key[0] = 0x04;
+  memcpy(public_key + 1, in + 96, 64);
+  return verify_uncompressed(in, in + 32, in + 64, public_key, error);
+}
 
-  ec_key = EC_KEY_new();
-  if (!ec_key || EC_KEY_set_group(ec_key, group) != 1) {
-    RETURN_ERROR("EC_KEY init failed");
-  }
+// Error of the last p256_verify_at on this thread, only formatted when asked for
+static __thread const char *last_error = NULL;
 
-  point = EC_POINT_new(group);
-  if (!point) {
-    RETURN_ERROR("EC_POINT allocation failed");
+int p256_verify_at(const char input[], int input_offset) {
+  if (!input || input_offset < 0) {
+    last_error = "null input";
+    return 2;
   }
+  last_error = NULL;
+  return verify_packed((const uint8_t *)input + input_offset, &last_error);
+}
 
-  if (!EC_POINT_oct2point(group, point, (const uint8_t *)public_key_data, P256_KEY_LEN, ctx)) {
-    RETURN_INVALID("failed to parse public key point");
+int p256_verify_last_error(char error_message_buf[], int error_message_buf_len) {
+  if (!error_message_buf || error_message_buf_len <= 0) {
+    return 0;
   }
+  return snprintf(error_message_buf, error_message_buf_len, "%s", last_error ? last_error : "");
+}
 
-  if (!EC_POINT_is_on_curve(group, point, ctx)) {
-    RETURN_INVALID("public key not on curve");
-  }
+typedef struct {
+  const uint8_t *inputs;
+  char *statuses;
+  int count;
+  int valid;
+} batch_task;
 
-  if (EC_KEY_set_public_key(ec_key, point) != 1) {
-    RETURN_ERROR("failed to assign public key");
+static void batch_worker(void *ctx, int t) {
+  batch_task *task = (batch_task *)ctx + t;
+  const char *error = NULL;
+  task->valid = 0;
+  for (int i = 0; i < task->count; i++) {
+    task->statuses[i] =
+        (char)verify_packed(task->inputs + (size_t)i * P256_VERIFY_INPUT_LEN, &error);
+    if (task->statuses[i] == 0) {
+      task->valid++;
+    }
   }
+}
 
-  r = BN_bin2bn((const uint8_t *)signature_r, P256_COORD_LEN, NULL);
-  s = BN_bin2bn((const uint8_t *)signature_s, P256_COORD_LEN, NULL);
-  if (!r || !s) {
-    RETURN_ERROR("failed to parse r or s");
+int p256_verify_batch(const char inputs[], int count, char statuses[], int num_threads) {
+  if (!inputs || !statuses || count <= 0) {
+    return 0;
   }
 
-  sig = ECDSA_SIG_new();
-  if (!sig || ECDSA_SIG_set0(sig, r, s) != 1) {
-    RETURN_ERROR("failed to create signature");
+  // workers keep their verification context in ctx_key like any other thread
+  int nb_tasks = batch_pool_tasks(num_threads, count / BATCH_MIN_INPUTS_PER_THREAD);
+  batch_task tasks[BATCH_POOL_MAX_THREADS];
+  int offset = 0;
+  for (int t = 0; t < nb_tasks; t++) {
+    int chunk = count / nb_tasks + (t < count % nb_tasks ? 1 : 0);
+    tasks[t].inputs = (const uint8_t *)inputs + (size_t)offset * P256_VERIFY_INPUT_LEN;
+    tasks[t].statuses = statuses + offset;
+    tasks[t].count = chunk;
+    offset += chunk;
   }
+  batch_pool_run(batch_worker, tasks, nb_tasks);
 
-  // ownership transferred to sig
-  r = NULL;
-  s = NULL;
-
-  int verify_status = ECDSA_do_verify((const uint8_t *)data_hash, data_hash_length, sig, ec_key);
-  
-  if (verify_status == 1) {
-    error_message_buf[0] = '\0';  // No error message
-    ret = 0;
-  } else if (verify_status == 0) {
-    snprintf(error_message_buf, error_message_buf_len, "%s", "signature verification failed");
-    ret = 1;
-  } else {
-    snprintf(error_message_buf, error_message_buf_len, "%s", "internal error during signature verification");
-    ret = 2;
-  }
-
-cleanup:
-  BN_CTX_free(ctx);
-  if (group) EC_GROUP_free((EC_GROUP *)group);
-  if (ec_key) EC_KEY_free(ec_key);
-  if (point) EC_POINT_free(point);
-  if (sig) ECDSA_SIG_free(sig);
-  if (r) BN_free(r);
-  if (s) BN_free(s);
-  
-  return ret;
+  int valid = 0;
+  for (int t = 0; t < nb_tasks; t++) {
+    valid += tasks[t].valid;
+  }
+  return valid;
 }
@@ -31,6 +31,32 @@ int p256_verify(
     const char public_key_data[], int public_key_data_length,
     char error_message_buf[], int error_message_buf_len);
 
+// Size of the P256VERIFY precompile input: hash (32) || r (32) || s (32) || x (32) || y (32)
+#define P256_VERIFY_INPUT_LEN 160
+
+// Verifies the raw 160-byte P256VERIFY precompile input, hash (32) || r (32) || s (32) || x (32) ||
+// y (32), read at input_offset without copying. The caller guarantees 160 bytes at the offset.
+// No error text is formatted, p256_verify_last_error returns it on request.
+// Returns: 0 = OK, 1 = INVALID, 2 = ERROR
+int p256_verify_at(const char input[], int input_offset);
+
+// Writes the null-terminated error message of the calling thread's last p256_verify_at into
+// error_message_buf, an empty string if it succeeded. Returns the length of the full message.
+int p256_verify_last_error(char error_message_buf[], int error_message_buf_len);
+
+// Verifies count packed P256_VERIFY_INPUT_LEN byte precompile inputs, e.g. all P256VERIFY calls of
+// a block. Inputs are split into contiguous chunks, one per thread, verified by the calling thread
+// and long-lived workers which keep their verification contexts across batches; num_threads 0 or
+// less, or more than the number of online cpus, uses the number of online cpus.
+// Writes one status per input into statuses: 0 = OK, 1 = INVALID, 2 = ERROR.
+// Returns the number of valid signatures.
+int p256_verify_batch(const char inputs[], int count, char statuses[], int num_threads);
+
+// Frees the calling thread's verification context, which p256_verify builds on the thread's first
+// call and keeps for reuse. Contexts are also freed when their thread exits; this is for threads
+// which outlive their use of p256_verify. Safe to call on a thread without a context.
+void p256_verify_thread_cleanup(void);
+
 #ifdef __cplusplus
 }
 #endif
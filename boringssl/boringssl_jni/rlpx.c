@@ -0,0 +1,157 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#include "rlpx.h"
+
+#include "keccak_f1600.h"
+
+#include <openssl/aes.h>
+#include <openssl/evp.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+
+// The RLPx MAC is a running legacy keccak256 kept as the sponge state itself, so a copy can be
+// digested while the running state keeps absorbing. RlpxFramingTest checks the MAC against
+// reference vectors.
+
+// keccak256 absorbs 136 bytes, 17 lanes, per permutation
+#define KECCAK256_RATE 136
+
+typedef struct {
+  uint64_t st[25];
+  size_t pos; // bytes absorbed into the current block
+} keccak_state;
+
+typedef struct {
+  keccak_state keccak;
+  AES_KEY mac_secret;
+} rlpx_mac;
+
+static void keccak_absorb_byte(keccak_state *k, uint8_t byte) {
+  k->st[k->pos / 8] ^= (uint64_t)byte << (8 * (k->pos % 8));
+  if (++k->pos == KECCAK256_RATE) {
+    keccakf(k->st);
+    k->pos = 0;
+  }
+}
+
+static void keccak_absorb(keccak_state *k, const uint8_t *data, size_t length) {
+  while (length > 0 && k->pos % 8 != 0) {
+    keccak_absorb_byte(k, *data++);
+    length--;
+  }
+  // whole little-endian lanes, the bulk of a frame
+  for (; length >= 8; data += 8, length -= 8) {
+    uint64_t lane = 0;
+    for (int b = 7; b >= 0; b--) {
+      lane = (lane << 8) | data[b];
+    }
+    k->st[k->pos / 8] ^= lane;
+    k->pos += 8;
+    if (k->pos == KECCAK256_RATE) {
+      keccakf(k->st);
+      k->pos = 0;
+    }
+  }
+  while (length > 0) {
+    keccak_absorb_byte(k, *data++);
+    length--;
+  }
+}
+
+// keccak256 of everything absorbed so far, on a copy so the running state is kept
+static void keccak_digest(const keccak_state *k, uint8_t digest[32]) {
+  uint64_t st[25];
+  memcpy(st, k->st, sizeof(st));
+  // keccak padding: 0x01 after the message, 0x80 in the last byte of the block
+  st[k->pos / 8] ^= (uint64_t)0x01 << (8 * (k->pos % 8));
+  st[KECCAK256_RATE / 8 - 1] ^= 0x8000000000000000ULL;
+  keccakf(st);
+  for (int i = 0; i < 4; i++) {
+    for (int b = 0; b < 8; b++) {
+      digest[8 * i + b] = (uint8_t)(st[i] >> (8 * b));
+    }
+  }
+}
+
+void *rlpx_ctr_new(const char key[RLPX_AES_KEY_LEN], const char iv[RLPX_AES_IV_LEN]) {
+  EVP_CIPHER_CTX *ctx = EVP_CIPHER_CTX_new();
+  if (ctx && !EVP_EncryptInit_ex(ctx, EVP_aes_256_ctr(), NULL, (const uint8_t *)key,
+                                 (const uint8_t *)iv)) {
+    EVP_CIPHER_CTX_free(ctx);
+    ctx = NULL;
+  }
+  return ctx;
+}
+
+int rlpx_ctr_apply(void *ctx, char buffer[], int offset, int length) {
+  uint8_t *data = (uint8_t *)buffer + offset;
+  int written;
+  return EVP_EncryptUpdate((EVP_CIPHER_CTX *)ctx, data, &written, data, length)
+      && written == length ? 0 : 1;
+}
+
+void rlpx_ctr_free(void *ctx) {
+  EVP_CIPHER_CTX_free((EVP_CIPHER_CTX *)ctx);
+}
+
+void *rlpx_mac_new(const char mac_secret[RLPX_AES_KEY_LEN]) {
+  rlpx_mac *m = calloc(1, sizeof(rlpx_mac));
+  if (m && AES_set_encrypt_key((const uint8_t *)mac_secret, 8 * RLPX_AES_KEY_LEN, &m->mac_secret) != 0) {
+    free(m);
+    m = NULL;
+  }
+  return m;
+}
+
+void rlpx_mac_absorb(void *ctx, const char data[], int offset, int length) {
+  keccak_absorb(&((rlpx_mac *)ctx)->keccak, (const uint8_t *)data + offset, (size_t)length);
+}
+
+// seed = aes(mac-secret, keccak256.digest(mac)[:16]) ^ with, absorbed, then mac = new digest[:16]
+static void mac_update(rlpx_mac *m, const uint8_t with[RLPX_MAC_LEN], uint8_t *mac) {
+  uint8_t digest[32], seed[RLPX_MAC_LEN];
+  keccak_digest(&m->keccak, digest);
+  AES_encrypt(digest, seed, &m->mac_secret);
+  for (int i = 0; i < RLPX_MAC_LEN; i++) {
+    seed[i] ^= with[i];
+  }
+  keccak_absorb(&m->keccak, seed, RLPX_MAC_LEN);
+  keccak_digest(&m->keccak, digest);
+  memcpy(mac, digest, RLPX_MAC_LEN);
+}
+
+void rlpx_mac_update_header(void *ctx, const char header[], int header_offset, char mac[],
+                            int mac_offset) {
+  mac_update((rlpx_mac *)ctx, (const uint8_t *)header + header_offset, (uint8_t *)mac + mac_offset);
+}
+
+void rlpx_mac_update_frame(void *ctx, const char frame[], int frame_offset, int length,
+                           char mac[], int mac_offset) {
+  rlpx_mac *m = (rlpx_mac *)ctx;
+  uint8_t digest[32];
+  keccak_absorb(&m->keccak, (const uint8_t *)frame + frame_offset, (size_t)length);
+  keccak_digest(&m->keccak, digest);
+  mac_update(m, digest, (uint8_t *)mac + mac_offset);
+}
+
+void rlpx_mac_digest(void *ctx, char digest[]) {
+  keccak_digest(&((rlpx_mac *)ctx)->keccak, (uint8_t *)digest);
+}
+
+void rlpx_mac_free(void *ctx) {
+  free(ctx);
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#ifndef RLPX_H
+#define RLPX_H
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+#define RLPX_AES_KEY_LEN 32
+#define RLPX_AES_IV_LEN 16
+#define RLPX_HEADER_LEN 16
+#define RLPX_MAC_LEN 16
+
+// An AES-256-CTR keystream for one direction of an RLPx session, the frame cipher. The counter
+// carries over from one rlpx_ctr_apply to the next, so frames are processed in order on one
+// handle. Returns NULL when out of memory.
+void *rlpx_ctr_new(const char key[RLPX_AES_KEY_LEN], const char iv[RLPX_AES_IV_LEN]);
+
+// Encrypts or decrypts, which are the same in CTR mode, length bytes at buffer + offset in place.
+// The caller guarantees the bounds. Returns 0, or 1 if the cipher failed.
+int rlpx_ctr_apply(void *ctx, char buffer[], int offset, int length);
+
+void rlpx_ctr_free(void *ctx);
+
+// The egress or ingress MAC of an RLPx session: a running keccak256 state and the AES-256 key,
+// mac-secret, which seeds each update. The state starts empty, rlpx_mac_absorb feeds it the
+// handshake values. Returns NULL when out of memory.
+void *rlpx_mac_new(const char mac_secret[RLPX_AES_KEY_LEN]);
+
+// Absorbs length bytes at data + offset into the keccak256 state.
+void rlpx_mac_absorb(void *ctx, const char data[], int offset, int length);
+
+// Updates the MAC with the 16-byte header ciphertext at header + header_offset and writes the
+// 16-byte header-mac at mac + mac_offset:
+//   header-mac-seed = aes(mac-secret, keccak256.digest(mac)[:16]) ^ header-ciphertext
+//   mac = keccak256.update(mac, header-mac-seed)
+//   header-mac = keccak256.digest(mac)[:16]
+void rlpx_mac_update_header(void *ctx, const char header[], int header_offset, char mac[],
+                            int mac_offset);
+
+// Updates the MAC with length bytes of frame ciphertext at frame + frame_offset and writes the
+// 16-byte frame-mac at mac + mac_offset:
+//   mac = keccak256.update(mac, frame-ciphertext)
+//   frame-mac-seed = aes(mac-secret, keccak256.digest(mac)[:16]) ^ keccak256.digest(mac)[:16]
+//   mac = keccak256.update(mac, frame-mac-seed)
+//   frame-mac = keccak256.digest(mac)[:16]
+void rlpx_mac_update_frame(void *ctx, const char frame[], int frame_offset, int length,
+                           char mac[], int mac_offset);
+
+// Writes keccak256.digest(mac), 32 bytes, without changing the state.
+void rlpx_mac_digest(void *ctx, char digest[]);
+
+void rlpx_mac_free(void *ctx);
+
+#ifdef __cplusplus
+}
+#endif
+
+#endif // RLPX_H
@@ -0,0 +1,96 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.boringssl;
+
+import java.util.Objects;
+
+import com.sun.jna.Pointer;
+
+/**
+ * A streaming SHA-256 or RIPEMD-160 digest held in native memory, for inputs too large or too
+ * scattered to hash in one call. A digest may be reused after {@link #digest(byte[], int)} and
+ * must be closed, it is not thread safe.
+ */
+public final class BoringSSLDigest implements AutoCloseable {
+
+  private final int digestBytes;
+  private Pointer ctx;
+
+  private BoringSSLDigest(final int algorithm, final int digestBytes) {
+    Pointer ctx = BoringSSLPrecompiles.digest_ctx_new(algorithm);
+    if (ctx == null) {
+      throw new OutOfMemoryError("Failed to allocate native digest context");
+    }
+    this.ctx = ctx;
+    this.digestBytes = digestBytes;
+  }
+
+  public static BoringSSLDigest sha256() {
+    return new BoringSSLDigest(
+        BoringSSLPrecompiles.DIGEST_SHA256, BoringSSLPrecompiles.SHA256_DIGEST_BYTES);
+  }
+
+  public static BoringSSLDigest ripemd160() {
+    return new BoringSSLDigest(
+        BoringSSLPrecompiles.DIGEST_RIPEMD160, BoringSSLPrecompiles.RIPEMD160_DIGEST_BYTES);
+  }
+
+  public int digestBytes() {
+    return digestBytes;
+  }
+
+  /**
+   * Hashes length bytes of input from offset.
+   *
+   * @throws IndexOutOfBoundsException if the range is outside of input
+   */
+  public void update(final byte[] input, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, input.length);
+    BoringSSLPrecompiles.digest_ctx_update(open(), input, offset, length);
+  }
+
+  /**
+   * Writes the digest of everything hashed since creation or the last call, and starts over.
+   *
+   * @param output output, the {@link #digestBytes()} byte digest is written at outputOffset
+   * @throws IndexOutOfBoundsException if the digest does not fit at outputOffset
+   */
+  public void digest(final byte[] output, final int outputOffset) {
+    Objects.checkFromIndexSize(outputOffset, digestBytes, output.length);
+    BoringSSLPrecompiles.digest_ctx_final(open(), output, outputOffset);
+  }
+
+  public byte[] digest() {
+    byte[] output = new byte[digestBytes];
+    digest(output, 0);
+    return output;
+  }
+
+  @Override
+  public void close() {
+    if (ctx != null) {
+      BoringSSLPrecompiles.digest_ctx_free(ctx);
+      ctx = null;
+    }
+  }
+
+  private Pointer open() {
+    if (ctx == null) {
+      throw new IllegalStateException("Digest is closed");
+    }
+    return ctx;
+  }
+}
@@ -17,11 +17,16 @@ package org.hyperledger.besu.nativelib.boringssl;
 
 import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
 
-import java.math.BigInteger;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
 
+import com.sun.jna.Pointer;
+
 public class BoringSSLPrecompiles {
 
   public static final boolean ENABLED;
@@ -30,6 +35,28 @@ public class BoringSSLPrecompiles {
   public static final int STATUS_FAIL = 1;
   public static final int STATUS_ERROR = 2;
 
+  public static final int ECRECOVER_OUTPUT_BYTES = 65;
+  /** Size of the P256VERIFY precompile input: hash (32) || r (32) || s (32) || x (32) || y (32). */
+  public static final int P256_VERIFY_INPUT_BYTES = 160;
+
+  /** Size of an {@link #ecrecoverBatch} record: hash (32) || r (32) || s (32) || recovery id (1). */
+  public static final int ECRECOVER_BATCH_RECORD_BYTES = 97;
+
+  /** Size of an {@link #ecrecoverBatch} output: the public key without its 0x04 prefix, x || y. */
+  public static final int ECRECOVER_BATCH_OUTPUT_BYTES = 64;
+
+  public static final int SHA256_DIGEST_BYTES = 32;
+
+  /** Size of a raw RIPEMD-160 digest, the RIPEMD160 precompile left pads it to 32 bytes. */
+  public static final int RIPEMD160_DIGEST_BYTES = 20;
+
+  // Keep in sync with digest.h
+  static final int DIGEST_SHA256 = 0;
+  static final int DIGEST_RIPEMD160 = 1;
+
+
+  // zero implies 'default' degree of parallelism, which is the number of cpu cores available
+  private static int degreeOfBatchParallelism = 0;
 
   static {
     boolean enabled;
@@ -51,6 +78,20 @@ public class BoringSSLPrecompiles {
       final byte[] public_key_data, final int public_key_data_length,
       final byte[] error_message_buf, final int error_message_buf_len);
 
+  // Native r1 p256 verify of the raw precompile input at an offset, without error text
+  static native int p256_verify_at(final byte[] input, final int input_offset);
+
+  // Error text of the calling thread's last p256_verify_at
+  static native int p256_verify_last_error(
+      final byte[] error_message_buf, final int error_message_buf_len);
+
+  // Native r1 p256 verify of count packed precompile inputs across num_threads threads
+  static native int p256_verify_batch(
+      final byte[] inputs, final int count, final byte[] statuses, final int num_threads);
+
+  // Frees the calling thread's native p256 verify context
+  static native void p256_verify_thread_cleanup();
+
 
   // Native r1 ecrecover
   static native int ecrecover_r1(
@@ -60,6 +101,66 @@ public class BoringSSLPrecompiles {
       final byte[] output, final int output_length,
       final byte[] error_message_buf, final int error_message_buf_len);
 
+  // Native r1 ecrecover at offsets, without error text
+  static native int ecrecover_r1_at(
+      final byte[] hash, final int hash_offset,
+      final byte[] sig, final int sig_offset,
+      final int recovery_id,
+      final byte[] output, final int output_offset);
+
+  // Native r1 ecrecover of count packed records across num_threads threads
+  static native int ecrecover_r1_batch(
+      final byte[] records, final int count, final byte[] outputs, final byte[] statuses,
+      final int num_threads);
+
+  // Frees the calling thread's native ecrecover batch scratch
+  static native void ecrecover_r1_thread_cleanup();
+
+  // Native SHA-256 or RIPEMD-160 of a range of the input, written at an offset into the output
+  static native int digest_at(
+      final int algorithm, final byte[] input, final int input_offset, final int input_length,
+      final byte[] output, final int output_offset);
+
+  // Native digests of count packed inputs delimited by offsets, across num_threads threads
+  static native int digest_batch(
+      final int algorithm, final byte[] inputs, final int[] offsets, final int count,
+      final byte[] outputs, final int num_threads);
+
+  // Native streaming digest contexts, see BoringSSLDigest
+  static native Pointer digest_ctx_new(final int algorithm);
+
+  static native void digest_ctx_update(
+      final Pointer ctx, final byte[] input, final int input_offset, final int input_length);
+
+  static native void digest_ctx_final(final Pointer ctx, final byte[] output, final int output_offset);
+
+  static native void digest_ctx_free(final Pointer ctx);
+
+  // Native RLPx frame cipher and MAC, see RlpxFrameCipher and RlpxMac
+  static native Pointer rlpx_ctr_new(final byte[] key, final byte[] iv);
+
+  static native int rlpx_ctr_apply(
+      final Pointer ctx, final ByteBuffer buffer, final int offset, final int length);
+
+  static native void rlpx_ctr_free(final Pointer ctx);
+
+  static native Pointer rlpx_mac_new(final byte[] mac_secret);
+
+  static native void rlpx_mac_absorb(
+      final Pointer ctx, final byte[] data, final int offset, final int length);
+
+  static native void rlpx_mac_update_header(
+      final Pointer ctx, final ByteBuffer header, final int header_offset, final ByteBuffer mac,
+      final int mac_offset);
+
+  static native void rlpx_mac_update_frame(
+      final Pointer ctx, final ByteBuffer frame, final int frame_offset, final int length,
+      final ByteBuffer mac, final int mac_offset);
+
+  static native void rlpx_mac_digest(final Pointer ctx, final byte[] digest);
+
+  static native void rlpx_mac_free(final Pointer ctx);
+
 
 
   // Wrapper result classes
@@ -84,35 +185,88 @@ public class BoringSSLPrecompiles {
   final static int ERROR_BUF_SIZE = 256;
 
   public static P256VerifyResult p256Verify(final byte[] input, final int inputLength) {
+    if (inputLength != P256_VERIFY_INPUT_BYTES) {
+      return new P256VerifyResult(2, "incorrect input size");
+    }
+    int status = p256VerifyStatus(input, 0);
+    return new P256VerifyResult(status, status == STATUS_SUCCESS ? "" : p256VerifyLastError());
+  }
 
+  /**
+   * Allocation-free form of {@link #p256Verify(byte[], int)}: the raw precompile input is read at
+   * an offset into the caller's buffer and only a status is returned. The error text of a failure
+   * is available from {@link #p256VerifyLastError()} on the same thread.
+   *
+   * @param input buffer holding the {@link #P256_VERIFY_INPUT_BYTES} byte precompile input at
+   *     offset
+   * @return {@link #STATUS_SUCCESS}, {@link #STATUS_FAIL} if the signature or public key is
+   *     invalid, or {@link #STATUS_ERROR}
+   * @throws IndexOutOfBoundsException if the buffer is too short for the offset
+   */
+  public static int p256VerifyStatus(final byte[] input, final int offset) {
+    Objects.checkFromIndexSize(offset, P256_VERIFY_INPUT_BYTES, input.length);
+    return p256_verify_at(input, offset);
+  }
+
+  /**
+   * The error text of the last {@link #p256VerifyStatus} on the calling thread, empty if it
+   * succeeded.
+   */
+  public static String p256VerifyLastError() {
     byte[] errorBuf = new byte[ERROR_BUF_SIZE];
+    p256_verify_last_error(errorBuf, ERROR_BUF_SIZE);
+    return bytesToNullTermString(errorBuf);
+  }
 
-    if (inputLength != 160) {
-      return new P256VerifyResult(2, "incorrect input size");
+  /**
+   * Verifies many P256VERIFY precompile inputs at once, e.g. all calls of a block, on the calling
+   * thread and long-lived native workers which keep their verification state across batches.
+   *
+   * @param inputs concatenated {@link #P256_VERIFY_INPUT_BYTES} byte precompile inputs
+   * @param statuses output, a STATUS_* value per input as {@link #p256VerifyStatus} returns it
+   * @return the number of valid signatures
+   */
+  public static int p256VerifyBatch(final byte[] inputs, final byte[] statuses) {
+    if (inputs.length % P256_VERIFY_INPUT_BYTES != 0) {
+      throw new IllegalArgumentException(
+          "inputs length must be a multiple of " + P256_VERIFY_INPUT_BYTES);
     }
+    int count = inputs.length / P256_VERIFY_INPUT_BYTES;
+    if (statuses.length < count) {
+      throw new IllegalArgumentException("statuses too small for " + count + " inputs");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    return p256_verify_batch(inputs, count, statuses, degreeOfBatchParallelism);
+  }
 
-    byte[] dataHash = Arrays.copyOfRange(input, 0, 32);
-    byte[] signatureR = Arrays.copyOfRange(input, 32, 64);
-    byte[] signatureS = Arrays.copyOfRange(input, 64, 96);
-    byte[] uncompressedPubKey = new byte[65];
-    // uncompressed point prefix
-    uncompressedPubKey[0] = 0x04;
-    System.arraycopy(input, 96, uncompressedPubKey, 1, 64);
-
-    int status =
-        p256_verify(
-            dataHash, dataHash.length,
-            signatureR, signatureR.length,
-            signatureS, signatureS.length,
-            uncompressedPubKey, uncompressedPubKey.length,
-            errorBuf, ERROR_BUF_SIZE);
+  /**
+   * Sets the number of native threads the batch methods, {@link #p256VerifyBatch}, {@link
+   * #ecrecoverBatch}, {@link #sha256Batch} and {@link #ripemd160Batch}, use, 0 for the number of
+   * cpu cores. They all run on one pool of long-lived native workers, one per core.
+   */
+  public static void setDegreeOfBatchParallelism(final int nbThreads) {
+    degreeOfBatchParallelism = nbThreads;
+  }
 
-    return new P256VerifyResult(status, bytesToNullTermString(errorBuf));
+  /**
+   * Frees the native state {@link #p256Verify} and {@link #ecrecoverBatch} keep per thread for reuse
+   * across calls. It is also freed when the thread exits, so this is only needed on long-lived
+   * threads, e.g. pooled ones, which are done verifying. A later call on the thread builds it again.
+   */
+  public static void releaseThreadResources() {
+    p256_verify_thread_cleanup();
+    ecrecover_r1_thread_cleanup();
   }
 
-  // secp256r1 curve order
-  private static final BigInteger SECP256R1_ORDER =
-      new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+  // secp256r1 curve order, as big-endian 64-bit limbs
+  private static final long[] SECP256R1_ORDER = {
+      0xFFFFFFFF00000000L, 0xFFFFFFFFFFFFFFFFL, 0xBCE6FAADA7179E84L, 0xF3B9CAC2FC632551L
+  };
+
+  private static final VarHandle LONG_BE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
   public static ECRecoverResult ecrecover(final byte[] hash, final byte[] sig,
       final int recovery_id) {
@@ -126,24 +280,13 @@ public class BoringSSLPrecompiles {
       return new ECRecoverResult(STATUS_ERROR, Optional.empty(),
           Optional.of("invalid hash length"));
     }
-    byte[] errorBuf = new byte[ERROR_BUF_SIZE];
-
-    // Extract r and s values
-    byte[] rBytes = new byte[32];
-    byte[] sBytes = new byte[32];
-    System.arraycopy(sig, 0, rBytes, 0, 32);
-    System.arraycopy(sig, 32, sBytes, 0, 32);
-
-    BigInteger r = new BigInteger(1, rBytes);
-    BigInteger s = new BigInteger(1, sBytes);
-
     // Validate r and s are in range [1, n-1] before calling native method
-    if (r.equals(BigInteger.ZERO) || r.compareTo(SECP256R1_ORDER) >= 0) {
+    if (!isValidScalar(sig, 0)) {
       return new ECRecoverResult(STATUS_ERROR, Optional.empty(),
           Optional.of("invalid signature r value"));
     }
 
-    if (s.equals(BigInteger.ZERO) || s.compareTo(SECP256R1_ORDER) >= 0) {
+    if (!isValidScalar(sig, 32)) {
       return new ECRecoverResult(STATUS_ERROR, Optional.empty(),
           Optional.of("invalid signature s value"));
     }
@@ -153,19 +296,166 @@ public class BoringSSLPrecompiles {
           Optional.of("invalid recovery id " + recovery_id + " is not 0 or 1"));
     }
 
-    byte[] output = new byte[65];
-    byte[] error_buf = new byte[ERROR_BUF_SIZE];
+    byte[] output = new byte[ECRECOVER_OUTPUT_BYTES];
+    byte[] errorBuf = new byte[ERROR_BUF_SIZE];
     int status = ecrecover_r1(hash, hash.length, sig, sig.length, recovery_id, output, output.length,
         errorBuf, ERROR_BUF_SIZE);
 
     if (status == 0) {
       return new ECRecoverResult(status, Optional.of(output), Optional.empty());
     } else {
-      String errorMessage = bytesToNullTermString(error_buf);
+      String errorMessage = bytesToNullTermString(errorBuf);
       return new ECRecoverResult(status, Optional.empty(), Optional.of(errorMessage));
     }
   }
 
+  /**
+   * Allocation-free form of {@link #ecrecover(byte[], byte[], int)}: inputs are read at offsets
+   * into the caller's buffers and the public key is written into the caller's output buffer. r, s
+   * and the recovery id are range checked natively and no error text is produced.
+   *
+   * @param hash buffer holding the 32-byte message hash at hashOffset
+   * @param sig buffer holding the 64-byte signature (r || s) at sigOffset
+   * @param recoveryId the recovery id, 0 or 1
+   * @param output output, the 65-byte uncompressed public key is written at outputOffset, zeroed
+   *     unless recovery succeeded
+   * @return {@link #STATUS_SUCCESS}, or the failure status {@link #ecrecover(byte[], byte[], int)}
+   *     would report
+   * @throws IndexOutOfBoundsException if a buffer is too short for its offset
+   */
+  public static int ecrecover(final byte[] hash, final int hashOffset, final byte[] sig,
+      final int sigOffset, final int recoveryId, final byte[] output, final int outputOffset) {
+    Objects.checkFromIndexSize(hashOffset, 32, hash.length);
+    Objects.checkFromIndexSize(sigOffset, 64, sig.length);
+    Objects.checkFromIndexSize(outputOffset, ECRECOVER_OUTPUT_BYTES, output.length);
+    return ecrecover_r1_at(hash, hashOffset, sig, sigOffset, recoveryId, output, outputOffset);
+  }
+
+  /**
+   * Recovers many public keys at once, e.g. the senders of a block, on the calling thread and the
+   * long-lived native workers {@link #p256VerifyBatch} also uses. Records are range checked natively
+   * and modular inversions are shared between records.
+   *
+   * @param records concatenated {@link #ECRECOVER_BATCH_RECORD_BYTES} byte records
+   * @param publicKeys output, an {@link #ECRECOVER_BATCH_OUTPUT_BYTES} byte key per record, zeroed
+   *     unless recovered
+   * @param statuses output, a STATUS_* value per record as {@link #ecrecover(byte[], int, byte[],
+   *     int, int, byte[], int)} returns it
+   * @return the number of keys recovered
+   */
+  public static int ecrecoverBatch(
+      final byte[] records, final byte[] publicKeys, final byte[] statuses) {
+    if (records.length % ECRECOVER_BATCH_RECORD_BYTES != 0) {
+      throw new IllegalArgumentException(
+          "records length must be a multiple of " + ECRECOVER_BATCH_RECORD_BYTES);
+    }
+    int count = records.length / ECRECOVER_BATCH_RECORD_BYTES;
+    if (publicKeys.length < count * ECRECOVER_BATCH_OUTPUT_BYTES) {
+      throw new IllegalArgumentException("publicKeys too small for " + count + " records");
+    }
+    if (statuses.length < count) {
+      throw new IllegalArgumentException("statuses too small for " + count + " records");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    return ecrecover_r1_batch(records, count, publicKeys, statuses, degreeOfBatchParallelism);
+  }
+
+  /**
+   * SHA-256 of length bytes of input from offset, on the SHA extensions of the cpu where present.
+   *
+   * @param output output, the {@link #SHA256_DIGEST_BYTES} byte digest is written at outputOffset
+   * @throws IndexOutOfBoundsException if a range is outside its buffer
+   */
+  public static void sha256(
+      final byte[] input, final int offset, final int length, final byte[] output,
+      final int outputOffset) {
+    digest(DIGEST_SHA256, input, offset, length, output, outputOffset, SHA256_DIGEST_BYTES);
+  }
+
+  /**
+   * RIPEMD-160 of length bytes of input from offset.
+   *
+   * @param output output, the {@link #RIPEMD160_DIGEST_BYTES} byte digest is written at
+   *     outputOffset
+   * @throws IndexOutOfBoundsException if a range is outside its buffer
+   */
+  public static void ripemd160(
+      final byte[] input, final int offset, final int length, final byte[] output,
+      final int outputOffset) {
+    digest(DIGEST_RIPEMD160, input, offset, length, output, outputOffset, RIPEMD160_DIGEST_BYTES);
+  }
+
+  /**
+   * SHA-256 of many inputs at once, e.g. all SHA256 precompile calls of a block. Large batches are
+   * hashed across the native threads set with {@link #setDegreeOfBatchParallelism(int)}.
+   *
+   * @param inputs the packed inputs
+   * @param offsets count + 1 non decreasing offsets into inputs, input i runs from offsets[i] to
+   *     offsets[i + 1]
+   * @param outputs output, the digests back to back
+   */
+  public static void sha256Batch(final byte[] inputs, final int[] offsets, final byte[] outputs) {
+    digestBatch(DIGEST_SHA256, inputs, offsets, outputs, SHA256_DIGEST_BYTES);
+  }
+
+  /** RIPEMD-160 of many inputs at once, as {@link #sha256Batch}. */
+  public static void ripemd160Batch(
+      final byte[] inputs, final int[] offsets, final byte[] outputs) {
+    digestBatch(DIGEST_RIPEMD160, inputs, offsets, outputs, RIPEMD160_DIGEST_BYTES);
+  }
+
+  private static void digest(
+      final int algorithm, final byte[] input, final int offset, final int length,
+      final byte[] output, final int outputOffset, final int digestBytes) {
+    Objects.checkFromIndexSize(offset, length, input.length);
+    Objects.checkFromIndexSize(outputOffset, digestBytes, output.length);
+    digest_at(algorithm, input, offset, length, output, outputOffset);
+  }
+
+  private static void digestBatch(
+      final int algorithm, final byte[] inputs, final int[] offsets, final byte[] outputs,
+      final int digestBytes) {
+    if (offsets.length == 0) {
+      throw new IllegalArgumentException("offsets must hold at least one entry");
+    }
+    int count = offsets.length - 1;
+    if (offsets[0] < 0 || offsets[count] > inputs.length) {
+      throw new IllegalArgumentException("offsets outside of inputs");
+    }
+    for (int i = 0; i < count; i++) {
+      if (offsets[i] > offsets[i + 1]) {
+        throw new IllegalArgumentException("offsets must be non decreasing");
+      }
+    }
+    if (outputs.length < count * digestBytes) {
+      throw new IllegalArgumentException("outputs too small for " + count + " digests");
+    }
+    if (count == 0) {
+      return;
+    }
+    digest_batch(algorithm, inputs, offsets, count, outputs, degreeOfBatchParallelism);
+  }
+
+  /** Whether the 32-byte big-endian scalar at offset is in [1, n-1], without allocating. */
+  private static boolean isValidScalar(final byte[] bytes, final int offset) {
+    long any = 0;
+    for (int i = 0; i < 4; i++) {
+      any |= (long) LONG_BE.get(bytes, offset + 8 * i);
+    }
+    if (any == 0) {
+      return false;
+    }
+    for (int i = 0; i < 4; i++) {
+      int cmp = Long.compareUnsigned((long) LONG_BE.get(bytes, offset + 8 * i), SECP256R1_ORDER[i]);
+      if (cmp != 0) {
+        return cmp < 0;
+      }
+    }
+    return false;
+  }
+
   static String bytesToNullTermString(final byte[] buffer) {
     int nullTerminator = 0;
     while (nullTerminator < buffer.length && buffer[nullTerminator] != 0) {
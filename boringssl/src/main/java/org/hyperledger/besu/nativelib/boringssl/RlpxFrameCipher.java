@@ -0,0 +1,84 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.boringssl;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import com.sun.jna.Pointer;
+
+/**
+ * The AES-256-CTR frame cipher of one direction of an RLPx session, on the AES instructions of the
+ * cpu where present. The keystream continues from one call to the next, so frames must be passed
+ * in order. Buffers are direct and transformed in place. A cipher must be closed, it is not thread
+ * safe.
+ */
+public final class RlpxFrameCipher implements AutoCloseable {
+
+  public static final int KEY_BYTES = 32;
+  public static final int IV_BYTES = 16;
+
+  private Pointer ctx;
+
+  public RlpxFrameCipher(final byte[] key, final byte[] iv) {
+    if (key.length != KEY_BYTES || iv.length != IV_BYTES) {
+      throw new IllegalArgumentException(
+          "key must be " + KEY_BYTES + " bytes and iv " + IV_BYTES + " bytes");
+    }
+    ctx = BoringSSLPrecompiles.rlpx_ctr_new(key, iv);
+    if (ctx == null) {
+      throw new OutOfMemoryError("Failed to allocate native cipher context");
+    }
+  }
+
+  /**
+   * Encrypts or decrypts, which are the same operation, the bytes between the position and the
+   * limit of buffer in place. The position and limit are left unchanged.
+   */
+  public void apply(final ByteBuffer buffer) {
+    apply(buffer, buffer.position(), buffer.remaining());
+  }
+
+  /**
+   * Encrypts or decrypts length bytes of buffer from index in place.
+   *
+   * @throws IllegalArgumentException if the buffer is not direct
+   * @throws IndexOutOfBoundsException if the range is outside of the buffer's limit
+   */
+  public void apply(final ByteBuffer buffer, final int index, final int length) {
+    RlpxMac.checkDirect(buffer);
+    Objects.checkFromIndexSize(index, length, buffer.limit());
+    if (BoringSSLPrecompiles.rlpx_ctr_apply(
+        open(), buffer, RlpxMac.nativeOffset(buffer, index), length) != 0) {
+      throw new IllegalStateException("AES-256-CTR failed");
+    }
+  }
+
+  @Override
+  public void close() {
+    if (ctx != null) {
+      BoringSSLPrecompiles.rlpx_ctr_free(ctx);
+      ctx = null;
+    }
+  }
+
+  private Pointer open() {
+    if (ctx == null) {
+      throw new IllegalStateException("Cipher is closed");
+    }
+    return ctx;
+  }
+}
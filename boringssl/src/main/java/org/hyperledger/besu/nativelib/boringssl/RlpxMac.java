@@ -0,0 +1,124 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.boringssl;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import com.sun.jna.Pointer;
+
+/**
+ * The egress or ingress MAC of an RLPx session: a running keccak256 state, fed the handshake
+ * values with {@link #update(byte[])}, and the mac-secret which seeds each header and frame update
+ * as in the RLPx specification. Buffers are direct. A MAC must be closed, it is not thread safe.
+ */
+public final class RlpxMac implements AutoCloseable {
+
+  public static final int MAC_SECRET_BYTES = 32;
+  public static final int HEADER_BYTES = 16;
+  public static final int MAC_BYTES = 16;
+
+  private Pointer ctx;
+
+  public RlpxMac(final byte[] macSecret) {
+    if (macSecret.length != MAC_SECRET_BYTES) {
+      throw new IllegalArgumentException("macSecret must be " + MAC_SECRET_BYTES + " bytes");
+    }
+    ctx = BoringSSLPrecompiles.rlpx_mac_new(macSecret);
+    if (ctx == null) {
+      throw new OutOfMemoryError("Failed to allocate native MAC context");
+    }
+  }
+
+  /** Absorbs data into the keccak256 state, e.g. (mac-secret ^ nonce) || auth at setup. */
+  public void update(final byte[] data) {
+    BoringSSLPrecompiles.rlpx_mac_absorb(open(), data, 0, data.length);
+  }
+
+  /**
+   * Updates the MAC with a header ciphertext and writes the header-mac.
+   *
+   * @param header buffer holding the {@link #HEADER_BYTES} byte header ciphertext at headerIndex
+   * @param mac output, the {@link #MAC_BYTES} byte header-mac is written at macIndex
+   */
+  public void updateHeader(
+      final ByteBuffer header, final int headerIndex, final ByteBuffer mac, final int macIndex) {
+    checkDirect(header);
+    checkDirect(mac);
+    Objects.checkFromIndexSize(headerIndex, HEADER_BYTES, header.limit());
+    Objects.checkFromIndexSize(macIndex, MAC_BYTES, mac.limit());
+    BoringSSLPrecompiles.rlpx_mac_update_header(
+        open(), header, nativeOffset(header, headerIndex), mac, nativeOffset(mac, macIndex));
+  }
+
+  /**
+   * Updates the MAC with a frame ciphertext and writes the frame-mac.
+   *
+   * @param frame buffer holding the length byte frame ciphertext at frameIndex
+   * @param mac output, the {@link #MAC_BYTES} byte frame-mac is written at macIndex
+   */
+  public void updateFrame(
+      final ByteBuffer frame,
+      final int frameIndex,
+      final int length,
+      final ByteBuffer mac,
+      final int macIndex) {
+    checkDirect(frame);
+    checkDirect(mac);
+    Objects.checkFromIndexSize(frameIndex, length, frame.limit());
+    Objects.checkFromIndexSize(macIndex, MAC_BYTES, mac.limit());
+    BoringSSLPrecompiles.rlpx_mac_update_frame(
+        open(),
+        frame,
+        nativeOffset(frame, frameIndex),
+        length,
+        mac,
+        nativeOffset(mac, macIndex));
+  }
+
+  /** keccak256 of everything absorbed so far, the state is not changed. */
+  public byte[] digest() {
+    byte[] digest = new byte[32];
+    BoringSSLPrecompiles.rlpx_mac_digest(open(), digest);
+    return digest;
+  }
+
+  @Override
+  public void close() {
+    if (ctx != null) {
+      BoringSSLPrecompiles.rlpx_mac_free(ctx);
+      ctx = null;
+    }
+  }
+
+  private Pointer open() {
+    if (ctx == null) {
+      throw new IllegalStateException("MAC is closed");
+    }
+    return ctx;
+  }
+
+  static void checkDirect(final ByteBuffer buffer) {
+    if (!buffer.isDirect()) {
+      throw new IllegalArgumentException("Buffer must be direct");
+    }
+  }
+
+  // JNA passes a direct buffer as the address of its position, the native offset is from there
+  static int nativeOffset(final ByteBuffer buffer, final int index) {
+    return index - buffer.position();
+  }
+}
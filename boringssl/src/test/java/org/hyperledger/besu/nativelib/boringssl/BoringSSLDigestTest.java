@@ -0,0 +1,120 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.boringssl;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BoringSSLDigestTest {
+
+    private static final byte[] ABC = "abc".getBytes(StandardCharsets.US_ASCII);
+    private static final Bytes SHA256_ABC =
+        Bytes.fromHexString("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    private static final Bytes RIPEMD160_ABC = Bytes.fromHexString("8eb208f7e05d987a9b044a8e98c6b087f15a0bfc");
+    private static final Bytes RIPEMD160_EMPTY = Bytes.fromHexString("9c1185a5c5e9fc54612808977ee8f548b2258d31");
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("BoringSSL precompiles must be enabled", BoringSSLPrecompiles.ENABLED);
+    }
+
+    @Test
+    public void digestsReadAndWriteAtOffsets() {
+        byte[] input = Bytes.concatenate(Bytes.of(1, 2), Bytes.wrap(ABC), Bytes.of(3)).toArrayUnsafe();
+        byte[] output = new byte[5 + 32];
+
+        BoringSSLPrecompiles.sha256(input, 2, 3, output, 5);
+        assertThat(Bytes.wrap(output, 5, 32)).isEqualTo(SHA256_ABC);
+
+        // the RIPEMD160 precompile output, left padded to 32 bytes
+        byte[] padded = new byte[32];
+        BoringSSLPrecompiles.ripemd160(input, 2, 3, padded, 12);
+        assertThat(Bytes.wrap(padded)).isEqualTo(Bytes.concatenate(Bytes.wrap(new byte[12]), RIPEMD160_ABC));
+
+        assertThatThrownBy(() -> BoringSSLPrecompiles.sha256(input, 4, 3, output, 0))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> BoringSSLPrecompiles.ripemd160(input, 0, 3, output, 20))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void batchMatchesSingleDigests() throws Exception {
+        int count = 50;
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            // includes empty inputs and one large enough to be split across threads
+            offsets[i + 1] = offsets[i] + (i == 7 ? 300_000 : (i * 37) % 200);
+        }
+        byte[] inputs = new byte[offsets[count]];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = (byte) (i * 31 + 7);
+        }
+
+        byte[] sha256 = new byte[count * BoringSSLPrecompiles.SHA256_DIGEST_BYTES];
+        byte[] ripemd160 = new byte[count * BoringSSLPrecompiles.RIPEMD160_DIGEST_BYTES];
+        BoringSSLPrecompiles.setDegreeOfBatchParallelism(4);
+        try {
+            BoringSSLPrecompiles.sha256Batch(inputs, offsets, sha256);
+            BoringSSLPrecompiles.ripemd160Batch(inputs, offsets, ripemd160);
+        } finally {
+            BoringSSLPrecompiles.setDegreeOfBatchParallelism(0);
+        }
+
+        MessageDigest jdk = MessageDigest.getInstance("SHA-256");
+        byte[] single = new byte[BoringSSLPrecompiles.RIPEMD160_DIGEST_BYTES];
+        for (int i = 0; i < count; i++) {
+            jdk.update(inputs, offsets[i], offsets[i + 1] - offsets[i]);
+            assertThat(Arrays.copyOfRange(sha256, i * 32, i * 32 + 32)).isEqualTo(jdk.digest());
+            BoringSSLPrecompiles.ripemd160(inputs, offsets[i], offsets[i + 1] - offsets[i], single, 0);
+            assertThat(Arrays.copyOfRange(ripemd160, i * 20, i * 20 + 20)).isEqualTo(single);
+        }
+        assertThat(Bytes.wrap(ripemd160, 0, 20)).isEqualTo(RIPEMD160_EMPTY);
+
+        assertThatThrownBy(() -> BoringSSLPrecompiles.sha256Batch(inputs, new int[] {0, 2, 1}, sha256))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BoringSSLPrecompiles.sha256Batch(inputs, offsets, new byte[32]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void streamingDigestMatchesOneShotAndIsReusable() {
+        try (BoringSSLDigest digest = BoringSSLDigest.ripemd160()) {
+            for (int round = 0; round < 2; round++) {
+                digest.update(ABC, 0, 1);
+                digest.update(ABC, 1, 2);
+                assertThat(Bytes.wrap(digest.digest())).isEqualTo(RIPEMD160_ABC);
+            }
+        }
+
+        BoringSSLDigest digest = BoringSSLDigest.sha256();
+        byte[] output = new byte[40];
+        digest.update(ABC, 0, 3);
+        digest.digest(output, 8);
+        assertThat(Bytes.wrap(output, 8, 32)).isEqualTo(SHA256_ABC);
+        digest.close();
+        digest.close();
+        assertThatThrownBy(() -> digest.update(ABC, 0, 3)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -24,6 +24,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class P256VerifyTest {
 
@@ -87,6 +88,70 @@ public class P256VerifyTest {
     assertThat(res.error).isEqualTo("failed to parse public key point");
   }
 
+  @Test
+  public void verifyReusesThreadContextAfterFailuresAndRelease() throws Exception {
+    byte[] valid = createInput(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), publicKey.toArrayUnsafe());
+    byte[] invalid = createInput(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), invalidPublicKey.toArrayUnsafe());
+
+    assertThat(BoringSSLPrecompiles.p256Verify(valid, valid.length).status).isEqualTo(0);
+    // a public key which fails to decode must not leak into the next verification
+    assertThat(BoringSSLPrecompiles.p256Verify(invalid, invalid.length).status).isEqualTo(1);
+    assertThat(BoringSSLPrecompiles.p256Verify(valid, valid.length).status).isEqualTo(0);
+
+    BoringSSLPrecompiles.releaseThreadResources();
+    BoringSSLPrecompiles.releaseThreadResources();
+    assertThat(BoringSSLPrecompiles.p256Verify(valid, valid.length).status).isEqualTo(0);
+
+    int[] otherThreadStatus = new int[1];
+    Thread other = new Thread(() -> otherThreadStatus[0] = BoringSSLPrecompiles.p256Verify(valid, valid.length).status);
+    other.start();
+    other.join();
+    assertThat(otherThreadStatus[0]).isEqualTo(0);
+  }
+
+  @Test
+  public void verifyStatusReadsInputAtOffset() {
+    byte[] valid = createInput(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), publicKey.toArrayUnsafe());
+    byte[] invalid = createInput(dataHash, invalidSignatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), publicKey.toArrayUnsafe());
+    byte[] buffer = new byte[7 + 2 * 160];
+    System.arraycopy(valid, 0, buffer, 7, 160);
+    System.arraycopy(invalid, 0, buffer, 7 + 160, 160);
+
+    assertThat(BoringSSLPrecompiles.p256VerifyStatus(buffer, 7)).isEqualTo(0);
+    assertThat(BoringSSLPrecompiles.p256VerifyLastError()).isEmpty();
+    assertThat(BoringSSLPrecompiles.p256VerifyStatus(buffer, 7 + 160)).isEqualTo(1);
+    assertThat(BoringSSLPrecompiles.p256VerifyLastError()).isEqualTo("signature verification failed");
+    assertThatThrownBy(() -> BoringSSLPrecompiles.p256VerifyStatus(buffer, 8 + 160))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  @Test
+  public void verifyBatchMatchesSingleVerifications() {
+    byte[][] inputs = {
+      createInput(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), publicKey.toArrayUnsafe()),
+      createInput(dataHash, invalidSignatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), publicKey.toArrayUnsafe()),
+      createInput(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(), invalidPublicKey.toArrayUnsafe())
+    };
+    int count = 48;
+    byte[] batch = new byte[count * 160];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(inputs[i % inputs.length], 0, batch, i * 160, 160);
+    }
+    byte[] statuses = new byte[count];
+
+    BoringSSLPrecompiles.setDegreeOfBatchParallelism(4);
+    try {
+      assertThat(BoringSSLPrecompiles.p256VerifyBatch(batch, statuses)).isEqualTo(count / inputs.length);
+    } finally {
+      BoringSSLPrecompiles.setDegreeOfBatchParallelism(0);
+    }
+    for (int i = 0; i < count; i++) {
+      assertThat(statuses[i]).isEqualTo((byte) BoringSSLPrecompiles.p256VerifyStatus(batch, i * 160));
+    }
+    assertThatThrownBy(() -> BoringSSLPrecompiles.p256VerifyBatch(new byte[161], statuses))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
   // Helper method to create 160-byte input array: hash(32) + r(32) + s(32) + pubkey(64)
   private byte[] createInput(byte[] hash, byte[] r, byte[] s, byte[] pubkey) {
     if (hash.length != 32 || r.length != 32 || s.length != 32 || pubkey.length != 64) {
@@ -0,0 +1,122 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.boringssl;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RlpxFramingTest {
+
+    private final byte[] key = new byte[32];
+    private final byte[] iv = new byte[16];
+    private final byte[] macSecret = new byte[32];
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("BoringSSL precompiles must be enabled", BoringSSLPrecompiles.ENABLED);
+        for (int i = 0; i < 32; i++) {
+            key[i] = (byte) (i + 1);
+            macSecret[i] = (byte) (0xa0 ^ i);
+        }
+        for (int i = 0; i < 16; i++) {
+            iv[i] = (byte) (0xf0 - i);
+        }
+    }
+
+    @Test
+    public void frameCipherMatchesJdkAcrossFrames() throws Exception {
+        Cipher jdk = Cipher.getInstance("AES/CTR/NoPadding");
+        jdk.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+
+        try (RlpxFrameCipher cipher = new RlpxFrameCipher(key, iv)) {
+            // frame sizes which do not line up with the 16-byte AES block
+            for (int size : new int[] {16, 5, 300, 0, 137}) {
+                byte[] plain = new byte[size];
+                for (int i = 0; i < size; i++) {
+                    plain[i] = (byte) (i * 13 + size);
+                }
+                ByteBuffer buffer = ByteBuffer.allocateDirect(size + 10);
+                buffer.position(7);
+                buffer.put(plain);
+                buffer.flip().position(7);
+
+                cipher.apply(buffer);
+
+                assertThat(buffer.position()).isEqualTo(7);
+                byte[] encrypted = new byte[size];
+                buffer.get(7, encrypted);
+                byte[] expected = jdk.update(plain);
+                assertThat(encrypted).isEqualTo(expected == null ? new byte[0] : expected);
+            }
+        }
+    }
+
+    @Test
+    public void macMatchesReferenceVectors() {
+        ByteBuffer header = ByteBuffer.allocateDirect(16);
+        ByteBuffer frame = ByteBuffer.allocateDirect(20);
+        ByteBuffer mac = ByteBuffer.allocateDirect(18);
+        try (RlpxMac egress = new RlpxMac(macSecret)) {
+            egress.update("abc".getBytes(StandardCharsets.US_ASCII));
+            assertThat(Bytes.wrap(egress.digest())).isEqualTo(
+                Bytes.fromHexString("4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45"));
+
+            header.put(0, Bytes.fromHexString("5dabd23d03239f4cf90abfb9bc09f05a").toArrayUnsafe());
+            egress.updateHeader(header, 0, mac, 2);
+            assertThat(bytes(mac, 2)).isEqualTo(Bytes.fromHexString("64faa3e8a6c28b63323072dfbb07e304"));
+            egress.updateFrame(frame, 0, 0, mac, 0);
+            assertThat(bytes(mac, 0)).isEqualTo(Bytes.fromHexString("b91a2a02751c43e98147b956f870bca3"));
+
+            header.put(0, Bytes.fromHexString("62d1bd2111853eee19cf3e72a524c5d9").toArrayUnsafe());
+            egress.updateHeader(header, 0, mac, 0);
+            assertThat(bytes(mac, 0)).isEqualTo(Bytes.fromHexString("8a433f7681fa4a072a0bbafe2f49cf80"));
+            frame.put(4, Bytes.fromHexString("c0920bb2ce1dca6dcb3504ef65d7b9c7").toArrayUnsafe());
+            egress.updateFrame(frame, 4, 16, mac, 1);
+            assertThat(bytes(mac, 1)).isEqualTo(Bytes.fromHexString("7b4224eb7694a1b33f53ba5192594b28"));
+        }
+    }
+
+    @Test
+    public void rejectsHeapBuffersAndClosedHandles() {
+        RlpxFrameCipher cipher = new RlpxFrameCipher(key, iv);
+        assertThatThrownBy(() -> cipher.apply(ByteBuffer.allocate(16)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cipher.apply(ByteBuffer.allocateDirect(16), 8, 9))
+            .isInstanceOf(IndexOutOfBoundsException.class);
+        cipher.close();
+        assertThatThrownBy(() -> cipher.apply(ByteBuffer.allocateDirect(16)))
+            .isInstanceOf(IllegalStateException.class);
+
+        assertThatThrownBy(() -> new RlpxMac(new byte[16])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Bytes bytes(ByteBuffer buffer, int index) {
+        byte[] out = new byte[RlpxMac.MAC_BYTES];
+        buffer.get(index, out);
+        return Bytes.wrap(out);
+    }
+}
@@ -24,6 +24,7 @@ import org.junit.runners.Parameterized;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -121,4 +122,31 @@ public class SecP256R1EcrecoverParameterizedTest {
                 .isEqualTo(error);
         }
     }
+
+    @Test
+    public void shouldRecoverAtOffsetsFromCSV() {
+        if ("input".equals(input) || input == null || input.isEmpty()) {
+            return;
+        }
+        Assume.assumeTrue("BoringSSL must be enabled", BoringSSLPrecompiles.ENABLED);
+
+        // the precompile input already holds hash at 0 and r || s at 64
+        byte[] inputBytes = Bytes.fromHexString(input).toArrayUnsafe();
+        if (inputBytes.length < 128) {
+            return;
+        }
+        int recoveryId = (inputBytes[63] & 0xFF) - V_BASE;
+        byte[] output = new byte[BoringSSLPrecompiles.ECRECOVER_OUTPUT_BYTES + 3];
+
+        int status = BoringSSLPrecompiles.ecrecover(inputBytes, 0, inputBytes, 64, recoveryId, output, 3);
+
+        int expectedStatusInt = Integer.parseInt(expectedStatus);
+        assertThat(status).as("Test case: %s", notes).isEqualTo(expectedStatusInt);
+        byte[] expectedPublicKey = expectedStatusInt == 0
+            ? Bytes.fromHexString(expectedOutput).toArrayUnsafe()
+            : new byte[BoringSSLPrecompiles.ECRECOVER_OUTPUT_BYTES];
+        assertThat(Arrays.copyOfRange(output, 3, output.length))
+            .as("Test case: %s", notes)
+            .isEqualTo(expectedPublicKey);
+    }
 }
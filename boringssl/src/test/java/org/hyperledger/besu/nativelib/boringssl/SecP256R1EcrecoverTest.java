@@ -21,6 +21,7 @@ import org.junit.Test;
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hyperledger.besu.nativelib.boringssl.BoringSSLPrecompiles.ecrecover;
@@ -70,4 +71,51 @@ public class SecP256R1EcrecoverTest {
         assertThat(result.publicKey()).isPresent();
         assertThat(result.publicKey().get()).isEqualTo(expectedPubkey);
     }
+
+    @Test
+    public void testECRecoverBatchMatchesSingleRecoveries() {
+        int count = 40;
+        int recordBytes = BoringSSLPrecompiles.ECRECOVER_BATCH_RECORD_BYTES;
+        byte[] records = new byte[count * recordBytes];
+        for (int i = 0; i < count; i++) {
+            int offset = i * recordBytes;
+            System.arraycopy(dataHash, 0, records, offset, 32);
+            System.arraycopy(signatureR.toArrayUnsafe(), 0, records, offset + 32, 32);
+            System.arraycopy(signatureS.toArrayUnsafe(), 0, records, offset + 64, 32);
+            records[offset] ^= (byte) i;
+            records[offset + 96] = (byte) (i % 2);
+            if (i % 5 == 3) {
+                // r out of range
+                Arrays.fill(records, offset + 32, offset + 64, (byte) 0);
+            } else if (i % 7 == 5) {
+                records[offset + 96] = 2;
+            }
+        }
+
+        byte[] publicKeys = new byte[count * BoringSSLPrecompiles.ECRECOVER_BATCH_OUTPUT_BYTES];
+        byte[] statuses = new byte[count];
+        BoringSSLPrecompiles.setDegreeOfBatchParallelism(3);
+        int recovered;
+        try {
+            recovered = BoringSSLPrecompiles.ecrecoverBatch(records, publicKeys, statuses);
+        } finally {
+            BoringSSLPrecompiles.setDegreeOfBatchParallelism(0);
+        }
+
+        int expectedRecovered = 0;
+        byte[] single = new byte[BoringSSLPrecompiles.ECRECOVER_OUTPUT_BYTES];
+        for (int i = 0; i < count; i++) {
+            int offset = i * recordBytes;
+            int status = ecrecover(records, offset, records, offset + 32, records[offset + 96], single, 0);
+            assertThat(statuses[i]).as("status of record %d", i).isEqualTo((byte) status);
+            byte[] key = Arrays.copyOfRange(publicKeys, i * 64, i * 64 + 64);
+            assertThat(key).isEqualTo(status == 0 ? Arrays.copyOfRange(single, 1, 65) : new byte[64]);
+            if (status == 0) {
+                expectedRecovered++;
+            }
+        }
+        assertThat(recovered).isEqualTo(expectedRecovered);
+        // the unmodified record recovers the known key
+        assertThat(Arrays.copyOfRange(publicKeys, 0, 64)).isEqualTo(publicKey.toArrayUnsafe());
+    }
 }
@@ -5,7 +5,7 @@
 #############################
 
 # Edit this variable to change the build options for secp256k1
-SECP256K1_BUILD_OPTS="--enable-module-recovery"
+SECP256K1_BUILD_OPTS="--enable-module-recovery --enable-module-ecdh"
 
 #############################
 ####### End Variables #######
@@ -313,11 +313,13 @@ EOF
   go build -buildmode=c-shared -o libgnark_jni.$LIBRARY_EXTENSION gnark-jni.go
   go build -buildmode=c-shared -o libgnark_eip_2537.$LIBRARY_EXTENSION gnark-eip-2537.go
   go build -buildmode=c-shared -o libgnark_eip_196.$LIBRARY_EXTENSION gnark-eip-196.go
+  go build -buildmode=c-shared -o libgnark_bls.$LIBRARY_EXTENSION gnark-bls.go
 
   mkdir -p "$SCRIPTDIR/gnark/build/${OSARCH}/lib"
   cp libgnark_jni.* "$SCRIPTDIR/gnark/build/${OSARCH}/lib"
   cp libgnark_eip_2537.* "$SCRIPTDIR/gnark/build/${OSARCH}/lib"
   cp libgnark_eip_196.* "$SCRIPTDIR/gnark/build/${OSARCH}/lib"
+  cp libgnark_bls.* "$SCRIPTDIR/gnark/build/${OSARCH}/lib"
 }
 
 build_constantine() {
@@ -372,10 +374,10 @@ build_constantine() {
   # Compile the native library
  if [[ "$OSTYPE" == "darwin"* ]]; then
    # link against the static libconstantine.a so we do not have to deal with multiple libraries in jni/jna:
-   clang -I"${JAVA_HOME}/include" -I"${JAVA_HOME}/include/darwin" -shared -o "$SCRIPTDIR/constantine/build/${OSARCH}/lib/libconstantinebindings.dylib" jna_ethereum_evm_precompiles.c -Iconstantine/include -I. constantine/lib/libconstantine.a
+   clang -I"${JAVA_HOME}/include" -I"${JAVA_HOME}/include/darwin" -O2 -shared -o "$SCRIPTDIR/constantine/build/${OSARCH}/lib/libconstantinebindings.dylib" jna_ethereum_evm_precompiles.c -Iconstantine/include -I. -I../common/src/main/c constantine/lib/libconstantine.a
  elif [[ "$OSTYPE" == "linux-gnu"* ]]; then
    # link against the static libconstantine.a so we do not have to deal with multiple libraries in jni/jna:
-   gcc -I"${JAVA_HOME}/include" -I"${JAVA_HOME}/include/linux" -fPIC -shared -o "$SCRIPTDIR/constantine/build/${OSARCH}/lib/libconstantinebindings.so" jna_ethereum_evm_precompiles.c -Iconstantine/include -I. -Lconstantine/lib constantine/lib/libconstantine.a
+   gcc -I"${JAVA_HOME}/include" -I"${JAVA_HOME}/include/linux" -O2 -fPIC -shared -o "$SCRIPTDIR/constantine/build/${OSARCH}/lib/libconstantinebindings.so" jna_ethereum_evm_precompiles.c -Iconstantine/include -I. -I../common/src/main/c -Lconstantine/lib constantine/lib/libconstantine.a -lpthread
  else
    echo "Unsupported OS/architecture: ${OSARCH}"
    exit 1
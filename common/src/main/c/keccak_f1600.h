@@ -0,0 +1,84 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+#ifndef KECCAK_F1600_H
+#define KECCAK_F1600_H
+
+// The keccak-f[1600] permutation shared by the secp256k1, BoringSSL and constantine bindings. Each
+// of them is built into a separate library that links none of the others, so their Makefiles and
+// build.sh add this directory to the include path and each library compiles its own copy from this
+// one source.
+//
+// Including this header defines keccakf over uint64_t lanes. KECCAK_F1600 instantiates the same
+// permutation over another lane type, such as a vector holding the lanes of several states.
+
+#include <stdint.h>
+
+static const uint64_t keccakf_rndc[24] = {
+    0x0000000000000001ULL, 0x0000000000008082ULL, 0x800000000000808aULL, 0x8000000080008000ULL,
+    0x000000000000808bULL, 0x0000000080000001ULL, 0x8000000080008081ULL, 0x8000000000008009ULL,
+    0x000000000000008aULL, 0x0000000000000088ULL, 0x0000000080008009ULL, 0x000000008000000aULL,
+    0x000000008000808bULL, 0x800000000000008bULL, 0x8000000000008089ULL, 0x8000000000008003ULL,
+    0x8000000000008002ULL, 0x8000000000000080ULL, 0x000000000000800aULL, 0x800000008000000aULL,
+    0x8000000080008081ULL, 0x8000000000008080ULL, 0x0000000080000001ULL, 0x8000000080008008ULL
+};
+
+static const int keccakf_rotc[24] = {
+    1, 3, 6, 10, 15, 21, 28, 36, 45, 55, 2, 14, 27, 41, 56, 8, 25, 43, 62, 18, 39, 61, 20, 44
+};
+
+static const int keccakf_piln[24] = {
+    10, 7, 11, 17, 18, 3, 5, 16, 8, 21, 24, 4, 15, 23, 19, 13, 12, 2, 20, 14, 22, 9, 6, 1
+};
+
+// Defines static void NAME(T st[25]); BROADCAST turns a uint64_t round constant into a T.
+#define KECCAK_F1600(NAME, T, BROADCAST)                                            \
+static void NAME(T st[25]) {                                                        \
+    T bc[5], t;                                                                     \
+    for (int round = 0; round < 24; round++) {                                      \
+        for (int i = 0; i < 5; i++) {                                               \
+            bc[i] = st[i] ^ st[i + 5] ^ st[i + 10] ^ st[i + 15] ^ st[i + 20];       \
+        }                                                                           \
+        for (int i = 0; i < 5; i++) {                                               \
+            t = bc[(i + 4) % 5] ^ ((bc[(i + 1) % 5] << 1) | (bc[(i + 1) % 5] >> 63)); \
+            for (int j = 0; j < 25; j += 5) {                                       \
+                st[j + i] ^= t;                                                     \
+            }                                                                       \
+        }                                                                           \
+        t = st[1];                                                                  \
+        for (int i = 0; i < 24; i++) {                                              \
+            int j = keccakf_piln[i];                                                \
+            int n = keccakf_rotc[i];                                                \
+            bc[0] = st[j];                                                          \
+            st[j] = (t << n) | (t >> (64 - n));                                     \
+            t = bc[0];                                                              \
+        }                                                                           \
+        for (int j = 0; j < 25; j += 5) {                                           \
+            for (int i = 0; i < 5; i++) {                                           \
+                bc[i] = st[j + i];                                                  \
+            }                                                                       \
+            for (int i = 0; i < 5; i++) {                                           \
+                st[j + i] ^= (~bc[(i + 1) % 5]) & bc[(i + 2) % 5];                  \
+            }                                                                       \
+        }                                                                           \
+        st[0] ^= BROADCAST(keccakf_rndc[round]);                                    \
+    }                                                                               \
+}
+
+#define KECCAK_SCALAR(x) (x)
+
+KECCAK_F1600(keccakf, uint64_t, KECCAK_SCALAR)
+
+#endif
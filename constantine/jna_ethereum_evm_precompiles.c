@@ -14,7 +14,13 @@
  *
  */
 #include <constantine.h>
+#include "keccak_f1600.h"
+#include <pthread.h>
+#include <stdint.h>
 #include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+#include <unistd.h>
 
 void printByteArray(const char* label, const byte* array, size_t len) {
     printf("%s: [", label);
@@ -75,4 +81,1024 @@ int bls12381_mapFpToG1(byte* r, int r_len, const byte* inputs, int inputs_len) {
 
 int bls12381_mapFp2ToG2(byte* r, int r_len, const byte* inputs, int inputs_len) {
     return (int) ctt_eth_evm_bls12381_map_fp2_to_g2(r, (ptrdiff_t)r_len, inputs, (ptrdiff_t)inputs_len);
-}
\ No newline at end of file
+}
+
+// Offset variants, writing into r + r_offset and reading from inputs + inputs_offset.
+// Bounds are checked on the Java side, these only do the pointer arithmetic JNA can not do for arrays.
+
+// BN254 functions
+int bn254_g1add_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bn254_g1add(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bn254_g1mul_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bn254_g1mul(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bn254_pairingCheck_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bn254_ecpairingcheck(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+// BLS12-381 functions
+int bls12381_g1add_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g1add(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_g2add_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g2add(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_g1mul_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g1mul(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_g2mul_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g2mul(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_g1msm_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g1msm(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_g2msm_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_g2msm(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_pairingCheck_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_pairingcheck(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_mapFpToG1_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_map_fp_to_g1(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+int bls12381_mapFp2ToG2_at(byte* r, int r_offset, int r_len, const byte* inputs, int inputs_offset, int inputs_len) {
+    return (int) ctt_eth_evm_bls12381_map_fp2_to_g2(r + r_offset, (ptrdiff_t)r_len, inputs + inputs_offset, (ptrdiff_t)inputs_len);
+}
+
+// Threadpools.
+//
+// Constantine's *_parallel functions run on a ctt_threadpool. That pool makes the thread which
+// creates it its root worker and only takes work from that thread, while JNA calls arrive on any
+// JVM thread. The bindings therefore start one dispatcher thread, which creates the constantine
+// pool and runs the parallel calls handed to it one after the other. Each such call already keeps
+// every core of the pool busy, so queuing concurrent callers costs them no throughput.
+//
+// Constantine's C API takes no callbacks, and exports neither a parallel G2 MSM nor the Miller
+// loop. The bindings keep a pool of their own for the rest: validating inputs ahead of the parallel
+// G1 MSM, chunks of G2 MSMs and batches of independent pairing checks. It runs the tasks of any
+// number of concurrent jobs, each caller working on its own job alongside the workers.
+//
+// Both pools start with one thread per online cpu on first use, bls12381_threadpool_init resizes
+// or disables them.
+
+#define BLS12381_G1_POINT_BYTES 128
+#define BLS12381_G2_POINT_BYTES 256
+#define BLS12381_G1MSM_PAIR_BYTES 160
+#define BLS12381_G2MSM_PAIR_BYTES 288
+#define BLS12381_PAIRING_RESULT_BYTES 32
+
+// Below this many pairs per task, the thread handoff costs more than it saves.
+#define MSM_MIN_PAIRS_PER_TASK 16
+#define MSM_MAX_TASKS 64
+
+typedef void (*pool_task_fn)(void* ctx, int task);
+
+typedef struct pool_job {
+    pool_task_fn fn;
+    void* ctx;
+    int num_tasks;
+    int next_task;
+    int pending_tasks;
+    struct pool_job* next;
+} pool_job;
+
+typedef struct {
+    pthread_mutex_t lock;
+    pthread_cond_t work_available;
+    pthread_cond_t work_done;
+
+    pthread_t* threads;
+    int num_threads;
+    int shutdown;
+
+    // jobs with unclaimed tasks, oldest first
+    pool_job* jobs;
+} evm_threadpool;
+
+// Takes the next unclaimed task of job, or returns -1, and unlinks the job once all its tasks are
+// claimed. Called with p->lock held.
+static int pool_claim_task(evm_threadpool* p, pool_job* job) {
+    if (job->next_task >= job->num_tasks) {
+        return -1;
+    }
+    int task = job->next_task++;
+    if (job->next_task == job->num_tasks) {
+        pool_job** link = &p->jobs;
+        while (*link != job) {
+            link = &(*link)->next;
+        }
+        *link = job->next;
+    }
+    return task;
+}
+
+static void pool_run_task(evm_threadpool* p, pool_job* job, int task) {
+    pthread_mutex_unlock(&p->lock);
+    job->fn(job->ctx, task);
+    pthread_mutex_lock(&p->lock);
+    if (--job->pending_tasks == 0) {
+        pthread_cond_broadcast(&p->work_done);
+    }
+}
+
+static void* pool_worker(void* arg) {
+    evm_threadpool* p = (evm_threadpool*) arg;
+    pthread_mutex_lock(&p->lock);
+    while (!p->shutdown) {
+        pool_job* job = p->jobs;
+        if (job == NULL) {
+            pthread_cond_wait(&p->work_available, &p->lock);
+            continue;
+        }
+        pool_run_task(p, job, pool_claim_task(p, job));
+    }
+    pthread_mutex_unlock(&p->lock);
+    return NULL;
+}
+
+static void pool_destroy(evm_threadpool* p) {
+    pthread_mutex_lock(&p->lock);
+    p->shutdown = 1;
+    pthread_cond_broadcast(&p->work_available);
+    pthread_mutex_unlock(&p->lock);
+    for (int i = 0; i < p->num_threads; i++) {
+        pthread_join(p->threads[i], NULL);
+    }
+    pthread_mutex_destroy(&p->lock);
+    pthread_cond_destroy(&p->work_available);
+    pthread_cond_destroy(&p->work_done);
+    free(p->threads);
+    free(p);
+}
+
+static evm_threadpool* pool_create(int num_threads) {
+    evm_threadpool* p = calloc(1, sizeof(evm_threadpool));
+    if (p == NULL) {
+        return NULL;
+    }
+    p->threads = calloc((size_t) num_threads, sizeof(pthread_t));
+    if (p->threads == NULL) {
+        free(p);
+        return NULL;
+    }
+    pthread_mutex_init(&p->lock, NULL);
+    pthread_cond_init(&p->work_available, NULL);
+    pthread_cond_init(&p->work_done, NULL);
+    for (int i = 0; i < num_threads; i++) {
+        if (pthread_create(&p->threads[i], NULL, pool_worker, p) != 0) {
+            break;
+        }
+        p->num_threads++;
+    }
+    if (p->num_threads == 0) {
+        pool_destroy(p);
+        return NULL;
+    }
+    return p;
+}
+
+// Runs fn for every task in [0, num_tasks), on the pool workers and the calling thread, and returns
+// once all of them are done. Any number of threads may run jobs at the same time.
+static void pool_run(evm_threadpool* p, pool_task_fn fn, void* ctx, int num_tasks) {
+    if (num_tasks <= 0) {
+        return;
+    }
+    pool_job job = { fn, ctx, num_tasks, 0, num_tasks, NULL };
+    pthread_mutex_lock(&p->lock);
+    pool_job** tail = &p->jobs;
+    while (*tail != NULL) {
+        tail = &(*tail)->next;
+    }
+    *tail = &job;
+    pthread_cond_broadcast(&p->work_available);
+
+    int task;
+    while ((task = pool_claim_task(p, &job)) >= 0) {
+        pool_run_task(p, &job, task);
+    }
+    while (job.pending_tasks > 0) {
+        pthread_cond_wait(&p->work_done, &p->lock);
+    }
+    pthread_mutex_unlock(&p->lock);
+}
+
+typedef void (*ctt_job_fn)(struct ctt_threadpool* tp, void* ctx);
+
+typedef struct ctt_job {
+    ctt_job_fn fn;
+    void* ctx;
+    int done;
+    struct ctt_job* next;
+} ctt_job;
+
+// The thread owning the constantine threadpool, running the jobs handed to it in order.
+typedef struct {
+    pthread_mutex_t lock;
+    pthread_cond_t changed;
+    pthread_t thread;
+    int num_threads;
+    // 0 while the constantine pool is being created, 1 once it runs, -1 if it could not be created
+    int state;
+    int shutdown;
+    ctt_job* head;
+    ctt_job* tail;
+} ctt_dispatcher;
+
+static void* ctt_dispatcher_main(void* arg) {
+    ctt_dispatcher* d = (ctt_dispatcher*) arg;
+    struct ctt_threadpool* tp = ctt_threadpool_new(d->num_threads);
+    pthread_mutex_lock(&d->lock);
+    d->state = tp != NULL ? 1 : -1;
+    pthread_cond_broadcast(&d->changed);
+    while (tp != NULL && !d->shutdown) {
+        ctt_job* job = d->head;
+        if (job == NULL) {
+            pthread_cond_wait(&d->changed, &d->lock);
+            continue;
+        }
+        d->head = job->next;
+        if (d->head == NULL) {
+            d->tail = NULL;
+        }
+        pthread_mutex_unlock(&d->lock);
+        job->fn(tp, job->ctx);
+        pthread_mutex_lock(&d->lock);
+        job->done = 1;
+        pthread_cond_broadcast(&d->changed);
+    }
+    pthread_mutex_unlock(&d->lock);
+    if (tp != NULL) {
+        ctt_threadpool_shutdown(tp);
+    }
+    return NULL;
+}
+
+static void ctt_dispatcher_destroy(ctt_dispatcher* d) {
+    pthread_mutex_lock(&d->lock);
+    d->shutdown = 1;
+    pthread_cond_broadcast(&d->changed);
+    pthread_mutex_unlock(&d->lock);
+    pthread_join(d->thread, NULL);
+    pthread_mutex_destroy(&d->lock);
+    pthread_cond_destroy(&d->changed);
+    free(d);
+}
+
+// num_threads counts the dispatcher thread, which is the root worker of the constantine pool.
+static ctt_dispatcher* ctt_dispatcher_create(int num_threads) {
+    ctt_dispatcher* d = calloc(1, sizeof(ctt_dispatcher));
+    if (d == NULL) {
+        return NULL;
+    }
+    d->num_threads = num_threads;
+    pthread_mutex_init(&d->lock, NULL);
+    pthread_cond_init(&d->changed, NULL);
+    if (pthread_create(&d->thread, NULL, ctt_dispatcher_main, d) != 0) {
+        pthread_mutex_destroy(&d->lock);
+        pthread_cond_destroy(&d->changed);
+        free(d);
+        return NULL;
+    }
+    pthread_mutex_lock(&d->lock);
+    while (d->state == 0) {
+        pthread_cond_wait(&d->changed, &d->lock);
+    }
+    int state = d->state;
+    pthread_mutex_unlock(&d->lock);
+    if (state < 0) {
+        ctt_dispatcher_destroy(d);
+        return NULL;
+    }
+    return d;
+}
+
+// Runs fn with the constantine threadpool on the dispatcher thread and waits for it to return.
+static void ctt_dispatch(ctt_dispatcher* d, ctt_job_fn fn, void* ctx) {
+    ctt_job job = { fn, ctx, 0, NULL };
+    pthread_mutex_lock(&d->lock);
+    if (d->tail == NULL) {
+        d->head = &job;
+    } else {
+        d->tail->next = &job;
+    }
+    d->tail = &job;
+    pthread_cond_broadcast(&d->changed);
+    while (!job.done) {
+        pthread_cond_wait(&d->changed, &d->lock);
+    }
+    pthread_mutex_unlock(&d->lock);
+}
+
+// Held for reading while a job uses the pools and for writing while they are replaced, so a pool is
+// never torn down under a running job.
+static pthread_rwlock_t pools_lock = PTHREAD_RWLOCK_INITIALIZER;
+static int pools_configured = 0;
+static evm_threadpool* pool = NULL;
+static ctt_dispatcher* ctt_pool = NULL;
+
+static int default_num_threads(void) {
+    long cpus = sysconf(_SC_NPROCESSORS_ONLN);
+    return cpus > 1 ? (int) cpus - 1 : 0;
+}
+
+// Replaces both pools. Called with pools_lock held for writing.
+static void pools_configure(int num_threads) {
+    if (pool != NULL) {
+        pool_destroy(pool);
+        pool = NULL;
+    }
+    if (ctt_pool != NULL) {
+        ctt_dispatcher_destroy(ctt_pool);
+        ctt_pool = NULL;
+    }
+    if (num_threads > 0) {
+        pool = pool_create(num_threads);
+        ctt_pool = ctt_dispatcher_create(num_threads + 1);
+    }
+    pools_configured = 1;
+}
+
+// Locks the pools for one job, starting them first if they were never configured.
+static void pools_acquire(void) {
+    pthread_rwlock_rdlock(&pools_lock);
+    if (pools_configured) {
+        return;
+    }
+    pthread_rwlock_unlock(&pools_lock);
+    pthread_rwlock_wrlock(&pools_lock);
+    if (!pools_configured) {
+        pools_configure(default_num_threads());
+    }
+    pthread_rwlock_unlock(&pools_lock);
+    pthread_rwlock_rdlock(&pools_lock);
+}
+
+static void pools_release(void) {
+    pthread_rwlock_unlock(&pools_lock);
+}
+
+// Number of threads a job can use, the calling one included. Called with the pools acquired.
+static int pools_parallelism(void) {
+    return pool != NULL ? pool->num_threads + 1 : 1;
+}
+
+// Runs the tasks on the pool, or one after the other on the calling thread when it is disabled.
+// Called with the pools acquired.
+static void pools_run(pool_task_fn fn, void* ctx, int num_tasks) {
+    if (pool != NULL) {
+        pool_run(pool, fn, ctx, num_tasks);
+        return;
+    }
+    for (int task = 0; task < num_tasks; task++) {
+        fn(ctx, task);
+    }
+}
+
+// Replaces the threadpools used by the parallel MSM, pairing and KZG batch functions. num_threads is
+// the number of threads besides the calling one, 0 sizes the pools to the number of online cpus
+// and a negative value shuts them down so the parallel functions run single-threaded.
+// Returns the number of worker threads actually started.
+int bls12381_threadpool_init(int num_threads) {
+    if (num_threads == 0) {
+        num_threads = default_num_threads();
+    }
+    pthread_rwlock_wrlock(&pools_lock);
+    pools_configure(num_threads);
+    int started = pool != NULL ? pool->num_threads : 0;
+    pthread_rwlock_unlock(&pools_lock);
+    return started;
+}
+
+void bls12381_threadpool_shutdown(void) {
+    bls12381_threadpool_init(-1);
+}
+
+__attribute__((destructor))
+static void threadpool_cleanup(void) {
+    bls12381_threadpool_shutdown();
+}
+
+// Splits num_items into num_tasks contiguous ranges, returning the first item of range task.
+static int task_first(int num_items, int num_tasks, int task) {
+    return (int) ((long) num_items * task / num_tasks);
+}
+
+static int msm_num_tasks(int num_pairs) {
+    int num_tasks = num_pairs / MSM_MIN_PAIRS_PER_TASK;
+    if (num_tasks > pools_parallelism()) {
+        num_tasks = pools_parallelism();
+    }
+    return num_tasks > MSM_MAX_TASKS ? MSM_MAX_TASKS : num_tasks;
+}
+
+// Parallel G1 MSM.
+//
+// The pairs are validated and decoded on the bindings' pool, then summed by constantine's parallel
+// MSM. Validation goes through constantine's EVM MSM with the scalars zeroed, so every pair is
+// checked exactly as the single-threaded call checks it, field range, curve and subgroup, and the
+// first invalid pair reports the same status. Its MSM over zero scalars adds nothing.
+
+// Pairs validated per EVM call, bounding the copy with zeroed scalars kept on the stack.
+#define G1_VALIDATE_PAIRS 64
+
+// The BLS12-381 scalar field modulus r, big-endian.
+static const byte BLS12381_R[32] = {
+    0x73, 0xed, 0xa7, 0x53, 0x29, 0x9d, 0x7d, 0x48, 0x33, 0x39, 0xd8, 0x08, 0x09, 0xa1, 0xd8, 0x05,
+    0x53, 0xbd, 0xa4, 0x02, 0xff, 0xfe, 0x5b, 0xfe, 0xff, 0xff, 0xff, 0xff, 0x00, 0x00, 0x00, 0x01
+};
+
+// Reduces a 32 byte big-endian scalar modulo r, which leaves the product with a subgroup point
+// unchanged. Scalars are below 2^256 < 3r, so at most two subtractions are needed.
+static void scalar_reduce(byte out[32], const byte in[32]) {
+    memcpy(out, in, 32);
+    while (memcmp(out, BLS12381_R, 32) >= 0) {
+        int borrow = 0;
+        for (int k = 31; k >= 0; k--) {
+            int d = out[k] - BLS12381_R[k] - borrow;
+            borrow = d < 0;
+            out[k] = (byte) (d + (borrow << 8));
+        }
+    }
+}
+
+typedef struct {
+    const byte* inputs;
+    int num_pairs;
+    int num_tasks;
+    bls12_381_g1_aff* points;
+    big255* coefs;
+    ctt_evm_status* statuses;
+} g1_decode_job;
+
+static void g1_decode_task(void* ctx, int task) {
+    g1_decode_job* job = (g1_decode_job*) ctx;
+    int first = task_first(job->num_pairs, job->num_tasks, task);
+    int last = task_first(job->num_pairs, job->num_tasks, task + 1);
+
+    byte zeroed[G1_VALIDATE_PAIRS * BLS12381_G1MSM_PAIR_BYTES];
+    byte ignored[BLS12381_G1_POINT_BYTES];
+    for (int i = first; i < last; i += G1_VALIDATE_PAIRS) {
+        int n = last - i < G1_VALIDATE_PAIRS ? last - i : G1_VALIDATE_PAIRS;
+        memcpy(zeroed, job->inputs + (ptrdiff_t) i * BLS12381_G1MSM_PAIR_BYTES,
+            (size_t) n * BLS12381_G1MSM_PAIR_BYTES);
+        for (int k = 0; k < n; k++) {
+            memset(zeroed + k * BLS12381_G1MSM_PAIR_BYTES + BLS12381_G1_POINT_BYTES, 0, 32);
+        }
+        ctt_evm_status status = ctt_eth_evm_bls12381_g1msm(ignored, (ptrdiff_t) BLS12381_G1_POINT_BYTES,
+            zeroed, (ptrdiff_t) n * BLS12381_G1MSM_PAIR_BYTES);
+        if (status != cttEVM_Success) {
+            job->statuses[task] = status;
+            return;
+        }
+    }
+
+    // valid coordinates are below p with 16 zero bytes of padding, the point at infinity is (0, 0)
+    // in both encodings
+    for (int i = first; i < last; i++) {
+        const byte* pair = job->inputs + (ptrdiff_t) i * BLS12381_G1MSM_PAIR_BYTES;
+        byte scalar[32];
+        (void) ctt_bls12_381_fp_unmarshalBE(&job->points[i].x, pair + 16, 48);
+        (void) ctt_bls12_381_fp_unmarshalBE(&job->points[i].y, pair + 80, 48);
+        scalar_reduce(scalar, pair + BLS12381_G1_POINT_BYTES);
+        (void) ctt_big255_unmarshalBE(&job->coefs[i], scalar, 32);
+    }
+    job->statuses[task] = cttEVM_Success;
+}
+
+typedef struct {
+    bls12_381_g1_jac* r;
+    const big255* coefs;
+    const bls12_381_g1_aff* points;
+    size_t len;
+} g1_msm_job;
+
+static void g1_msm_run(struct ctt_threadpool* tp, void* ctx) {
+    g1_msm_job* job = (g1_msm_job*) ctx;
+    ctt_bls12_381_g1_jac_multi_scalar_mul_big_coefs_vartime_parallel(
+        tp, job->r, job->coefs, job->points, job->len);
+}
+
+static void fp_marshal_evm(byte out[64], const bls12_381_fp* a) {
+    memset(out, 0, 16);
+    (void) ctt_bls12_381_fp_marshalBE(out + 16, 48, a);
+}
+
+int bls12381_g1msm_parallel(byte* r, int r_len, const byte* inputs, int inputs_len) {
+    int num_pairs = inputs_len > 0 && inputs_len % BLS12381_G1MSM_PAIR_BYTES == 0
+        ? inputs_len / BLS12381_G1MSM_PAIR_BYTES : 0;
+    // too small to be worth splitting, or malformed and left to constantine to report
+    if (num_pairs < 2 * MSM_MIN_PAIRS_PER_TASK || r_len != BLS12381_G1_POINT_BYTES) {
+        return (int) ctt_eth_evm_bls12381_g1msm(r, (ptrdiff_t) r_len, inputs, (ptrdiff_t) inputs_len);
+    }
+    pools_acquire();
+    if (ctt_pool == NULL) {
+        pools_release();
+        return (int) ctt_eth_evm_bls12381_g1msm(r, (ptrdiff_t) r_len, inputs, (ptrdiff_t) inputs_len);
+    }
+
+    bls12_381_g1_aff* points = malloc((size_t) num_pairs * sizeof(bls12_381_g1_aff));
+    big255* coefs = malloc((size_t) num_pairs * sizeof(big255));
+    if (points == NULL || coefs == NULL) {
+        pools_release();
+        free(points);
+        free(coefs);
+        return (int) ctt_eth_evm_bls12381_g1msm(r, (ptrdiff_t) r_len, inputs, (ptrdiff_t) inputs_len);
+    }
+
+    int num_tasks = msm_num_tasks(num_pairs);
+    ctt_evm_status statuses[MSM_MAX_TASKS];
+    g1_decode_job decode = { inputs, num_pairs, num_tasks, points, coefs, statuses };
+    pools_run(g1_decode_task, &decode, num_tasks);
+
+    ctt_evm_status status = cttEVM_Success;
+    for (int i = 0; i < num_tasks && status == cttEVM_Success; i++) {
+        status = statuses[i];
+    }
+    if (status == cttEVM_Success) {
+        bls12_381_g1_jac sum;
+        bls12_381_g1_aff sum_affine;
+        g1_msm_job msm = { &sum, coefs, points, (size_t) num_pairs };
+        ctt_dispatch(ctt_pool, g1_msm_run, &msm);
+        ctt_bls12_381_g1_jac_affine(&sum_affine, &sum);
+        fp_marshal_evm(r, &sum_affine.x);
+        fp_marshal_evm(r + 64, &sum_affine.y);
+    }
+    pools_release();
+    free(points);
+    free(coefs);
+    return (int) status;
+}
+
+// Parallel G2 MSM.
+//
+// A multi-scalar multiplication over the concatenation of several chunks is the sum of the MSMs of
+// the chunks. Constantine exports no parallel G2 MSM, so large inputs are split across the
+// bindings' pool, each task running constantine's EVM MSM on its chunk, and the partial results are
+// added together. The EVM API validates every chunk exactly like the whole input, so the result
+// and the reported status are identical to the single-threaded call.
+
+typedef struct {
+    const byte* inputs;
+    int num_pairs;
+    int num_tasks;
+    byte* partials;
+    ctt_evm_status* statuses;
+} g2_msm_job;
+
+static void g2_msm_task(void* ctx, int task) {
+    g2_msm_job* job = (g2_msm_job*) ctx;
+    int first = task_first(job->num_pairs, job->num_tasks, task);
+    int last = task_first(job->num_pairs, job->num_tasks, task + 1);
+    job->statuses[task] = ctt_eth_evm_bls12381_g2msm(
+        job->partials + (ptrdiff_t) task * BLS12381_G2_POINT_BYTES, (ptrdiff_t) BLS12381_G2_POINT_BYTES,
+        job->inputs + (ptrdiff_t) first * BLS12381_G2MSM_PAIR_BYTES,
+        (ptrdiff_t) (last - first) * BLS12381_G2MSM_PAIR_BYTES);
+}
+
+int bls12381_g2msm_parallel(byte* r, int r_len, const byte* inputs, int inputs_len) {
+    int num_pairs = inputs_len > 0 && inputs_len % BLS12381_G2MSM_PAIR_BYTES == 0
+        ? inputs_len / BLS12381_G2MSM_PAIR_BYTES : 0;
+    // too small to be worth splitting, or malformed and left to constantine to report
+    if (num_pairs < 2 * MSM_MIN_PAIRS_PER_TASK || r_len != BLS12381_G2_POINT_BYTES) {
+        return (int) ctt_eth_evm_bls12381_g2msm(r, (ptrdiff_t) r_len, inputs, (ptrdiff_t) inputs_len);
+    }
+
+    pools_acquire();
+    int num_tasks = msm_num_tasks(num_pairs);
+    byte partials[MSM_MAX_TASKS * BLS12381_G2_POINT_BYTES];
+    ctt_evm_status statuses[MSM_MAX_TASKS];
+    g2_msm_job job = { inputs, num_pairs, num_tasks, partials, statuses };
+    pools_run(g2_msm_task, &job, num_tasks);
+    pools_release();
+
+    for (int i = 0; i < num_tasks; i++) {
+        if (statuses[i] != cttEVM_Success) {
+            return (int) statuses[i];
+        }
+    }
+
+    // fold the partial sums, add takes both operands concatenated
+    byte operands[2 * BLS12381_G2_POINT_BYTES];
+    memcpy(r, partials, BLS12381_G2_POINT_BYTES);
+    for (int i = 1; i < num_tasks; i++) {
+        memcpy(operands, r, BLS12381_G2_POINT_BYTES);
+        memcpy(operands + BLS12381_G2_POINT_BYTES, partials + (ptrdiff_t) i * BLS12381_G2_POINT_BYTES,
+            BLS12381_G2_POINT_BYTES);
+        ctt_evm_status status = ctt_eth_evm_bls12381_g2add(
+            r, (ptrdiff_t) BLS12381_G2_POINT_BYTES, operands, (ptrdiff_t) 2 * BLS12381_G2_POINT_BYTES);
+        if (status != cttEVM_Success) {
+            return (int) status;
+        }
+    }
+    return (int) cttEVM_Success;
+}
+
+// Batches of pairing checks.
+//
+// A single pairing check can not be split: the EVM API only reports whether a whole product of
+// pairings is one, and constantine exports no Miller loop to combine partial products. Independent
+// checks, such as the pairing calls of a block being simulated, run side by side on the pool.
+
+typedef struct {
+    byte* r;
+    const byte* inputs;
+    const int* offsets;
+    int* statuses;
+} pairing_batch_job;
+
+static void pairing_batch_task(void* ctx, int task) {
+    pairing_batch_job* job = (pairing_batch_job*) ctx;
+    job->statuses[task] = (int) ctt_eth_evm_bls12381_pairingcheck(
+        job->r + (ptrdiff_t) task * BLS12381_PAIRING_RESULT_BYTES, (ptrdiff_t) BLS12381_PAIRING_RESULT_BYTES,
+        job->inputs + job->offsets[task], (ptrdiff_t) (job->offsets[task + 1] - job->offsets[task]));
+}
+
+// Runs count pairing checks, check k over inputs[offsets[k], offsets[k + 1]), writing its 32 byte
+// result at r + 32 * k and its status at statuses[k]. Returns 0, or 1 if the offsets are
+// decreasing or negative, in which case nothing runs. Bounds are checked on the Java side.
+int bls12381_pairingCheck_batch(byte* r, const byte* inputs, const int* offsets, int count, int* statuses) {
+    if (count <= 0) {
+        return 0;
+    }
+    if (offsets[0] < 0) {
+        return 1;
+    }
+    for (int k = 0; k < count; k++) {
+        if (offsets[k + 1] < offsets[k]) {
+            return 1;
+        }
+    }
+    pairing_batch_job job = { r, inputs, offsets, statuses };
+    pools_acquire();
+    pools_run(pairing_batch_task, &job, count);
+    pools_release();
+    return 0;
+}
+
+// EIP-4844 KZG.
+//
+// The trusted setup is loaded once into a process wide context. Loading and freeing it are not
+// synchronized with verification, the Java side must not free it while verifications may run.
+
+#define KZG_BYTES_PER_BLOB (4096 * 32)
+#define KZG_BYTES_PER_COMMITMENT 48
+#define KZG_BYTES_PER_PROOF 48
+
+// returned when no trusted setup is loaded, outside of the ctt_eth_kzg_status range
+#define KZG_NO_TRUSTED_SETUP -1
+
+static ctt_eth_kzg_context* kzg_ctx = NULL;
+
+int kzg_trusted_setup_load(const char* path) {
+    if (kzg_ctx != NULL) {
+        ctt_eth_trusted_setup_delete(kzg_ctx);
+        kzg_ctx = NULL;
+    }
+    return (int) ctt_eth_trusted_setup_load(&kzg_ctx, path, cttEthTSFormat_ckzg4844);
+}
+
+void kzg_trusted_setup_delete(void) {
+    if (kzg_ctx != NULL) {
+        ctt_eth_trusted_setup_delete(kzg_ctx);
+        kzg_ctx = NULL;
+    }
+}
+
+int kzg_verify_kzg_proof(const byte* commitment, const byte* z, const byte* y, const byte* proof) {
+    if (kzg_ctx == NULL) {
+        return KZG_NO_TRUSTED_SETUP;
+    }
+    return (int) ctt_eth_kzg_verify_kzg_proof(kzg_ctx,
+        (const ctt_eth_kzg_commitment*) commitment,
+        (const ctt_eth_kzg_challenge*) z,
+        (const ctt_eth_kzg_eval_at_challenge*) y,
+        (const ctt_eth_kzg_proof*) proof);
+}
+
+int kzg_verify_blob_kzg_proof(const byte* blob, const byte* commitment, const byte* proof) {
+    if (kzg_ctx == NULL) {
+        return KZG_NO_TRUSTED_SETUP;
+    }
+    return (int) ctt_eth_kzg_verify_blob_kzg_proof(kzg_ctx,
+        (const ctt_eth_kzg_blob*) blob,
+        (const ctt_eth_kzg_commitment*) commitment,
+        (const ctt_eth_kzg_proof*) proof);
+}
+
+// The point evaluation precompile, input is versioned_hash | z | y | commitment | proof. The
+// versioned hash is checked on the Java side.
+int kzg_point_evaluation(const byte* input) {
+    return kzg_verify_kzg_proof(input + 96, input + 32, input + 64, input + 144);
+}
+
+typedef struct {
+    const byte* blobs;
+    const byte* commitments;
+    const byte* proofs;
+    int count;
+    const byte* secure_random_bytes;
+    ctt_eth_kzg_status status;
+} kzg_batch_job;
+
+static void kzg_batch_run(struct ctt_threadpool* tp, void* ctx) {
+    kzg_batch_job* job = (kzg_batch_job*) ctx;
+    job->status = ctt_eth_kzg_verify_blob_kzg_proof_batch_parallel(kzg_ctx, tp,
+        (const ctt_eth_kzg_blob*) job->blobs,
+        (const ctt_eth_kzg_commitment*) job->commitments,
+        (const ctt_eth_kzg_proof*) job->proofs,
+        (size_t) job->count,
+        job->secure_random_bytes);
+}
+
+// Verifies count blobs against their commitments and proofs with a single random linear
+// combination, on the constantine threadpool unless the pools are disabled.
+int kzg_verify_blob_kzg_proof_batch(
+        const byte* blobs, const byte* commitments, const byte* proofs, int count,
+        const byte* secure_random_bytes) {
+    if (kzg_ctx == NULL) {
+        return KZG_NO_TRUSTED_SETUP;
+    }
+    kzg_batch_job job = { blobs, commitments, proofs, count, secure_random_bytes, cttEthKzg_Success };
+    pools_acquire();
+    if (ctt_pool == NULL) {
+        pools_release();
+        return (int) ctt_eth_kzg_verify_blob_kzg_proof_batch(kzg_ctx,
+            (const ctt_eth_kzg_blob*) blobs,
+            (const ctt_eth_kzg_commitment*) commitments,
+            (const ctt_eth_kzg_proof*) proofs,
+            (size_t) count,
+            secure_random_bytes);
+    }
+    ctt_dispatch(ctt_pool, kzg_batch_run, &job);
+    pools_release();
+    return (int) job.status;
+}
+
+// MODEXP, with the same contract as modexp_precompiled in eth_arithmetic: o_len holds the size of o
+// on entry and the number of bytes written on return. The result is the modulus length, or empty
+// when the input lengths overflow. A result longer than o is truncated to its leading o_len bytes,
+// as eth_arithmetic's write into the output slice does. Returns 0, or 1 if the call costs more
+// than MODEXP_MAX_GAS, memory runs out or constantine rejects the input.
+
+#define MODEXP_HEADER_BYTES 96
+
+// Gas above any block's gas limit, as in CachingModExp. Calls costing more fail out of gas in the
+// EVM, so they are refused before anything is allocated. This keeps the base and modulus under a
+// megabyte, where a 96 byte input could otherwise declare lengths of up to 4 GB each. The exponent
+// is priced per byte rather than squared, so the bound leaves it at most 1.6 GB.
+#define MODEXP_MAX_GAS (1ULL << 32)
+
+// Reads a 32 byte big-endian length at from, treating bytes past the end of the input as zero.
+// Lengths of UINT32_MAX and more are flagged as overflowing.
+static uint64_t modexp_read_length(const byte* input, int input_len, int from, int* overflow) {
+    uint64_t value = 0;
+    *overflow = 0;
+    for (int k = 0; k < 32; k++) {
+        byte b = from + k < input_len ? input[from + k] : 0;
+        if (k < 24) {
+            *overflow |= b != 0;
+        } else {
+            value = (value << 8) | b;
+        }
+    }
+    *overflow |= value >= UINT32_MAX;
+    return value;
+}
+
+// The EIP-2565 gas of a call with lengths already checked to be under UINT32_MAX, saturating at
+// UINT64_MAX.
+static uint64_t modexp_gas(const byte* input, int input_len, uint64_t base_len, uint64_t exp_len,
+                           uint64_t mod_len) {
+    uint64_t words = ((base_len > mod_len ? base_len : mod_len) + 7) / 8;
+    uint64_t complexity = words * words;
+
+    // bit length of the exponent's leading 32 bytes, zero padded past the end of the input
+    uint64_t head_len = exp_len < 32 ? exp_len : 32;
+    uint64_t head_bits = 0;
+    for (uint64_t k = 0; k < head_len; k++) {
+        uint64_t at = MODEXP_HEADER_BYTES + base_len + k;
+        byte b = at < (uint64_t) input_len ? input[at] : 0;
+        if (b != 0) {
+            head_bits = 8 * (head_len - k - 1);
+            for (; b != 0; b >>= 1) {
+                head_bits++;
+            }
+            break;
+        }
+    }
+    uint64_t iterations = head_bits == 0 ? 0 : head_bits - 1;
+    if (exp_len > 32) {
+        iterations += 8 * (exp_len - 32);
+    }
+    if (iterations == 0) {
+        iterations = 1;
+    }
+
+    uint64_t gas = complexity > UINT64_MAX / iterations ? UINT64_MAX : complexity * iterations / 3;
+    return gas < 200 ? 200 : gas;
+}
+
+int modexp_precompiled(const byte* i, int i_len, byte* o, int* o_len) {
+    int base_overflow, exp_overflow, mod_overflow;
+    uint64_t base_len = modexp_read_length(i, i_len, 0, &base_overflow);
+    uint64_t exp_len = modexp_read_length(i, i_len, 32, &exp_overflow);
+    uint64_t mod_len = modexp_read_length(i, i_len, 64, &mod_overflow);
+
+    if (base_overflow || mod_overflow || exp_overflow || mod_len == 0) {
+        *o_len = 0;
+        return 0;
+    }
+    if (modexp_gas(i, i_len, base_len, exp_len, mod_len) > MODEXP_MAX_GAS) {
+        return 1;
+    }
+
+    // a result which does not fit o is computed aside and truncated
+    byte* out = o;
+    if (mod_len > (uint64_t) *o_len && (out = malloc((size_t) mod_len)) == NULL) {
+        return 1;
+    }
+
+    // constantine reads base, exponent and modulus in full, zero pad a truncated input
+    uint64_t full_len = MODEXP_HEADER_BYTES + base_len + exp_len + mod_len;
+    const byte* inputs = i;
+    byte* padded = NULL;
+    if (full_len > (uint64_t) i_len) {
+        if (full_len > PTRDIFF_MAX || (padded = calloc(1, (size_t) full_len)) == NULL) {
+            if (out != o) {
+                free(out);
+            }
+            return 1;
+        }
+        memcpy(padded, i, (size_t) i_len);
+        inputs = padded;
+    }
+
+    ctt_evm_status status = ctt_eth_evm_modexp(out, (ptrdiff_t) mod_len, inputs, (ptrdiff_t) full_len);
+    free(padded);
+    if (out != o) {
+        if (status == cttEVM_Success) {
+            memcpy(o, out, (size_t) *o_len);
+        }
+        free(out);
+    } else if (status == cttEVM_Success) {
+        *o_len = (int) mod_len;
+    }
+    return status == cttEVM_Success ? 0 : 1;
+}
+
+// Keccak-256, as used by Ethereum (original Keccak padding, not SHA3).
+//
+// Batches hash four messages at a time with the 1600 bit states interleaved in vector registers
+// whenever the four messages have the same number of full blocks, which is the common case for
+// trie nodes of similar shape. The vector type is a compiler extension that maps to the widest
+// vector unit the target supports and falls back to scalar code otherwise.
+
+#define KECCAK256_RATE 136
+#define KECCAK256_DIGEST_BYTES 32
+
+typedef uint64_t keccak_u64x4 __attribute__((vector_size(32)));
+
+// keccak_f1600.h defines the scalar keccakf; the same permutation runs on four interleaved states.
+#define KECCAK_X4(x) ((keccak_u64x4) { (x), (x), (x), (x) })
+
+KECCAK_F1600(keccakf_x4, keccak_u64x4, KECCAK_X4)
+
+static inline uint64_t load64_le(const byte* p) {
+    return (uint64_t) p[0] | (uint64_t) p[1] << 8 | (uint64_t) p[2] << 16 | (uint64_t) p[3] << 24
+        | (uint64_t) p[4] << 32 | (uint64_t) p[5] << 40 | (uint64_t) p[6] << 48 | (uint64_t) p[7] << 56;
+}
+
+static inline void store64_le(byte* p, uint64_t v) {
+    for (int i = 0; i < 8; i++) {
+        p[i] = (byte) (v >> (8 * i));
+    }
+}
+
+// Copies the trailing partial block of a message into block, with the keccak padding applied.
+static void keccak256_pad(byte block[KECCAK256_RATE], const byte* tail, size_t tail_len) {
+    memset(block, 0, KECCAK256_RATE);
+    memcpy(block, tail, tail_len);
+    block[tail_len] ^= 0x01;
+    block[KECCAK256_RATE - 1] ^= 0x80;
+}
+
+static void keccak256_one(byte* out, const byte* in, size_t len) {
+    uint64_t st[25] = { 0 };
+    for (; len >= KECCAK256_RATE; in += KECCAK256_RATE, len -= KECCAK256_RATE) {
+        for (int i = 0; i < KECCAK256_RATE / 8; i++) {
+            st[i] ^= load64_le(in + 8 * i);
+        }
+        keccakf(st);
+    }
+    byte block[KECCAK256_RATE];
+    keccak256_pad(block, in, len);
+    for (int i = 0; i < KECCAK256_RATE / 8; i++) {
+        st[i] ^= load64_le(block + 8 * i);
+    }
+    keccakf(st);
+    for (int i = 0; i < KECCAK256_DIGEST_BYTES / 8; i++) {
+        store64_le(out + 8 * i, st[i]);
+    }
+}
+
+// Hashes four messages which all have the same number of full blocks.
+static void keccak256_x4(byte* out[4], const byte* in[4], const size_t len[4]) {
+    keccak_u64x4 st[25];
+    memset(st, 0, sizeof(st));
+    size_t full = len[0] / KECCAK256_RATE * KECCAK256_RATE;
+    for (size_t off = 0; off < full; off += KECCAK256_RATE) {
+        for (int i = 0; i < KECCAK256_RATE / 8; i++) {
+            st[i] ^= (keccak_u64x4) {
+                load64_le(in[0] + off + 8 * i), load64_le(in[1] + off + 8 * i),
+                load64_le(in[2] + off + 8 * i), load64_le(in[3] + off + 8 * i) };
+        }
+        keccakf_x4(st);
+    }
+    byte blocks[4][KECCAK256_RATE];
+    for (int m = 0; m < 4; m++) {
+        keccak256_pad(blocks[m], in[m] + full, len[m] - full);
+    }
+    for (int i = 0; i < KECCAK256_RATE / 8; i++) {
+        st[i] ^= (keccak_u64x4) {
+            load64_le(blocks[0] + 8 * i), load64_le(blocks[1] + 8 * i),
+            load64_le(blocks[2] + 8 * i), load64_le(blocks[3] + 8 * i) };
+    }
+    keccakf_x4(st);
+    for (int m = 0; m < 4; m++) {
+        for (int i = 0; i < KECCAK256_DIGEST_BYTES / 8; i++) {
+            store64_le(out[m] + 8 * i, st[i][m]);
+        }
+    }
+}
+
+// Hashes count messages, message k starting at data + start(k) with length len(k), into
+// out + 32 * k. Groups of four with the same number of full blocks go through the vector path.
+#define KECCAK256_BATCH(data, count, out, start, len)                                           \
+    do {                                                                                        \
+        int k = 0;                                                                              \
+        while (k + 4 <= (count)) {                                                              \
+            size_t l0 = (size_t) (len(k)), l1 = (size_t) (len(k + 1));                          \
+            size_t l2 = (size_t) (len(k + 2)), l3 = (size_t) (len(k + 3));                      \
+            size_t blocks = l0 / KECCAK256_RATE;                                                \
+            if (l1 / KECCAK256_RATE == blocks && l2 / KECCAK256_RATE == blocks                  \
+                    && l3 / KECCAK256_RATE == blocks) {                                         \
+                const byte* ins[4] = { (data) + (start(k)), (data) + (start(k + 1)),            \
+                    (data) + (start(k + 2)), (data) + (start(k + 3)) };                         \
+                byte* outs[4] = { (out) + 32 * (ptrdiff_t) k, (out) + 32 * (ptrdiff_t) (k + 1), \
+                    (out) + 32 * (ptrdiff_t) (k + 2), (out) + 32 * (ptrdiff_t) (k + 3) };       \
+                size_t lens[4] = { l0, l1, l2, l3 };                                            \
+                keccak256_x4(outs, ins, lens);                                                  \
+                k += 4;                                                                         \
+            } else {                                                                            \
+                keccak256_one((out) + 32 * (ptrdiff_t) k, (data) + (start(k)), l0);             \
+                k++;                                                                            \
+            }                                                                                   \
+        }                                                                                       \
+        for (; k < (count); k++) {                                                              \
+            keccak256_one((out) + 32 * (ptrdiff_t) k, (data) + (start(k)), (size_t) (len(k)));  \
+        }                                                                                       \
+    } while (0)
+
+// Hashes inputs[inputs_offset, inputs_offset + inputs_len) into r + r_offset.
+void keccak256(byte* r, int r_offset, const byte* inputs, int inputs_offset, int inputs_len) {
+    keccak256_one(r + r_offset, inputs + inputs_offset, (size_t) inputs_len);
+}
+
+// Hashes count consecutive messages of msg_len bytes each into r, 32 bytes per message.
+void keccak256_packed(byte* r, const byte* inputs, int msg_len, int count) {
+#define PACKED_START(k) ((ptrdiff_t) (k) * msg_len)
+#define PACKED_LEN(k) (msg_len)
+    KECCAK256_BATCH(inputs, count, r, PACKED_START, PACKED_LEN);
+#undef PACKED_START
+#undef PACKED_LEN
+}
+
+// Hashes count messages, message k spanning data[offsets[k], offsets[k + 1]), into r, 32 bytes
+// per message. Returns 0 on success, 1 if the offsets are decreasing or out of [0, data_len].
+int keccak256_offsets(byte* r, const byte* data, int data_len, const int* offsets, int count) {
+    if (offsets[0] < 0 || offsets[count] > data_len) {
+        return 1;
+    }
+    for (int k = 0; k < count; k++) {
+        if (offsets[k + 1] < offsets[k]) {
+            return 1;
+        }
+    }
+#define OFFSETS_START(k) (offsets[k])
+#define OFFSETS_LEN(k) (offsets[(k) + 1] - offsets[k])
+    KECCAK256_BATCH(data, count, r, OFFSETS_START, OFFSETS_LEN);
+#undef OFFSETS_START
+#undef OFFSETS_LEN
+    return 0;
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+/**
+ * Status codes returned by the constantine EVM precompiles, mirroring {@code ctt_evm_status}.
+ */
+public enum ConstantineEVMStatus {
+    SUCCESS,
+    INVALID_INPUT_SIZE,
+    INVALID_OUTPUT_SIZE,
+    INT_LARGER_THAN_MODULUS,
+    POINT_NOT_ON_CURVE,
+    POINT_NOT_IN_SUBGROUP,
+    // only on java side, for codes this binding does not know about
+    UNKNOWN_ERROR;
+
+    // values() clones on every call, keep a copy for allocation free lookups
+    private static final ConstantineEVMStatus[] BY_CODE = values();
+
+    public static ConstantineEVMStatus fromCode(final int code) {
+        if (code < 0 || code >= UNKNOWN_ERROR.ordinal()) {
+            return UNKNOWN_ERROR;
+        }
+        return BY_CODE[code];
+    }
+
+    public boolean isSuccess() {
+        return this == SUCCESS;
+    }
+}
@@ -36,8 +36,15 @@ public class LibConstantineEIP196 {
     public static native int bn254_g1mul(byte[] r, int r_len, byte[] inputs, int inputs_len);
     public static native int bn254_pairingCheck(byte[] r, int r_len, byte[] inputs, int inputs_len);
 
+    public static native int bn254_g1add_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bn254_g1mul_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bn254_pairingCheck_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+
+    public static final int G1_RESULT_BYTES = 64;
+    public static final int PAIRING_RESULT_BYTES = 32;
+
     public static byte[] add(byte[] inputs) {
-        byte[] result = new byte[64];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bn254_g1add(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("ctt_eth_evm_bn254_g1add failed with status: " + status);
@@ -46,7 +53,7 @@ public class LibConstantineEIP196 {
     }
 
     public static byte[] mul(byte[] inputs) {
-        byte[] result = new byte[64];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bn254_g1mul(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("ctt_eth_evm_bn254_g1mul failed with status: " + status);
@@ -55,11 +62,31 @@ public class LibConstantineEIP196 {
     }
 
     public static byte[] pairingCheck(byte[] inputs) {
-        byte[] result = new byte[32];
+        byte[] result = new byte[PAIRING_RESULT_BYTES];
         int status = bn254_pairingCheck(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("ctt_eth_evm_bn254_pairingCheck failed with status: " + status);
         }
         return result;
     }
+
+    /*
+     * Status returning variants, writing the result into output at outputOffset. These neither throw
+     * nor allocate, so invalid inputs cost no more than valid ones.
+     */
+
+    public static ConstantineEVMStatus add(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP196::bn254_g1add_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus mul(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP196::bn254_g1mul_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus pairingCheck(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP196::bn254_pairingCheck_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, PAIRING_RESULT_BYTES);
+    }
 }
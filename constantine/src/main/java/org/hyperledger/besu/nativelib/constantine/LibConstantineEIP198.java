@@ -0,0 +1,53 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import com.sun.jna.ptr.IntByReference;
+import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
+
+/**
+ * The MODEXP precompile backed by constantine, a drop-in alternative to
+ * {@code LibArithmetic.modexp_precompiled} with the same input and output contract.
+ */
+public class LibConstantineEIP198 {
+    public static final boolean ENABLED;
+
+    static {
+        boolean enabled;
+        try {
+            BesuNativeLibraryLoader.registerJNA(LibConstantineEIP198.class, "constantinebindings");
+            enabled = true;
+        } catch (final Throwable t) {
+            t.printStackTrace();
+            enabled = false;
+        }
+        ENABLED = enabled;
+    }
+
+    /**
+     * Computes base^exp % mod for the EIP-198 encoded input i.
+     *
+     * @param i the precompile input, implicitly zero padded
+     * @param i_len length of i
+     * @param o output buffer for the result, left padded to the modulus length and truncated to its
+     *     leading bytes if longer than o
+     * @param o_len on entry the size of o, on return the number of bytes written, 0 if the input
+     *     lengths overflow
+     * @return 0 on success, 1 if the call costs more than 2^32 gas, more than any block holds, or
+     *     if native memory runs out or constantine rejects the input
+     */
+    public static native int modexp_precompiled(byte[] i, int i_len, byte[] o, IntByReference o_len);
+}
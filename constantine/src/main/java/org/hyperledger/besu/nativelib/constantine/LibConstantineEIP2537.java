@@ -17,6 +17,8 @@ package org.hyperledger.besu.nativelib.constantine;
 
 import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
 
+import java.util.Arrays;
+
 public class LibConstantineEIP2537 {
     public static final boolean ENABLED;
 
@@ -42,8 +44,41 @@ public class LibConstantineEIP2537 {
     public static native int bls12381_mapFpToG1(byte[] r, int r_len, byte[] inputs, int inputs_len);
     public static native int bls12381_mapFp2ToG2(byte[] r, int r_len, byte[] inputs, int inputs_len);
 
+    public static native int bls12381_g1add_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_g2add_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_g1mul_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_g2mul_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_g1msm_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_g2msm_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_pairingCheck_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_mapFpToG1_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+    public static native int bls12381_mapFp2ToG2_at(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+
+    public static native int bls12381_g1msm_parallel(byte[] r, int r_len, byte[] inputs, int inputs_len);
+    public static native int bls12381_g2msm_parallel(byte[] r, int r_len, byte[] inputs, int inputs_len);
+
+    /**
+     * Assumes offsets has count + 1 entries within inputs, r count * 32 bytes and statuses count
+     * entries, otherwise can lead to JVM crash
+     */
+    public static native int bls12381_pairingCheck_batch(byte[] r, byte[] inputs, int[] offsets, int count, int[] statuses);
+
+    /**
+     * Replaces the native threadpools used by the parallel MSM, pairing and KZG batch functions.
+     *
+     * @param num_threads worker threads besides the calling one, 0 for one per online cpu, negative
+     *     to shut the pools down
+     * @return the number of worker threads started
+     */
+    public static native int bls12381_threadpool_init(int num_threads);
+    public static native void bls12381_threadpool_shutdown();
+
+    public static final int G1_RESULT_BYTES = 128;
+    public static final int G2_RESULT_BYTES = 256;
+    public static final int PAIRING_RESULT_BYTES = 32;
+
     public static byte[] g1add(byte[] inputs) {
-        byte[] result = new byte[128];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bls12381_g1add(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g1add failed with status: " + status);
@@ -52,7 +87,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] g2add(byte[] inputs) {
-        byte[] result = new byte[256];
+        byte[] result = new byte[G2_RESULT_BYTES];
         int status = bls12381_g2add(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g2add failed with status: " + status);
@@ -61,7 +96,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] g1mul(byte[] inputs) {
-        byte[] result = new byte[128];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bls12381_g1mul(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g1mul failed with status: " + status);
@@ -70,7 +105,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] g2mul(byte[] inputs) {
-        byte[] result = new byte[256];
+        byte[] result = new byte[G2_RESULT_BYTES];
         int status = bls12381_g2mul(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g2mul failed with status: " + status);
@@ -79,7 +114,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] g1msm(byte[] inputs) {
-        byte[] result = new byte[128];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bls12381_g1msm(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g1msm failed with status: " + status);
@@ -88,7 +123,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] g2msm(byte[] inputs) {
-        byte[] result = new byte[256];
+        byte[] result = new byte[G2_RESULT_BYTES];
         int status = bls12381_g2msm(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_g2msm failed with status: " + status);
@@ -97,7 +132,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] pairingCheck(byte[] inputs) {
-        byte[] result = new byte[32];
+        byte[] result = new byte[PAIRING_RESULT_BYTES];
         int status = bls12381_pairingCheck(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_pairingcheck failed with status: " + status);
@@ -106,7 +141,7 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] mapFpToG1(byte[] inputs) {
-        byte[] result = new byte[128];
+        byte[] result = new byte[G1_RESULT_BYTES];
         int status = bls12381_mapFpToG1(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_map_fp_to_g1 failed with status: " + status);
@@ -115,11 +150,140 @@ public class LibConstantineEIP2537 {
     }
 
     public static byte[] mapFp2ToG2(byte[] inputs) {
-        byte[] result = new byte[256];
+        byte[] result = new byte[G2_RESULT_BYTES];
         int status = bls12381_mapFp2ToG2(result, result.length, inputs, inputs.length);
         if (status != 0) {
             throw new RuntimeException("eth_evm_bls12381_map_fp2_to_g2 failed with status: " + status);
         }
         return result;
     }
+
+    /*
+     * Status returning variants, writing the result into output at outputOffset. These neither throw
+     * nor allocate, so invalid inputs cost no more than valid ones.
+     */
+
+    public static ConstantineEVMStatus g1add(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g1add_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus g2add(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g2add_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G2_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus g1mul(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g1mul_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus g2mul(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g2mul_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G2_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus g1msm(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g1msm_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus g2msm(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_g2msm_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G2_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus pairingCheck(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_pairingCheck_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, PAIRING_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus mapFpToG1(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_mapFpToG1_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G1_RESULT_BYTES);
+    }
+
+    public static ConstantineEVMStatus mapFp2ToG2(byte[] inputs, int inputsOffset, int inputsLength, byte[] output, int outputOffset) {
+        return OffsetPrecompile.call(LibConstantineEIP2537::bls12381_mapFp2ToG2_at,
+            inputs, inputsOffset, inputsLength, output, outputOffset, G2_RESULT_BYTES);
+    }
+
+    /*
+     * MSM on the long-lived native threadpools, sized to the available cores unless configured with
+     * setDegreeOfMSMParallelism. G1 runs constantine's parallel MSM, G2 splits the input across
+     * threads. The result and the reported errors are the same as the single-threaded variants.
+     * Small inputs run on the calling thread, concurrent callers share the pools.
+     */
+
+    public static byte[] g1msmParallel(byte[] inputs) {
+        byte[] result = new byte[G1_RESULT_BYTES];
+        int status = bls12381_g1msm_parallel(result, result.length, inputs, inputs.length);
+        if (status != 0) {
+            throw new RuntimeException("ctt_eth_evm_bls12381_g1msm failed with status: " + status);
+        }
+        return result;
+    }
+
+    public static byte[] g2msmParallel(byte[] inputs) {
+        byte[] result = new byte[G2_RESULT_BYTES];
+        int status = bls12381_g2msm_parallel(result, result.length, inputs, inputs.length);
+        if (status != 0) {
+            throw new RuntimeException("ctt_eth_evm_bls12381_g2msm failed with status: " + status);
+        }
+        return result;
+    }
+
+    /**
+     * Runs independent pairing checks side by side on the native threadpool. A single check can not
+     * be split across threads, batching pays off when many are pending, as when simulating a block.
+     *
+     * @param inputs the input of each check
+     * @param outputs receives the 32 byte result of each successful check
+     * @return the status of each check
+     */
+    public static ConstantineEVMStatus[] pairingCheckBatch(byte[][] inputs, byte[][] outputs) {
+        if (outputs.length != inputs.length) {
+            throw new IllegalArgumentException("Expected " + inputs.length + " outputs, got " + outputs.length);
+        }
+        int count = inputs.length;
+        int[] offsets = new int[count + 1];
+        for (int k = 0; k < count; k++) {
+            offsets[k + 1] = Math.addExact(offsets[k], inputs[k].length);
+        }
+        byte[] concatenated = new byte[offsets[count]];
+        for (int k = 0; k < count; k++) {
+            System.arraycopy(inputs[k], 0, concatenated, offsets[k], inputs[k].length);
+        }
+        byte[] results = new byte[count * PAIRING_RESULT_BYTES];
+        int[] codes = new int[count];
+        if (count > 0) {
+            bls12381_pairingCheck_batch(results, concatenated, offsets, count, codes);
+        }
+
+        ConstantineEVMStatus[] statuses = new ConstantineEVMStatus[count];
+        for (int k = 0; k < count; k++) {
+            statuses[k] = ConstantineEVMStatus.fromCode(codes[k]);
+            if (statuses[k].isSuccess()) {
+                outputs[k] = Arrays.copyOfRange(results, k * PAIRING_RESULT_BYTES, (k + 1) * PAIRING_RESULT_BYTES);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Sizes the native threadpools used by {@link #g1msmParallel}, {@link #g2msmParallel},
+     * {@link #pairingCheckBatch} and KZG batch verification. They start with all available cores on
+     * first use and live until the next call, zero uses all available cores and a negative value
+     * disables them.
+     *
+     * @param nbThreads total number of threads an MSM may use, including the calling thread
+     * @return the number of threads an MSM will actually use
+     */
+    public static synchronized int setDegreeOfMSMParallelism(int nbThreads) {
+        int workers = nbThreads == 0 ? 0 : nbThreads - 1;
+        if (nbThreads > 0 && workers == 0) {
+            workers = -1;
+        }
+        return bls12381_threadpool_init(workers) + 1;
+    }
 }
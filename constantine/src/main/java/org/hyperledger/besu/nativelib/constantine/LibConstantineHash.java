@@ -0,0 +1,107 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
+
+import java.util.Objects;
+
+/**
+ * Keccak-256 over single messages and batches. Batches write all digests into one caller supplied
+ * array, 32 bytes per message, and hash four messages at a time where the messages allow it.
+ */
+public class LibConstantineHash {
+    public static final boolean ENABLED;
+
+    public static final int KECCAK256_DIGEST_BYTES = 32;
+
+    static {
+        boolean enabled;
+        try {
+            BesuNativeLibraryLoader.registerJNA(LibConstantineHash.class, "constantinebindings");
+            enabled = true;
+        } catch (final Throwable t) {
+            t.printStackTrace();
+            enabled = false;
+        }
+        ENABLED = enabled;
+    }
+
+    /**
+     * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native void keccak256(byte[] r, int r_offset, byte[] inputs, int inputs_offset, int inputs_len);
+
+    /**
+     * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native void keccak256_packed(byte[] r, byte[] inputs, int msg_len, int count);
+
+    /**
+     * Assumes output and offsets length bounds are already checked, otherwise can lead to JVM crash.
+     * Offsets are validated against data_len natively, returns 1 if they are not.
+     */
+    public static native int keccak256_offsets(byte[] r, byte[] data, int data_len, int[] offsets, int count);
+
+    public static byte[] keccak256(byte[] input) {
+        byte[] result = new byte[KECCAK256_DIGEST_BYTES];
+        keccak256(result, 0, input, 0, input.length);
+        return result;
+    }
+
+    /**
+     * Hashes input[offset, offset + length) into output[outputOffset, outputOffset + 32).
+     */
+    public static void keccak256(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        Objects.checkFromIndexSize(offset, length, input.length);
+        Objects.checkFromIndexSize(outputOffset, KECCAK256_DIGEST_BYTES, output.length);
+        keccak256(output, outputOffset, input, offset, length);
+    }
+
+    /**
+     * Hashes consecutive messages of messageLength bytes each.
+     *
+     * @param inputs the messages, concatenated
+     * @param messageLength length of every message
+     * @param output receives the digest of message i at 32 * i
+     */
+    public static void keccak256Packed(byte[] inputs, int messageLength, byte[] output) {
+        if (messageLength <= 0 || inputs.length % messageLength != 0) {
+            throw new IllegalArgumentException("inputs must hold whole messages of " + messageLength + " bytes");
+        }
+        int count = inputs.length / messageLength;
+        Objects.checkFromIndexSize(0, count * KECCAK256_DIGEST_BYTES, output.length);
+        keccak256_packed(output, inputs, messageLength, count);
+    }
+
+    /**
+     * Hashes messages of varying length, such as the RLP encoded nodes of a trie.
+     *
+     * @param data the messages, concatenated
+     * @param offsets n+1 offsets into data, message i spans [offsets[i], offsets[i+1])
+     * @param output receives the digest of message i at 32 * i
+     */
+    public static void keccak256Batch(byte[] data, int[] offsets, byte[] output) {
+        int count = offsets.length - 1;
+        if (count < 0) {
+            throw new IllegalArgumentException("offsets must hold at least one entry");
+        }
+        Objects.checkFromIndexSize(0, count * KECCAK256_DIGEST_BYTES, output.length);
+        if (keccak256_offsets(output, data, data.length, offsets, count) != 0) {
+            throw new IllegalArgumentException("offsets must be increasing and within data");
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
+
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * EIP-4844 KZG commitment verification: the point evaluation precompile and blob sidecar proofs.
+ *
+ * <p>The trusted setup is loaded once with {@link #loadTrustedSetup(String)} and kept in native
+ * memory. Blobs are passed as direct buffers so they are not copied on each call. Batch
+ * verification runs on constantine's threadpool, sized with
+ * {@link LibConstantineEIP2537#setDegreeOfMSMParallelism(int)}.
+ */
+public class LibConstantineKzg {
+    public static final boolean ENABLED;
+
+    public static final int BYTES_PER_FIELD_ELEMENT = 32;
+    public static final int FIELD_ELEMENTS_PER_BLOB = 4096;
+    public static final int BYTES_PER_BLOB = BYTES_PER_FIELD_ELEMENT * FIELD_ELEMENTS_PER_BLOB;
+    public static final int BYTES_PER_COMMITMENT = 48;
+    public static final int BYTES_PER_PROOF = 48;
+    public static final int POINT_EVALUATION_INPUT_BYTES = 192;
+
+    public static final byte VERSIONED_HASH_VERSION_KZG = 0x01;
+
+    // Keep in sync with ctt_eth_kzg_status, plus KZG_NO_TRUSTED_SETUP from the bindings
+    public static final int KZG_SUCCESS = 0;
+    public static final int KZG_VERIFICATION_FAILURE = 1;
+    public static final int KZG_INPUTS_LENGTHS_MISMATCH = 2;
+    public static final int KZG_SCALAR_ZERO = 3;
+    public static final int KZG_SCALAR_LARGER_THAN_CURVE_ORDER = 4;
+    public static final int KZG_ECC_INVALID_ENCODING = 5;
+    public static final int KZG_ECC_COORDINATE_GREATER_THAN_OR_EQUAL_MODULUS = 6;
+    public static final int KZG_ECC_POINT_NOT_ON_CURVE = 7;
+    public static final int KZG_ECC_POINT_NOT_IN_SUBGROUP = 8;
+    public static final int KZG_NO_TRUSTED_SETUP = -1;
+    // returned by pointEvaluation when the versioned hash does not match the commitment
+    public static final int KZG_VERSIONED_HASH_MISMATCH = -2;
+
+    /** Output of a successful point evaluation: FIELD_ELEMENTS_PER_BLOB and BLS_MODULUS as 32 byte words. */
+    private static final byte[] POINT_EVALUATION_OUTPUT = new byte[] {
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+        0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x10, 0x00,
+        0x73, (byte) 0xed, (byte) 0xa7, 0x53, 0x29, (byte) 0x9d, 0x7d, 0x48, 0x33, 0x39, (byte) 0xd8, 0x08, 0x09, (byte) 0xa1, (byte) 0xd8, 0x05,
+        0x53, (byte) 0xbd, (byte) 0xa4, 0x02, (byte) 0xff, (byte) 0xfe, 0x5b, (byte) 0xfe, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x00, 0x00, 0x00, 0x01
+    };
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    /** SHA-256 of the commitment, into a buffer reused by each point evaluation on the thread. */
+    private static final class VersionedHasher {
+        final MessageDigest sha256;
+        final byte[] hash = new byte[32];
+
+        VersionedHasher() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        boolean matches(byte[] input) {
+            try {
+                sha256.update(input, 96, BYTES_PER_COMMITMENT);
+                sha256.digest(hash, 0, hash.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            int diff = input[0] ^ VERSIONED_HASH_VERSION_KZG;
+            for (int i = 1; i < hash.length; i++) {
+                diff |= input[i] ^ hash[i];
+            }
+            return diff == 0;
+        }
+    }
+
+    private static final ThreadLocal<VersionedHasher> VERSIONED_HASHER =
+        ThreadLocal.withInitial(VersionedHasher::new);
+
+    private static boolean trustedSetupLoaded = false;
+
+    static {
+        boolean enabled;
+        try {
+            BesuNativeLibraryLoader.registerJNA(LibConstantineKzg.class, "constantinebindings");
+            enabled = true;
+        } catch (final Throwable t) {
+            t.printStackTrace();
+            enabled = false;
+        }
+        ENABLED = enabled;
+    }
+
+    public static native int kzg_trusted_setup_load(String path);
+    public static native void kzg_trusted_setup_delete();
+
+    /**
+     * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native int kzg_verify_kzg_proof(byte[] commitment, byte[] z, byte[] y, byte[] proof);
+
+    /**
+     * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native int kzg_point_evaluation(byte[] input);
+
+    /**
+     * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native int kzg_verify_blob_kzg_proof(ByteBuffer blob, byte[] commitment, byte[] proof);
+
+    /**
+     * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+     */
+    public static native int kzg_verify_blob_kzg_proof_batch(
+        ByteBuffer blobs, ByteBuffer commitments, ByteBuffer proofs, int count, byte[] secure_random_bytes);
+
+    /**
+     * Loads the trusted setup, in the c-kzg-4844 text format, into native memory.
+     *
+     * @param path path of the trusted setup file
+     * @throws IllegalStateException if a trusted setup is already loaded
+     * @throws IllegalArgumentException if the file can not be read or is invalid
+     */
+    public static synchronized void loadTrustedSetup(String path) {
+        if (trustedSetupLoaded) {
+            throw new IllegalStateException("Trusted setup is already loaded");
+        }
+        int status = kzg_trusted_setup_load(path);
+        if (status != 0) {
+            throw new IllegalArgumentException(
+                "ctt_eth_trusted_setup_load failed with status: " + status + " for " + path);
+        }
+        trustedSetupLoaded = true;
+    }
+
+    /**
+     * Frees the trusted setup. Must not be called while verifications may still be running.
+     */
+    public static synchronized void freeTrustedSetup() {
+        kzg_trusted_setup_delete();
+        trustedSetupLoaded = false;
+    }
+
+    public static synchronized boolean isTrustedSetupLoaded() {
+        return trustedSetupLoaded;
+    }
+
+    /**
+     * Verifies a KZG proof that the polynomial committed to evaluates to y at z.
+     *
+     * @return {@link #KZG_SUCCESS} if the proof is valid, otherwise one of the KZG_* codes
+     */
+    public static int verifyKzgProof(byte[] commitment, byte[] z, byte[] y, byte[] proof) {
+        if (commitment.length != BYTES_PER_COMMITMENT
+                || z.length != BYTES_PER_FIELD_ELEMENT
+                || y.length != BYTES_PER_FIELD_ELEMENT
+                || proof.length != BYTES_PER_PROOF) {
+            return KZG_INPUTS_LENGTHS_MISMATCH;
+        }
+        return kzg_verify_kzg_proof(commitment, z, y, proof);
+    }
+
+    /**
+     * The EIP-4844 point evaluation precompile, input is versioned_hash | z | y | commitment | proof.
+     *
+     * @return {@link #KZG_SUCCESS} if the input is valid, in which case the precompile returns
+     *     {@link #pointEvaluationOutput()}, otherwise one of the KZG_* codes
+     */
+    public static int pointEvaluation(byte[] input) {
+        if (input.length != POINT_EVALUATION_INPUT_BYTES) {
+            return KZG_INPUTS_LENGTHS_MISMATCH;
+        }
+        if (!VERSIONED_HASHER.get().matches(input)) {
+            return KZG_VERSIONED_HASH_MISMATCH;
+        }
+        return kzg_point_evaluation(input);
+    }
+
+    public static byte[] pointEvaluationOutput() {
+        return POINT_EVALUATION_OUTPUT.clone();
+    }
+
+    /**
+     * Verifies the KZG proof of a blob against its commitment.
+     *
+     * @param blob direct buffer holding {@link #BYTES_PER_BLOB} bytes from its position
+     * @return {@link #KZG_SUCCESS} if the proof is valid, otherwise one of the KZG_* codes
+     */
+    public static int verifyBlobKzgProof(ByteBuffer blob, byte[] commitment, byte[] proof) {
+        if (blob.remaining() != BYTES_PER_BLOB
+                || commitment.length != BYTES_PER_COMMITMENT
+                || proof.length != BYTES_PER_PROOF) {
+            return KZG_INPUTS_LENGTHS_MISMATCH;
+        }
+        return kzg_verify_blob_kzg_proof(direct(blob), commitment, proof);
+    }
+
+    /**
+     * Verifies many blob proofs at once. A {@link #KZG_VERIFICATION_FAILURE} only says that at least
+     * one of the proofs is invalid, not which one.
+     *
+     * @param blobs direct buffer of concatenated blobs from its position
+     * @param commitments direct buffer of concatenated 48 byte commitments from its position
+     * @param proofs direct buffer of concatenated 48 byte proofs from its position
+     * @return {@link #KZG_SUCCESS} if all proofs are valid, otherwise one of the KZG_* codes
+     */
+    public static int verifyBlobKzgProofBatch(ByteBuffer blobs, ByteBuffer commitments, ByteBuffer proofs) {
+        if (blobs.remaining() % BYTES_PER_BLOB != 0) {
+            return KZG_INPUTS_LENGTHS_MISMATCH;
+        }
+        int count = blobs.remaining() / BYTES_PER_BLOB;
+        if (commitments.remaining() != count * BYTES_PER_COMMITMENT
+                || proofs.remaining() != count * BYTES_PER_PROOF) {
+            return KZG_INPUTS_LENGTHS_MISMATCH;
+        }
+        if (count == 0) {
+            return KZG_SUCCESS;
+        }
+        byte[] secureRandomBytes = new byte[32];
+        SECURE_RANDOM.nextBytes(secureRandomBytes);
+        return kzg_verify_blob_kzg_proof_batch(
+            direct(blobs), direct(commitments), direct(proofs), count, secureRandomBytes);
+    }
+
+    /** JNA passes a direct buffer as the address of its position, so native code reads from there. */
+    private static ByteBuffer direct(ByteBuffer buffer) {
+        if (!buffer.isDirect()) {
+            throw new IllegalArgumentException("Buffer must be direct");
+        }
+        return buffer;
+    }
+}
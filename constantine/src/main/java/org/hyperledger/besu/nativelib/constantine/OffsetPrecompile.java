@@ -0,0 +1,45 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+/**
+ * A constantine precompile entry point that reads its input and writes its result at offsets into
+ * caller supplied arrays.
+ */
+@FunctionalInterface
+interface OffsetPrecompile {
+
+    int apply(byte[] r, int r_offset, int r_len, byte[] inputs, int inputs_offset, int inputs_len);
+
+    /**
+     * Checks array bounds before handing the buffers to native code, which does not check them and
+     * would otherwise crash the JVM. Never throws or allocates.
+     */
+    static ConstantineEVMStatus call(
+            final OffsetPrecompile op,
+            final byte[] inputs, final int inputsOffset, final int inputsLength,
+            final byte[] output, final int outputOffset, final int outputLength) {
+        if (inputs == null || inputsOffset < 0 || inputsLength < 0
+                || inputsOffset > inputs.length - inputsLength) {
+            return ConstantineEVMStatus.INVALID_INPUT_SIZE;
+        }
+        if (output == null || outputOffset < 0 || outputOffset > output.length - outputLength) {
+            return ConstantineEVMStatus.INVALID_OUTPUT_SIZE;
+        }
+        return ConstantineEVMStatus.fromCode(
+                op.apply(output, outputOffset, outputLength, inputs, inputsOffset, inputsLength));
+    }
+}
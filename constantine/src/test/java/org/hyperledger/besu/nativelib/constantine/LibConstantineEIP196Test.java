@@ -17,6 +17,9 @@ package org.hyperledger.besu.nativelib.constantine;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -49,4 +52,36 @@ public class LibConstantineEIP196Test {
         assertEquals("Result array length should be 32", 32, result.length);
         assertEquals("The last byte of the result should be 1", 1, result[31]);
     }
+
+    @Test
+    public void testPairingCheckAtOffset() {
+        byte[] output = new byte[40];
+
+        ConstantineEVMStatus status = LibConstantineEIP196.pairingCheck(new byte[8], 8, 0, output, 8);
+        assertEquals(ConstantineEVMStatus.SUCCESS, status);
+        assertEquals("The last byte of the result should be 1", 1, output[39]);
+        assertEquals("Bytes before the offset should be untouched", 0, output[7]);
+    }
+
+    @Test
+    public void testG1AddAtOffsetMatchesAllocatingVariant() {
+        byte[] inputs = new byte[16 + 128];
+        byte[] output = new byte[64 + 4];
+
+        ConstantineEVMStatus status = LibConstantineEIP196.add(inputs, 16, 128, output, 4);
+        assertEquals(ConstantineEVMStatus.SUCCESS, status);
+        assertArrayEquals(LibConstantineEIP196.add(new byte[128]), Arrays.copyOfRange(output, 4, 68));
+    }
+
+    @Test
+    public void testOffsetVariantsReportBadBounds() {
+        byte[] inputs = new byte[96];
+
+        assertEquals(ConstantineEVMStatus.INVALID_INPUT_SIZE,
+            LibConstantineEIP196.mul(inputs, 1, 96, new byte[64], 0));
+        assertEquals(ConstantineEVMStatus.INVALID_OUTPUT_SIZE,
+            LibConstantineEIP196.mul(inputs, 0, 96, new byte[64], 1));
+        assertEquals(ConstantineEVMStatus.INVALID_INPUT_SIZE,
+            LibConstantineEIP196.pairingCheck(new byte[191], 0, 191, new byte[32], 0));
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import com.sun.jna.ptr.IntByReference;
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LibConstantineEIP198Test {
+
+    private static Bytes modexp(String input, int outputSize) {
+        Bytes in = Bytes.fromHexString(input);
+        byte[] output = new byte[outputSize];
+        IntByReference outputLength = new IntByReference(output.length);
+        int status = LibConstantineEIP198.modexp_precompiled(in.toArrayUnsafe(), in.size(), output, outputLength);
+        assertEquals("status", 0, status);
+        return Bytes.wrap(output, 0, outputLength.getValue());
+    }
+
+    @Test
+    public void testFermatLittleTheorem() {
+        // 3 ^ (p - 1) mod p == 1 for the secp256k1 field prime
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000020"
+                + "0000000000000000000000000000000000000000000000000000000000000020"
+                + "03"
+                + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e"
+                + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f",
+            64);
+        assertEquals(Bytes.fromHexString("0x0000000000000000000000000000000000000000000000000000000000000001"), result);
+    }
+
+    @Test
+    public void testEmptyBase() {
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000000000000000000000"
+                + "0000000000000000000000000000000000000000000000000000000000000020"
+                + "0000000000000000000000000000000000000000000000000000000000000020"
+                + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e"
+                + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f",
+            64);
+        assertEquals(Bytes.wrap(new byte[32]), result);
+    }
+
+    @Test
+    public void testTruncatedInputIsZeroPadded() {
+        // 2 ^ 3 mod 0x0100 with the last byte of the modulus missing from the input
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000002"
+                + "02"
+                + "03"
+                + "01",
+            8);
+        assertEquals(Bytes.fromHexString("0x0008"), result);
+    }
+
+    @Test
+    public void testZeroLengthModulus() {
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000000"
+                + "02"
+                + "03",
+            8);
+        assertEquals(Bytes.EMPTY, result);
+    }
+
+    @Test
+    public void testOverflowingLengthGivesEmptyResult() {
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000010000000000000000"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001",
+            8);
+        assertEquals(Bytes.EMPTY, result);
+    }
+
+    @Test
+    public void testLengthsCostingMoreThanAnyBlockAreRejected() {
+        // a 4 GB modulus, declared by a 96 byte input
+        Bytes in = Bytes.fromHexString(
+            "0x0000000000000000000000000000000000000000000000000000000000000000"
+                + "0000000000000000000000000000000000000000000000000000000000000000"
+                + "00000000000000000000000000000000000000000000000000000000fffffffe");
+        byte[] output = new byte[8];
+        IntByReference outputLength = new IntByReference(output.length);
+        int status = LibConstantineEIP198.modexp_precompiled(in.toArrayUnsafe(), in.size(), output, outputLength);
+        assertEquals("status", 1, status);
+    }
+
+    @Test
+    public void testOutputBufferTooSmallTruncatesLikeArithmetic() {
+        // 2 ^ 15 mod 0xffff is 0x8000, only its leading byte fits
+        Bytes result = modexp(
+            "0x0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000001"
+                + "0000000000000000000000000000000000000000000000000000000000000002"
+                + "02"
+                + "0f"
+                + "ffff",
+            1);
+        assertEquals(Bytes.fromHexString("0x80"), result);
+    }
+}
@@ -15,13 +15,17 @@
  */
 package org.hyperledger.besu.nativelib.constantine;
 
+import org.apache.tuweni.bytes.Bytes;
 import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class LibConstantineEIP2537Test {
 
@@ -105,4 +109,94 @@ public class LibConstantineEIP2537Test {
         assertNotNull("Result array should not be null", result);
         assertEquals("Result array length should be 256", 256, result.length);
     }
+
+    @Test
+    public void testG2AddAtOffsetMatchesAllocatingVariant() {
+        byte[] inputs = new byte[3 + 512];
+        byte[] output = new byte[256 + 32];
+
+        ConstantineEVMStatus status = LibConstantineEIP2537.g2add(inputs, 3, 512, output, 32);
+        assertEquals(ConstantineEVMStatus.SUCCESS, status);
+        assertArrayEquals(LibConstantineEIP2537.g2add(new byte[512]), Arrays.copyOfRange(output, 32, 288));
+    }
+
+    @Test
+    public void testPairingCheckAtOffset() {
+        byte[] output = new byte[64];
+
+        ConstantineEVMStatus status = LibConstantineEIP2537.pairingCheck(new byte[384], 0, 384, output, 32);
+        assertEquals(ConstantineEVMStatus.SUCCESS, status);
+        assertEquals("The last byte of the result should be 1", 1, output[63]);
+    }
+
+    @Test
+    public void testOffsetVariantsReportErrorsAsStatus() {
+        assertEquals(ConstantineEVMStatus.INVALID_INPUT_SIZE,
+            LibConstantineEIP2537.g1add(new byte[255], 0, 255, new byte[128], 0));
+        assertEquals(ConstantineEVMStatus.INVALID_OUTPUT_SIZE,
+            LibConstantineEIP2537.g1add(new byte[256], 0, 256, new byte[127], 0));
+        assertEquals(ConstantineEVMStatus.INVALID_INPUT_SIZE,
+            LibConstantineEIP2537.mapFpToG1(new byte[64], 1, 64, new byte[128], 0));
+    }
+
+    @Test
+    public void testG1MsmParallelMatchesSingleThreaded() {
+        // generator with scalars 1..n, enough pairs to be split across the pool
+        byte[] g1 = Bytes.fromHexString(
+            "0x0000000000000000000000000000000017f1d3a73197d7942695638c4fa9ac0fc3688c4f9774b905a14e3a3f171bac586c55e83ff97a1aeffb3af00adb22c6bb"
+                + "0000000000000000000000000000000008b3f481e3aaa0f1a09e30ed741d8ae4fcf5e095d5d00af600db18cb2c04b3edd03cc744a2888ae40caa232946c5e7e1")
+            .toArrayUnsafe();
+        int pairs = 200;
+        byte[] inputs = new byte[pairs * 160];
+        for (int i = 0; i < pairs; i++) {
+            System.arraycopy(g1, 0, inputs, i * 160, 128);
+            inputs[i * 160 + 159] = (byte) (i + 1);
+        }
+
+        try {
+            assertTrue(LibConstantineEIP2537.setDegreeOfMSMParallelism(4) >= 1);
+            assertArrayEquals(LibConstantineEIP2537.g1msm(inputs), LibConstantineEIP2537.g1msmParallel(inputs));
+
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(-1);
+            assertArrayEquals(LibConstantineEIP2537.g1msm(inputs), LibConstantineEIP2537.g1msmParallel(inputs));
+        } finally {
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(0);
+        }
+    }
+
+    @Test
+    public void testG2MsmParallelReportsSameError() {
+        byte[] inputs = new byte[100 * 288];
+        // an off curve point in the last chunk
+        inputs[inputs.length - 33] = 1;
+
+        try {
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(4);
+            int single = LibConstantineEIP2537.bls12381_g2msm(new byte[256], 256, inputs, inputs.length);
+            int parallel = LibConstantineEIP2537.bls12381_g2msm_parallel(new byte[256], 256, inputs, inputs.length);
+            assertNotEquals(0, single);
+            assertEquals(single, parallel);
+        } finally {
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(0);
+        }
+    }
+
+    @Test
+    public void testPairingCheckBatchMatchesSingleChecks() {
+        // points at infinity pair to one, a truncated pair is invalid
+        byte[][] inputs = { new byte[384], new byte[383], new byte[768] };
+        byte[][] outputs = new byte[inputs.length][];
+
+        ConstantineEVMStatus[] statuses = LibConstantineEIP2537.pairingCheckBatch(inputs, outputs);
+
+        for (int k = 0; k < inputs.length; k++) {
+            byte[] expected = new byte[32];
+            int status = LibConstantineEIP2537.bls12381_pairingCheck(expected, expected.length, inputs[k], inputs[k].length);
+            assertEquals(ConstantineEVMStatus.fromCode(status), statuses[k]);
+            if (status == 0) {
+                assertArrayEquals(expected, outputs[k]);
+            }
+        }
+        assertEquals(ConstantineEVMStatus.INVALID_INPUT_SIZE, statuses[1]);
+    }
 }
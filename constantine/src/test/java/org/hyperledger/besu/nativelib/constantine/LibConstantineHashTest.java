@@ -0,0 +1,102 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class LibConstantineHashTest {
+
+    @Test
+    public void testKnownDigests() {
+        assertEquals(
+            Bytes.fromHexString("0xc5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470"),
+            Bytes.wrap(LibConstantineHash.keccak256(new byte[0])));
+        assertEquals(
+            Bytes.fromHexString("0x4e03657aea45a94fc7d47ba826c8d667c0d1e6e33a64a036ec44f58fa12d6c45"),
+            Bytes.wrap(LibConstantineHash.keccak256("abc".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    public void testHashAtOffsets() {
+        byte[] input = "xxabcxx".getBytes(StandardCharsets.US_ASCII);
+        byte[] output = new byte[40];
+
+        LibConstantineHash.keccak256(input, 2, 3, output, 8);
+        assertArrayEquals(
+            LibConstantineHash.keccak256("abc".getBytes(StandardCharsets.US_ASCII)),
+            Arrays.copyOfRange(output, 8, 40));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> LibConstantineHash.keccak256(input, 5, 3, output, 0));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> LibConstantineHash.keccak256(input, 0, 3, output, 9));
+    }
+
+    @Test
+    public void testBatchMatchesSingleHashes() {
+        // a mix of equal and different block counts, exercising both the grouped and single paths
+        Random random = new Random(42);
+        int count = 101;
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            offsets[i + 1] = offsets[i] + (i % 5 < 3 ? 532 : random.nextInt(300));
+        }
+        byte[] data = new byte[offsets[count]];
+        random.nextBytes(data);
+        byte[] output = new byte[count * 32];
+
+        LibConstantineHash.keccak256Batch(data, offsets, output);
+        for (int i = 0; i < count; i++) {
+            assertArrayEquals("message " + i,
+                LibConstantineHash.keccak256(Arrays.copyOfRange(data, offsets[i], offsets[i + 1])),
+                Arrays.copyOfRange(output, 32 * i, 32 * i + 32));
+        }
+    }
+
+    @Test
+    public void testPackedMatchesSingleHashes() {
+        byte[] data = new byte[9 * 136];
+        new Random(7).nextBytes(data);
+        byte[] output = new byte[9 * 32];
+
+        LibConstantineHash.keccak256Packed(data, 136, output);
+        for (int i = 0; i < 9; i++) {
+            assertArrayEquals(
+                LibConstantineHash.keccak256(Arrays.copyOfRange(data, 136 * i, 136 * i + 136)),
+                Arrays.copyOfRange(output, 32 * i, 32 * i + 32));
+        }
+    }
+
+    @Test
+    public void testInvalidBatchesAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> LibConstantineHash.keccak256Batch(new byte[10], new int[] {0, 5, 4}, new byte[64]));
+        assertThrows(IllegalArgumentException.class,
+            () -> LibConstantineHash.keccak256Batch(new byte[10], new int[] {0, 11}, new byte[32]));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> LibConstantineHash.keccak256Batch(new byte[10], new int[] {0, 5, 10}, new byte[32]));
+        assertThrows(IllegalArgumentException.class,
+            () -> LibConstantineHash.keccak256Packed(new byte[10], 3, new byte[128]));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.constantine;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class LibConstantineKzgTest {
+
+    // trusted setup in the c-kzg-4844 format, only the tests which verify proofs need it
+    private static final String TRUSTED_SETUP = System.getProperty("kzg.trusted.setup", "trusted_setup.txt");
+
+    // commitment and proof of the zero polynomial are both the point at infinity
+    private static final byte[] INFINITY = Bytes.concatenate(
+        Bytes.of(0xc0), Bytes.wrap(new byte[47])).toArrayUnsafe();
+
+    @BeforeClass
+    public static void loadTrustedSetup() {
+        Assume.assumeTrue("constantine bindings must be enabled", LibConstantineKzg.ENABLED);
+        if (new File(TRUSTED_SETUP).exists()) {
+            LibConstantineKzg.loadTrustedSetup(TRUSTED_SETUP);
+        }
+    }
+
+    @AfterClass
+    public static void freeTrustedSetup() {
+        LibConstantineKzg.freeTrustedSetup();
+    }
+
+    @Test
+    public void testMissingTrustedSetupFile() {
+        Assume.assumeFalse(LibConstantineKzg.isTrustedSetupLoaded());
+        assertThrows(IllegalArgumentException.class,
+            () -> LibConstantineKzg.loadTrustedSetup("does/not/exist.txt"));
+        assertEquals(LibConstantineKzg.KZG_NO_TRUSTED_SETUP,
+            LibConstantineKzg.verifyKzgProof(INFINITY, new byte[32], new byte[32], INFINITY));
+    }
+
+    @Test
+    public void testLengthsAreCheckedBeforeNativeCall() {
+        assertEquals(LibConstantineKzg.KZG_INPUTS_LENGTHS_MISMATCH,
+            LibConstantineKzg.verifyKzgProof(new byte[47], new byte[32], new byte[32], INFINITY));
+        assertEquals(LibConstantineKzg.KZG_INPUTS_LENGTHS_MISMATCH,
+            LibConstantineKzg.pointEvaluation(new byte[191]));
+        assertEquals(LibConstantineKzg.KZG_INPUTS_LENGTHS_MISMATCH,
+            LibConstantineKzg.verifyBlobKzgProof(ByteBuffer.allocateDirect(10), INFINITY, INFINITY));
+        assertEquals(LibConstantineKzg.KZG_INPUTS_LENGTHS_MISMATCH,
+            LibConstantineKzg.verifyBlobKzgProofBatch(
+                ByteBuffer.allocateDirect(2 * LibConstantineKzg.BYTES_PER_BLOB),
+                ByteBuffer.allocateDirect(48),
+                ByteBuffer.allocateDirect(96)));
+    }
+
+    @Test
+    public void testHeapBuffersAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> LibConstantineKzg.verifyBlobKzgProof(
+                ByteBuffer.allocate(LibConstantineKzg.BYTES_PER_BLOB), INFINITY, INFINITY));
+    }
+
+    @Test
+    public void testPointEvaluationOfZeroPolynomial() throws Exception {
+        Assume.assumeTrue(LibConstantineKzg.isTrustedSetupLoaded());
+
+        byte[] input = pointEvaluationInput(new byte[32]);
+        assertEquals(LibConstantineKzg.KZG_SUCCESS, LibConstantineKzg.pointEvaluation(input));
+        assertArrayEquals(
+            Bytes.fromHexString("0x0000000000000000000000000000000000000000000000000000000000001000"
+                + "73eda753299d7d483339d80809a1d80553bda402fffe5bfeffffffff00000001").toArrayUnsafe(),
+            LibConstantineKzg.pointEvaluationOutput());
+
+        byte[] one = new byte[32];
+        one[31] = 1;
+        assertEquals(LibConstantineKzg.KZG_VERIFICATION_FAILURE,
+            LibConstantineKzg.pointEvaluation(pointEvaluationInput(one)));
+
+        input[1] ^= 1;
+        assertEquals(LibConstantineKzg.KZG_VERSIONED_HASH_MISMATCH, LibConstantineKzg.pointEvaluation(input));
+    }
+
+    @Test
+    public void testBlobBatchOfZeroBlobs() {
+        Assume.assumeTrue(LibConstantineKzg.isTrustedSetupLoaded());
+        int count = 8;
+        ByteBuffer blobs = ByteBuffer.allocateDirect(count * LibConstantineKzg.BYTES_PER_BLOB);
+        ByteBuffer commitments = ByteBuffer.allocateDirect(count * 48);
+        ByteBuffer proofs = ByteBuffer.allocateDirect(count * 48);
+        for (int i = 0; i < count; i++) {
+            commitments.put(INFINITY);
+            proofs.put(INFINITY);
+        }
+        commitments.flip();
+        proofs.flip();
+
+        assertEquals(LibConstantineKzg.KZG_SUCCESS,
+            LibConstantineKzg.verifyBlobKzgProof(
+                blobs.slice().limit(LibConstantineKzg.BYTES_PER_BLOB), INFINITY, INFINITY));
+        try {
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(4);
+            assertEquals(LibConstantineKzg.KZG_SUCCESS,
+                LibConstantineKzg.verifyBlobKzgProofBatch(blobs, commitments, proofs));
+
+            // a non zero blob does not match the commitment to the zero polynomial
+            blobs.put(count * LibConstantineKzg.BYTES_PER_BLOB - 1, (byte) 1);
+            assertEquals(LibConstantineKzg.KZG_VERIFICATION_FAILURE,
+                LibConstantineKzg.verifyBlobKzgProofBatch(blobs, commitments, proofs));
+            // the changed blob is read at the buffer's position
+            ByteBuffer last = blobs.duplicate().position((count - 1) * LibConstantineKzg.BYTES_PER_BLOB);
+            assertEquals(LibConstantineKzg.KZG_VERIFICATION_FAILURE,
+                LibConstantineKzg.verifyBlobKzgProof(last, INFINITY, INFINITY));
+        } finally {
+            LibConstantineEIP2537.setDegreeOfMSMParallelism(0);
+        }
+    }
+
+    private static byte[] pointEvaluationInput(byte[] y) throws Exception {
+        byte[] versionedHash = MessageDigest.getInstance("SHA-256").digest(INFINITY);
+        versionedHash[0] = LibConstantineKzg.VERSIONED_HASH_VERSION_KZG;
+        byte[] z = new byte[32];
+        z[31] = 42;
+        return Bytes.concatenate(
+            Bytes.wrap(versionedHash), Bytes.wrap(z), Bytes.wrap(y), Bytes.wrap(INFINITY), Bytes.wrap(INFINITY))
+            .toArrayUnsafe();
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package main
+
+import "C"
+import (
+	"crypto/rand"
+	"encoding/binary"
+	"math/big"
+	"runtime"
+	"sync"
+	"unsafe"
+
+	"github.com/consensys/gnark-crypto/ecc"
+	bls12381 "github.com/consensys/gnark-crypto/ecc/bls12-381"
+	"github.com/consensys/gnark-crypto/ecc/bls12-381/fr"
+)
+
+type blsCode = C.int
+
+// keep in sync with the Java code in LibGnarkBls
+const (
+	blsCodeValid blsCode = iota
+	blsCodeInvalid
+	blsCodeMalformedInput
+	blsCodeInvalidPoint
+)
+
+const (
+	BlsSecretKeyBytes = 32
+	BlsPublicKeyBytes = bls12381.SizeOfG1AffineCompressed // public keys are compressed G1 points
+	BlsSignatureBytes = bls12381.SizeOfG2AffineCompressed // signatures are compressed G2 points
+)
+
+var g1GenNeg bls12381.G1Affine
+
+func init() {
+	_, _, g1Gen, _ := bls12381.Generators()
+	g1GenNeg.Neg(&g1Gen)
+}
+
+/*
+
+blsHashToG2 hashes a message to a G2 point using the hash_to_curve suite of RFC 9380.
+
+- Input:
+	- javaMsgBuf: Pointer to the message bytes
+	- javaDstBuf: Pointer to the domain separation tag bytes
+	- javaOutputBuf: Pointer to a buffer where the compressed G2 point will be written
+	- cMsgLen: Length of the message in bytes
+	- cDstLen: Length of the domain separation tag in bytes
+- Returns:
+	- blsCodeValid if successful, the compressed point is written to javaOutputBuf
+	- blsCodeMalformedInput if the domain separation tag is rejected
+- JNI:
+	- javaOutputBuf must be at least BlsSignatureBytes bytes
+
+*/
+//export blsHashToG2
+func blsHashToG2(javaMsgBuf, javaDstBuf, javaOutputBuf *C.char, cMsgLen, cDstLen C.int) blsCode {
+	msg := castBufferToSliceBls(unsafe.Pointer(javaMsgBuf), int(cMsgLen))
+	dst := castBufferToSliceBls(unsafe.Pointer(javaDstBuf), int(cDstLen))
+
+	point, err := bls12381.HashToG2(msg, dst)
+	if err != nil {
+		return blsCodeMalformedInput
+	}
+
+	encoded := point.Bytes()
+	copy(castBufferToSliceBls(unsafe.Pointer(javaOutputBuf), BlsSignatureBytes), encoded[:])
+	return blsCodeValid
+}
+
+/*
+
+blsSecretKeyToPublicKey derives the compressed G1 public key for a secret key.
+
+- Input:
+	- javaSecretKeyBuf: Pointer to a BlsSecretKeyBytes big-endian secret key
+	- javaOutputBuf: Pointer to a buffer where the compressed G1 public key will be written
+- Returns:
+	- blsCodeValid if successful
+	- blsCodeMalformedInput if the secret key is zero or not lower than the group order
+- JNI:
+	- javaOutputBuf must be at least BlsPublicKeyBytes bytes
+
+*/
+//export blsSecretKeyToPublicKey
+func blsSecretKeyToPublicKey(javaSecretKeyBuf, javaOutputBuf *C.char) blsCode {
+	var sk big.Int
+	if !decodeSecretKey(&sk, javaSecretKeyBuf) {
+		return blsCodeMalformedInput
+	}
+
+	_, _, g1Gen, _ := bls12381.Generators()
+	var pk bls12381.G1Affine
+	pk.ScalarMultiplication(&g1Gen, &sk)
+
+	encoded := pk.Bytes()
+	copy(castBufferToSliceBls(unsafe.Pointer(javaOutputBuf), BlsPublicKeyBytes), encoded[:])
+	return blsCodeValid
+}
+
+/*
+
+blsSign signs a message, producing a compressed G2 signature.
+
+- Input:
+	- javaSecretKeyBuf: Pointer to a BlsSecretKeyBytes big-endian secret key
+	- javaMsgBuf: Pointer to the message bytes
+	- javaDstBuf: Pointer to the domain separation tag bytes
+	- javaOutputBuf: Pointer to a buffer where the compressed G2 signature will be written
+	- cMsgLen: Length of the message in bytes
+	- cDstLen: Length of the domain separation tag in bytes
+- Returns:
+	- blsCodeValid if successful
+	- blsCodeMalformedInput if the secret key or domain separation tag is rejected
+- JNI:
+	- javaOutputBuf must be at least BlsSignatureBytes bytes
+
+*/
+//export blsSign
+func blsSign(javaSecretKeyBuf, javaMsgBuf, javaDstBuf, javaOutputBuf *C.char, cMsgLen, cDstLen C.int) blsCode {
+	var sk big.Int
+	if !decodeSecretKey(&sk, javaSecretKeyBuf) {
+		return blsCodeMalformedInput
+	}
+
+	msg := castBufferToSliceBls(unsafe.Pointer(javaMsgBuf), int(cMsgLen))
+	dst := castBufferToSliceBls(unsafe.Pointer(javaDstBuf), int(cDstLen))
+
+	hm, err := bls12381.HashToG2(msg, dst)
+	if err != nil {
+		return blsCodeMalformedInput
+	}
+
+	var sig bls12381.G2Affine
+	sig.ScalarMultiplication(&hm, &sk)
+
+	encoded := sig.Bytes()
+	copy(castBufferToSliceBls(unsafe.Pointer(javaOutputBuf), BlsSignatureBytes), encoded[:])
+	return blsCodeValid
+}
+
+/*
+
+blsFastAggregateVerify verifies an aggregate signature of many public keys over a single message.
+
+- Input:
+	- javaPublicKeysBuf: Pointer to cPublicKeyCount concatenated compressed G1 public keys
+	- javaMsgBuf: Pointer to the message bytes
+	- javaSignatureBuf: Pointer to the compressed G2 aggregate signature
+	- javaDstBuf: Pointer to the domain separation tag bytes
+	- cPublicKeyCount: Number of public keys
+	- cMsgLen: Length of the message in bytes
+	- cDstLen: Length of the domain separation tag in bytes
+- Returns:
+	- blsCodeValid if the aggregate signature is valid
+	- blsCodeInvalid if the pairing check fails
+	- blsCodeMalformedInput if there are no public keys or the domain separation tag is rejected
+	- blsCodeInvalidPoint if a key or the signature is not a canonical subgroup point, or a key is the identity
+- Cryptography:
+	- Checks e(sum(pk_i), H(msg)) == e(g1, sig) as a single two-pair multi-pairing.
+	- Callers must only aggregate keys that have a verified proof of possession.
+
+*/
+//export blsFastAggregateVerify
+func blsFastAggregateVerify(javaPublicKeysBuf, javaMsgBuf, javaSignatureBuf, javaDstBuf *C.char, cPublicKeyCount, cMsgLen, cDstLen C.int) blsCode {
+	count := int(cPublicKeyCount)
+	if count <= 0 {
+		return blsCodeMalformedInput
+	}
+
+	pks := castBufferToSliceBls(unsafe.Pointer(javaPublicKeysBuf), count*BlsPublicKeyBytes)
+	var aggregate bls12381.G1Jac
+	for i := 0; i < count; i++ {
+		var pk bls12381.G1Affine
+		if code := decodePublicKey(&pk, pks[i*BlsPublicKeyBytes:(i+1)*BlsPublicKeyBytes]); code != blsCodeValid {
+			return code
+		}
+		aggregate.AddMixed(&pk)
+	}
+
+	var sig bls12381.G2Affine
+	if code := decodeSignature(&sig, castBufferToSliceBls(unsafe.Pointer(javaSignatureBuf), BlsSignatureBytes)); code != blsCodeValid {
+		return code
+	}
+
+	msg := castBufferToSliceBls(unsafe.Pointer(javaMsgBuf), int(cMsgLen))
+	dst := castBufferToSliceBls(unsafe.Pointer(javaDstBuf), int(cDstLen))
+	hm, err := bls12381.HashToG2(msg, dst)
+	if err != nil {
+		return blsCodeMalformedInput
+	}
+
+	var aggregatePk bls12381.G1Affine
+	aggregatePk.FromJacobian(&aggregate)
+
+	ok, err := bls12381.PairingCheck(
+		[]bls12381.G1Affine{aggregatePk, g1GenNeg},
+		[]bls12381.G2Affine{hm, sig})
+	if err != nil || !ok {
+		return blsCodeInvalid
+	}
+	return blsCodeValid
+}
+
+/*
+
+blsBatchVerify verifies many independent (public key, message, signature) triples at once.
+
+- Input:
+	- javaPublicKeysBuf: Pointer to cCount concatenated compressed G1 public keys
+	- javaMsgsBuf: Pointer to all messages, concatenated
+	- javaMsgOffsetsBuf: Pointer to cCount+1 native int offsets into javaMsgsBuf, message i spans [offsets[i], offsets[i+1])
+	- javaSignaturesBuf: Pointer to cCount concatenated compressed G2 signatures
+	- javaDstBuf: Pointer to the domain separation tag bytes
+	- cCount: Number of triples
+	- cMsgsLen: Length of javaMsgsBuf in bytes
+	- cDstLen: Length of the domain separation tag in bytes
+	- nbTasks: Number of parallel tasks to use, zero or less uses all available cpus
+- Returns:
+	- blsCodeValid if every signature is valid
+	- blsCodeInvalid if at least one signature is invalid
+	- blsCodeMalformedInput if the count or offsets are inconsistent or the domain separation tag is rejected
+	- blsCodeInvalidPoint if a key or signature is not a canonical subgroup point, or a key is the identity
+- Cryptography:
+	- Each triple is weighted by a random non-zero 64-bit scalar r_i, then
+	  prod e(r_i*pk_i, H(m_i)) * e(-g1, sum(r_i*sig_i)) == 1 is checked with a single final exponentiation.
+	- Decoding, hashing to curve and Miller loops are split across nbTasks workers.
+
+*/
+//export blsBatchVerify
+func blsBatchVerify(javaPublicKeysBuf, javaMsgsBuf, javaMsgOffsetsBuf, javaSignaturesBuf, javaDstBuf *C.char, cCount, cMsgsLen, cDstLen, nbTasks C.int) blsCode {
+	count := int(cCount)
+	msgsLen := int(cMsgsLen)
+	if count <= 0 || msgsLen < 0 {
+		return blsCodeMalformedInput
+	}
+
+	offsets := unsafe.Slice((*C.int)(unsafe.Pointer(javaMsgOffsetsBuf)), count+1)
+	for i := 0; i < count; i++ {
+		if offsets[i] < 0 || offsets[i] > offsets[i+1] {
+			return blsCodeMalformedInput
+		}
+	}
+	if int(offsets[count]) > msgsLen {
+		return blsCodeMalformedInput
+	}
+
+	pks := castBufferToSliceBls(unsafe.Pointer(javaPublicKeysBuf), count*BlsPublicKeyBytes)
+	sigs := castBufferToSliceBls(unsafe.Pointer(javaSignaturesBuf), count*BlsSignatureBytes)
+	msgs := castBufferToSliceBls(unsafe.Pointer(javaMsgsBuf), msgsLen)
+	dst := castBufferToSliceBls(unsafe.Pointer(javaDstBuf), int(cDstLen))
+
+	// random weights, so that invalid signatures cannot cancel each other out
+	weights := make([]fr.Element, count)
+	randomBytes := make([]byte, 8*count)
+	if _, err := rand.Read(randomBytes); err != nil {
+		return blsCodeMalformedInput
+	}
+	for i := range weights {
+		r := binary.BigEndian.Uint64(randomBytes[i*8:])
+		if r == 0 {
+			r = 1
+		}
+		weights[i].SetUint64(r)
+	}
+
+	tasks := int(nbTasks)
+	if tasks <= 0 {
+		tasks = runtime.NumCPU()
+	}
+	if tasks > count {
+		tasks = count
+	}
+
+	weightedPks := make([]bls12381.G1Affine, count)
+	hashes := make([]bls12381.G2Affine, count)
+	signatures := make([]bls12381.G2Affine, count)
+	codes := make([]blsCode, tasks)
+	partials := make([]bls12381.GT, tasks)
+
+	chunk := (count + tasks - 1) / tasks
+	var wg sync.WaitGroup
+	for t := 0; t < tasks; t++ {
+		start := t * chunk
+		end := min(start+chunk, count)
+		wg.Add(1)
+		go func(t, start, end int) {
+			defer wg.Done()
+			var w big.Int
+			for i := start; i < end; i++ {
+				var pk bls12381.G1Affine
+				if code := decodePublicKey(&pk, pks[i*BlsPublicKeyBytes:(i+1)*BlsPublicKeyBytes]); code != blsCodeValid {
+					codes[t] = code
+					return
+				}
+				if code := decodeSignature(&signatures[i], sigs[i*BlsSignatureBytes:(i+1)*BlsSignatureBytes]); code != blsCodeValid {
+					codes[t] = code
+					return
+				}
+				hm, err := bls12381.HashToG2(msgs[offsets[i]:offsets[i+1]], dst)
+				if err != nil {
+					codes[t] = blsCodeMalformedInput
+					return
+				}
+				hashes[i] = hm
+				weights[i].BigInt(&w)
+				weightedPks[i].ScalarMultiplication(&pk, &w)
+			}
+			if start >= end {
+				partials[t].SetOne()
+				return
+			}
+			ml, err := bls12381.MillerLoop(weightedPks[start:end], hashes[start:end])
+			if err != nil {
+				codes[t] = blsCodeInvalid
+				return
+			}
+			partials[t] = ml
+		}(t, start, end)
+	}
+	wg.Wait()
+
+	for _, code := range codes {
+		if code != blsCodeValid {
+			return code
+		}
+	}
+
+	var weightedSig bls12381.G2Affine
+	if _, err := weightedSig.MultiExp(signatures, weights, ecc.MultiExpConfig{NbTasks: tasks}); err != nil {
+		return blsCodeInvalid
+	}
+	sigMl, err := bls12381.MillerLoop([]bls12381.G1Affine{g1GenNeg}, []bls12381.G2Affine{weightedSig})
+	if err != nil {
+		return blsCodeInvalid
+	}
+
+	acc := sigMl
+	for t := range partials {
+		acc.Mul(&acc, &partials[t])
+	}
+	result := bls12381.FinalExponentiation(&acc)
+	if !result.IsOne() {
+		return blsCodeInvalid
+	}
+	return blsCodeValid
+}
+
+// decodePublicKey decodes a compressed G1 public key, rejecting non-canonical encodings,
+// points outside the prime order subgroup and the identity.
+func decodePublicKey(pk *bls12381.G1Affine, input []byte) blsCode {
+	if _, err := pk.SetBytes(input); err != nil {
+		return blsCodeInvalidPoint
+	}
+	if pk.IsInfinity() {
+		return blsCodeInvalidPoint
+	}
+	return blsCodeValid
+}
+
+// decodeSignature decodes a compressed G2 signature, rejecting non-canonical encodings and
+// points outside the prime order subgroup.
+func decodeSignature(sig *bls12381.G2Affine, input []byte) blsCode {
+	if _, err := sig.SetBytes(input); err != nil {
+		return blsCodeInvalidPoint
+	}
+	return blsCodeValid
+}
+
+// decodeSecretKey reads a big-endian secret key and checks it is in [1, r-1].
+func decodeSecretKey(sk *big.Int, javaSecretKeyBuf *C.char) bool {
+	sk.SetBytes(castBufferToSliceBls(unsafe.Pointer(javaSecretKeyBuf), BlsSecretKeyBytes))
+	return sk.Sign() > 0 && sk.Cmp(fr.Modulus()) < 0
+}
+
+// castBufferToSliceBls converts an unsafe.Pointer to a Go byte slice of specified length
+// without copying. Zero length buffers may be passed as null pointers by JNA.
+func castBufferToSliceBls(buf unsafe.Pointer, length int) []byte {
+	if length <= 0 || buf == nil {
+		return []byte{}
+	}
+	return unsafe.Slice((*byte)(buf), length)
+}
+
+func main() {}
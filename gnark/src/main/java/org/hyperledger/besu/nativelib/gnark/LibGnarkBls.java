@@ -0,0 +1,227 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.gnark;
+
+import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * BLS signatures over BLS12-381 in the minimal-pubkey-size variant used by Ethereum: public keys
+ * are 48 byte compressed G1 points and signatures are 96 byte compressed G2 points.
+ */
+public class LibGnarkBls {
+
+  @SuppressWarnings("WeakerAccess")
+  public static final boolean ENABLED;
+
+  public static final int BLS_SECRET_KEY_BYTES = 32;
+  public static final int BLS_PUBLIC_KEY_BYTES = 48;
+  public static final int BLS_SIGNATURE_BYTES = 96;
+
+  /** Domain separation tag of the Ethereum proof-of-possession ciphersuite. */
+  public static final byte[] ETH_DST =
+      "BLS_SIG_BLS12381G2_XMD:SHA-256_SSWU_RO_POP_".getBytes(StandardCharsets.US_ASCII);
+
+  // Keep in sync with the Go code.
+  // blsCodeValid blsCode = iota
+  // blsCodeInvalid
+  // blsCodeMalformedInput
+  // blsCodeInvalidPoint
+  public static final int BLS_CODE_VALID = 0;
+  public static final int BLS_CODE_INVALID = 1;
+  public static final int BLS_CODE_MALFORMED_INPUT = 2;
+  public static final int BLS_CODE_INVALID_POINT = 3;
+
+  // zero implies 'default' degree of parallelism, which is the number of cpu cores available
+  private static int degreeOfBatchParallelism = 0;
+
+  static {
+    boolean enabled;
+    try {
+      BesuNativeLibraryLoader.registerJNA(LibGnarkBls.class, "gnark_bls");
+      enabled = true;
+    } catch (final Throwable t) {
+      t.printStackTrace();
+      enabled = false;
+    }
+    ENABLED = enabled;
+  }
+
+  /**
+   * Hashes a message to a compressed G2 point.
+   *
+   * @param msg message to hash
+   * @param dst domain separation tag, e.g. {@link #ETH_DST}
+   * @return the 96 byte compressed point
+   */
+  public static byte[] hashToG2(final byte[] msg, final byte[] dst) {
+    byte[] output = new byte[BLS_SIGNATURE_BYTES];
+    int ret = blsHashToG2(msg, dst, output, msg.length, dst.length);
+    if (ret != BLS_CODE_VALID) {
+      throw new IllegalArgumentException("hash to G2 failed with code " + ret);
+    }
+    return output;
+  }
+
+  /**
+   * Derives the compressed public key for a secret key.
+   *
+   * @param secretKey 32 byte big-endian secret key
+   * @return the 48 byte compressed public key
+   */
+  public static byte[] secretKeyToPublicKey(final byte[] secretKey) {
+    if (secretKey.length != BLS_SECRET_KEY_BYTES) {
+      throw new IllegalArgumentException("secret key must be " + BLS_SECRET_KEY_BYTES + " bytes");
+    }
+    byte[] output = new byte[BLS_PUBLIC_KEY_BYTES];
+    int ret = blsSecretKeyToPublicKey(secretKey, output);
+    if (ret != BLS_CODE_VALID) {
+      throw new IllegalArgumentException("invalid secret key");
+    }
+    return output;
+  }
+
+  /**
+   * Signs a message.
+   *
+   * @param secretKey 32 byte big-endian secret key
+   * @param msg message to sign
+   * @param dst domain separation tag, e.g. {@link #ETH_DST}
+   * @return the 96 byte compressed signature
+   */
+  public static byte[] sign(final byte[] secretKey, final byte[] msg, final byte[] dst) {
+    if (secretKey.length != BLS_SECRET_KEY_BYTES) {
+      throw new IllegalArgumentException("secret key must be " + BLS_SECRET_KEY_BYTES + " bytes");
+    }
+    byte[] output = new byte[BLS_SIGNATURE_BYTES];
+    int ret = blsSign(secretKey, msg, dst, output, msg.length, dst.length);
+    if (ret != BLS_CODE_VALID) {
+      throw new IllegalArgumentException("sign failed with code " + ret);
+    }
+    return output;
+  }
+
+  /**
+   * Verifies an aggregate signature of many public keys over the same message. The public keys
+   * must have a verified proof of possession.
+   *
+   * @param publicKeys concatenated 48 byte compressed public keys
+   * @param msg the signed message
+   * @param signature 96 byte compressed aggregate signature
+   * @param dst domain separation tag, e.g. {@link #ETH_DST}
+   * @return one of the BLS_CODE_* values, {@link #BLS_CODE_VALID} if the signature is valid
+   */
+  public static int fastAggregateVerify(
+      final byte[] publicKeys, final byte[] msg, final byte[] signature, final byte[] dst) {
+    if (publicKeys.length == 0
+        || publicKeys.length % BLS_PUBLIC_KEY_BYTES != 0
+        || signature.length != BLS_SIGNATURE_BYTES) {
+      return BLS_CODE_MALFORMED_INPUT;
+    }
+    return blsFastAggregateVerify(
+        publicKeys,
+        msg,
+        signature,
+        dst,
+        publicKeys.length / BLS_PUBLIC_KEY_BYTES,
+        msg.length,
+        dst.length);
+  }
+
+  /**
+   * Verifies many independent (public key, message, signature) triples with a single randomized
+   * multi-pairing. A {@link #BLS_CODE_INVALID} result only says that at least one triple is
+   * invalid, not which one.
+   *
+   * @param publicKeys n concatenated 48 byte compressed public keys
+   * @param msgs all n messages, concatenated
+   * @param msgOffsets n+1 offsets into msgs, message i spans [msgOffsets[i], msgOffsets[i+1])
+   * @param signatures n concatenated 96 byte compressed signatures
+   * @param dst domain separation tag, e.g. {@link #ETH_DST}
+   * @return one of the BLS_CODE_* values, {@link #BLS_CODE_VALID} if all signatures are valid
+   */
+  public static int batchVerify(
+      final byte[] publicKeys,
+      final byte[] msgs,
+      final int[] msgOffsets,
+      final byte[] signatures,
+      final byte[] dst) {
+    final int count = msgOffsets.length - 1;
+    if (count <= 0
+        || publicKeys.length != count * BLS_PUBLIC_KEY_BYTES
+        || signatures.length != count * BLS_SIGNATURE_BYTES) {
+      return BLS_CODE_MALFORMED_INPUT;
+    }
+    return blsBatchVerify(
+        publicKeys,
+        msgs,
+        msgOffsets,
+        signatures,
+        dst,
+        count,
+        msgs.length,
+        dst.length,
+        degreeOfBatchParallelism);
+  }
+
+  public static void setDegreeOfBatchParallelism(int nbTasks) {
+    degreeOfBatchParallelism = nbTasks;
+  }
+
+  /**
+   * Assumes output length bounds are already checked, otherwise can lead to JVM crash
+   */
+  private static native int blsHashToG2(
+      byte[] msg, byte[] dst, byte[] output, int msgLen, int dstLen);
+
+  /**
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   */
+  private static native int blsSecretKeyToPublicKey(byte[] secretKey, byte[] output);
+
+  /**
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   */
+  private static native int blsSign(
+      byte[] secretKey, byte[] msg, byte[] dst, byte[] output, int msgLen, int dstLen);
+
+  /**
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   */
+  private static native int blsFastAggregateVerify(
+      byte[] publicKeys,
+      byte[] msg,
+      byte[] signature,
+      byte[] dst,
+      int publicKeyCount,
+      int msgLen,
+      int dstLen);
+
+  /**
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   */
+  private static native int blsBatchVerify(
+      byte[] publicKeys,
+      byte[] msgs,
+      int[] msgOffsets,
+      byte[] signatures,
+      byte[] dst,
+      int count,
+      int msgsLen,
+      int dstLen,
+      int nbTasks);
+}
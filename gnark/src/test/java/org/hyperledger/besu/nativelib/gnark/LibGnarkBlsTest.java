@@ -0,0 +1,153 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.gnark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hyperledger.besu.nativelib.gnark.LibGnarkBls.ETH_DST;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LibGnarkBlsTest {
+
+  private static final int KEY_COUNT = 16;
+
+  private final byte[][] secretKeys = new byte[KEY_COUNT][];
+  private final byte[][] publicKeys = new byte[KEY_COUNT][];
+
+  @Before
+  public void setUp() {
+    Assume.assumeTrue("gnark bls native must be enabled", LibGnarkBls.ENABLED);
+    for (int i = 0; i < KEY_COUNT; i++) {
+      secretKeys[i] = Bytes32.leftPad(Bytes.ofUnsignedInt(0x1000 + i)).toArrayUnsafe();
+      publicKeys[i] = LibGnarkBls.secretKeyToPublicKey(secretKeys[i]);
+    }
+  }
+
+  @Test
+  public void hashToG2IsDeterministic() {
+    byte[] msg = "abc".getBytes(UTF_8);
+    byte[] first = LibGnarkBls.hashToG2(msg, ETH_DST);
+    byte[] second = LibGnarkBls.hashToG2(msg, ETH_DST);
+
+    assertThat(first).hasSize(LibGnarkBls.BLS_SIGNATURE_BYTES).isEqualTo(second);
+    assertThat(LibGnarkBls.hashToG2("abd".getBytes(UTF_8), ETH_DST)).isNotEqualTo(first);
+  }
+
+  @Test
+  public void fastAggregateVerifyAcceptsAggregateOfSingleSignature() {
+    byte[] msg = "single".getBytes(UTF_8);
+    byte[] sig = LibGnarkBls.sign(secretKeys[0], msg, ETH_DST);
+
+    assertThat(LibGnarkBls.fastAggregateVerify(publicKeys[0], msg, sig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_VALID);
+    assertThat(LibGnarkBls.fastAggregateVerify(publicKeys[1], msg, sig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_INVALID);
+  }
+
+  @Test
+  public void fastAggregateVerifyAcceptsSumOfSecretKeys() {
+    byte[] msg = "attestation data root".getBytes(UTF_8);
+    // sk = sum(sk_i) signs for the aggregate of all public keys
+    Bytes aggregateSk =
+        Bytes32.leftPad(Bytes.ofUnsignedInt(KEY_COUNT * 0x1000L + (KEY_COUNT * (KEY_COUNT - 1)) / 2));
+    byte[] aggregateSig = LibGnarkBls.sign(aggregateSk.toArrayUnsafe(), msg, ETH_DST);
+
+    assertThat(LibGnarkBls.fastAggregateVerify(concat(publicKeys), msg, aggregateSig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_VALID);
+    assertThat(
+            LibGnarkBls.fastAggregateVerify(
+                concat(publicKeys), "other".getBytes(UTF_8), aggregateSig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_INVALID);
+  }
+
+  @Test
+  public void fastAggregateVerifyRejectsMalformedInputs() {
+    byte[] msg = "msg".getBytes(UTF_8);
+    byte[] sig = LibGnarkBls.sign(secretKeys[0], msg, ETH_DST);
+
+    assertThat(LibGnarkBls.fastAggregateVerify(new byte[0], msg, sig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_MALFORMED_INPUT);
+    assertThat(LibGnarkBls.fastAggregateVerify(new byte[47], msg, sig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_MALFORMED_INPUT);
+    assertThat(LibGnarkBls.fastAggregateVerify(new byte[48], msg, sig, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_INVALID_POINT);
+  }
+
+  @Test
+  public void batchVerifyAcceptsValidBatch() {
+    BatchInput batch = batchInput();
+    assertThat(
+            LibGnarkBls.batchVerify(
+                batch.publicKeys, batch.msgs, batch.offsets, batch.signatures, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_VALID);
+  }
+
+  @Test
+  public void batchVerifyRejectsBatchWithSwappedSignatures() {
+    BatchInput batch = batchInput();
+    byte[] tmp = new byte[LibGnarkBls.BLS_SIGNATURE_BYTES];
+    System.arraycopy(batch.signatures, 0, tmp, 0, tmp.length);
+    System.arraycopy(batch.signatures, tmp.length, batch.signatures, 0, tmp.length);
+    System.arraycopy(tmp, 0, batch.signatures, tmp.length, tmp.length);
+
+    assertThat(
+            LibGnarkBls.batchVerify(
+                batch.publicKeys, batch.msgs, batch.offsets, batch.signatures, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_INVALID);
+  }
+
+  @Test
+  public void batchVerifyRejectsInconsistentOffsets() {
+    BatchInput batch = batchInput();
+    batch.offsets[KEY_COUNT] = batch.msgs.length + 1;
+
+    assertThat(
+            LibGnarkBls.batchVerify(
+                batch.publicKeys, batch.msgs, batch.offsets, batch.signatures, ETH_DST))
+        .isEqualTo(LibGnarkBls.BLS_CODE_MALFORMED_INPUT);
+  }
+
+  private record BatchInput(byte[] publicKeys, byte[] msgs, int[] offsets, byte[] signatures) {}
+
+  private BatchInput batchInput() {
+    ByteArrayOutputStream msgs = new ByteArrayOutputStream();
+    byte[][] signatures = new byte[KEY_COUNT][];
+    int[] offsets = new int[KEY_COUNT + 1];
+    for (int i = 0; i < KEY_COUNT; i++) {
+      byte[] msg = ("message " + i).getBytes(UTF_8);
+      offsets[i] = msgs.size();
+      msgs.writeBytes(msg);
+      signatures[i] = LibGnarkBls.sign(secretKeys[i], msg, ETH_DST);
+    }
+    offsets[KEY_COUNT] = msgs.size();
+    return new BatchInput(concat(publicKeys), msgs.toByteArray(), offsets, concat(signatures));
+  }
+
+  private static byte[] concat(byte[][] parts) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      out.writeBytes(part);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.List;
+
+/** Builds a {@link RoutingTable} by timing every available backend on every operation. */
+public final class BackendBenchmark {
+
+  /** Benchmark MSMs and pairings up to 2^6 pairs, larger inputs use the 2^6 result. */
+  public static final int DEFAULT_MAX_SIZE_CLASS = 6;
+
+  public static final int DEFAULT_ITERATIONS = 5;
+
+  private static final int WARMUP_ITERATIONS = 2;
+
+  private BackendBenchmark() {}
+
+  public static RoutingTable run(final List<PrecompileBackend> backends) {
+    return run(backends, DEFAULT_MAX_SIZE_CLASS, DEFAULT_ITERATIONS);
+  }
+
+  /**
+   * Times each available backend on generator point inputs and routes each operation and size
+   * class to the fastest one. A backend that fails on a valid input is not routed to.
+   *
+   * @param backends the candidate backends
+   * @param maxSizeClass largest size class to benchmark for MSMs and pairings
+   * @param iterations timed runs per backend, operation and size class, the fastest run counts
+   * @return the routing table, empty for operations no backend could run
+   */
+  public static RoutingTable run(
+      final List<PrecompileBackend> backends, final int maxSizeClass, final int iterations) {
+    RoutingTable.Builder table = RoutingTable.builder();
+    for (PrecompileOperation operation : PrecompileOperation.values()) {
+      int lastSizeClass = operation.isScalable() ? maxSizeClass : 0;
+      for (int sizeClass = 0; sizeClass <= lastSizeClass; sizeClass++) {
+        byte[] input = operation.benchmarkInput(1 << sizeClass);
+        String fastest = null;
+        long fastestNanos = Long.MAX_VALUE;
+        for (PrecompileBackend backend : backends) {
+          long nanos = time(backend, operation, input, iterations);
+          if (nanos < fastestNanos) {
+            fastestNanos = nanos;
+            fastest = backend.name();
+          }
+        }
+        if (fastest != null) {
+          table.route(operation, sizeClass, fastest);
+        }
+      }
+    }
+    return table.build();
+  }
+
+  /** Fastest of the timed runs in nanoseconds, Long.MAX_VALUE if the backend can not run it. */
+  private static long time(
+      final PrecompileBackend backend,
+      final PrecompileOperation operation,
+      final byte[] input,
+      final int iterations) {
+    if (!backend.isAvailable()) {
+      return Long.MAX_VALUE;
+    }
+    try {
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        if (!backend.compute(operation, input).isSuccess()) {
+          return Long.MAX_VALUE;
+        }
+      }
+      long fastest = Long.MAX_VALUE;
+      for (int i = 0; i < iterations; i++) {
+        long start = System.nanoTime();
+        backend.compute(operation, input);
+        fastest = Math.min(fastest, System.nanoTime() - start);
+      }
+      return fastest;
+    } catch (LinkageError e) {
+      return Long.MAX_VALUE;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.BesuNativeEC;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * secp256r1 backed by the OpenSSL based besu-native-ec. Its functions take each value as a
+ * separate array, so inputs are copied out of the caller's buffers.
+ */
+public class BesuNativeEcP256Provider implements P256Signer {
+
+  public static final String NAME = "besu-native-ec";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return BesuNativeEC.ENABLED;
+  }
+
+  @Override
+  public boolean supports(final P256Operation operation) {
+    return true;
+  }
+
+  @Override
+  public int sign(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] privateKey,
+      final int privateKeyOffset,
+      final byte[] publicKey,
+      final int publicKeyOffset,
+      final byte[] signature,
+      final int signatureOffset) {
+    return BesuNativeEC.signStatus(
+        slice(hash, hashOffset, HASH_BYTES),
+        slice(privateKey, privateKeyOffset, PRIVATE_KEY_BYTES),
+        slice(publicKey, publicKeyOffset, PUBLIC_KEY_BYTES),
+        signature,
+        signatureOffset);
+  }
+
+  @Override
+  public int verify(final byte[] input, final int inputOffset, final boolean allowMalleable) {
+    Objects.checkFromIndexSize(inputOffset, VERIFY_INPUT_BYTES, input.length);
+    // besu-native-ec reports these as errors, where BoringSSL fails the signature
+    if (!P256Inputs.isScalar(input, inputOffset + 32)
+        || !P256Inputs.isScalar(input, inputOffset + 64)
+        || (!allowMalleable && P256Inputs.isHighS(input, inputOffset + 64))
+        || !P256Inputs.isOnCurve(input, inputOffset + 96)) {
+      return STATUS_FAIL;
+    }
+    return BesuNativeEC.verifyStatus(
+        slice(input, inputOffset, HASH_BYTES),
+        slice(input, inputOffset + 32, 32),
+        slice(input, inputOffset + 64, 32),
+        slice(input, inputOffset + 96, PUBLIC_KEY_BYTES),
+        allowMalleable);
+  }
+
+  @Override
+  public int recover(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] signature,
+      final int signatureOffset,
+      final int recoveryId,
+      final byte[] publicKey,
+      final int publicKeyOffset) {
+    Objects.checkFromIndexSize(signatureOffset, 64, signature.length);
+    // besu-native-ec reports every failed recovery as an error, so the inputs it can not recover
+    // from are failed here and what it still reports is a failure of the library
+    if (recoveryId < 0
+        || recoveryId > 1
+        || !P256Inputs.isScalar(signature, signatureOffset)
+        || !P256Inputs.isScalar(signature, signatureOffset + 32)
+        || !P256Inputs.isCurveX(signature, signatureOffset)) {
+      return STATUS_FAIL;
+    }
+    return BesuNativeEC.keyRecoveryStatus(
+        slice(hash, hashOffset, HASH_BYTES),
+        slice(signature, signatureOffset, 32),
+        slice(signature, signatureOffset + 32, 32),
+        recoveryId,
+        publicKey,
+        publicKeyOffset);
+  }
+
+  private static byte[] slice(final byte[] buffer, final int offset, final int length) {
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+    return Arrays.copyOfRange(buffer, offset, offset + length);
+  }
+}
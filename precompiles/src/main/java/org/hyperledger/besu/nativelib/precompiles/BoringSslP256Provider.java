@@ -0,0 +1,85 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.boringssl.BoringSSLPrecompiles;
+
+/**
+ * secp256r1 verification and key recovery backed by BoringSSL, which reads its inputs in place.
+ * BoringSSL has no signing binding.
+ */
+public class BoringSslP256Provider implements P256Provider {
+
+  public static final String NAME = "boringssl";
+
+  // BoringSSL writes the 0x04 prefixed public key
+  private static final ThreadLocal<byte[]> RECOVERED =
+      ThreadLocal.withInitial(() -> new byte[BoringSSLPrecompiles.ECRECOVER_OUTPUT_BYTES]);
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return BoringSSLPrecompiles.ENABLED;
+  }
+
+  @Override
+  public boolean supports(final P256Operation operation) {
+    return operation != P256Operation.SIGN;
+  }
+
+  @Override
+  public int verify(final byte[] input, final int inputOffset, final boolean allowMalleable) {
+    if (!allowMalleable) {
+      int s = inputOffset + 64;
+      if (s + 32 <= input.length && P256Inputs.isHighS(input, s)) {
+        return STATUS_FAIL;
+      }
+    }
+    return BoringSSLPrecompiles.p256VerifyStatus(input, inputOffset);
+  }
+
+  @Override
+  public int recover(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] signature,
+      final int signatureOffset,
+      final int recoveryId,
+      final byte[] publicKey,
+      final int publicKeyOffset) {
+    // BoringSSL reports r or s out of range as an error, like its internal failures, so they are
+    // failed here
+    if (recoveryId < 0
+        || recoveryId > 1
+        || !P256Inputs.isScalar(signature, signatureOffset)
+        || !P256Inputs.isScalar(signature, signatureOffset + 32)) {
+      return STATUS_FAIL;
+    }
+    byte[] recovered = RECOVERED.get();
+    int status =
+        BoringSSLPrecompiles.ecrecover(
+            hash, hashOffset, signature, signatureOffset, recoveryId, recovered, 0);
+    if (status != STATUS_SUCCESS) {
+      return status;
+    }
+    System.arraycopy(recovered, 1, publicKey, publicKeyOffset, PUBLIC_KEY_BYTES);
+    return STATUS_SUCCESS;
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.arithmetic.LibArithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * MODEXP through {@link LibArithmetic#modexp_precompiled}, answering repeated calls from a {@link
+ * PrecompileResultCache}. The cost compared to the cache's minimum gas is the EIP-2565 price.
+ */
+public class CachingModExp {
+
+  static final String OPERATION = "MODEXP";
+
+  /**
+   * Gas above any block's gas limit. Calls costing more fail out of gas in the EVM, so they are
+   * refused before the output is allocated, which keeps the modulus length under a megabyte.
+   */
+  static final long MAX_GAS = 1L << 32;
+
+  private final PrecompileResultCache cache;
+
+  public CachingModExp(final PrecompileResultCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Runs MODEXP.
+   *
+   * @param input the precompile input, base length || exponent length || modulus length || base ||
+   *     exponent || modulus
+   * @return the result, modulus length bytes on success
+   */
+  public PrecompileResult compute(final byte[] input) {
+    long gas = gas(input);
+    if (gas > MAX_GAS) {
+      return PrecompileResult.failure("modexp gas " + gas + " exceeds any gas limit");
+    }
+    return cache.compute(OPERATION, input, gas, CachingModExp::modExp);
+  }
+
+  public PrecompileResultCache cache() {
+    return cache;
+  }
+
+  private static PrecompileResult modExp(final byte[] input) {
+    long modLength = length(input, 64); // bounded by MAX_GAS in compute
+    byte[] output = new byte[(int) modLength];
+    IntByReference outputLength = new IntByReference(output.length);
+    if (LibArithmetic.modexp_precompiled(input, input.length, output, outputLength) != 0) {
+      return PrecompileResult.failure("modexp output does not fit " + modLength + " bytes");
+    }
+    return PrecompileResult.success(
+        outputLength.getValue() == output.length
+            ? output
+            : Arrays.copyOf(output, outputLength.getValue()));
+  }
+
+  /**
+   * The EIP-2565 gas of an input, saturating at {@link Long#MAX_VALUE} for absurd lengths.
+   *
+   * @param input the precompile input
+   * @return the gas
+   */
+  static long gas(final byte[] input) {
+    long baseLength = length(input, 0);
+    long expLength = length(input, 32);
+    long modLength = length(input, 64);
+    long words = Math.ceilDiv(Math.max(baseLength, modLength), 8L);
+    long complexity = words > 3_037_000_499L ? Long.MAX_VALUE : words * words;
+
+    BigInteger expHead =
+        new BigInteger(1, slice(input, saturatedAdd(96, baseLength), Math.min(expLength, 32)));
+    long iterations = expHead.bitLength() == 0 ? 0 : expHead.bitLength() - 1;
+    if (expLength > 32) {
+      iterations = saturatedAdd(iterations, saturatedMultiply(8, expLength - 32));
+    }
+    long gas = saturatedMultiply(complexity, Math.max(iterations, 1)) / 3;
+    return Math.max(200, gas);
+  }
+
+  /** A 32-byte big-endian length field, saturating at {@link Long#MAX_VALUE}. */
+  private static long length(final byte[] input, final int offset) {
+    BigInteger value = new BigInteger(1, slice(input, offset, 32));
+    return value.bitLength() > 62 ? Long.MAX_VALUE : value.longValueExact();
+  }
+
+  /** Bytes of the input, zero padded past its end as the precompile reads them. */
+  private static byte[] slice(final byte[] input, final long offset, final long length) {
+    byte[] result = new byte[(int) length];
+    if (offset < input.length) {
+      System.arraycopy(
+          input, (int) offset, result, 0, (int) Math.min(length, input.length - offset));
+    }
+    return result;
+  }
+
+  private static long saturatedAdd(final long a, final long b) {
+    long sum = a + b;
+    return sum < 0 ? Long.MAX_VALUE : sum;
+  }
+
+  private static long saturatedMultiply(final long a, final long b) {
+    return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+/**
+ * A backend answering repeated calls from a {@link PrecompileResultCache}, for simulation
+ * workloads which replay the same pairings and MSMs. Calls whose {@link
+ * PrecompileOperation#gas(int)} is below the cache's minimum gas go straight to the delegate.
+ */
+public class CachingPrecompileBackend implements PrecompileBackend {
+
+  private final PrecompileBackend delegate;
+  private final PrecompileResultCache cache;
+
+  public CachingPrecompileBackend(
+      final PrecompileBackend delegate, final PrecompileResultCache cache) {
+    this.delegate = delegate;
+    this.cache = cache;
+  }
+
+  /** Uses the delegate's name, so routing tables and profiles are unaffected by caching. */
+  @Override
+  public String name() {
+    return delegate.name();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return delegate.isAvailable();
+  }
+
+  @Override
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    return cache.compute(
+        operation.name(),
+        input,
+        operation.gas(input.length),
+        in -> delegate.compute(operation, in));
+  }
+
+  public PrecompileResultCache cache() {
+    return cache;
+  }
+}
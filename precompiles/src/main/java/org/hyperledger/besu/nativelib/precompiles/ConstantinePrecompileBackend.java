@@ -0,0 +1,60 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.constantine.ConstantineEVMStatus;
+import org.hyperledger.besu.nativelib.constantine.LibConstantineEIP196;
+import org.hyperledger.besu.nativelib.constantine.LibConstantineEIP2537;
+
+/** Precompiles backed by constantine. */
+public class ConstantinePrecompileBackend implements PrecompileBackend {
+
+  public static final String NAME = "constantine";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return LibConstantineEIP196.ENABLED && LibConstantineEIP2537.ENABLED;
+  }
+
+  @Override
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    byte[] output = new byte[operation.outputBytes()];
+    int length = input.length;
+    ConstantineEVMStatus status =
+        switch (operation) {
+          case BN254_G1_ADD -> LibConstantineEIP196.add(input, 0, length, output, 0);
+          case BN254_G1_MUL -> LibConstantineEIP196.mul(input, 0, length, output, 0);
+          case BN254_PAIRING -> LibConstantineEIP196.pairingCheck(input, 0, length, output, 0);
+          case BLS12_G1_ADD -> LibConstantineEIP2537.g1add(input, 0, length, output, 0);
+          case BLS12_G2_ADD -> LibConstantineEIP2537.g2add(input, 0, length, output, 0);
+          case BLS12_G1_MSM -> LibConstantineEIP2537.g1msm(input, 0, length, output, 0);
+          case BLS12_G2_MSM -> LibConstantineEIP2537.g2msm(input, 0, length, output, 0);
+          case BLS12_PAIRING -> LibConstantineEIP2537.pairingCheck(input, 0, length, output, 0);
+          case BLS12_MAP_FP_TO_G1 -> LibConstantineEIP2537.mapFpToG1(input, 0, length, output, 0);
+          case BLS12_MAP_FP2_TO_G2 ->
+              LibConstantineEIP2537.mapFp2ToG2(input, 0, length, output, 0);
+        };
+    if (!status.isSuccess()) {
+      return PrecompileResult.failure("constantine status " + status);
+    }
+    return PrecompileResult.success(output);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.gnark.LibGnarkEIP196;
+import org.hyperledger.besu.nativelib.gnark.LibGnarkEIP2537;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.sun.jna.ptr.IntByReference;
+
+/** Precompiles backed by gnark-crypto. */
+public class GnarkPrecompileBackend implements PrecompileBackend {
+
+  public static final String NAME = "gnark";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return LibGnarkEIP196.ENABLED && LibGnarkEIP2537.ENABLED;
+  }
+
+  @Override
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    return switch (operation) {
+      case BN254_G1_ADD -> eip196(LibGnarkEIP196.EIP196_ADD_OPERATION_RAW_VALUE, operation, input);
+      case BN254_G1_MUL -> eip196(LibGnarkEIP196.EIP196_MUL_OPERATION_RAW_VALUE, operation, input);
+      case BN254_PAIRING -> eip196(LibGnarkEIP196.EIP196_PAIR_OPERATION_RAW_VALUE, operation, input);
+      case BLS12_G1_ADD -> eip2537(LibGnarkEIP2537.BLS12_G1ADD_OPERATION_SHIM_VALUE, input);
+      case BLS12_G2_ADD -> eip2537(LibGnarkEIP2537.BLS12_G2ADD_OPERATION_SHIM_VALUE, input);
+      case BLS12_G1_MSM -> eip2537(LibGnarkEIP2537.BLS12_G1MULTIEXP_OPERATION_SHIM_VALUE, input);
+      case BLS12_G2_MSM -> eip2537(LibGnarkEIP2537.BLS12_G2MULTIEXP_OPERATION_SHIM_VALUE, input);
+      case BLS12_PAIRING -> eip2537(LibGnarkEIP2537.BLS12_PAIR_OPERATION_SHIM_VALUE, input);
+      case BLS12_MAP_FP_TO_G1 ->
+          eip2537(LibGnarkEIP2537.BLS12_MAP_FP_TO_G1_OPERATION_SHIM_VALUE, input);
+      case BLS12_MAP_FP2_TO_G2 ->
+          eip2537(LibGnarkEIP2537.BLS12_MAP_FP2_TO_G2_OPERATION_SHIM_VALUE, input);
+    };
+  }
+
+  private static PrecompileResult eip196(
+      final byte op, final PrecompileOperation operation, final byte[] input) {
+    byte[] output = new byte[LibGnarkEIP196.EIP196_PREALLOCATE_FOR_RESULT_BYTES];
+    int ret = LibGnarkEIP196.eip196_perform_operation(op, input, input.length, output);
+    if (ret != LibGnarkEIP196.EIP196_ERR_CODE_SUCCESS) {
+      return PrecompileResult.failure("gnark EIP-196 error code " + ret);
+    }
+    return PrecompileResult.success(Arrays.copyOf(output, operation.outputBytes()));
+  }
+
+  private static PrecompileResult eip2537(final byte op, final byte[] input) {
+    byte[] output = new byte[LibGnarkEIP2537.EIP2537_PREALLOCATE_FOR_RESULT_BYTES];
+    byte[] error = new byte[LibGnarkEIP2537.EIP2537_PREALLOCATE_FOR_ERROR_BYTES];
+    IntByReference outputLength = new IntByReference();
+    IntByReference errorLength = new IntByReference();
+    int ret =
+        LibGnarkEIP2537.eip2537_perform_operation(
+            op, input, input.length, output, outputLength, error, errorLength);
+    if (ret != 0) {
+      return PrecompileResult.failure(
+          new String(error, 0, errorLength.getValue(), StandardCharsets.UTF_8));
+    }
+    return PrecompileResult.success(Arrays.copyOf(output, outputLength.getValue()));
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/** Picks the fastest {@link P256Provider} for every {@link P256Operation} by timing them. */
+public final class P256Benchmark {
+
+  public static final int DEFAULT_ITERATIONS = 200;
+
+  // enough calls for the JIT to compile each provider's call path before it is timed
+  private static final int WARMUP_ITERATIONS = 1_000;
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  // a key pair and its low s signature of HASH, with recovery id 0
+  private static final byte[] HASH =
+      HEX.parseHex("9b2db89cb0e8fa3cc7608b4d6cc1dec0114e0b9ff4080bea12b134f489ab2bbc");
+  private static final byte[] PRIVATE_KEY =
+      HEX.parseHex("0f56db78ca460b055c500064824bed999a25aaf48ebb519ac201537b85479813");
+  private static final byte[] PUBLIC_KEY =
+      HEX.parseHex(
+          "e266ddfdc12668db30d4ca3e8f7749432c416044f2d2b8c10bf3d4012aeffa8a"
+              + "bfa86404a2e9ffe67d47c587ef7a97a7f456b863b4d02cfc6928973ab5b1cb39");
+  private static final byte[] SIGNATURE =
+      HEX.parseHex(
+          "976d3a4e9d23326dc0baa9fa560b7c4e53f42864f508483a6473b6a11079b2db"
+              + "1b766e9ceb71ba6c01dcd46e0af462cd4cfa652ae5017d4555b8eeefe36e1932");
+
+  private P256Benchmark() {}
+
+  public static Map<P256Operation, P256Provider> run(final List<P256Provider> providers) {
+    return run(providers, DEFAULT_ITERATIONS);
+  }
+
+  /**
+   * Times each available provider on every operation it supports and keeps the fastest. A provider
+   * which fails on a valid input is not picked.
+   *
+   * @param providers the candidate providers
+   * @param iterations timed runs per provider and operation, the fastest run counts
+   * @return the fastest provider by operation, without an entry for operations none could run
+   */
+  public static Map<P256Operation, P256Provider> run(
+      final List<P256Provider> providers, final int iterations) {
+    Map<P256Operation, P256Provider> fastest = new EnumMap<>(P256Operation.class);
+    for (P256Operation operation : P256Operation.values()) {
+      long fastestNanos = Long.MAX_VALUE;
+      for (P256Provider provider : providers) {
+        long nanos = time(provider, operation, iterations);
+        if (nanos < fastestNanos) {
+          fastestNanos = nanos;
+          fastest.put(operation, provider);
+        }
+      }
+    }
+    return fastest;
+  }
+
+  /** Fastest of the timed runs in nanoseconds, Long.MAX_VALUE if the provider can not run it. */
+  private static long time(
+      final P256Provider provider, final P256Operation operation, final int iterations) {
+    if (!provider.isAvailable()
+        || !provider.supports(operation)
+        || (operation == P256Operation.SIGN && !(provider instanceof P256Signer))) {
+      return Long.MAX_VALUE;
+    }
+    byte[] input = verifyInput();
+    byte[] output = new byte[P256Provider.SIGNATURE_BYTES];
+    try {
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        if (run(provider, operation, input, output) != P256Provider.STATUS_SUCCESS) {
+          return Long.MAX_VALUE;
+        }
+      }
+      long fastest = Long.MAX_VALUE;
+      for (int i = 0; i < iterations; i++) {
+        long start = System.nanoTime();
+        run(provider, operation, input, output);
+        fastest = Math.min(fastest, System.nanoTime() - start);
+      }
+      return fastest;
+    } catch (LinkageError e) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  private static int run(
+      final P256Provider provider,
+      final P256Operation operation,
+      final byte[] input,
+      final byte[] output) {
+    return switch (operation) {
+      case SIGN -> ((P256Signer) provider).sign(HASH, 0, PRIVATE_KEY, 0, PUBLIC_KEY, 0, output, 0);
+      case VERIFY -> provider.verify(input, 0, false);
+      case VERIFY_MALLEABLE -> provider.verify(input, 0, true);
+      case RECOVER -> provider.recover(HASH, 0, SIGNATURE, 0, 0, output, 0);
+    };
+  }
+
+  private static byte[] verifyInput() {
+    byte[] input = new byte[P256Provider.VERIFY_INPUT_BYTES];
+    System.arraycopy(HASH, 0, input, 0, 32);
+    System.arraycopy(SIGNATURE, 0, input, 32, 64);
+    System.arraycopy(PUBLIC_KEY, 0, input, 96, 64);
+    return input;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Checks of secp256r1 inputs which libraries reject in different ways, so that providers can
+ * report every rejected input as {@link P256Provider#STATUS_FAIL} and keep {@link
+ * P256Provider#STATUS_ERROR} for failures of the library itself. Values are 32 byte big-endian.
+ */
+final class P256Inputs {
+
+  private static final byte[] ORDER =
+      HexFormat.of().parseHex("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551");
+
+  // n / 2, the largest s of a non malleable signature
+  private static final byte[] HALF_ORDER =
+      HexFormat.of().parseHex("7fffffff800000007fffffffffffffffde737d56d38bcf4279dce5617e3192a8");
+
+  private static final byte[] FIELD =
+      HexFormat.of().parseHex("ffffffff00000001000000000000000000000000ffffffffffffffffffffffff");
+
+  private static final BigInteger P = new BigInteger(1, FIELD);
+  private static final BigInteger B =
+      new BigInteger("5ac635d8aa3a93e7b3ebbd55769886bc651d06b0cc53b0f63bce3c3e27d2604b", 16);
+
+  private P256Inputs() {}
+
+  /** Whether the value at offset is in [1, n - 1], as r and s must be. */
+  static boolean isScalar(final byte[] buffer, final int offset) {
+    return Arrays.compareUnsigned(buffer, offset, offset + 32, ORDER, 0, 32) < 0
+        && !isZero(buffer, offset);
+  }
+
+  /** Whether the s at offset is greater than n / 2, which non malleable verification rejects. */
+  static boolean isHighS(final byte[] buffer, final int offset) {
+    return Arrays.compareUnsigned(buffer, offset, offset + 32, HALF_ORDER, 0, 32) > 0;
+  }
+
+  /** Whether the 64 byte x || y at offset is a point of the curve. */
+  static boolean isOnCurve(final byte[] buffer, final int offset) {
+    if (!isFieldElement(buffer, offset) || !isFieldElement(buffer, offset + 32)) {
+      return false;
+    }
+    BigInteger y = new BigInteger(1, buffer, offset + 32, 32);
+    return y.multiply(y).mod(P).equals(curve(new BigInteger(1, buffer, offset, 32)));
+  }
+
+  /** Whether the value at offset is the x of a point of the curve, as a recoverable r must be. */
+  static boolean isCurveX(final byte[] buffer, final int offset) {
+    if (!isFieldElement(buffer, offset)) {
+      return false;
+    }
+    // Euler's criterion: x^3 - 3x + b has a square root unless its (p - 1) / 2 power is -1
+    BigInteger rhs = curve(new BigInteger(1, buffer, offset, 32));
+    return !rhs.modPow(P.shiftRight(1), P).equals(P.subtract(BigInteger.ONE));
+  }
+
+  /** x^3 - 3x + b mod p. */
+  private static BigInteger curve(final BigInteger x) {
+    return x.pow(3).subtract(x.multiply(BigInteger.valueOf(3))).add(B).mod(P);
+  }
+
+  private static boolean isFieldElement(final byte[] buffer, final int offset) {
+    return Arrays.compareUnsigned(buffer, offset, offset + 32, FIELD, 0, 32) < 0;
+  }
+
+  private static boolean isZero(final byte[] buffer, final int offset) {
+    for (int i = offset; i < offset + 32; i++) {
+      if (buffer[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
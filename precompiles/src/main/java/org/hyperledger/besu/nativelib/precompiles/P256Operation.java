@@ -0,0 +1,26 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+/** The secp256r1 operations which can be routed between {@link P256Provider}s. */
+public enum P256Operation {
+  SIGN,
+  /** Verification which rejects signatures with s greater than n / 2. */
+  VERIFY,
+  /** Verification which accepts both s and n - s, as the P256VERIFY precompile does. */
+  VERIFY_MALLEABLE,
+  RECOVER
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+/**
+ * A native secp256r1 implementation. All inputs are read at offsets into the caller's buffers and
+ * all outputs are written into the caller's buffers, so implementations which can work in place do
+ * not copy. Hashes are 32 bytes, scalars 32 byte big-endian values and public keys 64 bytes, x ||
+ * y, without the 0x04 prefix.
+ *
+ * <p>Signing is only offered by {@link P256Signer}s. All implementations report the same status for
+ * the same input: every input the curve arithmetic rejects is {@link #STATUS_FAIL}, and {@link
+ * #STATUS_ERROR} is kept for failures of the library itself.
+ */
+public interface P256Provider {
+
+  int STATUS_SUCCESS = 0;
+  int STATUS_FAIL = 1;
+  int STATUS_ERROR = 2;
+
+  int HASH_BYTES = 32;
+  int PRIVATE_KEY_BYTES = 32;
+  int PUBLIC_KEY_BYTES = 64;
+  /** r || s || v. */
+  int SIGNATURE_BYTES = 65;
+  /** hash || r || s || x || y, the P256VERIFY precompile input. */
+  int VERIFY_INPUT_BYTES = 160;
+
+  /** Stable name, used to report routing decisions. */
+  String name();
+
+  /** Whether the native library loaded. */
+  boolean isAvailable();
+
+  /** Whether the operation is supported, {@link P256Operation#SIGN} only by {@link P256Signer}s. */
+  boolean supports(P256Operation operation);
+
+  /**
+   * Verifies a signature.
+   *
+   * @param input buffer holding the {@link #VERIFY_INPUT_BYTES} precompile input at inputOffset
+   * @param allowMalleable whether s may be greater than n / 2
+   * @return {@link #STATUS_SUCCESS} if the signature is valid, {@link #STATUS_FAIL} if it is not,
+   *     including r or s out of range and a public key which is not on the curve, {@link
+   *     #STATUS_ERROR} if the library failed for another reason
+   */
+  int verify(byte[] input, int inputOffset, boolean allowMalleable);
+
+  /**
+   * Recovers the public key of a signature.
+   *
+   * @param signature buffer holding r || s at signatureOffset
+   * @param recoveryId 0 or 1
+   * @param publicKey output, the public key is written at publicKeyOffset
+   * @return {@link #STATUS_SUCCESS}, {@link #STATUS_FAIL} if no key can be recovered, including r
+   *     or s out of range, an r which is not the x of a curve point and a recovery id other than 0
+   *     or 1, {@link #STATUS_ERROR} if the library failed for another reason
+   */
+  int recover(
+      byte[] hash,
+      int hashOffset,
+      byte[] signature,
+      int signatureOffset,
+      int recoveryId,
+      byte[] publicKey,
+      int publicKeyOffset);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+/** A {@link P256Provider} which can also sign. Not every library binding offers signing. */
+public interface P256Signer extends P256Provider {
+
+  /**
+   * Signs a hash.
+   *
+   * @param signature output, the {@link #SIGNATURE_BYTES} r || s || v is written at signatureOffset
+   * @return {@link #STATUS_SUCCESS}, or {@link #STATUS_ERROR} if a key is invalid
+   */
+  int sign(
+      byte[] hash,
+      int hashOffset,
+      byte[] privateKey,
+      int privateKeyOffset,
+      byte[] publicKey,
+      int publicKeyOffset,
+      byte[] signature,
+      int signatureOffset);
+}
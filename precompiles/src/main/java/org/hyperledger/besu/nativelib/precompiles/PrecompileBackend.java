@@ -0,0 +1,35 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+/** A native library implementing the EIP-196 and EIP-2537 precompiles. */
+public interface PrecompileBackend {
+
+  /** Stable name, used in persisted routing profiles. */
+  String name();
+
+  /** Whether the native library loaded. */
+  boolean isAvailable();
+
+  /**
+   * Runs an operation. Invalid inputs give a failed result, only a broken native library throws.
+   *
+   * @param operation the operation
+   * @param input the precompile input
+   * @return the result
+   */
+  PrecompileResult compute(PrecompileOperation operation, byte[] input);
+}
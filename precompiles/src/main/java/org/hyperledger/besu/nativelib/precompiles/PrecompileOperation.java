@@ -0,0 +1,156 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/** The EIP-196 and EIP-2537 operations which can be routed between backends. */
+public enum PrecompileOperation {
+  BN254_G1_ADD(128, 64, false, 150, 0),
+  BN254_G1_MUL(96, 64, false, 6000, 0),
+  BN254_PAIRING(192, 32, true, 45000, 34000),
+  BLS12_G1_ADD(256, 128, false, 375, 0),
+  BLS12_G2_ADD(512, 256, false, 600, 0),
+  BLS12_G1_MSM(160, 128, true, 0, 12000),
+  BLS12_G2_MSM(288, 256, true, 0, 22500),
+  BLS12_PAIRING(384, 32, true, 37700, 32600),
+  BLS12_MAP_FP_TO_G1(64, 128, false, 5500, 0),
+  BLS12_MAP_FP2_TO_G2(128, 256, false, 23800, 0);
+
+  /** Size classes are powers of two of the number of pairs, this is the largest one. */
+  public static final int MAX_SIZE_CLASS = 30;
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  private static final byte[] BN254_G1 =
+      HEX.parseHex(
+          "0000000000000000000000000000000000000000000000000000000000000001"
+              + "0000000000000000000000000000000000000000000000000000000000000002");
+  private static final byte[] BN254_G2 =
+      HEX.parseHex(
+          "198e9393920d483a7260bfb731fb5d25f1aa493335a9e71297e485b7aef312c2"
+              + "1800deef121f1e76426a00665e5c4479674322d4f75edadd46debd5cd992f6ed"
+              + "090689d0585ff075ec9e99ad690c3395bc4b313370b38ef355acdadcd122975b"
+              + "12c85ea5db8c6deb4aab71808dcb408fe3d1e7690c43d37b4ce6cc0166fa7daa");
+  private static final byte[] BLS12_G1 =
+      HEX.parseHex(
+          "0000000000000000000000000000000017f1d3a73197d7942695638c4fa9ac0fc3688c4f9774b905a14e3a3f171bac586c55e83ff97a1aeffb3af00adb22c6bb"
+              + "0000000000000000000000000000000008b3f481e3aaa0f1a09e30ed741d8ae4fcf5e095d5d00af600db18cb2c04b3edd03cc744a2888ae40caa232946c5e7e1");
+  private static final byte[] BLS12_G2 =
+      HEX.parseHex(
+          "00000000000000000000000000000000024aa2b2f08f0a91260805272dc51051c6e47ad4fa403b02b4510b647ae3d1770bac0326a805bbefd48056c8c121bdb8"
+              + "0000000000000000000000000000000013e02b6052719f607dacd3a088274f65596bd0d09920b61ab5da61bbdc7f5049334cf11213945d57e5ac7d055d042b7e"
+              + "000000000000000000000000000000000ce5d527727d6e118cc9cdc6da2e351aadfd9baa8cbdd3a76d429a695160d12c923ac9cc3baca289e193548608b82801"
+              + "000000000000000000000000000000000606c4a02ea734cc32acd2b02bc28b99cb3e287e85a763af267492ab572e99ab3f370d275cec1da1aaa9075ff05f79be");
+  // a full width scalar, so multiplications take their worst case time
+  private static final byte[] SCALAR =
+      HEX.parseHex("73eda753299d7d483339d80809a1d80553bda402fffe5bfeffffffff00000000");
+
+  private final int unitBytes;
+  private final int outputBytes;
+  private final boolean scalable;
+  private final long baseGas;
+  private final long gasPerUnit;
+
+  PrecompileOperation(
+      final int unitBytes,
+      final int outputBytes,
+      final boolean scalable,
+      final long baseGas,
+      final long gasPerUnit) {
+    this.unitBytes = unitBytes;
+    this.outputBytes = outputBytes;
+    this.scalable = scalable;
+    this.baseGas = baseGas;
+    this.gasPerUnit = gasPerUnit;
+  }
+
+  /** Size of one pair, or of the whole input for fixed size operations. */
+  public int unitBytes() {
+    return unitBytes;
+  }
+
+  public int outputBytes() {
+    return outputBytes;
+  }
+
+  /** Whether the cost of the operation grows with the number of pairs in its input. */
+  public boolean isScalable() {
+    return scalable;
+  }
+
+  /**
+   * Gas of an input under the Istanbul and Prague schedules, as an estimate of its cost. MSMs are
+   * priced without their discount, so large MSMs are overestimated.
+   *
+   * @param inputLength length of the input in bytes
+   * @return the gas
+   */
+  public long gas(final int inputLength) {
+    return scalable ? baseGas + gasPerUnit * (inputLength / unitBytes) : baseGas;
+  }
+
+  /**
+   * The size class of an input: floor(log2(pairs)) for MSMs and pairings, 0 for everything else.
+   *
+   * @param inputLength length of the input in bytes
+   * @return the size class, between 0 and {@link #MAX_SIZE_CLASS}
+   */
+  public int sizeClass(final int inputLength) {
+    if (!scalable) {
+      return 0;
+    }
+    int units = Math.max(1, inputLength / unitBytes);
+    return 31 - Integer.numberOfLeadingZeros(units);
+  }
+
+  /**
+   * A valid input made of generator points, for benchmarking.
+   *
+   * @param units number of pairs, ignored for fixed size operations
+   * @return the input
+   */
+  public byte[] benchmarkInput(final int units) {
+    return switch (this) {
+      case BN254_G1_ADD -> concat(BN254_G1, BN254_G1);
+      case BN254_G1_MUL -> concat(BN254_G1, SCALAR);
+      case BN254_PAIRING -> repeat(concat(BN254_G1, BN254_G2), units);
+      case BLS12_G1_ADD -> concat(BLS12_G1, BLS12_G1);
+      case BLS12_G2_ADD -> concat(BLS12_G2, BLS12_G2);
+      case BLS12_G1_MSM -> repeat(concat(BLS12_G1, SCALAR), units);
+      case BLS12_G2_MSM -> repeat(concat(BLS12_G2, SCALAR), units);
+      case BLS12_PAIRING -> repeat(concat(BLS12_G1, BLS12_G2), units);
+      // the x coordinates are valid field elements
+      case BLS12_MAP_FP_TO_G1 -> Arrays.copyOf(BLS12_G1, 64);
+      case BLS12_MAP_FP2_TO_G2 -> Arrays.copyOf(BLS12_G2, 128);
+    };
+  }
+
+  private static byte[] concat(final byte[] a, final byte[] b) {
+    byte[] result = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, result, a.length, b.length);
+    return result;
+  }
+
+  private static byte[] repeat(final byte[] unit, final int count) {
+    byte[] result = new byte[unit.length * count];
+    for (int i = 0; i < count; i++) {
+      System.arraycopy(unit, 0, result, i * unit.length, unit.length);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Outcome of a precompile call, the output on success or a backend specific error message.
+ *
+ * @param output the result bytes, present on success
+ * @param error the error message, present on failure
+ */
+public record PrecompileResult(Optional<byte[]> output, Optional<String> error) {
+
+  public static PrecompileResult success(final byte[] output) {
+    return new PrecompileResult(Optional.of(output), Optional.empty());
+  }
+
+  public static PrecompileResult failure(final String error) {
+    return new PrecompileResult(Optional.empty(), Optional.of(error));
+  }
+
+  /** A result with its own copy of the output. */
+  public PrecompileResult copy() {
+    return isSuccess() ? success(output.get().clone()) : this;
+  }
+
+  public boolean isSuccess() {
+    return output.isPresent();
+  }
+
+  /**
+   * Whether two results agree: both failed, or both succeeded with the same output. Error messages
+   * are not compared, they differ between backends.
+   */
+  public boolean agreesWith(final PrecompileResult other) {
+    if (isSuccess() != other.isSuccess()) {
+      return false;
+    }
+    return !isSuccess() || Arrays.equals(output.get(), other.output.get());
+  }
+}
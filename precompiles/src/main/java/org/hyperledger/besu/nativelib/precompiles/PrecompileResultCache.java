@@ -0,0 +1,240 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.sun.jna.Memory;
+
+/**
+ * A size bounded, least recently used cache of precompile results, for nodes which re-execute the
+ * same calls many times in eth_call, eth_estimateGas and trace replays. Results are keyed by
+ * operation and the SHA-256 of the input and held off-heap, in native memory which is freed as
+ * soon as an entry is evicted, replaced or cleared. Only calls costing at least a minimum gas are
+ * cached, cheaper ones are faster to recompute than to hash.
+ *
+ * <p>Precompiles are deterministic, so failures are cached as well as outputs.
+ */
+public final class PrecompileResultCache {
+
+  /**
+   * Heap held per entry, without compressed references: key 56, map node 64, share of the map's
+   * table 16, entry 24, and JNA's Memory with its disposer, cleaner reference and registry entry
+   * 264.
+   */
+  static final int ENTRY_OVERHEAD_BYTES = 424;
+
+  private static final VarHandle LONG_BE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final ThreadLocal<MessageDigest> SHA256 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+              throw new IllegalStateException(e);
+            }
+          });
+
+  /**
+   * Counters since the cache was created.
+   *
+   * @param hits calls answered from the cache
+   * @param misses calls computed and stored
+   * @param bypassed calls below the minimum gas, computed without the cache
+   * @param evictions entries dropped to stay within the size bound
+   * @param entries entries held now
+   * @param bytes bytes held now, results plus their per entry overhead
+   */
+  public record Stats(
+      long hits, long misses, long bypassed, long evictions, long entries, long bytes) {
+
+    /** Share of cacheable calls answered from the cache, 0 before the first one. */
+    public double hitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+  }
+
+  private record Key(String operation, long h0, long h1, long h2, long h3) {}
+
+  /** The output, or the UTF-8 error message of a failure, off-heap; no memory when empty. */
+  private record Entry(boolean success, Memory data) {
+    int length() {
+      return data == null ? 0 : (int) data.size();
+    }
+
+    long bytes() {
+      return entryBytes(length());
+    }
+
+    void free() {
+      if (data != null) {
+        data.close();
+      }
+    }
+  }
+
+  private final long maxBytes;
+  private final long minGas;
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder bypassed = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param maxBytes bound on the memory held, results plus their per entry overhead
+   * @param minGas calls estimated to cost less gas are not cached
+   */
+  public PrecompileResultCache(final long maxBytes, final long minGas) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be positive");
+    }
+    this.maxBytes = maxBytes;
+    this.minGas = minGas;
+  }
+
+  public long minGas() {
+    return minGas;
+  }
+
+  /**
+   * The cached result of a call, or the result of compute, which is cached.
+   *
+   * @param operation name of the operation, results of different operations never mix
+   * @param input the precompile input, not modified
+   * @param gas the estimated gas of the call, compared to the minimum gas
+   * @param compute computes the result on a miss
+   * @return the result, its output a fresh array
+   */
+  public PrecompileResult compute(
+      final String operation,
+      final byte[] input,
+      final long gas,
+      final Function<byte[], PrecompileResult> compute) {
+    if (gas < minGas) {
+      bypassed.increment();
+      return compute.apply(input);
+    }
+    Key key = key(operation, input);
+    PrecompileResult cached = null;
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        // copied under the lock, as evicting an entry frees its memory at once
+        cached = result(entry);
+      }
+    }
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    // computed outside the lock, concurrent misses on one key both compute, the last one is kept
+    PrecompileResult result = compute.apply(input);
+    put(key, result);
+    return result;
+  }
+
+  public Stats stats() {
+    synchronized (entries) {
+      return new Stats(
+          hits.sum(), misses.sum(), bypassed.sum(), evictions.sum(), entries.size(), bytes);
+    }
+  }
+
+  /** Drops every entry and frees its native memory. */
+  public void clear() {
+    synchronized (entries) {
+      entries.values().forEach(Entry::free);
+      entries.clear();
+      bytes = 0;
+    }
+  }
+
+  private void put(final Key key, final PrecompileResult result) {
+    byte[] data =
+        result.isSuccess()
+            ? result.output().get()
+            : result.error().orElse("").getBytes(StandardCharsets.UTF_8);
+    if (entryBytes(data.length) > maxBytes) {
+      return;
+    }
+    Memory memory = null;
+    if (data.length > 0) {
+      memory = new Memory(data.length);
+      memory.write(0, data, 0, data.length);
+    }
+    Entry entry = new Entry(result.isSuccess(), memory);
+    synchronized (entries) {
+      Entry previous = entries.put(key, entry);
+      if (previous != null) {
+        bytes -= previous.bytes();
+        previous.free();
+      }
+      bytes += entry.bytes();
+      Iterator<Entry> eldest = entries.values().iterator();
+      while (bytes > maxBytes) {
+        Entry evicted = eldest.next();
+        eldest.remove();
+        bytes -= evicted.bytes();
+        evicted.free();
+        evictions.increment();
+      }
+    }
+  }
+
+  /** Reads an entry, which must not be freed meanwhile. */
+  private static PrecompileResult result(final Entry entry) {
+    byte[] data = new byte[entry.length()];
+    if (data.length > 0) {
+      entry.data().read(0, data, 0, data.length);
+    }
+    return entry.success()
+        ? PrecompileResult.success(data)
+        : PrecompileResult.failure(new String(data, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Memory held by an entry with a result of length bytes: its heap overhead and, unless empty, a
+   * glibc malloc chunk of the length plus an 8 byte header, rounded up to 16 and at least 32.
+   */
+  static long entryBytes(final int length) {
+    return ENTRY_OVERHEAD_BYTES + (length == 0 ? 0 : Math.max(32, (length + 8L + 15) & ~15L));
+  }
+
+  private static Key key(final String operation, final byte[] input) {
+    byte[] hash = SHA256.get().digest(input);
+    return new Key(
+        operation,
+        (long) LONG_BE.get(hash, 0),
+        (long) LONG_BE.get(hash, 8),
+        (long) LONG_BE.get(hash, 16),
+        (long) LONG_BE.get(hash, 24));
+  }
+}
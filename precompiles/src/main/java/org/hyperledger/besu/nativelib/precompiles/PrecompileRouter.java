@@ -0,0 +1,132 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes each precompile call to the backend of its {@link RoutingTable} entry. Calls fall back to
+ * the first usable backend, in list order, when the routed backend is unavailable, unknown or has
+ * thrown a {@link LinkageError}. A backend that threw is not used again.
+ */
+public class PrecompileRouter {
+
+  private final List<PrecompileBackend> backends;
+  private final PrecompileBackend[] fallbackOrder;
+  private final RoutingTable routingTable;
+  // routed backend by operation and size class, resolved once, null where the table has no known
+  // backend
+  private final Map<PrecompileOperation, PrecompileBackend[]> routes =
+      new EnumMap<>(PrecompileOperation.class);
+  private final Set<String> failedBackends = ConcurrentHashMap.newKeySet();
+
+  public PrecompileRouter(final List<PrecompileBackend> backends, final RoutingTable routingTable) {
+    this.backends = List.copyOf(backends);
+    this.fallbackOrder = this.backends.toArray(PrecompileBackend[]::new);
+    this.routingTable = routingTable;
+    for (PrecompileOperation operation : PrecompileOperation.values()) {
+      PrecompileBackend[] bySizeClass =
+          new PrecompileBackend[PrecompileOperation.MAX_SIZE_CLASS + 1];
+      for (int sizeClass = 0; sizeClass < bySizeClass.length; sizeClass++) {
+        bySizeClass[sizeClass] =
+            routingTable.backendFor(operation, sizeClass).flatMap(this::byName).orElse(null);
+      }
+      routes.put(operation, bySizeClass);
+    }
+  }
+
+  /** Constantine and gnark, in that fallback order. */
+  public static List<PrecompileBackend> defaultBackends() {
+    return List.of(new ConstantinePrecompileBackend(), new GnarkPrecompileBackend());
+  }
+
+  /** Benchmarks the default backends and routes to the fastest one. */
+  public static PrecompileRouter calibrate() {
+    return calibrate(defaultBackends());
+  }
+
+  public static PrecompileRouter calibrate(final List<PrecompileBackend> backends) {
+    return new PrecompileRouter(backends, BackendBenchmark.run(backends));
+  }
+
+  /** Routes with a routing table persisted by {@link RoutingTable#store(Path)}. */
+  public static PrecompileRouter fromProfile(
+      final List<PrecompileBackend> backends, final Path profile) throws IOException {
+    return new PrecompileRouter(backends, RoutingTable.load(profile));
+  }
+
+  public RoutingTable routingTable() {
+    return routingTable;
+  }
+
+  /** Backends which are loaded and have not failed. */
+  public List<PrecompileBackend> usableBackends() {
+    return backends.stream().filter(this::isUsable).toList();
+  }
+
+  /**
+   * The backend a call would currently be routed to.
+   *
+   * @return the backend, empty if none is usable
+   */
+  public Optional<PrecompileBackend> backendFor(
+      final PrecompileOperation operation, final int inputLength) {
+    return Optional.ofNullable(route(operation, inputLength));
+  }
+
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    while (true) {
+      PrecompileBackend backend = route(operation, input.length);
+      if (backend == null) {
+        throw new IllegalStateException("No precompile backend available");
+      }
+      try {
+        return backend.compute(operation, input);
+      } catch (LinkageError e) {
+        failedBackends.add(backend.name());
+      }
+    }
+  }
+
+  /** The backend for a call, without allocating, null if none is usable. */
+  private PrecompileBackend route(final PrecompileOperation operation, final int inputLength) {
+    PrecompileBackend routed = routes.get(operation)[operation.sizeClass(inputLength)];
+    if (routed != null && isUsable(routed)) {
+      return routed;
+    }
+    for (PrecompileBackend backend : fallbackOrder) {
+      if (isUsable(backend)) {
+        return backend;
+      }
+    }
+    return null;
+  }
+
+  private Optional<PrecompileBackend> byName(final String name) {
+    return backends.stream().filter(b -> b.name().equals(name)).findFirst();
+  }
+
+  private boolean isUsable(final PrecompileBackend backend) {
+    return backend.isAvailable() && !failedBackends.contains(backend.name());
+  }
+}
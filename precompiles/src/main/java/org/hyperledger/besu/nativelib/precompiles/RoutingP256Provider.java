@@ -0,0 +1,168 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes each secp256r1 operation to one provider, normally the fastest as measured by {@link
+ * P256Benchmark}. Calls fall back to the first usable provider supporting the operation, in list
+ * order, when the routed one is unavailable or has thrown a {@link LinkageError}. A provider that
+ * threw is not used again.
+ */
+public class RoutingP256Provider implements P256Signer {
+
+  public static final String NAME = "routing";
+
+  private final List<P256Provider> providers;
+  private final Map<P256Operation, P256Provider> routes;
+  private final Set<String> failedProviders = ConcurrentHashMap.newKeySet();
+
+  public RoutingP256Provider(
+      final List<P256Provider> providers, final Map<P256Operation, P256Provider> routes) {
+    this.providers = List.copyOf(providers);
+    this.routes = routes.isEmpty() ? Map.of() : new EnumMap<>(routes);
+  }
+
+  /** BoringSSL and besu-native-ec, in that fallback order. */
+  public static List<P256Provider> defaultProviders() {
+    return List.of(new BoringSslP256Provider(), new BesuNativeEcP256Provider());
+  }
+
+  /** Benchmarks the default providers and routes to the fastest one for each operation. */
+  public static RoutingP256Provider calibrate() {
+    return calibrate(defaultProviders());
+  }
+
+  public static RoutingP256Provider calibrate(final List<P256Provider> providers) {
+    return new RoutingP256Provider(providers, P256Benchmark.run(providers));
+  }
+
+  /**
+   * The provider a call would currently be routed to.
+   *
+   * @return the provider, empty if none is usable for the operation
+   */
+  public Optional<P256Provider> providerFor(final P256Operation operation) {
+    P256Provider routed = routes.get(operation);
+    if (routed != null && isUsable(routed, operation)) {
+      return Optional.of(routed);
+    }
+    return providers.stream().filter(p -> isUsable(p, operation)).findFirst();
+  }
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return providers.stream().anyMatch(p -> p.isAvailable() && !failedProviders.contains(p.name()));
+  }
+
+  @Override
+  public boolean supports(final P256Operation operation) {
+    return providerFor(operation).isPresent();
+  }
+
+  @Override
+  public int sign(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] privateKey,
+      final int privateKeyOffset,
+      final byte[] publicKey,
+      final int publicKeyOffset,
+      final byte[] signature,
+      final int signatureOffset) {
+    while (true) {
+      P256Signer provider = (P256Signer) usableProvider(P256Operation.SIGN);
+      try {
+        return provider.sign(
+            hash,
+            hashOffset,
+            privateKey,
+            privateKeyOffset,
+            publicKey,
+            publicKeyOffset,
+            signature,
+            signatureOffset);
+      } catch (LinkageError e) {
+        failedProviders.add(provider.name());
+      }
+    }
+  }
+
+  @Override
+  public int verify(final byte[] input, final int inputOffset, final boolean allowMalleable) {
+    P256Operation operation =
+        allowMalleable ? P256Operation.VERIFY_MALLEABLE : P256Operation.VERIFY;
+    while (true) {
+      P256Provider provider = usableProvider(operation);
+      try {
+        return provider.verify(input, inputOffset, allowMalleable);
+      } catch (LinkageError e) {
+        failedProviders.add(provider.name());
+      }
+    }
+  }
+
+  @Override
+  public int recover(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] signature,
+      final int signatureOffset,
+      final int recoveryId,
+      final byte[] publicKey,
+      final int publicKeyOffset) {
+    while (true) {
+      P256Provider provider = usableProvider(P256Operation.RECOVER);
+      try {
+        return provider.recover(
+            hash, hashOffset, signature, signatureOffset, recoveryId, publicKey, publicKeyOffset);
+      } catch (LinkageError e) {
+        failedProviders.add(provider.name());
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    Map<P256Operation, String> names = new EnumMap<>(P256Operation.class);
+    routes.forEach((operation, provider) -> names.put(operation, provider.name()));
+    return "RoutingP256Provider" + names;
+  }
+
+  private P256Provider usableProvider(final P256Operation operation) {
+    return providerFor(operation)
+        .orElseThrow(
+            () -> new UnsupportedOperationException("No P256 provider available for " + operation));
+  }
+
+  private boolean isUsable(final P256Provider provider, final P256Operation operation) {
+    return provider.isAvailable()
+        && provider.supports(operation)
+        && (operation != P256Operation.SIGN || provider instanceof P256Signer)
+        && !failedProviders.contains(provider.name());
+  }
+}
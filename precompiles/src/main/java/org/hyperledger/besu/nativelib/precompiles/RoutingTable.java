@@ -0,0 +1,133 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Which backend serves each operation, per input size class. A size class without an entry uses
+ * the entry of the nearest smaller class, or the smallest class when there is none.
+ *
+ * <p>Persisted as a properties file with one {@code OPERATION.sizeClass=backend} line per entry.
+ */
+public final class RoutingTable {
+
+  private final Map<PrecompileOperation, NavigableMap<Integer, String>> routes;
+
+  private RoutingTable(final Map<PrecompileOperation, NavigableMap<Integer, String>> routes) {
+    this.routes = routes;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The backend routed to for an operation and size class.
+   *
+   * @return the backend name, empty if the operation has no entry
+   */
+  public Optional<String> backendFor(final PrecompileOperation operation, final int sizeClass) {
+    NavigableMap<Integer, String> classes = routes.get(operation);
+    if (classes == null || classes.isEmpty()) {
+      return Optional.empty();
+    }
+    Map.Entry<Integer, String> entry = classes.floorEntry(sizeClass);
+    return Optional.of(entry != null ? entry.getValue() : classes.firstEntry().getValue());
+  }
+
+  /** Read only view of all entries, by operation then size class. */
+  public Map<PrecompileOperation, NavigableMap<Integer, String>> entries() {
+    return routes;
+  }
+
+  public static RoutingTable load(final Path path) throws IOException {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    Builder builder = builder();
+    for (String key : properties.stringPropertyNames()) {
+      int dot = key.lastIndexOf('.');
+      if (dot < 0) {
+        throw new IOException("Invalid routing table entry " + key);
+      }
+      try {
+        builder.route(
+            PrecompileOperation.valueOf(key.substring(0, dot)),
+            Integer.parseInt(key.substring(dot + 1)),
+            properties.getProperty(key));
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Invalid routing table entry " + key, e);
+      }
+    }
+    return builder.build();
+  }
+
+  public void store(final Path path) throws IOException {
+    Properties properties = new Properties();
+    routes.forEach(
+        (operation, classes) ->
+            classes.forEach(
+                (sizeClass, backend) ->
+                    properties.setProperty(operation.name() + "." + sizeClass, backend)));
+    try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+      properties.store(writer, "besu-native precompile routing table");
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "RoutingTable" + routes;
+  }
+
+  public static final class Builder {
+    private final Map<PrecompileOperation, NavigableMap<Integer, String>> routes =
+        new EnumMap<>(PrecompileOperation.class);
+
+    private Builder() {}
+
+    public Builder route(
+        final PrecompileOperation operation, final int sizeClass, final String backend) {
+      if (sizeClass < 0 || sizeClass > PrecompileOperation.MAX_SIZE_CLASS) {
+        throw new IllegalArgumentException("Invalid size class " + sizeClass);
+      }
+      routes.computeIfAbsent(operation, k -> new TreeMap<>()).put(sizeClass, backend);
+      return this;
+    }
+
+    public RoutingTable build() {
+      Map<PrecompileOperation, NavigableMap<Integer, String>> copy =
+          new EnumMap<>(PrecompileOperation.class);
+      routes.forEach(
+          (operation, classes) ->
+              copy.put(operation, Collections.unmodifiableNavigableMap(new TreeMap<>(classes))));
+      return new RoutingTable(Collections.unmodifiableMap(copy));
+    }
+  }
+}
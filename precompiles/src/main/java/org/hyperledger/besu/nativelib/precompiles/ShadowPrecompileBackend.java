@@ -0,0 +1,77 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A backend returning the results of a primary backend while verifying a sample of them against a
+ * shadow backend, see {@link ShadowVerifier}.
+ */
+public class ShadowPrecompileBackend implements PrecompileBackend {
+
+  /**
+   * A precompile call, as handed to the shadow.
+   *
+   * @param operation the operation
+   * @param input the precompile input
+   */
+  public record Call(PrecompileOperation operation, byte[] input) {}
+
+  private final PrecompileBackend primary;
+  private final ShadowVerifier<Call, PrecompileResult> verifier;
+
+  public ShadowPrecompileBackend(
+      final PrecompileBackend primary,
+      final PrecompileBackend shadow,
+      final double samplePercentage,
+      final Executor executor,
+      final Consumer<ShadowVerifier.Mismatch<Call, PrecompileResult>> mismatchListener) {
+    this.primary = primary;
+    this.verifier =
+        new ShadowVerifier<>(
+            primary.name() + "/" + shadow.name(),
+            call -> primary.compute(call.operation(), call.input()),
+            call -> shadow.compute(call.operation(), call.input()),
+            PrecompileResult::agreesWith,
+            call -> new Call(call.operation(), call.input().clone()),
+            PrecompileResult::copy,
+            samplePercentage,
+            executor,
+            mismatchListener);
+  }
+
+  /** Uses the primary's name, so routing tables and profiles are unaffected by shadowing. */
+  @Override
+  public String name() {
+    return primary.name();
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return primary.isAvailable();
+  }
+
+  @Override
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    return verifier.apply(new Call(operation, input));
+  }
+
+  public ShadowVerifier<Call, PrecompileResult> verifier() {
+    return verifier;
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs a primary implementation and, for a sample of calls, a shadow implementation of the same
+ * function on a separate executor, reporting every call on which the two disagree.
+ *
+ * <p>The caller only ever waits for the primary. The shadow runs after the primary returned, on
+ * copies of the input and of the primary's result, and is dropped rather than queued when the
+ * executor is saturated. Exceptions thrown by the shadow are counted, never propagated.
+ *
+ * @param <I> the input type
+ * @param <R> the result type
+ */
+public class ShadowVerifier<I, R> implements Function<I, R> {
+
+  /** Queue length of the default executor, shadow runs beyond it are dropped. */
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  /**
+   * A call on which the primary and the shadow disagreed.
+   *
+   * @param name name of the verified function
+   * @param input the input, as copied for the shadow
+   * @param primary the primary's result
+   * @param shadow the shadow's result
+   */
+  public record Mismatch<I, R>(String name, I input, R primary, R shadow) {}
+
+  private final String name;
+  private final Function<I, R> primary;
+  private final Function<I, R> shadow;
+  private final BiPredicate<R, R> agreement;
+  private final UnaryOperator<I> inputCopier;
+  private final UnaryOperator<R> resultCopier;
+  private final Consumer<Mismatch<I, R>> mismatchListener;
+  private final Executor executor;
+  private volatile double samplePercentage;
+
+  private final LongAdder sampled = new LongAdder();
+  private final LongAdder mismatches = new LongAdder();
+  private final LongAdder shadowFailures = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * @param name name of the verified function, for reporting
+   * @param primary the implementation whose results are returned
+   * @param shadow the implementation it is compared to
+   * @param agreement whether a primary and a shadow result agree
+   * @param inputCopier copies an input so the caller may reuse it once the primary returned
+   * @param resultCopier copies a primary result so the caller may modify it once returned
+   * @param samplePercentage percentage of calls, between 0 and 100, which are verified
+   * @param executor runs the shadow, should reject rather than block when saturated
+   * @param mismatchListener called on the executor for every disagreement
+   */
+  public ShadowVerifier(
+      final String name,
+      final Function<I, R> primary,
+      final Function<I, R> shadow,
+      final BiPredicate<R, R> agreement,
+      final UnaryOperator<I> inputCopier,
+      final UnaryOperator<R> resultCopier,
+      final double samplePercentage,
+      final Executor executor,
+      final Consumer<Mismatch<I, R>> mismatchListener) {
+    this.name = name;
+    this.primary = primary;
+    this.shadow = shadow;
+    this.agreement = agreement;
+    this.inputCopier = inputCopier;
+    this.resultCopier = resultCopier;
+    this.executor = executor;
+    this.mismatchListener = mismatchListener;
+    this.samplePercentage = checkSamplePercentage(samplePercentage);
+  }
+
+  /**
+   * A single daemon thread with a bounded queue which discards, rather than blocks on, work it has
+   * no room for.
+   */
+  public static ThreadPoolExecutor defaultExecutor() {
+    return new ThreadPoolExecutor(
+        1,
+        1,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY),
+        r -> {
+          Thread thread = new Thread(r, "besu-native-shadow-verifier");
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public R apply(final I input) {
+    R result = primary.apply(input);
+    double percentage = samplePercentage;
+    if (percentage > 0 && ThreadLocalRandom.current().nextDouble(100) < percentage) {
+      submit(inputCopier.apply(input), resultCopier.apply(result));
+    }
+    return result;
+  }
+
+  private void submit(final I input, final R primaryResult) {
+    try {
+      executor.execute(() -> verify(input, primaryResult));
+    } catch (RejectedExecutionException e) {
+      dropped.increment();
+    }
+  }
+
+  private void verify(final I input, final R primaryResult) {
+    sampled.increment();
+    R shadowResult;
+    try {
+      shadowResult = shadow.apply(input);
+    } catch (RuntimeException | LinkageError e) {
+      shadowFailures.increment();
+      return;
+    }
+    if (!agreement.test(primaryResult, shadowResult)) {
+      mismatches.increment();
+      mismatchListener.accept(new Mismatch<>(name, input, primaryResult, shadowResult));
+    }
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public double samplePercentage() {
+    return samplePercentage;
+  }
+
+  public final void setSamplePercentage(final double samplePercentage) {
+    this.samplePercentage = checkSamplePercentage(samplePercentage);
+  }
+
+  private static double checkSamplePercentage(final double samplePercentage) {
+    if (!(samplePercentage >= 0 && samplePercentage <= 100)) {
+      throw new IllegalArgumentException("sample percentage must be between 0 and 100");
+    }
+    return samplePercentage;
+  }
+
+  /** Calls whose shadow ran. */
+  public long sampledCount() {
+    return sampled.sum();
+  }
+
+  public long mismatchCount() {
+    return mismatches.sum();
+  }
+
+  /** Shadow runs which threw. */
+  public long shadowFailureCount() {
+    return shadowFailures.sum();
+  }
+
+  /** Sampled calls whose shadow was dropped because the executor was saturated. */
+  public long droppedCount() {
+    return dropped.sum();
+  }
+}
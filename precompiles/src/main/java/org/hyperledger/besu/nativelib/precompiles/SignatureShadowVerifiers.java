@@ -0,0 +1,154 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import org.hyperledger.besu.nativelib.boringssl.BoringSSLPrecompiles;
+import org.hyperledger.besu.nativelib.secp256k1.LibSecp256k1;
+import org.hyperledger.besu.nativelib.secp256k1.LibSecp256k1JNI;
+import org.hyperledger.besu.nativelib.secp256r1.LibSECP256R1;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import com.sun.jna.ptr.LongByReference;
+
+/**
+ * Shadow verifiers for the signature precompiles, which have two native implementations each:
+ * P256VERIFY in BoringSSL and besu-native-ec, ECRECOVER in the secp256k1 JNI and JNA bindings.
+ */
+public final class SignatureShadowVerifiers {
+
+  private static final LibSECP256R1 BESU_NATIVE_EC = new LibSECP256R1();
+
+  /**
+   * An ecrecover call.
+   *
+   * @param hash 32 byte message hash
+   * @param signature 64 byte compact signature, r || s
+   * @param recoveryId 0 or 1
+   */
+  public record EcrecoverInput(byte[] hash, byte[] signature, int recoveryId) {
+    EcrecoverInput copy() {
+      return new EcrecoverInput(hash.clone(), signature.clone(), recoveryId);
+    }
+  }
+
+  private SignatureShadowVerifiers() {}
+
+  /**
+   * P256VERIFY with BoringSSL as primary and besu-native-ec as shadow, the input is the 160 byte
+   * precompile input hash || r || s || x || y.
+   */
+  public static ShadowVerifier<byte[], Boolean> p256Verify(
+      final double samplePercentage,
+      final Executor executor,
+      final Consumer<ShadowVerifier.Mismatch<byte[], Boolean>> mismatchListener) {
+    return new ShadowVerifier<>(
+        "p256verify",
+        SignatureShadowVerifiers::boringSslP256Verify,
+        SignatureShadowVerifiers::besuNativeEcP256Verify,
+        Boolean::equals,
+        byte[]::clone,
+        UnaryOperator.identity(),
+        samplePercentage,
+        executor,
+        mismatchListener);
+  }
+
+  /**
+   * ECRECOVER with the JNI binding as primary and the JNA binding as shadow, results are the 64
+   * byte public key without the 0x04 prefix, or empty if none can be recovered.
+   */
+  public static ShadowVerifier<EcrecoverInput, Optional<byte[]>> ecrecover(
+      final double samplePercentage,
+      final Executor executor,
+      final Consumer<ShadowVerifier.Mismatch<EcrecoverInput, Optional<byte[]>>> mismatchListener) {
+    return new ShadowVerifier<>(
+        "ecrecover",
+        SignatureShadowVerifiers::jniEcrecover,
+        SignatureShadowVerifiers::jnaEcrecover,
+        SignatureShadowVerifiers::samePublicKey,
+        EcrecoverInput::copy,
+        publicKey -> publicKey.map(byte[]::clone),
+        samplePercentage,
+        executor,
+        mismatchListener);
+  }
+
+  public static Boolean boringSslP256Verify(final byte[] input) {
+    return BoringSSLPrecompiles.p256Verify(input, input.length).status == 0;
+  }
+
+  /** Errors, such as a point not on the curve, count as an invalid signature as in BoringSSL. */
+  public static Boolean besuNativeEcP256Verify(final byte[] input) {
+    if (input.length != 160) {
+      return false;
+    }
+    try {
+      return BESU_NATIVE_EC.verify(
+          Arrays.copyOfRange(input, 0, 32),
+          Arrays.copyOfRange(input, 32, 64),
+          Arrays.copyOfRange(input, 64, 96),
+          Arrays.copyOfRange(input, 96, 160),
+          true);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  public static Optional<byte[]> jniEcrecover(final EcrecoverInput input) {
+    return LibSecp256k1JNI.ecrecover(input.hash(), input.signature(), input.recoveryId())
+        .publicKey();
+  }
+
+  public static Optional<byte[]> jnaEcrecover(final EcrecoverInput input) {
+    if (input.hash().length != 32 || input.signature().length != 64) {
+      return Optional.empty();
+    }
+    LibSecp256k1.secp256k1_ecdsa_recoverable_signature signature =
+        new LibSecp256k1.secp256k1_ecdsa_recoverable_signature();
+    if (LibSecp256k1.secp256k1_ecdsa_recoverable_signature_parse_compact(
+            LibSecp256k1.CONTEXT, signature, input.signature(), input.recoveryId())
+        != 1) {
+      return Optional.empty();
+    }
+    LibSecp256k1.secp256k1_pubkey publicKey = new LibSecp256k1.secp256k1_pubkey();
+    if (LibSecp256k1.secp256k1_ecdsa_recover(
+            LibSecp256k1.CONTEXT, publicKey, signature, input.hash())
+        != 1) {
+      return Optional.empty();
+    }
+    ByteBuffer serialized = ByteBuffer.allocateDirect(65);
+    LongByReference serializedLength = new LongByReference(serialized.limit());
+    LibSecp256k1.secp256k1_ec_pubkey_serialize(
+        LibSecp256k1.CONTEXT,
+        serialized,
+        serializedLength,
+        publicKey,
+        LibSecp256k1.SECP256K1_EC_UNCOMPRESSED);
+    byte[] result = new byte[64];
+    serialized.get(1, result);
+    return Optional.of(result);
+  }
+
+  private static boolean samePublicKey(final Optional<byte[]> a, final Optional<byte[]> b) {
+    return a.isPresent() == b.isPresent() && (a.isEmpty() || Arrays.equals(a.get(), b.get()));
+  }
+}
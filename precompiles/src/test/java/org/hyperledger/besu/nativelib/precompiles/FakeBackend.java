@@ -0,0 +1,58 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/** A backend answering every call with its name as output, after an optional delay. */
+class FakeBackend implements PrecompileBackend {
+
+  final String name;
+  final AtomicInteger calls = new AtomicInteger();
+  volatile boolean available = true;
+  volatile boolean broken = false;
+  volatile long delayNanos = 0;
+
+  FakeBackend(final String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return available;
+  }
+
+  @Override
+  public PrecompileResult compute(final PrecompileOperation operation, final byte[] input) {
+    calls.incrementAndGet();
+    if (broken) {
+      throw new UnsatisfiedLinkError(name + " is broken");
+    }
+    if (delayNanos > 0) {
+      long end = System.nanoTime() + delayNanos;
+      while (System.nanoTime() < end) {
+        LockSupport.parkNanos(end - System.nanoTime());
+      }
+    }
+    return PrecompileResult.success(name.getBytes());
+  }
+}
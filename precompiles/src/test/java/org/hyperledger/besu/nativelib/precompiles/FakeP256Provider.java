@@ -0,0 +1,105 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A provider succeeding on every supported call after an optional delay, and writing the first
+ * byte of its name into outputs.
+ */
+class FakeP256Provider implements P256Signer {
+
+  final String name;
+  final Set<P256Operation> supported;
+  final AtomicInteger calls = new AtomicInteger();
+  volatile boolean available = true;
+  volatile boolean broken = false;
+  volatile long delayNanos = 0;
+
+  FakeP256Provider(final String name, final Set<P256Operation> supported) {
+    this.name = name;
+    this.supported = EnumSet.copyOf(supported);
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return available;
+  }
+
+  @Override
+  public boolean supports(final P256Operation operation) {
+    return supported.contains(operation);
+  }
+
+  @Override
+  public int sign(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] privateKey,
+      final int privateKeyOffset,
+      final byte[] publicKey,
+      final int publicKeyOffset,
+      final byte[] signature,
+      final int signatureOffset) {
+    return call(P256Operation.SIGN, signature, signatureOffset);
+  }
+
+  @Override
+  public int verify(final byte[] input, final int inputOffset, final boolean allowMalleable) {
+    return call(allowMalleable ? P256Operation.VERIFY_MALLEABLE : P256Operation.VERIFY, null, 0);
+  }
+
+  @Override
+  public int recover(
+      final byte[] hash,
+      final int hashOffset,
+      final byte[] signature,
+      final int signatureOffset,
+      final int recoveryId,
+      final byte[] publicKey,
+      final int publicKeyOffset) {
+    return call(P256Operation.RECOVER, publicKey, publicKeyOffset);
+  }
+
+  private int call(final P256Operation operation, final byte[] output, final int offset) {
+    if (!supported.contains(operation)) {
+      throw new UnsupportedOperationException(name + " does not support " + operation);
+    }
+    calls.incrementAndGet();
+    if (broken) {
+      throw new UnsatisfiedLinkError(name + " is broken");
+    }
+    if (delayNanos > 0) {
+      long end = System.nanoTime() + delayNanos;
+      while (System.nanoTime() < end) {
+        LockSupport.parkNanos(end - System.nanoTime());
+      }
+    }
+    if (output != null) {
+      output[offset] = (byte) name.charAt(0);
+    }
+    return STATUS_SUCCESS;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.HexFormat;
+
+import org.junit.Test;
+
+public class P256InputsTest {
+
+  private static final BigInteger ORDER =
+      new BigInteger("ffffffff00000000ffffffffffffffffbce6faada7179e84f3b9cac2fc632551", 16);
+
+  private static final byte[] GENERATOR =
+      HexFormat.of()
+          .parseHex(
+              "6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296"
+                  + "4fe342e2fe1a7f9b8ee7eb4a7c0f9e162bce33576b315ececbb6406837bf51f5");
+
+  @Test
+  public void scalarsAreBetweenOneAndOrderMinusOne() {
+    assertThat(P256Inputs.isScalar(scalar(BigInteger.ONE), 0)).isTrue();
+    assertThat(P256Inputs.isScalar(scalar(ORDER.subtract(BigInteger.ONE)), 0)).isTrue();
+    assertThat(P256Inputs.isScalar(new byte[32], 0)).isFalse();
+    assertThat(P256Inputs.isScalar(scalar(ORDER), 0)).isFalse();
+  }
+
+  @Test
+  public void highSIsAboveHalfTheOrder() {
+    BigInteger half = ORDER.shiftRight(1);
+    assertThat(P256Inputs.isHighS(scalar(half), 0)).isFalse();
+    assertThat(P256Inputs.isHighS(scalar(half.add(BigInteger.ONE)), 0)).isTrue();
+  }
+
+  @Test
+  public void curvePointsAndXCoordinates() {
+    byte[] buffer = new byte[3 + 64];
+    System.arraycopy(GENERATOR, 0, buffer, 3, 64);
+    assertThat(P256Inputs.isOnCurve(buffer, 3)).isTrue();
+    assertThat(P256Inputs.isCurveX(buffer, 3)).isTrue();
+
+    buffer[3 + 63] ^= 1;
+    assertThat(P256Inputs.isOnCurve(buffer, 3)).isFalse();
+    assertThat(P256Inputs.isOnCurve(new byte[64], 0)).isFalse();
+
+    // x^3 - 3x + b is a square for x = 5 and not for x = 1
+    assertThat(P256Inputs.isCurveX(scalar(BigInteger.valueOf(5)), 0)).isTrue();
+    assertThat(P256Inputs.isCurveX(scalar(BigInteger.ONE), 0)).isFalse();
+  }
+
+  private static byte[] scalar(final BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] scalar = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, scalar, 32 - length, length);
+    return scalar;
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/** Runs the real providers over the same inputs, which must give the same status and output. */
+public class P256ProviderConsistencyTest {
+
+  private static final HexFormat HEX = HexFormat.of();
+
+  private static final BigInteger ORDER =
+      new BigInteger("FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+
+  private static final byte[] HASH =
+      HEX.parseHex("9b2db89cb0e8fa3cc7608b4d6cc1dec0114e0b9ff4080bea12b134f489ab2bbc");
+  private static final byte[] R =
+      HEX.parseHex("976d3a4e9d23326dc0baa9fa560b7c4e53f42864f508483a6473b6a11079b2db");
+  private static final byte[] S =
+      HEX.parseHex("1b766e9ceb71ba6c01dcd46e0af462cd4cfa652ae5017d4555b8eeefe36e1932");
+  private static final byte[] PUBLIC_KEY =
+      HEX.parseHex(
+          "e266ddfdc12668db30d4ca3e8f7749432c416044f2d2b8c10bf3d4012aeffa8a"
+              + "bfa86404a2e9ffe67d47c587ef7a97a7f456b863b4d02cfc6928973ab5b1cb39");
+  // PUBLIC_KEY with the top bits of x flipped, not a point on the curve
+  private static final byte[] OFF_CURVE_KEY =
+      HEX.parseHex(
+          "f266ddfdc12668db30d4ca3e8f7749432c416044f2d2b8c10bf3d4012aeffa8a"
+              + "bfa86404a2e9ffe67d47c587ef7a97a7f456b863b4d02cfc6928973ab5b1cb39");
+
+  private final P256Provider boringSsl = new BoringSslP256Provider();
+  private final P256Provider besuNativeEc = new BesuNativeEcP256Provider();
+
+  @Before
+  public void requireBothProviders() {
+    assumeTrue(boringSsl.isAvailable() && besuNativeEc.isAvailable());
+  }
+
+  @Test
+  public void verifyGivesTheSameStatus() {
+    Map<String, byte[]> inputs = new LinkedHashMap<>();
+    inputs.put("valid", verifyInput(HASH, R, S, PUBLIC_KEY));
+    inputs.put("wrong hash", verifyInput(flipLastBit(HASH), R, S, PUBLIC_KEY));
+    inputs.put("wrong r", verifyInput(HASH, flipLastBit(R), S, PUBLIC_KEY));
+    byte[] highS = scalar(ORDER.subtract(new BigInteger(1, S)));
+    inputs.put("high s", verifyInput(HASH, R, highS, PUBLIC_KEY));
+    inputs.put("zero r", verifyInput(HASH, new byte[32], S, PUBLIC_KEY));
+    inputs.put("s equal to n", verifyInput(HASH, R, scalar(ORDER), PUBLIC_KEY));
+    inputs.put("off curve key", verifyInput(HASH, R, S, OFF_CURVE_KEY));
+    inputs.put("zero key", verifyInput(HASH, R, S, new byte[P256Provider.PUBLIC_KEY_BYTES]));
+
+    for (Map.Entry<String, byte[]> input : inputs.entrySet()) {
+      for (boolean allowMalleable : new boolean[] {false, true}) {
+        assertThat(besuNativeEc.verify(input.getValue(), 0, allowMalleable))
+            .as("%s, allowMalleable %s", input.getKey(), allowMalleable)
+            .isEqualTo(boringSsl.verify(input.getValue(), 0, allowMalleable));
+      }
+    }
+    assertThat(boringSsl.verify(inputs.get("valid"), 0, false))
+        .isEqualTo(P256Provider.STATUS_SUCCESS);
+    for (String rejected : new String[] {"zero r", "s equal to n", "off curve key", "zero key"}) {
+      assertThat(boringSsl.verify(inputs.get(rejected), 0, true))
+          .as(rejected)
+          .isEqualTo(P256Provider.STATUS_FAIL);
+    }
+  }
+
+  @Test
+  public void recoverGivesTheSameStatusAndKey() {
+    Map<String, byte[]> signatures = new LinkedHashMap<>();
+    signatures.put("valid", concat(R, S));
+    signatures.put("wrong r", concat(flipLastBit(R), S));
+    signatures.put("zero r", concat(new byte[32], S));
+    signatures.put("s equal to n", concat(R, scalar(ORDER)));
+    // x^3 - 3x + b is not a square for x = 1, so no point has r as its x
+    signatures.put("r not a curve x", concat(scalar(BigInteger.ONE), S));
+
+    for (Map.Entry<String, byte[]> signature : signatures.entrySet()) {
+      for (int recoveryId = 0; recoveryId <= 2; recoveryId++) {
+        byte[] expected = new byte[P256Provider.PUBLIC_KEY_BYTES];
+        byte[] actual = new byte[P256Provider.PUBLIC_KEY_BYTES];
+        int status = boringSsl.recover(HASH, 0, signature.getValue(), 0, recoveryId, expected, 0);
+        assertThat(besuNativeEc.recover(HASH, 0, signature.getValue(), 0, recoveryId, actual, 0))
+            .as("%s, recovery id %s", signature.getKey(), recoveryId)
+            .isEqualTo(status);
+        if (status == P256Provider.STATUS_SUCCESS) {
+          assertThat(actual)
+              .as("%s, recovery id %s", signature.getKey(), recoveryId)
+              .isEqualTo(expected);
+        }
+      }
+    }
+  }
+
+  private static byte[] verifyInput(
+      final byte[] hash, final byte[] r, final byte[] s, final byte[] publicKey) {
+    return concat(hash, r, s, publicKey);
+  }
+
+  private static byte[] concat(final byte[]... parts) {
+    byte[] result = new byte[Arrays.stream(parts).mapToInt(part -> part.length).sum()];
+    int offset = 0;
+    for (byte[] part : parts) {
+      System.arraycopy(part, 0, result, offset, part.length);
+      offset += part.length;
+    }
+    return result;
+  }
+
+  private static byte[] flipLastBit(final byte[] value) {
+    byte[] flipped = value.clone();
+    flipped[flipped.length - 1] ^= 1;
+    return flipped;
+  }
+
+  private static byte[] scalar(final BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    byte[] scalar = new byte[32];
+    int length = Math.min(bytes.length, 32);
+    System.arraycopy(bytes, bytes.length - length, scalar, 32 - length, length);
+    return scalar;
+  }
+}
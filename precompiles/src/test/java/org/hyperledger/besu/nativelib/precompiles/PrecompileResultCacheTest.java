@@ -0,0 +1,171 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.junit.Test;
+
+public class PrecompileResultCacheTest {
+
+  private static final byte[] PAIRING = new byte[2 * 384];
+
+  @Test
+  public void repeatedCallIsAnsweredFromCache() {
+    FakeBackend gnark = new FakeBackend("gnark");
+    CachingPrecompileBackend backend =
+        new CachingPrecompileBackend(gnark, new PrecompileResultCache(1 << 20, 10_000));
+
+    PrecompileResult first = backend.compute(PrecompileOperation.BLS12_PAIRING, PAIRING);
+    PrecompileResult second = backend.compute(PrecompileOperation.BLS12_PAIRING, PAIRING.clone());
+
+    assertThat(gnark.calls).hasValue(1);
+    assertThat(second.agreesWith(first)).isTrue();
+    assertThat(second.output().get()).isNotSameAs(first.output().get());
+    assertThat(backend.name()).isEqualTo("gnark");
+
+    PrecompileResultCache.Stats stats = backend.cache().stats();
+    assertThat(stats.hits()).isEqualTo(1);
+    assertThat(stats.misses()).isEqualTo(1);
+    assertThat(stats.entries()).isEqualTo(1);
+    assertThat(stats.hitRate()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void operationsAndInputsDoNotMix() {
+    FakeBackend gnark = new FakeBackend("gnark");
+    CachingPrecompileBackend backend =
+        new CachingPrecompileBackend(gnark, new PrecompileResultCache(1 << 20, 0));
+    byte[] other = PAIRING.clone();
+    other[0] = 1;
+
+    backend.compute(PrecompileOperation.BLS12_PAIRING, PAIRING);
+    backend.compute(PrecompileOperation.BN254_PAIRING, PAIRING);
+    backend.compute(PrecompileOperation.BLS12_PAIRING, other);
+
+    assertThat(gnark.calls).hasValue(3);
+    assertThat(backend.cache().stats().hits()).isZero();
+  }
+
+  @Test
+  public void cheapCallsBypassCache() {
+    FakeBackend gnark = new FakeBackend("gnark");
+    CachingPrecompileBackend backend =
+        new CachingPrecompileBackend(gnark, new PrecompileResultCache(1 << 20, 10_000));
+
+    backend.compute(PrecompileOperation.BLS12_G1_ADD, new byte[256]);
+    backend.compute(PrecompileOperation.BLS12_G1_ADD, new byte[256]);
+
+    assertThat(gnark.calls).hasValue(2);
+    PrecompileResultCache.Stats stats = backend.cache().stats();
+    assertThat(stats.bypassed()).isEqualTo(2);
+    assertThat(stats.entries()).isZero();
+    assertThat(stats.hitRate()).isZero();
+  }
+
+  @Test
+  public void leastRecentlyUsedEntriesAreEvicted() {
+    PrecompileResultCache cache =
+        new PrecompileResultCache(2 * PrecompileResultCache.entryBytes(1), 0);
+    byte[] a = {1};
+    byte[] b = {2};
+    byte[] c = {3};
+
+    cache.compute("op", a, 0, PrecompileResult::success);
+    cache.compute("op", b, 0, PrecompileResult::success);
+    cache.compute("op", a, 0, PrecompileResult::success);
+    cache.compute("op", c, 0, PrecompileResult::success);
+    cache.compute("op", a, 0, PrecompileResult::success);
+    cache.compute("op", b, 0, PrecompileResult::success);
+
+    PrecompileResultCache.Stats stats = cache.stats();
+    assertThat(stats.hits()).isEqualTo(2);
+    assertThat(stats.misses()).isEqualTo(4);
+    assertThat(stats.evictions()).isEqualTo(2);
+    assertThat(stats.entries()).isEqualTo(2);
+    assertThat(stats.bytes())
+        .isLessThanOrEqualTo(2 * PrecompileResultCache.entryBytes(1));
+  }
+
+  @Test
+  public void failuresAreCached() {
+    PrecompileResultCache cache = new PrecompileResultCache(1 << 20, 0);
+    cache.compute("op", new byte[] {1}, 0, in -> PrecompileResult.failure("invalid point"));
+
+    PrecompileResult result =
+        cache.compute("op", new byte[] {1}, 0, in -> PrecompileResult.success(in));
+
+    assertThat(result.isSuccess()).isFalse();
+    assertThat(result.error()).contains("invalid point");
+  }
+
+  @Test
+  public void clearDropsEntriesAndCacheKeepsWorking() {
+    PrecompileResultCache cache = new PrecompileResultCache(1 << 20, 0);
+    cache.compute("op", new byte[] {1}, 0, in -> PrecompileResult.success(new byte[64]));
+    cache.compute("op", new byte[] {2}, 0, in -> PrecompileResult.success(new byte[0]));
+
+    cache.clear();
+
+    assertThat(cache.stats().entries()).isZero();
+    assertThat(cache.stats().bytes()).isZero();
+    cache.compute("op", new byte[] {2}, 0, in -> PrecompileResult.success(new byte[0]));
+    PrecompileResult empty =
+        cache.compute("op", new byte[] {2}, 0, in -> PrecompileResult.success(in));
+    assertThat(empty.output()).hasValueSatisfying(output -> assertThat(output).isEmpty());
+    assertThat(cache.stats().hits()).isEqualTo(1);
+  }
+
+  @Test
+  public void modExpGasFollowsEip2565() {
+    byte[] eip198Example =
+        HexFormat.of()
+            .parseHex(
+                "0000000000000000000000000000000000000000000000000000000000000001"
+                    + "0000000000000000000000000000000000000000000000000000000000000020"
+                    + "0000000000000000000000000000000000000000000000000000000000000020"
+                    + "03"
+                    + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2e"
+                    + "fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f");
+
+    assertThat(CachingModExp.gas(eip198Example)).isEqualTo(1360);
+    assertThat(CachingModExp.gas(new byte[0])).isEqualTo(200);
+  }
+
+  @Test
+  public void modExpGasSaturatesOnHugeLengths() {
+    byte[] input = new byte[96];
+    Arrays.fill(input, (byte) 0xff);
+
+    assertThat(CachingModExp.gas(input)).isEqualTo(Long.MAX_VALUE / 3);
+  }
+
+  @Test
+  public void modExpRefusesHugeModulusBeforeAllocating() {
+    byte[] input = new byte[96];
+    input[92] = 0x7f;
+    Arrays.fill(input, 93, 96, (byte) 0xff);
+    CachingModExp modExp = new CachingModExp(new PrecompileResultCache(1 << 20, 0));
+
+    PrecompileResult result = modExp.compute(input);
+
+    assertThat(result.isSuccess()).isFalse();
+    assertThat(modExp.cache().stats().misses()).isZero();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hyperledger.besu.nativelib.precompiles.PrecompileOperation.BLS12_G1_ADD;
+import static org.hyperledger.besu.nativelib.precompiles.PrecompileOperation.BLS12_G1_MSM;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class PrecompileRouterTest {
+
+  private final FakeBackend fast = new FakeBackend("fast");
+  private final FakeBackend slow = new FakeBackend("slow");
+
+  @Test
+  public void routesBySizeClass() {
+    RoutingTable table =
+        RoutingTable.builder()
+            .route(BLS12_G1_MSM, 0, "slow")
+            .route(BLS12_G1_MSM, 3, "fast")
+            .build();
+    PrecompileRouter router = new PrecompileRouter(List.of(slow, fast), table);
+
+    assertThat(output(router, BLS12_G1_MSM, 160 * 7)).isEqualTo("slow");
+    assertThat(output(router, BLS12_G1_MSM, 160 * 8)).isEqualTo("fast");
+    // beyond the largest benchmarked class
+    assertThat(output(router, BLS12_G1_MSM, 160 * 1000)).isEqualTo("fast");
+    // no entry for the operation, first usable backend
+    assertThat(output(router, BLS12_G1_ADD, 256)).isEqualTo("slow");
+  }
+
+  @Test
+  public void fallsBackWhenRoutedBackendIsUnavailable() {
+    RoutingTable table = RoutingTable.builder().route(BLS12_G1_ADD, 0, "fast").build();
+    PrecompileRouter router = new PrecompileRouter(List.of(fast, slow), table);
+    fast.available = false;
+
+    assertThat(output(router, BLS12_G1_ADD, 256)).isEqualTo("slow");
+    assertThat(router.usableBackends()).containsExactly(slow);
+  }
+
+  @Test
+  public void fallsBackAndStopsUsingBackendAfterLinkageError() {
+    RoutingTable table = RoutingTable.builder().route(BLS12_G1_ADD, 0, "fast").build();
+    PrecompileRouter router = new PrecompileRouter(List.of(fast, slow), table);
+    fast.broken = true;
+
+    assertThat(output(router, BLS12_G1_ADD, 256)).isEqualTo("slow");
+    assertThat(output(router, BLS12_G1_ADD, 256)).isEqualTo("slow");
+    assertThat(fast.calls.get()).isEqualTo(1);
+    assertThat(router.backendFor(BLS12_G1_ADD, 256)).contains(slow);
+  }
+
+  @Test
+  public void failsWhenNoBackendIsUsable() {
+    fast.available = false;
+    slow.broken = true;
+    PrecompileRouter router =
+        new PrecompileRouter(List.of(fast, slow), RoutingTable.builder().build());
+
+    assertThatThrownBy(() -> router.compute(BLS12_G1_ADD, new byte[256]))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void calibrationRoutesToFastestAvailableBackend() {
+    slow.delayNanos = 2_000_000;
+    PrecompileRouter router = PrecompileRouter.calibrate(List.of(slow, fast));
+
+    for (PrecompileOperation operation : PrecompileOperation.values()) {
+      assertThat(router.routingTable().backendFor(operation, 0)).contains("fast");
+    }
+    assertThat(router.routingTable().entries().get(BLS12_G1_MSM))
+        .hasSize(BackendBenchmark.DEFAULT_MAX_SIZE_CLASS + 1);
+    assertThat(router.routingTable().entries().get(BLS12_G1_ADD)).hasSize(1);
+  }
+
+  @Test
+  public void calibrationSkipsUnavailableBackends() {
+    fast.available = false;
+    RoutingTable table = BackendBenchmark.run(List.of(slow, fast), 1, 1);
+
+    assertThat(table.backendFor(BLS12_G1_MSM, 1)).contains("slow");
+  }
+
+  private static String output(
+      final PrecompileRouter router, final PrecompileOperation operation, final int inputLength) {
+    return new String(router.compute(operation, new byte[inputLength]).output().orElseThrow());
+  }
+}
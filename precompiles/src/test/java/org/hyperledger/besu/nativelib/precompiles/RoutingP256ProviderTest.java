@@ -0,0 +1,80 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RoutingP256ProviderTest {
+
+  private final FakeP256Provider verifier =
+      new FakeP256Provider(
+          "verifier",
+          EnumSet.of(P256Operation.VERIFY, P256Operation.VERIFY_MALLEABLE, P256Operation.RECOVER));
+  private final FakeP256Provider full =
+      new FakeP256Provider("full", EnumSet.allOf(P256Operation.class));
+
+  @Test
+  public void benchmarkRoutesEachOperationToFastestSupportingProvider() {
+    full.delayNanos = 100_000;
+    RoutingP256Provider provider = RoutingP256Provider.calibrate(List.of(full, verifier));
+
+    assertThat(provider.providerFor(P256Operation.VERIFY)).contains(verifier);
+    assertThat(provider.providerFor(P256Operation.VERIFY_MALLEABLE)).contains(verifier);
+    assertThat(provider.providerFor(P256Operation.RECOVER)).contains(verifier);
+    // only one provider signs, however slow it is
+    assertThat(provider.providerFor(P256Operation.SIGN)).contains(full);
+
+    byte[] publicKey = new byte[3 + P256Provider.PUBLIC_KEY_BYTES];
+    assertThat(provider.recover(new byte[32], 0, new byte[64], 0, 0, publicKey, 3))
+        .isEqualTo(P256Provider.STATUS_SUCCESS);
+    assertThat(publicKey[3]).isEqualTo((byte) 'v');
+  }
+
+  @Test
+  public void fallsBackAndStopsUsingProviderAfterLinkageError() {
+    RoutingP256Provider provider =
+        new RoutingP256Provider(
+            List.of(verifier, full), Map.of(P256Operation.VERIFY_MALLEABLE, verifier));
+    verifier.broken = true;
+
+    byte[] input = new byte[P256Provider.VERIFY_INPUT_BYTES];
+    assertThat(provider.verify(input, 0, true)).isEqualTo(P256Provider.STATUS_SUCCESS);
+    assertThat(provider.verify(input, 0, true)).isEqualTo(P256Provider.STATUS_SUCCESS);
+    assertThat(verifier.calls.get()).isEqualTo(1);
+    assertThat(full.calls.get()).isEqualTo(2);
+    assertThat(provider.providerFor(P256Operation.RECOVER)).contains(full);
+  }
+
+  @Test
+  public void rejectsOperationsNoUsableProviderSupports() {
+    RoutingP256Provider provider = new RoutingP256Provider(List.of(verifier, full), Map.of());
+    full.available = false;
+
+    assertThat(provider.supports(P256Operation.SIGN)).isFalse();
+    assertThatThrownBy(
+            () ->
+                provider.sign(
+                    new byte[32], 0, new byte[32], 0, new byte[64], 0, new byte[65], 0))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+}
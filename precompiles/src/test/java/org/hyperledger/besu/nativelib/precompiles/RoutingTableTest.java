@@ -0,0 +1,78 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RoutingTableTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void storeAndLoadRoundTrip() throws IOException {
+    RoutingTable table =
+        RoutingTable.builder()
+            .route(PrecompileOperation.BLS12_PAIRING, 0, "gnark")
+            .route(PrecompileOperation.BLS12_PAIRING, 4, "constantine")
+            .route(PrecompileOperation.BN254_G1_MUL, 0, "constantine")
+            .build();
+    Path profile = folder.newFile("routing.properties").toPath();
+
+    table.store(profile);
+    RoutingTable loaded = RoutingTable.load(profile);
+
+    assertThat(loaded.entries()).isEqualTo(table.entries());
+    assertThat(loaded.backendFor(PrecompileOperation.BLS12_PAIRING, 5)).contains("constantine");
+    assertThat(loaded.backendFor(PrecompileOperation.BLS12_PAIRING, 3)).contains("gnark");
+    assertThat(loaded.backendFor(PrecompileOperation.BLS12_G2_ADD, 0)).isEmpty();
+  }
+
+  @Test
+  public void lookupBelowSmallestClassUsesSmallestClass() {
+    RoutingTable table =
+        RoutingTable.builder().route(PrecompileOperation.BLS12_G2_MSM, 2, "gnark").build();
+
+    assertThat(table.backendFor(PrecompileOperation.BLS12_G2_MSM, 0)).contains("gnark");
+  }
+
+  @Test
+  public void loadRejectsUnknownOperation() throws IOException {
+    Path profile = folder.newFile("bad.properties").toPath();
+    Files.writeString(profile, "BLS12_NOPE.0=gnark\n", StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> RoutingTable.load(profile)).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void sizeClassIsLog2OfPairs() {
+    assertThat(PrecompileOperation.BLS12_G1_MSM.sizeClass(160)).isEqualTo(0);
+    assertThat(PrecompileOperation.BLS12_G1_MSM.sizeClass(160 * 3)).isEqualTo(1);
+    assertThat(PrecompileOperation.BLS12_G1_MSM.sizeClass(160 * 4)).isEqualTo(2);
+    assertThat(PrecompileOperation.BLS12_G1_MSM.sizeClass(0)).isEqualTo(0);
+    assertThat(PrecompileOperation.BLS12_G1_ADD.sizeClass(256 * 8)).isEqualTo(0);
+    assertThat(PrecompileOperation.BN254_PAIRING.benchmarkInput(4)).hasSize(4 * 192);
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.precompiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hyperledger.besu.nativelib.precompiles.PrecompileOperation.BN254_G1_ADD;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.junit.Test;
+
+public class ShadowVerifierTest {
+
+  private static final Executor DIRECT = Runnable::run;
+
+  private final AtomicInteger shadowCalls = new AtomicInteger();
+  private final List<ShadowVerifier.Mismatch<byte[], Integer>> mismatches = new ArrayList<>();
+
+  private ShadowVerifier<byte[], Integer> verifier(final double percentage, final Executor executor) {
+    return new ShadowVerifier<>(
+        "sum",
+        ShadowVerifierTest::sum,
+        input -> {
+          shadowCalls.incrementAndGet();
+          if (input.length == 0) {
+            throw new IllegalStateException("empty input");
+          }
+          // disagrees on inputs starting with 0xff
+          return input[0] == (byte) 0xff ? -1 : sum(input);
+        },
+        Integer::equals,
+        byte[]::clone,
+        UnaryOperator.identity(),
+        percentage,
+        executor,
+        mismatches::add);
+  }
+
+  @Test
+  public void reportsOnlyMismatches() {
+    ShadowVerifier<byte[], Integer> verifier = verifier(100, DIRECT);
+
+    assertThat(verifier.apply(new byte[] {1, 2, 3})).isEqualTo(6);
+    assertThat(verifier.apply(new byte[] {(byte) 0xff, 1})).isEqualTo(256);
+
+    assertThat(verifier.sampledCount()).isEqualTo(2);
+    assertThat(verifier.mismatchCount()).isEqualTo(1);
+    assertThat(mismatches).hasSize(1);
+    assertThat(mismatches.get(0).name()).isEqualTo("sum");
+    assertThat(mismatches.get(0).primary()).isEqualTo(256);
+    assertThat(mismatches.get(0).shadow()).isEqualTo(-1);
+  }
+
+  @Test
+  public void doesNotRunShadowWhenNotSampled() {
+    ShadowVerifier<byte[], Integer> verifier = verifier(0, DIRECT);
+    for (int i = 0; i < 100; i++) {
+      verifier.apply(new byte[] {(byte) 0xff});
+    }
+    assertThat(shadowCalls).hasValue(0);
+    assertThat(verifier.sampledCount()).isZero();
+  }
+
+  @Test
+  public void shadowFailuresAreCountedNotThrown() {
+    ShadowVerifier<byte[], Integer> verifier = verifier(100, DIRECT);
+
+    assertThat(verifier.apply(new byte[0])).isZero();
+    assertThat(verifier.shadowFailureCount()).isEqualTo(1);
+    assertThat(verifier.mismatchCount()).isZero();
+  }
+
+  @Test
+  public void dropsShadowWhenExecutorIsSaturated() {
+    ShadowVerifier<byte[], Integer> verifier =
+        verifier(
+            100,
+            r -> {
+              throw new RejectedExecutionException();
+            });
+
+    assertThat(verifier.apply(new byte[] {1})).isEqualTo(1);
+    assertThat(verifier.droppedCount()).isEqualTo(1);
+    assertThat(shadowCalls).hasValue(0);
+  }
+
+  @Test
+  public void shadowSeesInputAsPassedToPrimary() {
+    List<Runnable> queued = new ArrayList<>();
+    ShadowVerifier<byte[], Integer> verifier = verifier(100, queued::add);
+
+    byte[] input = {1, 2};
+    verifier.apply(input);
+    // caller reuses its buffer before the shadow ran
+    input[0] = (byte) 0xff;
+    queued.forEach(Runnable::run);
+
+    assertThat(verifier.mismatchCount()).isZero();
+  }
+
+  @Test
+  public void shadowComparesWithPrimaryResultAsReturned() {
+    List<Runnable> queued = new ArrayList<>();
+    byte[] shared = {1, 2};
+    ShadowVerifier<byte[], byte[]> verifier =
+        new ShadowVerifier<>(
+            "copy",
+            input -> shared,
+            byte[]::clone,
+            Arrays::equals,
+            byte[]::clone,
+            byte[]::clone,
+            100,
+            queued::add,
+            m -> {});
+
+    byte[] result = verifier.apply(new byte[] {1, 2});
+    // caller reuses the returned buffer before the shadow ran
+    result[0] = (byte) 0xff;
+    queued.forEach(Runnable::run);
+
+    assertThat(verifier.sampledCount()).isEqualTo(1);
+    assertThat(verifier.mismatchCount()).isZero();
+  }
+
+  @Test
+  public void shadowBackendReturnsPrimaryResult() {
+    List<ShadowVerifier.Mismatch<ShadowPrecompileBackend.Call, PrecompileResult>> reported =
+        new ArrayList<>();
+    ShadowPrecompileBackend backend =
+        new ShadowPrecompileBackend(
+            new FakeBackend("primary"), new FakeBackend("shadow"), 100, DIRECT, reported::add);
+
+    PrecompileResult result = backend.compute(BN254_G1_ADD, new byte[128]);
+
+    assertThat(backend.name()).isEqualTo("primary");
+    assertThat(new String(result.output().orElseThrow())).isEqualTo("primary");
+    assertThat(reported).hasSize(1);
+    assertThat(reported.get(0).name()).isEqualTo("primary/shadow");
+    assertThat(reported.get(0).input().operation()).isEqualTo(BN254_G1_ADD);
+  }
+
+  private static int sum(final byte[] input) {
+    int sum = 0;
+    for (byte b : input) {
+      sum += b & 0xff;
+    }
+    return sum;
+  }
+}
@@ -13,22 +13,86 @@
  * SPDX-License-Identifier: Apache-2.0
  *
  */
+#define _POSIX_C_SOURCE 200809L
+
 #include "secp256k1_ecrecover.h"
+#include "keccak_f1600.h"
 #include <secp256k1.h>
 #include <secp256k1_recovery.h>
+#include <secp256k1_ecdh.h>
+#include <pthread.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
 #include <string.h>
+#include <unistd.h>
 
-// Create a shared context for secp256k1 operations
+// Shared context for secp256k1 operations, created exactly once. The context is only read after
+// creation, which libsecp256k1 allows from any number of threads.
 static secp256k1_context* ctx = NULL;
+static pthread_once_t ctx_once = PTHREAD_ONCE_INIT;
+static int self_test_passed = 0;
 
-// Initialize the context once
-static void ensure_context() {
-    if (ctx == NULL) {
-        ctx = secp256k1_context_create(SECP256K1_CONTEXT_VERIFY);
-        if (ctx == NULL) {
-            return; // Failed to create context
+// A known signature, recovered once at initialization to fault in the precomputed ecmult tables
+// before the first real call and to check the library actually recovers keys
+static const unsigned char SELF_TEST_HASH[32] = {
+    0x00, 0x49, 0x87, 0x24, 0x59, 0x82, 0x74, 0x32, 0x34, 0x23, 0x44, 0x98, 0x72, 0x45, 0x98, 0x27,
+    0x43, 0x23, 0x42, 0x34, 0x49, 0x87, 0x24, 0x59, 0x82, 0x74, 0x32, 0x34, 0x23, 0x42, 0x99, 0x43
+};
+static const unsigned char SELF_TEST_SIGNATURE[64] = {
+    0xe8, 0x35, 0x9c, 0x34, 0x17, 0x71, 0xdb, 0x7f, 0x9e, 0xa3, 0xa6, 0x62, 0xa1, 0x74, 0x1d, 0x27,
+    0x77, 0x5c, 0xe2, 0x77, 0x96, 0x14, 0x70, 0x02, 0x8e, 0x05, 0x4e, 0xd3, 0x28, 0x5a, 0xab, 0x8e,
+    0x31, 0xf6, 0x3e, 0xaa, 0xc3, 0x5c, 0x4e, 0x61, 0x78, 0xab, 0xbc, 0x2a, 0x10, 0x73, 0x04, 0x0a,
+    0xc9, 0xbb, 0xb0, 0xb6, 0x7f, 0x2b, 0xc8, 0x9a, 0x2e, 0x95, 0x93, 0xba, 0x9a, 0xbe, 0x8c, 0x53
+};
+static const unsigned char SELF_TEST_PUBLIC_KEY[65] = {
+    0x04,
+    0x5e, 0x2e, 0x0d, 0xbe, 0x0f, 0xe2, 0xe0, 0xb1, 0x68, 0x3f, 0x02, 0x0e, 0x40, 0x0d, 0xac, 0x7d,
+    0x83, 0xd8, 0xe8, 0x37, 0x9b, 0x22, 0x8e, 0x11, 0x15, 0x93, 0x7c, 0x71, 0xb9, 0xbd, 0x34, 0x81,
+    0x84, 0x02, 0xea, 0x38, 0x56, 0xe2, 0xc3, 0x30, 0x36, 0xe2, 0x9c, 0xf8, 0x9a, 0x72, 0x96, 0x69,
+    0xea, 0x35, 0x7f, 0xb2, 0xe9, 0xfe, 0x5e, 0xe8, 0xb5, 0xff, 0xee, 0x36, 0xcc, 0x1f, 0xf6, 0x2f
+};
+
+static void create_context(void) {
+    secp256k1_context* created =
+        secp256k1_context_create(SECP256K1_CONTEXT_VERIFY | SECP256K1_CONTEXT_SIGN);
+    if (created == NULL) {
+        return; // Failed to create context
+    }
+
+    // Blind signing against side channels, randomization must happen before the context is shared
+    unsigned char seed[32];
+    FILE* urandom = fopen("/dev/urandom", "rb");
+    if (urandom != NULL) {
+        if (fread(seed, 1, sizeof(seed), urandom) == sizeof(seed)) {
+            secp256k1_context_randomize(created, seed);
         }
+        fclose(urandom);
     }
+
+    secp256k1_ecdsa_recoverable_signature sig;
+    secp256k1_pubkey pubkey;
+    unsigned char serialized[65];
+    size_t serialized_len = sizeof(serialized);
+    self_test_passed =
+        secp256k1_ecdsa_recoverable_signature_parse_compact(created, &sig, SELF_TEST_SIGNATURE, 0) == 1
+        && secp256k1_ecdsa_recover(created, &pubkey, &sig, SELF_TEST_HASH) == 1
+        && secp256k1_ec_pubkey_serialize(
+               created, serialized, &serialized_len, &pubkey, SECP256K1_EC_UNCOMPRESSED) == 1
+        && serialized_len == sizeof(serialized)
+        && memcmp(serialized, SELF_TEST_PUBLIC_KEY, sizeof(serialized)) == 0;
+
+    ctx = created;
+}
+
+// Initialize the context once, safe to call concurrently
+static void ensure_context(void) {
+    pthread_once(&ctx_once, create_context);
+}
+
+int secp256k1_ecrecover_init(void) {
+    ensure_context();
+    return ctx != NULL && self_test_passed ? 0 : 1;
 }
 
 // Internal implementation with size validation
@@ -108,9 +172,618 @@ int secp256k1_ecrecover_jni(
         output_buffer, 65);
 }
 
+// Statuses of the batch records, keep in sync with LibSecp256k1JNI.STATUS_*
+#define ECRECOVER_STATUS_SUCCESS 0
+#define ECRECOVER_STATUS_FAIL 1
+#define ECRECOVER_STATUS_ERROR 2
+// only returned by secp256k1_verify_handle
+#define ECRECOVER_STATUS_STALE_HANDLE 3
+
+// Fewer records than this per thread cost more in thread startup than they save
+#define BATCH_MIN_RECORDS_PER_THREAD 8
+#define BATCH_MAX_THREADS 64
+
+// secp256k1 curve order, big-endian
+static const unsigned char SECP256K1_ORDER[32] = {
+    0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFE,
+    0xBA, 0xAE, 0xDC, 0xE6, 0xAF, 0x48, 0xA0, 0x3B, 0xBF, 0xD2, 0x5E, 0x8C, 0xD0, 0x36, 0x41, 0x41
+};
+
+// Whether a 32-byte big-endian scalar is in [1, n-1]
+static int scalar_in_range(const unsigned char scalar[32]) {
+    unsigned char any = 0;
+    for (int i = 0; i < 32; i++) {
+        any |= scalar[i];
+    }
+    return any != 0 && memcmp(scalar, SECP256K1_ORDER, 32) < 0;
+}
+
+// Writes the last 20 bytes of keccak256(public_key), the Ethereum address of the key
+static void public_key_to_address(const unsigned char public_key[64], unsigned char address[20]) {
+    uint64_t st[25] = { 0 };
+    for (int i = 0; i < 8; i++) {
+        uint64_t lane = 0;
+        for (int b = 7; b >= 0; b--) {
+            lane = (lane << 8) | public_key[8 * i + b];
+        }
+        st[i] = lane;
+    }
+    // keccak padding: 0x01 after the message, 0x80 in the last byte of the 136-byte block
+    st[8] ^= 0x01;
+    st[16] ^= 0x8000000000000000ULL;
+    keccakf(st);
+
+    unsigned char digest[32];
+    for (int i = 0; i < 4; i++) {
+        for (int b = 0; b < 8; b++) {
+            digest[8 * i + b] = (unsigned char) (st[i] >> (8 * b));
+        }
+    }
+    memcpy(address, digest + 12, 20);
+}
+
+// Recovers a 64-byte public key (x || y), zeroed on failure
+static int ecrecover_checked(const unsigned char message_hash[32], const unsigned char signature[64],
+                             int recovery_id, unsigned char public_key[64]) {
+    unsigned char serialized[65];
+
+    if (recovery_id < 0 || recovery_id > 1
+            || !scalar_in_range(signature) || !scalar_in_range(signature + 32)) {
+        memset(public_key, 0, 64);
+        return ECRECOVER_STATUS_ERROR;
+    }
+    if (secp256k1_ecrecover_jni_impl(message_hash, 32, signature, 64, recovery_id, serialized, 65) != 0) {
+        memset(public_key, 0, 64);
+        return ECRECOVER_STATUS_FAIL;
+    }
+    memcpy(public_key, serialized + 1, 64);
+    return ECRECOVER_STATUS_SUCCESS;
+}
+
+static int ecrecover_address_checked(const unsigned char message_hash[32],
+                                     const unsigned char signature[64],
+                                     int recovery_id, unsigned char address[20]) {
+    unsigned char public_key[64];
+    int status = ecrecover_checked(message_hash, signature, recovery_id, public_key);
+    if (status != ECRECOVER_STATUS_SUCCESS) {
+        memset(address, 0, 20);
+        return status;
+    }
+    public_key_to_address(public_key, address);
+    return ECRECOVER_STATUS_SUCCESS;
+}
+
+int secp256k1_ecrecover_address(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    int recovery_id,
+    unsigned char address[20]) {
+
+    if (message_hash == NULL || signature == NULL || address == NULL) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    return ecrecover_address_checked(message_hash, signature, recovery_id, address);
+}
+
+int secp256k1_ecrecover_at(
+    const unsigned char message_hash[], int message_hash_offset,
+    const unsigned char signature[], int signature_offset,
+    int recovery_id,
+    unsigned char public_key[], int public_key_offset) {
+
+    if (message_hash == NULL || signature == NULL || public_key == NULL
+            || message_hash_offset < 0 || signature_offset < 0 || public_key_offset < 0) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    return ecrecover_checked(message_hash + message_hash_offset, signature + signature_offset,
+                             recovery_id, public_key + public_key_offset);
+}
+
+// Processes a single batch record into output, e.g. a recovered public key or address
+typedef int (*batch_record_fn)(const unsigned char* record, unsigned char* output);
+
+static int ecrecover_record(const unsigned char* record, unsigned char* output) {
+    return ecrecover_checked(record, record + 32, record[96], output);
+}
+
+static int ecrecover_address_record(const unsigned char* record, unsigned char* output) {
+    return ecrecover_address_checked(record, record + 32, record[96], output);
+}
+
+typedef struct {
+    batch_record_fn process;
+    const unsigned char* records;
+    size_t record_bytes;
+    unsigned char* outputs;
+    size_t output_bytes;
+    unsigned char* statuses;
+    int count;
+    int succeeded;
+} batch_task;
+
+static void* batch_worker(void* arg) {
+    batch_task* task = (batch_task*) arg;
+    task->succeeded = 0;
+    for (int i = 0; i < task->count; i++) {
+        task->statuses[i] = (unsigned char) task->process(
+            task->records + (size_t) i * task->record_bytes,
+            task->outputs + (size_t) i * task->output_bytes);
+        if (task->statuses[i] == ECRECOVER_STATUS_SUCCESS) {
+            task->succeeded++;
+        }
+    }
+    return NULL;
+}
+
+static int batch_run(
+    batch_record_fn process,
+    const unsigned char records[],
+    size_t record_bytes,
+    int count,
+    unsigned char outputs[],
+    size_t output_bytes,
+    unsigned char statuses[],
+    int num_threads) {
+
+    if (records == NULL || outputs == NULL || statuses == NULL || count <= 0) {
+        return 0;
+    }
+
+    // Create the context before any worker reads it
+    ensure_context();
+    if (ctx == NULL) {
+        memset(outputs, 0, (size_t) count * output_bytes);
+        memset(statuses, ECRECOVER_STATUS_FAIL, (size_t) count);
+        return 0;
+    }
+
+    int nb_tasks = num_threads > 0 ? num_threads : (int) sysconf(_SC_NPROCESSORS_ONLN);
+    if (nb_tasks > count / BATCH_MIN_RECORDS_PER_THREAD) {
+        nb_tasks = count / BATCH_MIN_RECORDS_PER_THREAD;
+    }
+    if (nb_tasks > BATCH_MAX_THREADS) {
+        nb_tasks = BATCH_MAX_THREADS;
+    }
+    if (nb_tasks < 1) {
+        nb_tasks = 1;
+    }
+
+    batch_task tasks[BATCH_MAX_THREADS];
+    pthread_t threads[BATCH_MAX_THREADS];
+    int started[BATCH_MAX_THREADS];
+    int offset = 0;
+    for (int t = 0; t < nb_tasks; t++) {
+        int chunk = count / nb_tasks + (t < count % nb_tasks ? 1 : 0);
+        tasks[t].process = process;
+        tasks[t].records = records + (size_t) offset * record_bytes;
+        tasks[t].record_bytes = record_bytes;
+        tasks[t].outputs = outputs + (size_t) offset * output_bytes;
+        tasks[t].output_bytes = output_bytes;
+        tasks[t].statuses = statuses + offset;
+        tasks[t].count = chunk;
+        offset += chunk;
+    }
+
+    // The calling thread takes the first chunk, a thread which fails to start runs inline
+    for (int t = 1; t < nb_tasks; t++) {
+        started[t] = pthread_create(&threads[t], NULL, batch_worker, &tasks[t]) == 0;
+        if (!started[t]) {
+            batch_worker(&tasks[t]);
+        }
+    }
+    batch_worker(&tasks[0]);
+
+    int succeeded = tasks[0].succeeded;
+    for (int t = 1; t < nb_tasks; t++) {
+        if (started[t]) {
+            pthread_join(threads[t], NULL);
+        }
+        succeeded += tasks[t].succeeded;
+    }
+    return succeeded;
+}
+
+int secp256k1_ecrecover_batch(
+    const unsigned char records[],
+    int count,
+    unsigned char public_keys[],
+    unsigned char statuses[],
+    int num_threads) {
+
+    return batch_run(ecrecover_record, records, ECRECOVER_BATCH_RECORD_BYTES, count,
+                     public_keys, 64, statuses, num_threads);
+}
+
+int secp256k1_ecrecover_address_batch(
+    const unsigned char records[],
+    int count,
+    unsigned char addresses[],
+    unsigned char statuses[],
+    int num_threads) {
+
+    return batch_run(ecrecover_address_record, records, ECRECOVER_BATCH_RECORD_BYTES, count,
+                     addresses, 20, statuses, num_threads);
+}
+
+// Verifies against a parsed key. secp256k1_ecdsa_verify only accepts lower-S signatures, so s is
+// normalized first; s malleability is policed by callers where it matters.
+static int verify_parsed(const unsigned char message_hash[32], const unsigned char signature[64],
+                         const secp256k1_pubkey* pubkey) {
+    secp256k1_ecdsa_signature sig;
+    if (secp256k1_ecdsa_signature_parse_compact(ctx, &sig, signature) != 1) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    secp256k1_ecdsa_signature_normalize(ctx, &sig, &sig);
+    return secp256k1_ecdsa_verify(ctx, &sig, message_hash, pubkey) == 1
+        ? ECRECOVER_STATUS_SUCCESS
+        : ECRECOVER_STATUS_FAIL;
+}
+
+int secp256k1_verify_compact(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    const unsigned char public_key[64]) {
+
+    ensure_context();
+    if (ctx == NULL || message_hash == NULL || signature == NULL || public_key == NULL) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+
+    unsigned char serialized[65];
+    serialized[0] = 0x04;
+    memcpy(serialized + 1, public_key, 64);
+
+    secp256k1_pubkey pubkey;
+    if (secp256k1_ec_pubkey_parse(ctx, &pubkey, serialized, sizeof(serialized)) != 1) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    return verify_parsed(message_hash, signature, &pubkey);
+}
+
+int secp256k1_sign_recoverable_jni(
+    const unsigned char message_hash[32],
+    const unsigned char secret_key[32],
+    unsigned char output[65]) {
+
+    ensure_context();
+    if (ctx == NULL || message_hash == NULL || secret_key == NULL || output == NULL) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+
+    secp256k1_ecdsa_recoverable_signature sig;
+    int recovery_id = 0;
+    if (secp256k1_ecdsa_sign_recoverable(ctx, &sig, message_hash, secret_key, NULL, NULL) != 1) {
+        memset(output, 0, 65);
+        return ECRECOVER_STATUS_ERROR; // invalid secret key
+    }
+    secp256k1_ecdsa_recoverable_signature_serialize_compact(ctx, output, &recovery_id, &sig);
+    output[64] = (unsigned char) recovery_id;
+    return ECRECOVER_STATUS_SUCCESS;
+}
+
+// ECDH hash function returning the shared point's x-coordinate unhashed, as RLPx key agreement
+// expects; libsecp256k1's default instead hashes the compressed point with SHA-256
+static int ecdh_hash_raw_x(unsigned char* output, const unsigned char* x32,
+                           const unsigned char* y32, void* data) {
+    (void) y32;
+    (void) data;
+    memcpy(output, x32, 32);
+    return 1;
+}
+
+static int ecdh_checked(const unsigned char public_key[64], const unsigned char secret_key[32],
+                        int mode, unsigned char output[32]) {
+    unsigned char serialized[65];
+    serialized[0] = 0x04;
+    memcpy(serialized + 1, public_key, 64);
+
+    secp256k1_pubkey pubkey;
+    secp256k1_ecdh_hash_function hash =
+        mode == SECP256K1_ECDH_MODE_RAW_X ? ecdh_hash_raw_x : secp256k1_ecdh_hash_function_sha256;
+    if ((mode != SECP256K1_ECDH_MODE_RAW_X && mode != SECP256K1_ECDH_MODE_SHA256)
+            || secp256k1_ec_pubkey_parse(ctx, &pubkey, serialized, sizeof(serialized)) != 1
+            || secp256k1_ecdh(ctx, output, &pubkey, secret_key, hash, NULL) != 1) {
+        memset(output, 0, 32);
+        return ECRECOVER_STATUS_ERROR; // invalid mode, public key or secret key
+    }
+    return ECRECOVER_STATUS_SUCCESS;
+}
+
+int secp256k1_ecdh_jni(
+    const unsigned char public_key[64],
+    const unsigned char secret_key[32],
+    int mode,
+    unsigned char output[32]) {
+
+    ensure_context();
+    if (ctx == NULL || public_key == NULL || secret_key == NULL || output == NULL) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    return ecdh_checked(public_key, secret_key, mode, output);
+}
+
+static int ecdh_raw_x_record(const unsigned char* record, unsigned char* output) {
+    return ecdh_checked(record, record + 64, SECP256K1_ECDH_MODE_RAW_X, output);
+}
+
+static int ecdh_sha256_record(const unsigned char* record, unsigned char* output) {
+    return ecdh_checked(record, record + 64, SECP256K1_ECDH_MODE_SHA256, output);
+}
+
+static int ecdh_invalid_mode_record(const unsigned char* record, unsigned char* output) {
+    return ecdh_checked(record, record + 64, -1, output);
+}
+
+int secp256k1_ecdh_batch(
+    const unsigned char records[],
+    int count,
+    int mode,
+    unsigned char outputs[],
+    unsigned char statuses[],
+    int num_threads) {
+
+    // an invalid mode fails every record in ecdh_checked
+    batch_record_fn process = ecdh_invalid_mode_record;
+    if (mode == SECP256K1_ECDH_MODE_RAW_X) {
+        process = ecdh_raw_x_record;
+    } else if (mode == SECP256K1_ECDH_MODE_SHA256) {
+        process = ecdh_sha256_record;
+    }
+    return batch_run(process, records, SECP256K1_ECDH_BATCH_RECORD_BYTES, count,
+                     outputs, 32, statuses, num_threads);
+}
+
+// Bounded cache of parsed public keys, for keys verified against many signatures such as peer
+// and validator keys. Set associative on the leading bytes of x, which are uniformly distributed
+// for honest keys: a key may sit in any of the PUBKEY_CACHE_WAYS slots of its set. Each slot
+// keeps a small use count, bumped by hits and halved by every miss that finds its set full; a
+// missing key only replaces a slot whose count has dropped to zero. Keys ground to collide with
+// a hot key's set therefore have to outpace its hits instead of evicting it on first sight.
+// Lookups take the read lock and copy the parsed key out, so verification itself runs unlocked.
+#define PUBKEY_CACHE_WAYS 4
+#define PUBKEY_CACHE_MAX_USES 15
+
+typedef struct {
+    unsigned char key[64];
+    secp256k1_pubkey parsed;
+    uint32_t generation;
+    int occupied;
+    int uses; // bumped atomically under the read lock
+} pubkey_cache_entry;
+
+static pthread_rwlock_t pubkey_cache_lock = PTHREAD_RWLOCK_INITIALIZER;
+static pubkey_cache_entry* pubkey_cache = NULL;
+static int pubkey_cache_sets = 0;
+
+// Handles are generation << 32 | slot. The generation is 31 bits, so a handle is never negative
+// and never mistaken for PUBKEY_CACHE_UNPARSEABLE or PUBKEY_CACHE_DISABLED. It wraps to 1, as 0
+// marks a slot that was never filled; a stale handle could only alias a later key in its slot
+// after 2^31 further inserts.
+#define PUBKEY_CACHE_GENERATION_MASK 0x7FFFFFFFu
+static uint32_t pubkey_cache_generation = 0;
+
+// hits, misses, inserts, evictions
+static long long pubkey_cache_counters[4];
+#define PUBKEY_CACHE_HITS 0
+#define PUBKEY_CACHE_MISSES 1
+#define PUBKEY_CACHE_INSERTS 2
+#define PUBKEY_CACHE_EVICTIONS 3
+
+static void pubkey_cache_count(int counter) {
+    __atomic_fetch_add(&pubkey_cache_counters[counter], 1, __ATOMIC_RELAXED);
+}
+
+// the first slot of the key's set
+static int pubkey_cache_set(const unsigned char public_key[64]) {
+    uint64_t h = 0;
+    for (int i = 0; i < 8; i++) {
+        h = (h << 8) | public_key[i];
+    }
+    return (int) (h % (uint64_t) pubkey_cache_sets) * PUBKEY_CACHE_WAYS;
+}
+
+static long long pubkey_cache_handle(int slot, uint32_t generation) {
+    return ((long long) generation << 32) | (long long) slot;
+}
+
+static uint32_t pubkey_cache_next_generation(void) {
+    pubkey_cache_generation = (pubkey_cache_generation + 1) & PUBKEY_CACHE_GENERATION_MASK;
+    if (pubkey_cache_generation == 0) {
+        pubkey_cache_generation = 1;
+    }
+    return pubkey_cache_generation;
+}
+
+// a hit under the read lock; racing hits may lose an increment, which only ages the key sooner
+static void pubkey_cache_touch(pubkey_cache_entry* entry) {
+    if (__atomic_load_n(&entry->uses, __ATOMIC_RELAXED) < PUBKEY_CACHE_MAX_USES) {
+        __atomic_fetch_add(&entry->uses, 1, __ATOMIC_RELAXED);
+    }
+}
+
+// the occupied slot of the set holding public_key, or -1
+static int pubkey_cache_find(int set, const unsigned char public_key[64]) {
+    for (int way = 0; way < PUBKEY_CACHE_WAYS; way++) {
+        pubkey_cache_entry* entry = &pubkey_cache[set + way];
+        if (entry->occupied && memcmp(entry->key, public_key, 64) == 0) {
+            return set + way;
+        }
+    }
+    return -1;
+}
+
+// the slot of the set a new key may take, or -1 after ageing a set that has none, under the
+// write lock
+static int pubkey_cache_victim(int set) {
+    int victim = -1;
+    for (int way = 0; way < PUBKEY_CACHE_WAYS; way++) {
+        pubkey_cache_entry* entry = &pubkey_cache[set + way];
+        if (!entry->occupied) {
+            return set + way;
+        }
+        if (victim < 0 && entry->uses == 0) {
+            victim = set + way;
+        }
+    }
+    if (victim < 0) {
+        for (int way = 0; way < PUBKEY_CACHE_WAYS; way++) {
+            pubkey_cache[set + way].uses /= 2;
+        }
+    }
+    return victim;
+}
+
+int secp256k1_pubkey_cache_init(int capacity) {
+    pubkey_cache_entry* entries = NULL;
+    int sets = 0;
+    if (capacity > 0) {
+        sets = capacity / PUBKEY_CACHE_WAYS + (capacity % PUBKEY_CACHE_WAYS != 0);
+        entries = calloc((size_t) sets * PUBKEY_CACHE_WAYS, sizeof(pubkey_cache_entry));
+        if (entries == NULL) {
+            return 1;
+        }
+    }
+    pthread_rwlock_wrlock(&pubkey_cache_lock);
+    free(pubkey_cache);
+    pubkey_cache = entries;
+    pubkey_cache_sets = sets;
+    pubkey_cache_generation = 0;
+    for (int i = 0; i < 4; i++) {
+        __atomic_store_n(&pubkey_cache_counters[i], 0, __ATOMIC_RELAXED);
+    }
+    pthread_rwlock_unlock(&pubkey_cache_lock);
+    return 0;
+}
+
+void secp256k1_pubkey_cache_stats(long long stats[4]) {
+    for (int i = 0; i < 4; i++) {
+        stats[i] = __atomic_load_n(&pubkey_cache_counters[i], __ATOMIC_RELAXED);
+    }
+}
+
+// Finds or inserts a key. Returns its handle and copies the parsed key into parsed, or returns
+// PUBKEY_CACHE_UNPARSEABLE / PUBKEY_CACHE_DISABLED / PUBKEY_CACHE_NOT_ADMITTED. Unless the key
+// can not be parsed, parsed is filled in either way.
+#define PUBKEY_CACHE_UNPARSEABLE (-1LL)
+#define PUBKEY_CACHE_DISABLED (-2LL)
+#define PUBKEY_CACHE_NOT_ADMITTED (-3LL)
+
+static long long pubkey_cache_get(const unsigned char public_key[64], secp256k1_pubkey* parsed) {
+    long long handle = PUBKEY_CACHE_DISABLED;
+
+    pthread_rwlock_rdlock(&pubkey_cache_lock);
+    if (pubkey_cache != NULL) {
+        int slot = pubkey_cache_find(pubkey_cache_set(public_key), public_key);
+        if (slot >= 0) {
+            pubkey_cache_entry* entry = &pubkey_cache[slot];
+            pubkey_cache_touch(entry);
+            *parsed = entry->parsed;
+            handle = pubkey_cache_handle(slot, entry->generation);
+        }
+    }
+    pthread_rwlock_unlock(&pubkey_cache_lock);
+    if (handle >= 0) {
+        pubkey_cache_count(PUBKEY_CACHE_HITS);
+        return handle;
+    }
+
+    unsigned char serialized[65];
+    serialized[0] = 0x04;
+    memcpy(serialized + 1, public_key, 64);
+    if (secp256k1_ec_pubkey_parse(ctx, parsed, serialized, sizeof(serialized)) != 1) {
+        return PUBKEY_CACHE_UNPARSEABLE;
+    }
+
+    pthread_rwlock_wrlock(&pubkey_cache_lock);
+    if (pubkey_cache != NULL) {
+        pubkey_cache_count(PUBKEY_CACHE_MISSES);
+        int set = pubkey_cache_set(public_key);
+        // another thread may have inserted the key since the read lock was released
+        int slot = pubkey_cache_find(set, public_key);
+        if (slot < 0) {
+            slot = pubkey_cache_victim(set);
+            if (slot >= 0) {
+                pubkey_cache_entry* entry = &pubkey_cache[slot];
+                if (entry->occupied) {
+                    pubkey_cache_count(PUBKEY_CACHE_EVICTIONS);
+                }
+                memcpy(entry->key, public_key, 64);
+                entry->parsed = *parsed;
+                entry->generation = pubkey_cache_next_generation();
+                entry->occupied = 1;
+                entry->uses = 1;
+                pubkey_cache_count(PUBKEY_CACHE_INSERTS);
+            }
+        }
+        handle = slot >= 0
+            ? pubkey_cache_handle(slot, pubkey_cache[slot].generation)
+            : PUBKEY_CACHE_NOT_ADMITTED;
+    }
+    pthread_rwlock_unlock(&pubkey_cache_lock);
+    return handle;
+}
+
+long long secp256k1_pubkey_cache_put(const unsigned char public_key[64]) {
+    ensure_context();
+    if (ctx == NULL || public_key == NULL) {
+        return PUBKEY_CACHE_UNPARSEABLE;
+    }
+    secp256k1_pubkey parsed;
+    return pubkey_cache_get(public_key, &parsed);
+}
+
+int secp256k1_verify_compact_cached(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    const unsigned char public_key[64]) {
+
+    ensure_context();
+    if (ctx == NULL || message_hash == NULL || signature == NULL || public_key == NULL) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    secp256k1_pubkey pubkey;
+    if (pubkey_cache_get(public_key, &pubkey) == PUBKEY_CACHE_UNPARSEABLE) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    return verify_parsed(message_hash, signature, &pubkey);
+}
+
+int secp256k1_verify_handle(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    long long handle) {
+
+    ensure_context();
+    if (ctx == NULL || message_hash == NULL || signature == NULL || handle < 0) {
+        return ECRECOVER_STATUS_ERROR;
+    }
+    long long slot = handle & 0xFFFFFFFFLL;
+    uint32_t generation = (uint32_t) (handle >> 32) & PUBKEY_CACHE_GENERATION_MASK;
+
+    secp256k1_pubkey pubkey;
+    int found = 0;
+    pthread_rwlock_rdlock(&pubkey_cache_lock);
+    if (pubkey_cache != NULL && slot < (long long) pubkey_cache_sets * PUBKEY_CACHE_WAYS) {
+        pubkey_cache_entry* entry = &pubkey_cache[slot];
+        if (entry->occupied && entry->generation == generation) {
+            pubkey_cache_touch(entry);
+            pubkey = entry->parsed;
+            found = 1;
+        }
+    }
+    pthread_rwlock_unlock(&pubkey_cache_lock);
+    if (!found) {
+        pubkey_cache_count(PUBKEY_CACHE_MISSES);
+        return ECRECOVER_STATUS_STALE_HANDLE;
+    }
+    pubkey_cache_count(PUBKEY_CACHE_HITS);
+    return verify_parsed(message_hash, signature, &pubkey);
+}
+
 // Cleanup function (called when library is unloaded)
 __attribute__((destructor))
 static void cleanup_context() {
+    secp256k1_pubkey_cache_init(0);
     if (ctx != NULL) {
         secp256k1_context_destroy(ctx);
         ctx = NULL;
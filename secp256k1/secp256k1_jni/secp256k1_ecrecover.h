@@ -20,6 +20,15 @@
 extern "C" {
 #endif
 
+/**
+ * Creates the shared context and recovers a known signature, which pages in the precomputed
+ * tables and checks the result. Safe to call concurrently and more than once, the work is done
+ * by the first call only; every entry point below also initializes on first use.
+ *
+ * @return 0 if the context was created and the self-test recovered the expected key, 1 otherwise
+ */
+int secp256k1_ecrecover_init(void);
+
 /**
  * Consolidated ECRECOVER operation for optimal performance.
  * 
@@ -43,6 +52,188 @@ int secp256k1_ecrecover_jni(
     int recovery_id,
     unsigned char output_buffer[65]);
 
+/**
+ * ECRECOVER reading its inputs at offsets into caller buffers and writing the 64-byte public key
+ * (x || y, without the 0x04 prefix) at an offset into the output buffer. r and s are range checked
+ * against the curve order here, so callers need not parse them.
+ *
+ * The caller guarantees 32 bytes at message_hash + message_hash_offset, 64 bytes at
+ * signature + signature_offset and 64 bytes at public_key + public_key_offset.
+ *
+ * @return 0 if recovery was successful, 1 if it failed, 2 if the inputs are out of range
+ */
+int secp256k1_ecrecover_at(
+    const unsigned char message_hash[], int message_hash_offset,
+    const unsigned char signature[], int signature_offset,
+    int recovery_id,
+    unsigned char public_key[], int public_key_offset);
+
+/** Size of a batch record: message_hash (32) || r (32) || s (32) || recovery_id (1) */
+#define ECRECOVER_BATCH_RECORD_BYTES 97
+
+/**
+ * Recovers the public keys of many signatures, e.g. all transaction senders of a block.
+ *
+ * r and s are range checked against the curve order before recovery. Records are split into
+ * contiguous chunks, one per thread, the calling thread recovering the first chunk.
+ *
+ * @param records count packed records of ECRECOVER_BATCH_RECORD_BYTES bytes
+ * @param count the number of records
+ * @param public_keys output, count 64-byte public keys (x || y), zeroed for failed records
+ * @param statuses output, one status per record: 0 success, 1 recovery failed, 2 invalid input
+ * @param num_threads the number of threads to use, 0 or less for the number of online cpus
+ * @return the number of records recovered successfully
+ */
+int secp256k1_ecrecover_batch(
+    const unsigned char records[],
+    int count,
+    unsigned char public_keys[],
+    unsigned char statuses[],
+    int num_threads);
+
+/**
+ * ECRECOVER straight to the Ethereum address: the last 20 bytes of the keccak256 of the
+ * recovered 64-byte public key, so callers need neither the public key nor a keccak of their own.
+ *
+ * @param message_hash the 32-byte message hash that was signed
+ * @param signature the 64-byte compact signature (r || s), r and s must be in [1, n-1]
+ * @param recovery_id the recovery ID (0, 1)
+ * @param address output, the 20-byte address, zeroed on failure
+ * @return 0 if recovery was successful, 1 if it failed, 2 if the inputs are out of range
+ */
+int secp256k1_ecrecover_address(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    int recovery_id,
+    unsigned char address[20]);
+
+/**
+ * Batch form of secp256k1_ecrecover_address, see secp256k1_ecrecover_batch.
+ *
+ * @param addresses output, count 20-byte addresses, zeroed for failed records
+ * @return the number of records recovered successfully
+ */
+int secp256k1_ecrecover_address_batch(
+    const unsigned char records[],
+    int count,
+    unsigned char addresses[],
+    unsigned char statuses[],
+    int num_threads);
+
+/**
+ * Verifies an ECDSA signature in a single call, parsing the public key and signature internally.
+ * High-S signatures are normalized before verification.
+ *
+ * @param message_hash the 32-byte message hash that was signed
+ * @param signature the 64-byte compact signature (r || s)
+ * @param public_key the 64-byte public key (x || y, without the 0x04 prefix)
+ * @return 0 if the signature is valid, 1 if it is not, 2 if the key or signature can not be parsed
+ */
+int secp256k1_verify_compact(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    const unsigned char public_key[64]);
+
+/**
+ * Creates a recoverable ECDSA signature (RFC 6979 nonce, lower-S) in a single call.
+ *
+ * @param message_hash the 32-byte message hash to sign
+ * @param secret_key the 32-byte secret key
+ * @param output output, r (32) || s (32) || recovery_id (1), zeroed on failure
+ * @return 0 if the signature was created, 2 if the secret key is invalid
+ */
+int secp256k1_sign_recoverable_jni(
+    const unsigned char message_hash[32],
+    const unsigned char secret_key[32],
+    unsigned char output[65]);
+
+/** ECDH output modes: the raw shared x-coordinate as used by RLPx, or libsecp256k1's default */
+#define SECP256K1_ECDH_MODE_RAW_X 0
+#define SECP256K1_ECDH_MODE_SHA256 1
+
+/**
+ * ECDH in a single call, parsing the public key internally.
+ *
+ * @param public_key the 64-byte public key of the other party (x || y, without the 0x04 prefix)
+ * @param secret_key the 32-byte secret key
+ * @param mode SECP256K1_ECDH_MODE_RAW_X for the 32-byte x-coordinate of the shared point, or
+ *     SECP256K1_ECDH_MODE_SHA256 for SHA-256 of the compressed shared point
+ * @param output output, the 32-byte shared secret, zeroed on failure
+ * @return 0 on success, 2 if the public key, secret key or mode is invalid
+ */
+int secp256k1_ecdh_jni(
+    const unsigned char public_key[64],
+    const unsigned char secret_key[32],
+    int mode,
+    unsigned char output[32]);
+
+/** Size of an ECDH batch record: public_key (64) || secret_key (32) */
+#define SECP256K1_ECDH_BATCH_RECORD_BYTES 96
+
+/**
+ * Batch form of secp256k1_ecdh_jni, e.g. for a burst of handshakes. Records are split across
+ * threads as in secp256k1_ecrecover_batch.
+ *
+ * @param records count packed records of SECP256K1_ECDH_BATCH_RECORD_BYTES bytes
+ * @param count the number of records
+ * @param mode the output mode, as for secp256k1_ecdh_jni
+ * @param outputs output, count 32-byte shared secrets, zeroed for failed records
+ * @param statuses output, one status per record: 0 success, 2 invalid input
+ * @param num_threads the number of threads to use, 0 or less for the number of online cpus
+ * @return the number of shared secrets computed successfully
+ */
+int secp256k1_ecdh_batch(
+    const unsigned char records[],
+    int count,
+    int mode,
+    unsigned char outputs[],
+    unsigned char statuses[],
+    int num_threads);
+
+/**
+ * (Re)initializes the bounded cache of parsed public keys, dropping all entries, handles and
+ * statistics. Must not be called concurrently with verifications it would invalidate handles of.
+ *
+ * @param capacity the number of slots, rounded up to a multiple of 4; 0 or less disables the
+ *     cache
+ * @return 0 on success, 1 if the cache could not be allocated
+ */
+int secp256k1_pubkey_cache_init(int capacity);
+
+/**
+ * Parses a public key into the cache, unless it is already there.
+ *
+ * @param public_key the 64-byte public key (x || y, without the 0x04 prefix)
+ * @return a handle for secp256k1_verify_handle, -1 if the key can not be parsed, -2 if the cache
+ *     is disabled, -3 if the key's set is held by keys in more frequent use
+ */
+long long secp256k1_pubkey_cache_put(const unsigned char public_key[64]);
+
+/**
+ * secp256k1_verify_compact, taking the parsed key from the cache and caching it on a miss.
+ */
+int secp256k1_verify_compact_cached(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    const unsigned char public_key[64]);
+
+/**
+ * secp256k1_verify_compact against a cached key.
+ *
+ * @return as secp256k1_verify_compact, or 3 if the key has since been evicted and must be put again
+ */
+int secp256k1_verify_handle(
+    const unsigned char message_hash[32],
+    const unsigned char signature[64],
+    long long handle);
+
+/**
+ * Reads the cache statistics since the last secp256k1_pubkey_cache_init.
+ *
+ * @param stats output: hits, misses, inserts, evictions
+ */
+void secp256k1_pubkey_cache_stats(long long stats[4]);
+
 #ifdef __cplusplus
 }
 #endif
@@ -18,7 +18,10 @@ package org.hyperledger.besu.nativelib.secp256k1;
 import com.sun.jna.Native;
 import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
 
-import java.math.BigInteger;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Objects;
 import java.util.Optional;
 
 public class LibSecp256k1JNI {
@@ -28,15 +31,46 @@ public class LibSecp256k1JNI {
   public static final int STATUS_SUCCESS = 0;
   public static final int STATUS_FAIL = 1;
   public static final int STATUS_ERROR = 2;
+  // the public key handle passed to verifyCompact was evicted from the cache
+  public static final int STATUS_STALE_HANDLE = 3;
 
-  // secp256k1 curve order
-  private static final BigInteger SECP256K1_ORDER =
-      new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16);
+  // cachePublicKey results other than a handle
+  public static final long PUBLIC_KEY_UNPARSEABLE = -1;
+  public static final long PUBLIC_KEY_CACHE_DISABLED = -2;
+  // the key's cache set is held by keys in more frequent use, a later attempt may admit it
+  public static final long PUBLIC_KEY_NOT_ADMITTED = -3;
+
+  /** Size of an {@link #ecrecoverBatch} record: hash (32) || r (32) || s (32) || recoveryId (1). */
+  public static final int ECRECOVER_BATCH_RECORD_BYTES = 97;
+  public static final int PUBLIC_KEY_BYTES = 64;
+  public static final int ADDRESS_BYTES = 20;
+  public static final int SECRET_KEY_BYTES = 32;
+  public static final int RECOVERABLE_SIGNATURE_BYTES = 65;
+
+  // ECDH output modes: the raw x-coordinate of the shared point as RLPx expects, or libsecp256k1's
+  // default SHA-256 of the compressed shared point
+  public static final int ECDH_MODE_RAW_X = 0;
+  public static final int ECDH_MODE_SHA256 = 1;
+  /** Size of an {@link #ecdhBatch} record: public key (64) || secret key (32). */
+  public static final int ECDH_BATCH_RECORD_BYTES = 96;
+  public static final int ECDH_SECRET_BYTES = 32;
+
+  // secp256k1 curve order, as big-endian 64-bit limbs
+  private static final long[] SECP256K1_ORDER = {
+      0xFFFFFFFFFFFFFFFFL, 0xFFFFFFFFFFFFFFFEL, 0xBAAEDCE6AF48A03BL, 0xBFD25E8CD0364141L
+  };
+
+  private static final VarHandle LONG_BE =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
 
   static {
     boolean enabled;
     try {
       BesuNativeLibraryLoader.registerJNA(LibSecp256k1JNI.class, "secp256k1_ecrecover");
+      // create the shared context and warm it up here rather than on the first recovery
+      if (secp256k1_ecrecover_init() != 0) {
+        throw new IllegalStateException("secp256k1_ecrecover initialization self-test failed");
+      }
       enabled = true;
     } catch (final Throwable t) {
       t.printStackTrace();
@@ -45,6 +79,17 @@ public class LibSecp256k1JNI {
     ENABLED = enabled;
   }
 
+  // zero implies 'default' degree of parallelism, which is the number of cpu cores available
+  private static int degreeOfBatchParallelism = 0;
+
+  /**
+   * Creates the shared native context once and recovers a known signature as a self-test, which
+   * also pages in the precomputed tables. Called from the static initializer.
+   *
+   * @return 0 if the context is ready and the self-test passed, 1 otherwise
+   */
+  public static native int secp256k1_ecrecover_init();
+
   /**
    * Consolidated ECRECOVER operation using JNI for optimal performance.
    *
@@ -61,6 +106,117 @@ public class LibSecp256k1JNI {
   public static native int secp256k1_ecrecover_jni(byte[] messageHash, byte[] signature,
       int recoveryId, byte[] outputBuffer);
 
+  /**
+   * Batch ECRECOVER, recovering records across numThreads native threads.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return the number of records recovered
+   */
+  public static native int secp256k1_ecrecover_batch(byte[] records, int count,
+      byte[] publicKeys, byte[] statuses, int numThreads);
+
+  /**
+   * ECRECOVER at offsets into caller buffers, writing the 64-byte public key without the 0x04
+   * prefix. r and s are range checked natively.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return one of the STATUS_* values
+   */
+  public static native int secp256k1_ecrecover_at(byte[] messageHash, int messageHashOffset,
+      byte[] signature, int signatureOffset, int recoveryId, byte[] publicKey, int publicKeyOffset);
+
+  /**
+   * ECRECOVER straight to the 20-byte address, the last 20 bytes of keccak256 of the public key.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return one of the STATUS_* values
+   */
+  public static native int secp256k1_ecrecover_address(byte[] messageHash, byte[] signature,
+      int recoveryId, byte[] address);
+
+  /**
+   * Batch ECRECOVER to addresses, recovering records across numThreads native threads.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return the number of records recovered
+   */
+  public static native int secp256k1_ecrecover_address_batch(byte[] records, int count,
+      byte[] addresses, byte[] statuses, int numThreads);
+
+  /**
+   * Verifies a compact signature against a 64-byte public key in one native call.
+   *
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return STATUS_SUCCESS if valid, STATUS_FAIL if not, STATUS_ERROR if unparseable
+   */
+  public static native int secp256k1_verify_compact(byte[] messageHash, byte[] signature,
+      byte[] publicKey);
+
+  /**
+   * Signs a message hash, writing r || s || recoveryId, in one native call.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return STATUS_SUCCESS, or STATUS_ERROR if the secret key is invalid
+   */
+  public static native int secp256k1_sign_recoverable_jni(byte[] messageHash, byte[] secretKey,
+      byte[] output);
+
+  /**
+   * Computes an ECDH shared secret in one native call.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   *
+   * @return STATUS_SUCCESS, or STATUS_ERROR if the public key, secret key or mode is invalid
+   */
+  public static native int secp256k1_ecdh_jni(byte[] publicKey, byte[] secretKey, int mode,
+      byte[] output);
+
+  /**
+   * Batch ECDH, computing records across numThreads native threads.
+   *
+   * Assumes input and output length bounds are already checked, otherwise can lead to JVM crash
+   */
+  public static native int secp256k1_ecdh_batch(byte[] records, int count, int mode,
+      byte[] outputs, byte[] statuses, int numThreads);
+
+  /**
+   * (Re)initializes the native public key cache with capacity slots, 0 or less disables it.
+   *
+   * @return 0 on success, 1 if the cache could not be allocated
+   */
+  public static native int secp256k1_pubkey_cache_init(int capacity);
+
+  /**
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   */
+  public static native long secp256k1_pubkey_cache_put(byte[] publicKey);
+
+  /**
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   */
+  public static native int secp256k1_verify_compact_cached(byte[] messageHash, byte[] signature,
+      byte[] publicKey);
+
+  /**
+   * Assumes input length bounds are already checked, otherwise can lead to JVM crash
+   */
+  public static native int secp256k1_verify_handle(byte[] messageHash, byte[] signature,
+      long handle);
+
+  public static native void secp256k1_pubkey_cache_stats(long[] stats);
+
+  /**
+   * Public key cache statistics since the cache was last sized.
+   */
+  public record PublicKeyCacheStats(long hits, long misses, long inserts, long evictions) {
+  }
+
   /**
    * Result wrapper for ECRECOVER operations
    */
@@ -89,27 +245,17 @@ public class LibSecp256k1JNI {
           Optional.of("recoveryId " + recoveryId + " must be either 0 or 1"));
     }
 
-    // Extract r and s values
-    byte[] rBytes = new byte[32];
-    byte[] sBytes = new byte[32];
-    System.arraycopy(signature, 0, rBytes, 0, 32);
-    System.arraycopy(signature, 32, sBytes, 0, 32);
-
-    BigInteger r = new BigInteger(1, rBytes);
-    BigInteger s = new BigInteger(1, sBytes);
-
     // Validate r and s are in range [1, n-1] before calling native method
-    if (r.equals(BigInteger.ZERO) || r.compareTo(SECP256K1_ORDER) >= 0) {
+    if (!isValidScalar(signature, 0)) {
       return new ECRecoverResult(STATUS_ERROR, Optional.empty(),
           Optional.of("invalid signature r value"));
     }
 
-    if (s.equals(BigInteger.ZERO) || s.compareTo(SECP256K1_ORDER) >= 0) {
+    if (!isValidScalar(signature, 32)) {
       return new ECRecoverResult(STATUS_ERROR, Optional.empty(),
           Optional.of("invalid signature s value"));
     }
 
-
     byte[] outputBuffer = new byte[65]; // uncompressed public key format
     int result = secp256k1_ecrecover_jni(messageHash, signature, recoveryId, outputBuffer);
 
@@ -122,4 +268,277 @@ public class LibSecp256k1JNI {
       return new ECRecoverResult(STATUS_FAIL, Optional.empty(), Optional.of("failed to recover"));
     }
   }
+
+  /**
+   * Recovers the public keys of many signatures at once, e.g. the senders of all transactions of a
+   * block. r and s are range checked natively, without allocating per record.
+   *
+   * @param records concatenated {@link #ECRECOVER_BATCH_RECORD_BYTES} byte records
+   *                hash || r || s || recoveryId
+   * @param publicKeys output, a 64-byte public key per record, zero for records not recovered
+   * @param statuses output, a STATUS_* value per record
+   * @return the number of records recovered
+   */
+  public static int ecrecoverBatch(byte[] records, byte[] publicKeys, byte[] statuses) {
+    if (records.length % ECRECOVER_BATCH_RECORD_BYTES != 0) {
+      throw new IllegalArgumentException(
+          "records length must be a multiple of " + ECRECOVER_BATCH_RECORD_BYTES);
+    }
+    int count = records.length / ECRECOVER_BATCH_RECORD_BYTES;
+    if (publicKeys.length < count * PUBLIC_KEY_BYTES || statuses.length < count) {
+      throw new IllegalArgumentException("output buffers too small for " + count + " records");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    return secp256k1_ecrecover_batch(records, count, publicKeys, statuses,
+        degreeOfBatchParallelism);
+  }
+
+  /**
+   * Sets the number of native threads the batch operations use, 0 for the number of cpu cores.
+   */
+  public static void setDegreeOfBatchParallelism(int nbThreads) {
+    degreeOfBatchParallelism = nbThreads;
+  }
+
+  /**
+   * Recovers the address of the signer, without materializing the public key in Java. r and s are
+   * range checked natively.
+   *
+   * @param messageHash the 32-byte message hash that was signed
+   * @param signature   the 64-byte compact signature (r || s)
+   * @param recoveryId  the recovery ID (0, 1)
+   * @param address     output, the 20-byte address, zeroed unless recovery succeeded
+   * @return one of the STATUS_* values
+   */
+  public static int ecrecoverAddress(byte[] messageHash, byte[] signature, int recoveryId,
+      byte[] address) {
+    if (messageHash.length != 32 || signature.length != 64 || address.length < ADDRESS_BYTES) {
+      return STATUS_ERROR;
+    }
+    return secp256k1_ecrecover_address(messageHash, signature, recoveryId, address);
+  }
+
+  /**
+   * Batch form of {@link #ecrecoverAddress}, taking the same records as {@link #ecrecoverBatch}.
+   *
+   * @param records   concatenated {@link #ECRECOVER_BATCH_RECORD_BYTES} byte records
+   *                  hash || r || s || recoveryId
+   * @param addresses output, a 20-byte address per record, zero for records not recovered
+   * @param statuses  output, a STATUS_* value per record
+   * @return the number of records recovered
+   */
+  public static int ecrecoverAddressBatch(byte[] records, byte[] addresses, byte[] statuses) {
+    if (records.length % ECRECOVER_BATCH_RECORD_BYTES != 0) {
+      throw new IllegalArgumentException(
+          "records length must be a multiple of " + ECRECOVER_BATCH_RECORD_BYTES);
+    }
+    int count = records.length / ECRECOVER_BATCH_RECORD_BYTES;
+    if (addresses.length < count * ADDRESS_BYTES || statuses.length < count) {
+      throw new IllegalArgumentException("output buffers too small for " + count + " records");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    return secp256k1_ecrecover_address_batch(records, count, addresses, statuses,
+        degreeOfBatchParallelism);
+  }
+
+  /**
+   * Allocation-free form of {@link #ecrecover(byte[], byte[], int)}: inputs are read at offsets
+   * into the caller's buffers and the public key is written into the caller's output buffer.
+   *
+   * @param messageHash       buffer holding the 32-byte message hash at messageHashOffset
+   * @param signature         buffer holding the 64-byte compact signature (r || s) at
+   *                          signatureOffset
+   * @param recoveryId        the recovery ID (0, 1)
+   * @param publicKey         output, the 64-byte public key without the 0x04 prefix is written at
+   *                          publicKeyOffset, zeroed unless recovery succeeded
+   * @return one of the STATUS_* values
+   * @throws IndexOutOfBoundsException if a buffer is too short for its offset
+   */
+  public static int ecrecover(byte[] messageHash, int messageHashOffset, byte[] signature,
+      int signatureOffset, int recoveryId, byte[] publicKey, int publicKeyOffset) {
+    Objects.checkFromIndexSize(messageHashOffset, 32, messageHash.length);
+    Objects.checkFromIndexSize(signatureOffset, 64, signature.length);
+    Objects.checkFromIndexSize(publicKeyOffset, PUBLIC_KEY_BYTES, publicKey.length);
+    return secp256k1_ecrecover_at(messageHash, messageHashOffset, signature, signatureOffset,
+        recoveryId, publicKey, publicKeyOffset);
+  }
+
+  /** Whether the 32-byte big-endian scalar at offset is in [1, n-1], without allocating. */
+  private static boolean isValidScalar(byte[] bytes, int offset) {
+    long any = 0;
+    for (int i = 0; i < 4; i++) {
+      any |= (long) LONG_BE.get(bytes, offset + 8 * i);
+    }
+    if (any == 0) {
+      return false;
+    }
+    for (int i = 0; i < 4; i++) {
+      int cmp = Long.compareUnsigned((long) LONG_BE.get(bytes, offset + 8 * i), SECP256K1_ORDER[i]);
+      if (cmp != 0) {
+        return cmp < 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Verifies an ECDSA signature without going through JNA structures. High-S signatures are
+   * normalized first, callers enforcing lower-S must check s themselves.
+   *
+   * @param messageHash the 32-byte message hash that was signed
+   * @param signature   the 64-byte compact signature (r || s)
+   * @param publicKey   the 64-byte public key (x || y, without the 0x04 prefix)
+   * @return true if the signature is valid, false if it is not or an input can not be parsed
+   */
+  public static boolean verifyCompact(byte[] messageHash, byte[] signature, byte[] publicKey) {
+    if (messageHash.length != 32 || signature.length != 64
+        || publicKey.length != PUBLIC_KEY_BYTES) {
+      return false;
+    }
+    return secp256k1_verify_compact(messageHash, signature, publicKey) == STATUS_SUCCESS;
+  }
+
+  /**
+   * Signs a message hash with a deterministic (RFC 6979) nonce without going through JNA
+   * structures.
+   *
+   * @param messageHash the 32-byte message hash to sign
+   * @param secretKey   the 32-byte secret key
+   * @return the 65-byte signature r || s || recoveryId, s in lower-S form
+   * @throws IllegalArgumentException if an input has the wrong length or the secret key is invalid
+   */
+  public static byte[] signRecoverable(byte[] messageHash, byte[] secretKey) {
+    if (messageHash.length != 32) {
+      throw new IllegalArgumentException("messageHash must be 32 bytes");
+    }
+    if (secretKey.length != SECRET_KEY_BYTES) {
+      throw new IllegalArgumentException("secretKey must be " + SECRET_KEY_BYTES + " bytes");
+    }
+    byte[] output = new byte[RECOVERABLE_SIGNATURE_BYTES];
+    if (secp256k1_sign_recoverable_jni(messageHash, secretKey, output) != STATUS_SUCCESS) {
+      throw new IllegalArgumentException("invalid secret key");
+    }
+    return output;
+  }
+
+  /**
+   * Computes the ECDH shared secret of a secret key and the other party's public key, e.g. for
+   * the RLPx handshake.
+   *
+   * @param publicKey the 64-byte public key (x || y, without the 0x04 prefix)
+   * @param secretKey the 32-byte secret key
+   * @param mode      {@link #ECDH_MODE_RAW_X} or {@link #ECDH_MODE_SHA256}
+   * @return the 32-byte shared secret
+   * @throws IllegalArgumentException if an input has the wrong length, the public key is not on
+   *                                  the curve, the secret key is invalid or the mode is unknown
+   */
+  public static byte[] ecdh(byte[] publicKey, byte[] secretKey, int mode) {
+    if (publicKey.length != PUBLIC_KEY_BYTES) {
+      throw new IllegalArgumentException("publicKey must be " + PUBLIC_KEY_BYTES + " bytes");
+    }
+    if (secretKey.length != SECRET_KEY_BYTES) {
+      throw new IllegalArgumentException("secretKey must be " + SECRET_KEY_BYTES + " bytes");
+    }
+    byte[] output = new byte[ECDH_SECRET_BYTES];
+    if (secp256k1_ecdh_jni(publicKey, secretKey, mode, output) != STATUS_SUCCESS) {
+      throw new IllegalArgumentException("invalid public key, secret key or mode");
+    }
+    return output;
+  }
+
+  /**
+   * Computes many ECDH shared secrets at once, e.g. for a burst of handshakes.
+   *
+   * @param records  concatenated {@link #ECDH_BATCH_RECORD_BYTES} byte records
+   *                 publicKey || secretKey
+   * @param mode     {@link #ECDH_MODE_RAW_X} or {@link #ECDH_MODE_SHA256}
+   * @param secrets  output, a 32-byte shared secret per record, zero for failed records
+   * @param statuses output, {@link #STATUS_SUCCESS} or {@link #STATUS_ERROR} per record
+   * @return the number of shared secrets computed
+   */
+  public static int ecdhBatch(byte[] records, int mode, byte[] secrets, byte[] statuses) {
+    if (mode != ECDH_MODE_RAW_X && mode != ECDH_MODE_SHA256) {
+      throw new IllegalArgumentException("unknown ECDH mode " + mode);
+    }
+    if (records.length % ECDH_BATCH_RECORD_BYTES != 0) {
+      throw new IllegalArgumentException(
+          "records length must be a multiple of " + ECDH_BATCH_RECORD_BYTES);
+    }
+    int count = records.length / ECDH_BATCH_RECORD_BYTES;
+    if (secrets.length < count * ECDH_SECRET_BYTES || statuses.length < count) {
+      throw new IllegalArgumentException("output buffers too small for " + count + " records");
+    }
+    if (count == 0) {
+      return 0;
+    }
+    return secp256k1_ecdh_batch(records, count, mode, secrets, statuses,
+        degreeOfBatchParallelism);
+  }
+
+  /**
+   * Sizes the native cache of parsed public keys used by {@link #verifyCompactCached} and
+   * {@link #cachePublicKey}, dropping its entries and invalidating all handles. The cache is
+   * disabled until this is called with a positive capacity.
+   *
+   * @param capacity the number of keys the cache holds, rounded up to a multiple of 4, 0 to
+   *     disable it
+   */
+  public static synchronized void setPublicKeyCacheCapacity(int capacity) {
+    if (secp256k1_pubkey_cache_init(capacity) != 0) {
+      throw new IllegalStateException("could not allocate a public key cache of " + capacity);
+    }
+  }
+
+  /**
+   * Parses a public key into the cache, for keys such as peer or validator keys which are verified
+   * against many signatures.
+   *
+   * @param publicKey the 64-byte public key (x || y, without the 0x04 prefix)
+   * @return a handle for {@link #verifyCompact(byte[], byte[], long)}, or
+   *         {@link #PUBLIC_KEY_UNPARSEABLE}, {@link #PUBLIC_KEY_CACHE_DISABLED} or
+   *         {@link #PUBLIC_KEY_NOT_ADMITTED}
+   */
+  public static long cachePublicKey(byte[] publicKey) {
+    if (publicKey.length != PUBLIC_KEY_BYTES) {
+      return PUBLIC_KEY_UNPARSEABLE;
+    }
+    return secp256k1_pubkey_cache_put(publicKey);
+  }
+
+  /**
+   * {@link #verifyCompact(byte[], byte[], byte[])}, reusing the parsed key from the cache and
+   * caching it on a miss.
+   */
+  public static boolean verifyCompactCached(byte[] messageHash, byte[] signature,
+      byte[] publicKey) {
+    if (messageHash.length != 32 || signature.length != 64
+        || publicKey.length != PUBLIC_KEY_BYTES) {
+      return false;
+    }
+    return secp256k1_verify_compact_cached(messageHash, signature, publicKey) == STATUS_SUCCESS;
+  }
+
+  /**
+   * Verifies a compact signature against a key cached with {@link #cachePublicKey}.
+   *
+   * @return {@link #STATUS_SUCCESS} if valid, {@link #STATUS_FAIL} if not, {@link #STATUS_ERROR}
+   *         if an input is malformed, or {@link #STATUS_STALE_HANDLE} if the key was evicted and
+   *         must be cached again
+   */
+  public static int verifyCompact(byte[] messageHash, byte[] signature, long publicKeyHandle) {
+    if (messageHash.length != 32 || signature.length != 64) {
+      return STATUS_ERROR;
+    }
+    return secp256k1_verify_handle(messageHash, signature, publicKeyHandle);
+  }
+
+  public static PublicKeyCacheStats publicKeyCacheStats() {
+    long[] stats = new long[4];
+    secp256k1_pubkey_cache_stats(stats);
+    return new PublicKeyCacheStats(stats[0], stats[1], stats[2], stats[3]);
+  }
 }
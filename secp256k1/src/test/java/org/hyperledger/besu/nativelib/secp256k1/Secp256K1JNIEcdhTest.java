@@ -0,0 +1,139 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.secp256k1;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class Secp256K1JNIEcdhTest {
+
+  private static final byte[] GENERATOR = Bytes.fromHexString(
+      "0x79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798"
+          + "483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8").toArrayUnsafe();
+  private static final byte[] HASH =
+      Bytes32.fromHexString("0x0049872459827432342344987245982743234234498724598274323423429943")
+          .toArrayUnsafe();
+
+  @Before
+  public void setUp() {
+    Assume.assumeTrue("secp256k1 native must be enabled", LibSecp256k1JNI.ENABLED);
+  }
+
+  @Test
+  public void rawXOfGeneratorIsPublicKeyX() {
+    byte[] secretKey = secretKey(1);
+    assertThat(LibSecp256k1JNI.ecdh(GENERATOR, secretKey, LibSecp256k1JNI.ECDH_MODE_RAW_X))
+        .isEqualTo(Arrays.copyOf(publicKey(secretKey), 32));
+  }
+
+  @Test
+  public void sharedSecretIsSymmetric() throws Exception {
+    byte[] a = secretKey(1);
+    byte[] b = secretKey(2);
+    byte[] rawX = LibSecp256k1JNI.ecdh(publicKey(b), a, LibSecp256k1JNI.ECDH_MODE_RAW_X);
+    assertThat(LibSecp256k1JNI.ecdh(publicKey(a), b, LibSecp256k1JNI.ECDH_MODE_RAW_X))
+        .isEqualTo(rawX);
+
+    // the default mode hashes the compressed shared point, whose prefix depends on y's parity
+    byte[] hashed = LibSecp256k1JNI.ecdh(publicKey(b), a, LibSecp256k1JNI.ECDH_MODE_SHA256);
+    assertThat(hashed).isIn(
+        compressedPointHash((byte) 0x02, rawX), compressedPointHash((byte) 0x03, rawX));
+  }
+
+  @Test
+  public void ecdhRejectsInvalidInputs() {
+    byte[] notAPoint = new byte[LibSecp256k1JNI.PUBLIC_KEY_BYTES];
+    Arrays.fill(notAPoint, (byte) 0xff);
+
+    assertThatThrownBy(
+        () -> LibSecp256k1JNI.ecdh(notAPoint, secretKey(1), LibSecp256k1JNI.ECDH_MODE_RAW_X))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+        () -> LibSecp256k1JNI.ecdh(GENERATOR, new byte[32], LibSecp256k1JNI.ECDH_MODE_RAW_X))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> LibSecp256k1JNI.ecdh(GENERATOR, secretKey(1), 7))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void batchMatchesSingleCalls() {
+    int count = 40;
+    byte[] records = new byte[count * LibSecp256k1JNI.ECDH_BATCH_RECORD_BYTES];
+    for (int i = 0; i < count; i++) {
+      int offset = i * LibSecp256k1JNI.ECDH_BATCH_RECORD_BYTES;
+      System.arraycopy(GENERATOR, 0, records, offset, 64);
+      // record 3 has an invalid zero secret key
+      if (i != 3) {
+        System.arraycopy(secretKey(i + 1), 0, records, offset + 64, 32);
+      }
+    }
+    byte[] secrets = new byte[count * LibSecp256k1JNI.ECDH_SECRET_BYTES];
+    byte[] statuses = new byte[count];
+
+    LibSecp256k1JNI.setDegreeOfBatchParallelism(4);
+    try {
+      assertThat(LibSecp256k1JNI.ecdhBatch(
+          records, LibSecp256k1JNI.ECDH_MODE_RAW_X, secrets, statuses)).isEqualTo(count - 1);
+    } finally {
+      LibSecp256k1JNI.setDegreeOfBatchParallelism(0);
+    }
+
+    for (int i = 0; i < count; i++) {
+      byte[] secret = Arrays.copyOfRange(secrets, i * 32, (i + 1) * 32);
+      if (i == 3) {
+        assertThat(statuses[i]).isEqualTo((byte) LibSecp256k1JNI.STATUS_ERROR);
+        assertThat(secret).isEqualTo(new byte[32]);
+      } else {
+        assertThat(statuses[i]).isEqualTo((byte) LibSecp256k1JNI.STATUS_SUCCESS);
+        assertThat(secret).isEqualTo(
+            LibSecp256k1JNI.ecdh(GENERATOR, secretKey(i + 1), LibSecp256k1JNI.ECDH_MODE_RAW_X));
+      }
+    }
+  }
+
+  @Test
+  public void batchRejectsMisalignedRecords() {
+    assertThatThrownBy(() -> LibSecp256k1JNI.ecdhBatch(
+        new byte[95], LibSecp256k1JNI.ECDH_MODE_RAW_X, new byte[32], new byte[1]))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static byte[] secretKey(int value) {
+    return Bytes32.leftPad(Bytes.ofUnsignedInt(value)).toArrayUnsafe();
+  }
+
+  // derived by signing and recovering, there is no public key derivation entry point
+  private static byte[] publicKey(byte[] secretKey) {
+    byte[] signature = LibSecp256k1JNI.signRecoverable(HASH, secretKey);
+    return LibSecp256k1JNI.ecrecover(HASH, Arrays.copyOf(signature, 64), signature[64])
+        .publicKey().orElseThrow();
+  }
+
+  private static byte[] compressedPointHash(byte prefix, byte[] x) throws Exception {
+    MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+    sha256.update(prefix);
+    return sha256.digest(x);
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.secp256k1;
+
+import com.google.common.io.CharStreams;
+import org.apache.tuweni.bytes.Bytes;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hyperledger.besu.nativelib.secp256k1.LibSecp256k1JNI.ADDRESS_BYTES;
+import static org.hyperledger.besu.nativelib.secp256k1.LibSecp256k1JNI.ECRECOVER_BATCH_RECORD_BYTES;
+import static org.hyperledger.besu.nativelib.secp256k1.LibSecp256k1JNI.PUBLIC_KEY_BYTES;
+
+public class Secp256K1JNIEcrecoverBatchTest {
+  private static final int V_BASE = 27;
+
+  // hash || recovery id as a 32 byte word || r || s, as in the ECRECOVER precompile
+  private List<byte[]> inputs;
+
+  @Before
+  public void setUp() throws IOException {
+    Assume.assumeTrue("secp256k1 native must be enabled", LibSecp256k1JNI.ENABLED);
+    inputs = CharStreams.readLines(
+            new InputStreamReader(
+                getClass().getResourceAsStream("secp256k1ecrecover.csv"), UTF_8))
+        .stream()
+        .skip(1)
+        .map(line -> line.split(",", 5)[0])
+        .filter(input -> !input.isEmpty())
+        .map(input -> Bytes.fromHexString(input).toArrayUnsafe())
+        .filter(input -> input.length >= 128)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void batchMatchesSingleRecovery() {
+    for (int threads : new int[] {1, 4, 0}) {
+      LibSecp256k1JNI.setDegreeOfBatchParallelism(threads);
+      try {
+        assertBatchMatchesSingleRecovery(20);
+      } finally {
+        LibSecp256k1JNI.setDegreeOfBatchParallelism(0);
+      }
+    }
+  }
+
+  @Test
+  public void recoversAddress() {
+    byte[] input = inputs.get(0);
+    byte[] address = new byte[LibSecp256k1JNI.ADDRESS_BYTES];
+
+    int status = LibSecp256k1JNI.ecrecoverAddress(
+        Arrays.copyOfRange(input, 0, 32), Arrays.copyOfRange(input, 64, 128),
+        (input[63] & 0xFF) - V_BASE, address);
+
+    assertThat(status).isEqualTo(LibSecp256k1JNI.STATUS_SUCCESS);
+    assertThat(Bytes.wrap(address).toHexString())
+        .isEqualTo("0x0c65a9d9ffc02c7c99e36e32ce0f950c7804ceda");
+  }
+
+  @Test
+  public void addressBatchMatchesSingleRecovery() {
+    LibSecp256k1JNI.setDegreeOfBatchParallelism(4);
+    try {
+      byte[] records = records(10);
+      int count = records.length / ECRECOVER_BATCH_RECORD_BYTES;
+      byte[] addresses = new byte[count * ADDRESS_BYTES];
+      byte[] statuses = new byte[count];
+
+      int recovered = LibSecp256k1JNI.ecrecoverAddressBatch(records, addresses, statuses);
+
+      int expectedRecovered = 0;
+      for (int i = 0; i < count; i++) {
+        int offset = i * ECRECOVER_BATCH_RECORD_BYTES;
+        byte[] expected = new byte[ADDRESS_BYTES];
+        int expectedStatus = LibSecp256k1JNI.ecrecoverAddress(
+            Arrays.copyOfRange(records, offset, offset + 32),
+            Arrays.copyOfRange(records, offset + 32, offset + 96),
+            records[offset + 96] & 0xFF,
+            expected);
+
+        assertThat((int) statuses[i]).as("record %d", i).isEqualTo(expectedStatus);
+        assertThat(Arrays.copyOfRange(addresses, i * ADDRESS_BYTES, (i + 1) * ADDRESS_BYTES))
+            .as("record %d", i)
+            .isEqualTo(expected);
+        if (expectedStatus == LibSecp256k1JNI.STATUS_SUCCESS) {
+          expectedRecovered++;
+        }
+      }
+      assertThat(recovered).isEqualTo(expectedRecovered);
+    } finally {
+      LibSecp256k1JNI.setDegreeOfBatchParallelism(0);
+    }
+  }
+
+  @Test
+  public void rejectsMisalignedRecords() {
+    assertThatThrownBy(() -> LibSecp256k1JNI.ecrecoverBatch(
+            new byte[ECRECOVER_BATCH_RECORD_BYTES + 1], new byte[128], new byte[2]))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> LibSecp256k1JNI.ecrecoverBatch(
+            new byte[ECRECOVER_BATCH_RECORD_BYTES], new byte[63], new byte[1]))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(LibSecp256k1JNI.ecrecoverBatch(new byte[0], new byte[0], new byte[0])).isZero();
+  }
+
+  private byte[] records(final int repetitions) {
+    int count = inputs.size() * repetitions;
+    byte[] records = new byte[count * ECRECOVER_BATCH_RECORD_BYTES];
+    for (int i = 0; i < count; i++) {
+      byte[] input = inputs.get(i % inputs.size());
+      int offset = i * ECRECOVER_BATCH_RECORD_BYTES;
+      System.arraycopy(input, 0, records, offset, 32);
+      System.arraycopy(input, 64, records, offset + 32, 64);
+      records[offset + 96] = (byte) ((input[63] & 0xFF) - V_BASE);
+    }
+    return records;
+  }
+
+  private void assertBatchMatchesSingleRecovery(final int repetitions) {
+    byte[] records = records(repetitions);
+    int count = records.length / ECRECOVER_BATCH_RECORD_BYTES;
+    byte[] publicKeys = new byte[count * PUBLIC_KEY_BYTES];
+    byte[] statuses = new byte[count];
+
+    int recovered = LibSecp256k1JNI.ecrecoverBatch(records, publicKeys, statuses);
+
+    int expectedRecovered = 0;
+    for (int i = 0; i < count; i++) {
+      int offset = i * ECRECOVER_BATCH_RECORD_BYTES;
+      LibSecp256k1JNI.ECRecoverResult expected = LibSecp256k1JNI.ecrecover(
+          Arrays.copyOfRange(records, offset, offset + 32),
+          Arrays.copyOfRange(records, offset + 32, offset + 96),
+          records[offset + 96] & 0xFF);
+      byte[] publicKey =
+          Arrays.copyOfRange(publicKeys, i * PUBLIC_KEY_BYTES, (i + 1) * PUBLIC_KEY_BYTES);
+
+      assertThat((int) statuses[i]).as("record %d", i).isEqualTo(expected.status());
+      assertThat(publicKey)
+          .as("record %d", i)
+          .isEqualTo(expected.publicKey().orElse(new byte[PUBLIC_KEY_BYTES]));
+      if (expected.status() == LibSecp256k1JNI.STATUS_SUCCESS) {
+        expectedRecovered++;
+      }
+    }
+    assertThat(recovered).isEqualTo(expectedRecovered);
+  }
+}
@@ -26,6 +26,7 @@ import org.junit.runners.Parameterized;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -123,4 +124,31 @@ public class Secp256K1JNIEcrecoverParameterizedTest {
           .isEqualTo(error);
     }
   }
+
+  @Test
+  public void shouldRecoverAtOffsetsFromCSV() {
+    if ("input".equals(input) || input == null || input.isEmpty()) {
+      return;
+    }
+    Assume.assumeTrue("secp256k1 native must be enabled", LibSecp256k1JNI.ENABLED);
+
+    // the precompile input already holds hash at 0 and r || s at 64
+    byte[] inputBytes = Bytes.fromHexString(input).toArrayUnsafe();
+    if (inputBytes.length < 128) {
+      return;
+    }
+    int recoveryId = (inputBytes[63] & 0xFF) - V_BASE;
+    byte[] output = new byte[LibSecp256k1JNI.PUBLIC_KEY_BYTES + 3];
+
+    int status = LibSecp256k1JNI.ecrecover(inputBytes, 0, inputBytes, 64, recoveryId, output, 3);
+
+    int expectedStatusInt = Integer.parseInt(expectedStatus);
+    Assertions.assertThat(status).as("Test case: %s", notes).isEqualTo(expectedStatusInt);
+    byte[] expectedPublicKey = expectedStatusInt == 0
+        ? Bytes.fromHexString(expectedOutput).toArrayUnsafe()
+        : new byte[LibSecp256k1JNI.PUBLIC_KEY_BYTES];
+    Assertions.assertThat(Arrays.copyOfRange(output, 3, output.length))
+        .as("Test case: %s", notes)
+        .isEqualTo(expectedPublicKey);
+  }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright contributors to Besu.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ */
+package org.hyperledger.besu.nativelib.secp256k1;
+
+import org.apache.tuweni.bytes.Bytes;
+import org.apache.tuweni.bytes.Bytes32;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class Secp256K1JNISignVerifyTest {
+
+  private static final byte[] SECRET_KEY =
+      Bytes32.fromHexString("0x68ab62d8d3a3a1b1e1c7a5b5d35cd3df5b8e7d8d6b0b4c49f4a1d31b17e23c4f")
+          .toArrayUnsafe();
+  private static final byte[] HASH =
+      Bytes32.fromHexString("0x0049872459827432342344987245982743234234498724598274323423429943")
+          .toArrayUnsafe();
+
+  @Before
+  public void setUp() {
+    Assume.assumeTrue("secp256k1 native must be enabled", LibSecp256k1JNI.ENABLED);
+  }
+
+  @Test
+  public void signedMessageVerifiesAndRecoversSigner() {
+    byte[] signature = LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY);
+    byte[] compact = Arrays.copyOf(signature, 64);
+
+    LibSecp256k1JNI.ECRecoverResult recovered =
+        LibSecp256k1JNI.ecrecover(HASH, compact, signature[64]);
+    assertThat(recovered.status()).isEqualTo(LibSecp256k1JNI.STATUS_SUCCESS);
+    byte[] publicKey = recovered.publicKey().orElseThrow();
+
+    assertThat(LibSecp256k1JNI.verifyCompact(HASH, compact, publicKey)).isTrue();
+
+    byte[] otherHash = HASH.clone();
+    otherHash[31] ^= 1;
+    assertThat(LibSecp256k1JNI.verifyCompact(otherHash, compact, publicKey)).isFalse();
+  }
+
+  @Test
+  public void signingIsDeterministic() {
+    assertThat(LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY))
+        .isEqualTo(LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY));
+  }
+
+  @Test
+  public void verifyRejectsMalformedInputs() {
+    byte[] compact = Arrays.copyOf(LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY), 64);
+    // not a point on the curve
+    byte[] notAPoint = new byte[LibSecp256k1JNI.PUBLIC_KEY_BYTES];
+    Arrays.fill(notAPoint, (byte) 0xff);
+
+    assertThat(LibSecp256k1JNI.verifyCompact(HASH, compact, notAPoint)).isFalse();
+    assertThat(LibSecp256k1JNI.verifyCompact(HASH, Arrays.copyOf(compact, 63), notAPoint))
+        .isFalse();
+  }
+
+  @Test
+  public void signRejectsInvalidSecretKey() {
+    assertThatThrownBy(() -> LibSecp256k1JNI.signRecoverable(HASH, new byte[32]))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () -> LibSecp256k1JNI.signRecoverable(HASH, Bytes.repeat((byte) 0xff, 32).toArrayUnsafe()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void cachedVerificationReusesParsedKey() {
+    byte[] signature = LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY);
+    byte[] compact = Arrays.copyOf(signature, 64);
+    byte[] publicKey =
+        LibSecp256k1JNI.ecrecover(HASH, compact, signature[64]).publicKey().orElseThrow();
+
+    LibSecp256k1JNI.setPublicKeyCacheCapacity(8);
+    try {
+      assertThat(LibSecp256k1JNI.verifyCompactCached(HASH, compact, publicKey)).isTrue();
+      assertThat(LibSecp256k1JNI.verifyCompactCached(HASH, compact, publicKey)).isTrue();
+      long handle = LibSecp256k1JNI.cachePublicKey(publicKey);
+      assertThat(handle).isNotNegative();
+      assertThat(LibSecp256k1JNI.verifyCompact(HASH, compact, handle))
+          .isEqualTo(LibSecp256k1JNI.STATUS_SUCCESS);
+
+      LibSecp256k1JNI.PublicKeyCacheStats stats = LibSecp256k1JNI.publicKeyCacheStats();
+      assertThat(stats.inserts()).isEqualTo(1);
+      assertThat(stats.misses()).isEqualTo(1);
+      assertThat(stats.hits()).isEqualTo(3);
+
+      // resizing drops the cached keys
+      LibSecp256k1JNI.setPublicKeyCacheCapacity(8);
+      assertThat(LibSecp256k1JNI.verifyCompact(HASH, compact, handle))
+          .isEqualTo(LibSecp256k1JNI.STATUS_STALE_HANDLE);
+    } finally {
+      LibSecp256k1JNI.setPublicKeyCacheCapacity(0);
+    }
+    assertThat(LibSecp256k1JNI.cachePublicKey(publicKey))
+        .isEqualTo(LibSecp256k1JNI.PUBLIC_KEY_CACHE_DISABLED);
+    assertThat(LibSecp256k1JNI.verifyCompactCached(HASH, compact, publicKey)).isTrue();
+  }
+
+  @Test
+  public void hotCachedKeySurvivesAFloodOfOneOffKeys() {
+    byte[] signature = LibSecp256k1JNI.signRecoverable(HASH, SECRET_KEY);
+    byte[] compact = Arrays.copyOf(signature, 64);
+    byte[] publicKey =
+        LibSecp256k1JNI.ecrecover(HASH, compact, signature[64]).publicKey().orElseThrow();
+
+    // a single set, so every key competes with the hot one
+    LibSecp256k1JNI.setPublicKeyCacheCapacity(4);
+    try {
+      long handle = LibSecp256k1JNI.cachePublicKey(publicKey);
+      for (int i = 0; i < 32; i++) {
+        byte[] secretKey = new byte[32];
+        secretKey[31] = (byte) (i + 1);
+        byte[] other = LibSecp256k1JNI.signRecoverable(HASH, secretKey);
+        byte[] otherKey = LibSecp256k1JNI.ecrecover(HASH, Arrays.copyOf(other, 64), other[64])
+            .publicKey().orElseThrow();
+        assertThat(LibSecp256k1JNI.cachePublicKey(otherKey))
+            .isNotIn(LibSecp256k1JNI.PUBLIC_KEY_UNPARSEABLE,
+                LibSecp256k1JNI.PUBLIC_KEY_CACHE_DISABLED);
+        assertThat(LibSecp256k1JNI.verifyCompact(HASH, compact, handle))
+            .isEqualTo(LibSecp256k1JNI.STATUS_SUCCESS);
+      }
+      assertThat(LibSecp256k1JNI.publicKeyCacheStats().inserts()).isLessThan(33);
+    } finally {
+      LibSecp256k1JNI.setPublicKeyCacheCapacity(0);
+    }
+  }
+}
@@ -16,50 +16,44 @@
 package org.hyperledger.besu.nativelib.secp256r1;
 
 import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.BesuNativeEC;
-import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.KeyRecoveryResult.KeyRecoveryResultByValue;
-import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.SignResult.SignResultByValue;
-import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.VerifyResult.VerifyResultByValue;
 
 import java.util.Arrays;
 
 public class LibSECP256R1 {
-    static int VERIFICATION_SUCCESS = 1;
     static int PUBLIC_KEY_LENGTH = 64;
     static int CURVE_BYTE_LENGTH = 32;
 
     public byte[] keyRecovery(final byte[] dataHash, final byte[] signatureR, final byte[] signatureS,
                               final int signatureV) throws IllegalArgumentException {
-        final KeyRecoveryResultByValue result = BesuNativeEC.p256_key_recovery(
+        final byte[] publicKey = new byte[PUBLIC_KEY_LENGTH];
+        final int status = BesuNativeEC.keyRecoveryStatus(
                 dataHash,
-                dataHash.length,
                 convertToNativeRepresentation(signatureR),
                 convertToNativeRepresentation(signatureS),
-                signatureV
+                signatureV,
+                publicKey,
+                0
         );
 
-        String errorMessage = (new String(result.error_message)).trim();
-
-        if (!errorMessage.isEmpty()) {
-            throw new IllegalArgumentException(errorMessage);
+        if (status != BesuNativeEC.STATUS_SUCCESS) {
+            throw new IllegalArgumentException(BesuNativeEC.lastErrorMessage());
         }
 
-        return Arrays.copyOf(result.public_key, PUBLIC_KEY_LENGTH);
+        return publicKey;
     }
 
     public Signature sign(byte[] dataHash, byte[] privateKey, byte[] publicKey) throws IllegalArgumentException {
-        final SignResultByValue result = BesuNativeEC.p256_sign(
-                dataHash, dataHash.length, privateKey, publicKey);
-
-        String errorMessage = (new String(result.error_message)).trim();
-
-        if (!errorMessage.isEmpty()) {
-            throw new IllegalArgumentException(errorMessage);
+        final byte[] signature = new byte[2 * CURVE_BYTE_LENGTH + 1];
+        if (BesuNativeEC.signStatus(dataHash, privateKey, publicKey, signature, 0)
+                != BesuNativeEC.STATUS_SUCCESS) {
+            throw new IllegalArgumentException(BesuNativeEC.lastErrorMessage());
         }
 
         return new Signature(
-                convertToNonNegativeRepresentation(result.signature_r),
-                convertToNonNegativeRepresentation(result.signature_s),
-                result.signature_v
+                convertToNonNegativeRepresentation(Arrays.copyOf(signature, CURVE_BYTE_LENGTH)),
+                convertToNonNegativeRepresentation(
+                        Arrays.copyOfRange(signature, CURVE_BYTE_LENGTH, 2 * CURVE_BYTE_LENGTH)),
+                signature[2 * CURVE_BYTE_LENGTH]
         );
     }
 
@@ -70,26 +64,17 @@ public class LibSECP256R1 {
 
     public boolean verify(final byte[] dataHash, final byte[] signatureR, final byte[] signatureS,
         final byte[] publicKey, final boolean allowMalleable) throws IllegalArgumentException {
-        VerifyResultByValue result;
-        if (!allowMalleable) {
-            result = BesuNativeEC.p256_verify(dataHash, dataHash.length,
-                convertToNativeRepresentation(signatureR),
-                convertToNativeRepresentation(signatureS), publicKey);
-        } else {
-            result = BesuNativeEC.p256_verify_malleable_signature(
-                dataHash,
-                dataHash.length,
+        final int status = BesuNativeEC.verifyStatus(dataHash,
                 convertToNativeRepresentation(signatureR),
                 convertToNativeRepresentation(signatureS),
-                publicKey);
-        }
+                publicKey,
+                allowMalleable);
 
-        if (result.verified < 0) {
-            String errorMessage = (new String(result.error_message)).trim();
-            throw new IllegalArgumentException(errorMessage);
+        if (status == BesuNativeEC.STATUS_ERROR) {
+            throw new IllegalArgumentException(BesuNativeEC.lastErrorMessage());
         }
 
-        return result.verified == VERIFICATION_SUCCESS;
+        return status == BesuNativeEC.STATUS_SUCCESS;
     }
 
     /**
@@ -18,17 +18,30 @@ package org.hyperledger.besu.nativelib.secp256r1.besuNativeEC;
 import com.sun.jna.Library;
 import org.hyperledger.besu.nativelib.common.BesuNativeLibraryLoader;
 import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.KeyRecoveryResult.KeyRecoveryResultByValue;
+import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.KeyRecoveryResult.KeyRecoveryStatusByValue;
 import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.SignResult.SignResultByValue;
+import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.SignResult.SignStatusByValue;
 import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.VerifyResult.VerifyResultByValue;
+import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.VerifyResult.VerifyStatusByValue;
+
+import java.nio.charset.StandardCharsets;
 
 public class BesuNativeEC implements Library {
 	public static final boolean ENABLED;
 
+	public static final int STATUS_SUCCESS = 0;
+	public static final int STATUS_FAIL = 1;
+	public static final int STATUS_ERROR = 2;
+
+	// error message of the last failed status call on each thread, decoded only on request
+	private static final ThreadLocal<byte[]> LAST_ERROR = new ThreadLocal<>();
+
 	static {
 		boolean enabled;
 		try {
 			BesuNativeLibraryLoader.registerJNA(Library.class, "besu_native_ec_crypto");
 			BesuNativeLibraryLoader.registerJNA(BesuNativeEC.class, "besu_native_ec");
+			BesuNativeLibraryLoader.registerJNA(StatusNatives.class, "besu_native_ec");
 			enabled = true;
 		} catch (final Exception t) {
 			enabled = false;
@@ -55,4 +68,90 @@ public class BesuNativeEC implements Library {
 	 * Original signature : <code>verify_result p256_verify_malleable_signature(const char[], const int, const char[], const char[], const char[])</code><br>
 	 */
 	public static native VerifyResultByValue p256_verify_malleable_signature(byte[] data_hash, int data_hash_length, byte[] signature_r, byte[] signature_s, byte[] public_key_data);
+
+	/**
+	 * The same native functions, returning results which read only what the status calls need.
+	 */
+	private static final class StatusNatives {
+		static native KeyRecoveryStatusByValue p256_key_recovery(byte[] data_hash, int data_hash_len, byte[] signature_r_hex, byte[] signature_s_hex, int signature_v);
+
+		static native SignStatusByValue p256_sign(byte[] data_hash, int data_hash_length, byte[] private_key_data, byte[] public_key_data);
+
+		static native VerifyStatusByValue p256_verify(byte[] data_hash, int data_hash_length, byte[] signature_r, byte[] signature_s, byte[] public_key_data);
+
+		static native VerifyStatusByValue p256_verify_malleable_signature(byte[] data_hash, int data_hash_length, byte[] signature_r, byte[] signature_s, byte[] public_key_data);
+	}
+
+	/**
+	 * Verifies a signature without building error strings. The error message of a failure is
+	 * available from {@link #lastErrorMessage()} on the same thread.
+	 *
+	 * @param dataHash the hash that was signed
+	 * @param signatureR the 32-byte big-endian r
+	 * @param signatureS the 32-byte big-endian s
+	 * @param publicKey the 64-byte public key (x || y)
+	 * @param allowMalleable whether s may be greater than n / 2
+	 * @return {@link #STATUS_SUCCESS} if the signature is valid, {@link #STATUS_FAIL} if it is not,
+	 *     {@link #STATUS_ERROR} if an input is malformed
+	 */
+	public static int verifyStatus(final byte[] dataHash, final byte[] signatureR, final byte[] signatureS,
+			final byte[] publicKey, final boolean allowMalleable) {
+		VerifyStatusByValue result = allowMalleable
+				? StatusNatives.p256_verify_malleable_signature(dataHash, dataHash.length, signatureR, signatureS, publicKey)
+				: StatusNatives.p256_verify(dataHash, dataHash.length, signatureR, signatureS, publicKey);
+		if (result.status() == 1) {
+			return STATUS_SUCCESS;
+		}
+		LAST_ERROR.set(result.error());
+		return result.status() < 0 ? STATUS_ERROR : STATUS_FAIL;
+	}
+
+	/**
+	 * Recovers the public key of a signature into the caller's buffer.
+	 *
+	 * @param signatureR the 32-byte big-endian r
+	 * @param signatureS the 32-byte big-endian s
+	 * @param publicKey output, the 64-byte public key (x || y) is written at publicKeyOffset
+	 * @return {@link #STATUS_SUCCESS}, or {@link #STATUS_ERROR} with the reason available from
+	 *     {@link #lastErrorMessage()}
+	 */
+	public static int keyRecoveryStatus(final byte[] dataHash, final byte[] signatureR, final byte[] signatureS,
+			final int signatureV, final byte[] publicKey, final int publicKeyOffset) {
+		KeyRecoveryStatusByValue result =
+				StatusNatives.p256_key_recovery(dataHash, dataHash.length, signatureR, signatureS, signatureV);
+		if (result.publicKey() == null) {
+			LAST_ERROR.set(result.error());
+			return STATUS_ERROR;
+		}
+		System.arraycopy(result.publicKey(), 0, publicKey, publicKeyOffset, 64);
+		return STATUS_SUCCESS;
+	}
+
+	/**
+	 * Signs a hash into the caller's buffer.
+	 *
+	 * @param signature output, r (32) || s (32) || v (1) is written at signatureOffset, r and s as
+	 *     32-byte big-endian values
+	 * @return {@link #STATUS_SUCCESS}, or {@link #STATUS_ERROR} with the reason available from
+	 *     {@link #lastErrorMessage()}
+	 */
+	public static int signStatus(final byte[] dataHash, final byte[] privateKey, final byte[] publicKey,
+			final byte[] signature, final int signatureOffset) {
+		SignStatusByValue result = StatusNatives.p256_sign(dataHash, dataHash.length, privateKey, publicKey);
+		if (result.signature() == null) {
+			LAST_ERROR.set(result.error());
+			return STATUS_ERROR;
+		}
+		System.arraycopy(result.signature(), 0, signature, signatureOffset, 65);
+		return STATUS_SUCCESS;
+	}
+
+	/**
+	 * The error message of the last failed {@link #verifyStatus}, {@link #keyRecoveryStatus} or
+	 * {@link #signStatus} on the calling thread, empty if none failed.
+	 */
+	public static String lastErrorMessage() {
+		byte[] error = LAST_ERROR.get();
+		return error == null ? "" : new String(error, StandardCharsets.UTF_8).trim();
+	}
 }
@@ -33,4 +33,33 @@ public class KeyRecoveryResult extends Structure {
 	}
 
 	public static class KeyRecoveryResultByValue extends KeyRecoveryResult implements Structure.ByValue {}
+
+	/**
+	 * Reads only the 64-byte public key from native memory on success, and the error message
+	 * otherwise.
+	 */
+	public static class KeyRecoveryStatusByValue extends KeyRecoveryResult implements Structure.ByValue {
+		private byte[] publicKey;
+		private byte[] error;
+
+		@Override
+		public void read() {
+			int errorOffset = fieldOffset("error_message");
+			if (getPointer().getByte(errorOffset) == 0) {
+				publicKey = getPointer().getByteArray(fieldOffset("public_key"), 64);
+				error = null;
+			} else {
+				publicKey = null;
+				error = getPointer().getByteArray(errorOffset, 256);
+			}
+		}
+
+		byte[] publicKey() {
+			return publicKey;
+		}
+
+		byte[] error() {
+			return error;
+		}
+	}
 }
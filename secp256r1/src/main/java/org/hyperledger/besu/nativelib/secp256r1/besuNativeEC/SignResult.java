@@ -34,4 +34,36 @@ public class SignResult extends Structure {
 	}
 
 	public static class SignResultByValue extends SignResult implements Structure.ByValue {}
+
+	/**
+	 * Reads only r (32) || s (32) || v (1) from native memory on success, and the error message
+	 * otherwise.
+	 */
+	public static class SignStatusByValue extends SignResult implements Structure.ByValue {
+		private byte[] signature;
+		private byte[] error;
+
+		@Override
+		public void read() {
+			int errorOffset = fieldOffset("error_message");
+			if (getPointer().getByte(errorOffset) == 0) {
+				signature = new byte[65];
+				getPointer().read(fieldOffset("signature_r"), signature, 0, 32);
+				getPointer().read(fieldOffset("signature_s"), signature, 32, 32);
+				signature[64] = getPointer().getByte(fieldOffset("signature_v"));
+				error = null;
+			} else {
+				signature = null;
+				error = getPointer().getByteArray(errorOffset, 256);
+			}
+		}
+
+		byte[] signature() {
+			return signature;
+		}
+
+		byte[] error() {
+			return error;
+		}
+	}
 }
@@ -33,4 +33,27 @@ public class VerifyResult extends Structure {
 	}
 
 	public static class VerifyResultByValue extends VerifyResult implements Structure.ByValue {}
+
+	/**
+	 * Reads only the verification result from native memory, and the error message only when the
+	 * signature did not verify.
+	 */
+	public static class VerifyStatusByValue extends VerifyResult implements Structure.ByValue {
+		private int status;
+		private byte[] error;
+
+		@Override
+		public void read() {
+			status = getPointer().getInt(fieldOffset("verified"));
+			error = status == 1 ? null : getPointer().getByteArray(fieldOffset("error_message"), 256);
+		}
+
+		int status() {
+			return status;
+		}
+
+		byte[] error() {
+			return error;
+		}
+	}
 }
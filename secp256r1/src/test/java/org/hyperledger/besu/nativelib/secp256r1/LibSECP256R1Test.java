@@ -18,12 +18,14 @@ package org.hyperledger.besu.nativelib.secp256r1;
 import org.apache.tuweni.bytes.Bytes;
 import org.apache.tuweni.units.bigints.UInt256;
 import org.assertj.core.util.Hexadecimals;
+import org.hyperledger.besu.nativelib.secp256r1.besuNativeEC.BesuNativeEC;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -189,4 +191,32 @@ public class LibSECP256R1Test {
                 invalidPublicKey.toArrayUnsafe()
         );
     }
+
+    @Test
+    public void verifyStatus_should_report_status_and_error_on_request() {
+        assertThat(BesuNativeEC.verifyStatus(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(),
+                publicKey.toArrayUnsafe(), false)).isEqualTo(BesuNativeEC.STATUS_SUCCESS);
+        assertThat(BesuNativeEC.verifyStatus(dataHash, invalidSignatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(),
+                publicKey.toArrayUnsafe(), false)).isEqualTo(BesuNativeEC.STATUS_FAIL);
+        assertThat(BesuNativeEC.verifyStatus(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(),
+                invalidPublicKey.toArrayUnsafe(), false)).isEqualTo(BesuNativeEC.STATUS_ERROR);
+        assertThat(BesuNativeEC.lastErrorMessage()).isNotEmpty();
+    }
+
+    @Test
+    public void keyRecoveryStatus_and_signStatus_should_fill_caller_buffers() {
+        byte[] signature = new byte[65];
+        assertThat(BesuNativeEC.signStatus(dataHash, privateKey.toArrayUnsafe(), publicKey.toArrayUnsafe(),
+                signature, 0)).isEqualTo(BesuNativeEC.STATUS_SUCCESS);
+
+        byte[] recovered = new byte[3 + 64];
+        assertThat(BesuNativeEC.keyRecoveryStatus(dataHash, Arrays.copyOf(signature, 32),
+                Arrays.copyOfRange(signature, 32, 64), signature[64], recovered, 3))
+                .isEqualTo(BesuNativeEC.STATUS_SUCCESS);
+        assertThat(Arrays.copyOfRange(recovered, 3, 67)).isEqualTo(publicKey.toArrayUnsafe());
+
+        assertThat(BesuNativeEC.keyRecoveryStatus(dataHash, signatureR.toArrayUnsafe(), signatureS.toArrayUnsafe(),
+                2, recovered, 3)).isEqualTo(BesuNativeEC.STATUS_ERROR);
+        assertThat(BesuNativeEC.lastErrorMessage()).isNotEmpty();
+    }
 }